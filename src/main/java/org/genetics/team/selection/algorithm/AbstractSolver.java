@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.beans.SolverMetrics;
+import org.genetics.team.selection.beans.Team;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * This class measures and reports the runs of a {@link Solver}, so that every solver emits the same metrics.
+ */
+abstract class AbstractSolver implements Solver {
+    private static Logger log = Logger.getLogger(AbstractSolver.class);
+    protected final Population population;
+    private final String name;
+    private SolverMetrics metrics;
+
+    AbstractSolver(Population population, String name) {
+        this.population = population;
+        this.name = name;
+    }
+
+    @Override
+    public final Team solve() {
+        long evaluations = this.population.getEvaluations();
+        long cpuTime = getCpuTime();
+        long wallTime = System.nanoTime();
+        SolverMetrics metrics = new SolverMetrics();
+        metrics.setSolver(this.name);
+        this.metrics = metrics;
+
+        Team fittest = run(metrics);
+
+        metrics.setWallTimeNanos(System.nanoTime() - wallTime);
+        metrics.setCpuTimeNanos(cpuTime < 0 ? metrics.getWallTimeNanos() : getCpuTime() - cpuTime);
+        metrics.setEvaluations(this.population.getEvaluations() - evaluations);
+        metrics.setBestFitness(fittest.getFitness());
+        log.info("Fittest Team Selected");
+        log.info("======================");
+        for (Employee employee : fittest.getEmployees()) {
+            log.info(employee.getName());
+        }
+        log.info("Team Fitness: " + fittest.getFitness());
+        log.info("Attribute averages: " + this.population.getAttributeAverages(fittest));
+        log.info(metrics);
+        return fittest;
+    }
+
+    /**
+     * Runs the solver.
+     *
+     * @param metrics {@link SolverMetrics} to record the iterations into
+     * @return the fittest {@link Team} found
+     */
+    protected abstract Team run(SolverMetrics metrics);
+
+    @Override
+    public SolverMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns the CPU time of the process, which includes the threads of parallel stages, or of the current thread
+     * when the process CPU time is not available.
+     *
+     * @return CPU time in nanoseconds, or -1 if CPU time is not supported
+     */
+    static long getCpuTime() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            long cpuTime = ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+            if (cpuTime >= 0) {
+                return cpuTime;
+            }
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.configuration.Configuration;
+
+import java.util.Arrays;
+
+/**
+ * This class tunes the mutation and crossover rates of a run every generation. It follows the one-fifth success rule:
+ * the rate of an operator grows while more than a fifth of its offspring improve on their parents and decays
+ * otherwise. It also tracks the gene diversity of the generation, i.e. how many distinct employees it holds compared to
+ * how many it could hold, and the generations since the best fitness last improved. A converged or stagnating
+ * generation gets more mutation and less crossover. Rates always stay within the configured bounds.
+ */
+class AdaptiveRateController {
+    private static final int STAGNATION_WINDOW = 5;
+    private static final double TARGET_SUCCESS_RATIO = 0.2;
+    private static final double MIN_DIVERSITY = 0.1;
+    private static final double STEP = 1.2;
+    private static final double IMPROVEMENT_THRESHOLD = 1e-9;
+
+    private final double minMutationRate;
+    private final double maxMutationRate;
+    private final double minCrossoverRate;
+    private final double maxCrossoverRate;
+    private final int[] stamps;
+    private final int selectableEmployees;
+    private int stamp;
+    private double mutationRate;
+    private double crossoverRate;
+    private double diversity;
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+    private int stagnantGenerations;
+    private int mutationSuccesses;
+    private int mutationTrials;
+    private int crossoverSuccesses;
+    private int crossoverTrials;
+
+    /**
+     * Constructs an {@link AdaptiveRateController} starting from the configured rates.
+     *
+     * @param configuration       {@link Configuration}
+     * @param rosterSize          number of employees in the input
+     * @param selectableEmployees number of employees which can be part of a team
+     */
+    AdaptiveRateController(Configuration configuration, int rosterSize, int selectableEmployees) {
+        this.mutationRate = configuration.getMutationRate();
+        this.crossoverRate = configuration.getCrossoverRate();
+        this.minMutationRate = valueOrDefault(configuration.getMinMutationRate(), Math.min(0.01, this.mutationRate));
+        this.maxMutationRate = valueOrDefault(configuration.getMaxMutationRate(), Math.max(0.3, this.mutationRate));
+        this.minCrossoverRate = valueOrDefault(configuration.getMinCrossoverRate(), Math.min(0.4, this.crossoverRate));
+        this.maxCrossoverRate = valueOrDefault(configuration.getMaxCrossoverRate(), Math.max(0.95, this.crossoverRate));
+        if (this.minMutationRate > this.maxMutationRate || this.minCrossoverRate > this.maxCrossoverRate) {
+            throw new IllegalArgumentException("Minimum rate is larger than the maximum rate");
+        }
+        this.stamps = new int[rosterSize];
+        this.selectableEmployees = selectableEmployees;
+    }
+
+    /**
+     * Records the outcome of a crossover, i.e. whether the offspring is fitter than both of its parents.
+     *
+     * @param success whether the offspring improved on its parents
+     */
+    void recordCrossover(boolean success) {
+        ++this.crossoverTrials;
+        if (success) {
+            ++this.crossoverSuccesses;
+        }
+    }
+
+    /**
+     * Records the outcome of a mutation, i.e. whether the mutated team is fitter than the original team.
+     *
+     * @param success whether the mutation improved the team
+     */
+    void recordMutation(boolean success) {
+        ++this.mutationTrials;
+        if (success) {
+            ++this.mutationSuccesses;
+        }
+    }
+
+    /**
+     * Updates the statistics with the given generation and recalculates the rates. An operator whose offspring
+     * improve on their parents more often than the target success ratio gets a higher rate, otherwise its rate
+     * decays. A converging generation pushes the mutation rate up and the crossover rate down regardless.
+     *
+     * @param generation  current generation
+     * @param bestFitness best fitness found so far
+     */
+    void update(GenerationStore generation, double bestFitness) {
+        if (bestFitness > this.bestFitness + IMPROVEMENT_THRESHOLD) {
+            this.bestFitness = bestFitness;
+            this.stagnantGenerations = 0;
+        } else {
+            ++this.stagnantGenerations;
+        }
+        this.diversity = calculateDiversity(generation);
+
+        this.mutationRate *= stepFactor(this.mutationSuccesses, this.mutationTrials);
+        this.crossoverRate *= stepFactor(this.crossoverSuccesses, this.crossoverTrials);
+        if (this.diversity < MIN_DIVERSITY || this.stagnantGenerations >= STAGNATION_WINDOW) {
+            this.mutationRate *= STEP;
+            this.crossoverRate /= STEP;
+        }
+        this.mutationRate = Math.max(this.minMutationRate, Math.min(this.maxMutationRate, this.mutationRate));
+        this.crossoverRate = Math.max(this.minCrossoverRate, Math.min(this.maxCrossoverRate, this.crossoverRate));
+        this.mutationSuccesses = 0;
+        this.mutationTrials = 0;
+        this.crossoverSuccesses = 0;
+        this.crossoverTrials = 0;
+    }
+
+    private static double stepFactor(int successes, int trials) {
+        if (trials == 0) {
+            return 1;
+        }
+        return (double) successes / trials > TARGET_SUCCESS_RATIO ? STEP : 1 / STEP;
+    }
+
+    /**
+     * Calculates the ratio between the distinct employees in the generation and the number of distinct employees the
+     * generation could hold.
+     */
+    private double calculateDiversity(GenerationStore generation) {
+        if (generation.size() == 0) {
+            return 0;
+        }
+        if (++this.stamp == 0) {
+            Arrays.fill(this.stamps, 0);
+            this.stamp = 1;
+        }
+        int distinct = 0;
+        int[] ordinals = generation.getGenes();
+        int teamSize = generation.getTeamSize();
+        int genes = generation.size() * teamSize;
+        for (int i = 0; i < genes; ++i) {
+            if (this.stamps[ordinals[i]] != this.stamp) {
+                this.stamps[ordinals[i]] = this.stamp;
+                ++distinct;
+            }
+        }
+        int possible = Math.min(genes, this.selectableEmployees);
+        if (possible <= teamSize) {
+            return 1;
+        }
+        return Math.max(0, Math.min(1, (double) (distinct - teamSize) / (possible - teamSize)));
+    }
+
+    double getMutationRate() {
+        return mutationRate;
+    }
+
+    double getCrossoverRate() {
+        return crossoverRate;
+    }
+
+    double getDiversity() {
+        return diversity;
+    }
+
+    private static double valueOrDefault(Double value, double defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+}
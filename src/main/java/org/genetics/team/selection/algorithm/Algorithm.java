@@ -17,32 +17,57 @@
 package org.genetics.team.selection.algorithm;
 
 import org.apache.log4j.Logger;
-import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.beans.SolverMetrics;
 import org.genetics.team.selection.beans.Team;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.genetics.team.selection.util.CommonConstants;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * This class contains the genetic algorithm related methods and exposes a public method runGA which will run genetic
- * operations based on given configurations.
+ * operations based on given configurations. It is the GA implementation of {@link Solver}.
  */
-public class Algorithm {
+public class Algorithm extends AbstractSolver {
     private static Logger log = Logger.getLogger(Algorithm.class);
-    private Population population;
-    private List<Team> generation;
-    private List<Team> currentGeneration;
-    private Team previousFittest;
-    private Team currentFittest;
-    private Integer fittestGen;
-    private final Double crossoverRate;
-    private final Double mutationRate;
-    private final Integer maxGenerations;
+    private GenerationStore generation;
+    private GenerationStore currentGeneration;
+    private GenerationStore survivors;
+    private int[] previousFittest;
+    private double previousFitness;
+    private int[] currentFittest;
+    private double currentFitness;
+    private int fittestGen;
+    private int generationCount;
+    private double crossoverRate;
+    private double mutationRate;
+    private final int maxGenerations;
+    private final int checkpointInterval;
+    private CrossoverOperator crossoverOperator;
+    private AdaptiveRateController rateController;
+    private int localSearchElites;
+    private int eventLogTopN;
     private Random random;
+    private int[] parent1;
+    private int[] parent2;
+    private int[] child1;
+    private int[] child2;
+    private double[] cumulativeFitness = new double[0];
+    private SurrogateModel surrogate;
+    private double surrogateFactor;
+    private GenerationStore parents;
+    private boolean[] pending;
+    private int[] pendingTeams;
+    private double[] predictions;
+    private long screenedOffspring;
+    private long exactOffspring;
+    private final LongHashSet survivorHashes = new LongHashSet();
 
     /**
      * Constructs an {@link Algorithm} object.
@@ -50,47 +75,452 @@ public class Algorithm {
      * @param population {@link Population}
      */
     public Algorithm(Population population) {
-        this.population = population;
+        super(population, "GA");
         this.generation = population.getInitialPopulation();
         this.crossoverRate = population.getConfiguration().getCrossoverRate();
         this.mutationRate = population.getConfiguration().getMutationRate();
         this.maxGenerations = population.getConfiguration().getGenerations();
+        Integer interval = population.getConfiguration().getCheckpointInterval();
+        this.checkpointInterval = interval == null || interval <= 0 ? CommonConstants.DEFAULT_CHECKPOINT_INTERVAL :
+                interval;
         this.random = new Random();
     }
 
+    /**
+     * Generates the initial population, or restores the last checkpoint when resuming is enabled.
+     */
+    @Override
+    public void initialize() {
+        if (Boolean.TRUE.equals(this.population.getConfiguration().getResume())) {
+            try {
+                resume();
+                return;
+            } catch (IOException | IllegalStateException e) {
+                log.warn("Unable to resume from the checkpoint. Starting a new run.", e);
+            }
+        }
+        this.population.generateInitialPopulation();
+        this.generation = this.population.getInitialPopulation();
+        if (this.population.getConfiguration().getRandomSeed() != null) {
+            // Derived from the reseeded population generator, so the stream differs from the population's one
+            this.random = new Random(this.population.getRandom().nextLong());
+        }
+    }
+
     /**
      * This method will run the genetic algorithm.
      */
     public void runGA() {
-        int gen = maxGenerations;
+        solve();
+    }
+
+    @Override
+    protected Team run(SolverMetrics metrics) {
         int populationSize = this.population.getConfiguration().getInitialPopulationSize();
         int selectionSize = Math.round(populationSize * 0.7f);
-        evaluateCurrentFittest(1);
-        while (--gen >= 0) {
-            log.info("Generation: " + (maxGenerations - gen));
+        if (this.generation == null) {
+            this.generation = this.population.getInitialPopulation();
+        }
+        int teamSize = this.generation.getTeamSize();
+        ZobristHash zobristHash = this.population.getZobristHash();
+        this.currentGeneration = new GenerationStore(teamSize, populationSize, zobristHash);
+        this.survivors = new GenerationStore(teamSize, populationSize, zobristHash);
+        this.parent1 = new int[teamSize];
+        this.parent2 = new int[teamSize];
+        this.child1 = new int[teamSize];
+        this.child2 = new int[teamSize];
+        CheckpointManager checkpointManager = createCheckpointManager();
+        this.crossoverOperator = CrossoverOperator.create(this.population.getConfiguration().getCrossoverOperator(),
+                this.population.getFeasibilityIndex());
+        this.rateController = createRateController();
+        LocalSearch localSearch = createLocalSearch();
+        createSurrogate(populationSize);
+        TerminationPolicy policy = TerminationPolicy.of(this.population.getConfiguration(), this.maxGenerations, 0);
+        if (this.generationCount == 0) {
+            evaluateCurrentFittest(1);
+        }
+        EventLog eventLog = createEventLog();
+        PhaseProfiler profiler = new PhaseProfiler(this.population);
+        policy.start();
+        while (!policy.shouldStop(this.generationCount, this.currentFitness)) {
+            int gen = ++this.generationCount;
+            log.info("Generation: " + gen);
+            profiler.beginGeneration();
+            profiler.beginPhase();
             selection(populationSize);
+            profiler.endPhase(gen, PhaseProfiler.SELECTION, this.currentGeneration.size());
+            if (this.surrogate != null) {
+                this.parents.clear();
+                for (int i = 0; i < this.currentGeneration.size(); ++i) {
+                    this.parents.add(this.currentGeneration, i);
+                }
+            }
+            profiler.beginPhase();
             crossover();
+            profiler.endPhase(gen, PhaseProfiler.CROSSOVER, this.currentGeneration.size());
+            profiler.beginPhase();
             mutate();
+            profiler.endPhase(gen, PhaseProfiler.MUTATION, this.currentGeneration.size());
+            if (this.surrogate != null) {
+                profiler.beginPhase();
+                screenOffspring();
+                profiler.endPhase(gen, PhaseProfiler.SCREENING, this.currentGeneration.size());
+            }
+            profiler.beginPhase();
             selectFittest(selectionSize);
-            int currentGenerationSize = this.generation.size();
-            for (int i = 0; i < populationSize - currentGenerationSize; ++i) {
-                this.generation.add(this.population.generateTeam());
+            profiler.endPhase(gen, PhaseProfiler.SURVIVOR_SELECTION, this.generation.size());
+            if (localSearch != null) {
+                profiler.beginPhase();
+                localSearch.refine(this.generation, this.localSearchElites);
+                profiler.endPhase(gen, PhaseProfiler.LOCAL_SEARCH, this.localSearchElites);
+            }
+            profiler.beginPhase();
+            int refilled = this.generation.size();
+            this.population.sampleTeams(this.generation, populationSize);
+            profiler.endPhase(gen, PhaseProfiler.REFILL, this.generation.size());
+            if (this.surrogate != null) {
+                // Random teams are unbiased samples of the fitness, unlike the offspring the surrogate picked
+                trainSurrogate(this.generation, refilled);
             }
-            evaluateCurrentFittest(maxGenerations - gen);
-            if ((maxGenerations - gen) > fittestGen + 10) {
-                if (this.currentFittest.getFitness() <= this.previousFittest.getFitness() * 1.01) {
+            evaluateCurrentFittest(gen);
+            if (this.rateController != null) {
+                this.rateController.update(this.generation, this.currentFitness);
+                this.mutationRate = this.rateController.getMutationRate();
+                this.crossoverRate = this.rateController.getCrossoverRate();
+                log.debug("Diversity: " + this.rateController.getDiversity() + ", mutation rate: " + this.mutationRate
+                        + ", crossover rate: " + this.crossoverRate);
+            }
+            profiler.endGeneration(gen, this.generation.size(), this.currentFitness, this.mutationRate,
+                    this.crossoverRate);
+            if (eventLog != null) {
+                logGeneration(eventLog, gen);
+            }
+            if (checkpointManager != null && gen % this.checkpointInterval == 0) {
+                checkpoint(checkpointManager, false);
+            }
+            if (gen > fittestGen + 10) {
+                if (this.currentFitness <= this.previousFitness * 1.01) {
                     break;
                 } else {
-                    this.previousFittest = this.currentFittest;
+                    System.arraycopy(this.currentFittest, 0, this.previousFittest, 0, this.currentFittest.length);
+                    this.previousFitness = this.currentFitness;
                 }
             }
         }
-        log.info("Fittest Team Selected");
-        log.info("======================");
-        for (Employee employee : this.currentFittest.getEmployees()) {
-            log.info(employee.getName());
+        if (policy.getReason() != null) {
+            log.info("Stopped in generation " + this.generationCount + ": " + policy.getReason());
+        }
+        if (checkpointManager != null) {
+            // Kept for seeding later runs with its elites, but not resumed
+            checkpoint(checkpointManager, true);
+            checkpointManager.close();
+        }
+        if (this.surrogate != null && this.screenedOffspring > 0) {
+            log.info("Surrogate screened " + this.screenedOffspring + " offspring and evaluated "
+                    + this.exactOffspring + " of them exactly, mean absolute error "
+                    + this.surrogate.getMeanAbsoluteError() + " at a mean fitness of "
+                    + this.surrogate.getMeanFitness());
+        }
+        if (eventLog != null) {
+            logRunFinished(eventLog, policy.getReason() == null ? "converged" : policy.getReason());
+            eventLog.close();
+        }
+        metrics.setIterations(this.generationCount);
+        return this.population.toTeam(this.currentFittest.clone(), this.currentFitness);
+    }
+
+    /**
+     * Restores the state of the run from the last checkpoint, so that {@link #runGA()} continues from the generation
+     * the checkpoint was taken.
+     *
+     * @throws IOException if the checkpoint cannot be read
+     */
+    public void resume() throws IOException {
+        String checkpointPath = this.population.getConfiguration().getCheckpointPath();
+        if (checkpointPath == null) {
+            throw new IllegalStateException("Checkpoint path is not configured. Unable to resume");
+        }
+        Checkpoint checkpoint = CheckpointManager.read(checkpointPath);
+        this.population.checkCompatible(checkpoint);
+        this.population.prepare();
+        this.generation = new GenerationStore(this.population.getFeasibilityIndex().getTeamSize(),
+                checkpoint.getTeams().length, this.population.getZobristHash());
+        for (int[] ordinals : checkpoint.getTeams()) {
+            this.population.repair(ordinals);
+            this.generation.add(ordinals, 0);
+        }
+        this.population.evaluateAll(this.generation, 0);
+        this.currentFittest = checkpoint.getCurrentFittest();
+        this.currentFitness = this.population.repairAndEvaluate(this.currentFittest);
+        this.previousFittest = checkpoint.getPreviousFittest();
+        this.previousFitness = this.population.repairAndEvaluate(this.previousFittest);
+        this.fittestGen = checkpoint.getFittestGen();
+        this.generationCount = checkpoint.getGeneration();
+        this.random = checkpoint.getAlgorithmRandom();
+        this.population.setRandom(checkpoint.getPopulationRandom());
+        log.info("Resuming from generation " + this.generationCount + " of checkpoint " + checkpointPath);
+    }
+
+    /**
+     * Creates the controller of the adaptive rates, if adaptive rates are enabled.
+     *
+     * @return {@link AdaptiveRateController} or null if the configured rates are fixed
+     */
+    private AdaptiveRateController createRateController() {
+        if (!Boolean.TRUE.equals(this.population.getConfiguration().getAdaptiveRates())) {
+            return null;
+        }
+        return new AdaptiveRateController(this.population.getConfiguration(), this.population.getRosterSize(),
+                this.population.getFeasibilityIndex().available());
+    }
+
+    /**
+     * Creates the local search stage, if a local search strategy is configured.
+     *
+     * @return {@link LocalSearch} or null if local search is disabled
+     */
+    private LocalSearch createLocalSearch() {
+        Configuration configuration = this.population.getConfiguration();
+        String strategy = configuration.getLocalSearch();
+        if (strategy == null || LocalSearch.Strategy.NONE.name().equalsIgnoreCase(strategy)) {
+            return null;
+        }
+        Integer elites = configuration.getLocalSearchElites();
+        Integer maxMoves = configuration.getLocalSearchMaxMoves();
+        this.localSearchElites = elites == null ? CommonConstants.DEFAULT_LOCAL_SEARCH_ELITES : elites;
+        return new LocalSearch(this.population, LocalSearch.Strategy.valueOf(strategy.trim().toUpperCase()),
+                maxMoves == null ? CommonConstants.DEFAULT_LOCAL_SEARCH_MAX_MOVES : maxMoves);
+    }
+
+    /**
+     * Creates the surrogate model of a run and trains it with the current generation, if offspring pre-screening is
+     * enabled.
+     *
+     * @param populationSize size of the population
+     */
+    private void createSurrogate(int populationSize) {
+        Double factor = this.population.getConfiguration().getSurrogateFactor();
+        if (factor == null || factor <= 1) {
+            this.surrogate = null;
+            return;
         }
-        log.info("Team Fitness: " + this.currentFittest.getFitness());
+        this.surrogateFactor = factor;
+        this.parents = new GenerationStore(this.generation.getTeamSize(), populationSize,
+                this.population.getZobristHash());
+        this.pending = new boolean[populationSize];
+        this.pendingTeams = new int[populationSize];
+        this.predictions = new double[populationSize];
+        this.surrogate = new SurrogateModel(this.population.getRosterSize());
+        trainSurrogate(this.generation, 0);
+    }
+
+    /**
+     * Trains the surrogate with the exactly evaluated teams of a store, starting from the given team.
+     */
+    private void trainSurrogate(GenerationStore store, int from) {
+        int teamSize = store.getTeamSize();
+        int[] genes = store.getGenes();
+        for (int team = from; team < store.size(); ++team) {
+            this.surrogate.train(genes, team * teamSize, teamSize, store.getFitness(team));
+        }
+    }
+
+    /**
+     * Creates the checkpoint writer of a run, if checkpointing is configured.
+     *
+     * @return {@link CheckpointManager} or null if checkpointing is disabled
+     */
+    private CheckpointManager createCheckpointManager() {
+        String checkpointPath = this.population.getConfiguration().getCheckpointPath();
+        return checkpointPath == null ? null : new CheckpointManager(checkpointPath);
+    }
+
+    /**
+     * Opens the event log of a run and records the start of the run, if an event log is configured.
+     *
+     * @return {@link EventLog} or null if the event log is disabled or cannot be opened
+     */
+    private EventLog createEventLog() {
+        Configuration configuration = this.population.getConfiguration();
+        if (configuration.getEventLogPath() == null) {
+            return null;
+        }
+        Integer topN = configuration.getEventLogTopN();
+        this.eventLogTopN = topN == null || topN <= 0 ? CommonConstants.DEFAULT_EVENT_LOG_TOP_N : topN;
+        EventLog eventLog;
+        try {
+            eventLog = new EventLog(configuration.getEventLogPath());
+        } catch (IOException e) {
+            log.error("Unable to open the event log " + configuration.getEventLogPath() + ". Running without it", e);
+            return null;
+        }
+        String teamDefinition = this.population.getTeamDefinition().entrySet().stream()
+                .map(entry -> EventLog.quote(entry.getKey()) + ":" + entry.getValue())
+                .collect(Collectors.joining(",", "{", "}"));
+        long time = System.currentTimeMillis();
+        int startGeneration = this.generationCount;
+        eventLog.emit(() -> "{\"event\":\"start\",\"time\":" + time + ",\"generation\":" + startGeneration
+                + ",\"teamDefinition\":" + teamDefinition + "}");
+        return eventLog;
+    }
+
+    /**
+     * Records the statistics, the attribute averages of all members and the top teams of a generation. Only the
+     * values are captured here; the event is formatted by the writer.
+     *
+     * @param eventLog {@link EventLog}
+     * @param gen      generation
+     */
+    private void logGeneration(EventLog eventLog, int gen) {
+        double best = Double.NEGATIVE_INFINITY;
+        double worst = Double.POSITIVE_INFINITY;
+        double sum = 0;
+        for (int i = 0; i < this.generation.size(); ++i) {
+            best = Math.max(best, this.generation.getFitness(i));
+            worst = Math.min(worst, this.generation.getFitness(i));
+            sum += this.generation.getFitness(i);
+        }
+        double mean = sum / this.generation.size();
+        double bestFitness = best;
+        double worstFitness = worst;
+        int[] topIndexes = topTeams(this.eventLogTopN);
+        int[][] top = new int[topIndexes.length][];
+        double[] topFitness = new double[topIndexes.length];
+        for (int i = 0; i < topIndexes.length; ++i) {
+            top[i] = this.generation.getTeam(topIndexes[i]);
+            topFitness[i] = this.generation.getFitness(topIndexes[i]);
+        }
+        Map<String, Double> attributeAverages = this.population.getAttributeAverages(this.generation);
+        long time = System.currentTimeMillis();
+        long evaluations = this.population.getEvaluations();
+        double mutationRate = this.mutationRate;
+        double crossoverRate = this.crossoverRate;
+        RosterAccessor roster = this.population.getRoster();
+        eventLog.emit(() -> {
+            StringBuilder builder = new StringBuilder(128 + top.length * 64);
+            builder.append("{\"event\":\"generation\",\"time\":").append(time)
+                    .append(",\"generation\":").append(gen);
+            EventLog.appendNumber(builder.append(",\"best\":"), bestFitness);
+            EventLog.appendNumber(builder.append(",\"mean\":"), mean);
+            EventLog.appendNumber(builder.append(",\"worst\":"), worstFitness);
+            builder.append(",\"evaluations\":").append(evaluations);
+            EventLog.appendNumber(builder.append(",\"mutationRate\":"), mutationRate);
+            EventLog.appendNumber(builder.append(",\"crossoverRate\":"), crossoverRate);
+            builder.append(",\"attributeAverages\":{");
+            String separator = "";
+            for (Map.Entry<String, Double> entry : attributeAverages.entrySet()) {
+                EventLog.appendNumber(builder.append(separator).append(EventLog.quote(entry.getKey())).append(':'),
+                        entry.getValue());
+                separator = ",";
+            }
+            builder.append("},\"top\":[");
+            for (int i = 0; i < top.length; ++i) {
+                appendTeam(builder.append(i == 0 ? "" : ","), top[i], topFitness[i], roster);
+            }
+            return builder.append("]}").toString();
+        });
+    }
+
+    /**
+     * Records the end of a run with the fittest team.
+     *
+     * @param eventLog {@link EventLog}
+     * @param reason   why the run stopped
+     */
+    private void logRunFinished(EventLog eventLog, String reason) {
+        long time = System.currentTimeMillis();
+        int generations = this.generationCount;
+        long evaluations = this.population.getEvaluations();
+        int[] fittest = this.currentFittest.clone();
+        double fitness = this.currentFitness;
+        RosterAccessor roster = this.population.getRoster();
+        eventLog.emit(() -> appendTeam(new StringBuilder("{\"event\":\"end\",\"time\":").append(time)
+                .append(",\"generations\":").append(generations)
+                .append(",\"evaluations\":").append(evaluations)
+                .append(",\"reason\":").append(EventLog.quote(reason))
+                .append(",\"fittest\":"), fittest, fitness, roster).append('}').toString());
+    }
+
+    private static StringBuilder appendTeam(StringBuilder builder, int[] ordinals, double fitness,
+                                            RosterAccessor roster) {
+        EventLog.appendNumber(builder.append("{\"fitness\":"), fitness).append(",\"ids\":[");
+        for (int i = 0; i < ordinals.length; ++i) {
+            builder.append(i == 0 ? "" : ",").append(roster.getId(ordinals[i]));
+        }
+        return builder.append("]}");
+    }
+
+    /**
+     * Returns the fittest distinct teams of the generation, fittest first.
+     *
+     * @param n maximum number of teams
+     * @return indexes of the teams in the generation
+     */
+    private int[] topTeams(int n) {
+        int[] top = new int[n + 1];
+        int count = 0;
+        for (int team = 0; team < this.generation.size(); ++team) {
+            double fitness = this.generation.getFitness(team);
+            if (count == n && fitness <= this.generation.getFitness(top[n - 1])) {
+                continue;
+            }
+            if (containsTeam(top, count, team)) {
+                continue;
+            }
+            int position = count;
+            while (position > 0 && this.generation.getFitness(top[position - 1]) < fitness) {
+                top[position] = top[position - 1];
+                --position;
+            }
+            top[position] = team;
+            count = Math.min(n, count + 1);
+        }
+        return Arrays.copyOf(top, count);
+    }
+
+    /**
+     * Checks whether a team with the same members is among the given teams.
+     */
+    private boolean containsTeam(int[] teams, int count, int team) {
+        for (int i = 0; i < count; ++i) {
+            if (this.generation.sameTeam(teams[i], team)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes a snapshot of the current state and hands it over to the checkpoint writer.
+     *
+     * @param checkpointManager {@link CheckpointManager}
+     * @param finished          whether the run has ended
+     */
+    private void checkpoint(CheckpointManager checkpointManager, boolean finished) {
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.setGeneration(this.generationCount);
+        checkpoint.setFittestGen(this.fittestGen);
+        checkpoint.setRosterSize(this.population.getRosterSize());
+        checkpoint.setRosterDigest(this.population.getRosterDigest());
+        checkpoint.setTeamDefinition(new LinkedHashMap<>(this.population.getTeamDefinition()));
+        checkpoint.setAttributeWeights(new LinkedHashMap<>(this.population.getAttributeWeights()));
+        checkpoint.setFinished(finished);
+        int[][] teams = new int[this.generation.size()][];
+        for (int i = 0; i < teams.length; ++i) {
+            teams[i] = this.generation.getTeam(i);
+        }
+        checkpoint.setTeams(teams);
+        checkpoint.setFitness(this.generation.getFitness());
+        checkpoint.setCurrentFittest(this.currentFittest.clone());
+        checkpoint.setPreviousFittest(this.previousFittest.clone());
+        try {
+            checkpoint.setAlgorithmRandom(this.random);
+            checkpoint.setPopulationRandom(this.population.getRandom());
+        } catch (IOException e) {
+            log.error("Error occurred when capturing the random generator state. Skipping checkpoint", e);
+            return;
+        }
+        checkpointManager.submit(checkpoint);
     }
 
     /**
@@ -100,149 +530,280 @@ public class Algorithm {
      */
     private void evaluateCurrentFittest(int gen) {
         if (currentFittest == null) {
-            this.currentFittest = this.generation.get(0);
+            this.currentFittest = this.generation.getTeam(0);
+            this.currentFitness = this.generation.getFitness(0);
         }
         if (gen == 1) {
-            this.previousFittest = this.currentFittest;
+            this.previousFittest = this.currentFittest.clone();
+            this.previousFitness = this.currentFitness;
         }
-        this.generation.stream().filter(team -> team.getFitness() > this.currentFittest.getFitness()).forEach(team -> {
-            if (team.getFitness() > this.currentFittest.getFitness()) {
-                this.currentFittest = team;
+        for (int i = 0; i < this.generation.size(); ++i) {
+            if (this.generation.getFitness(i) > this.currentFitness) {
+                this.generation.copyTeam(i, this.currentFittest);
+                this.currentFitness = this.generation.getFitness(i);
+                this.fittestGen = gen;
             }
-            this.fittestGen = gen;
-        });
+        }
     }
 
     /**
      * This method selects individuals based on Roulette Wheel selection mechanism and updates the current generation
-     * with selected chromosomes.
+     * with selected chromosomes. The wheel is a running sum of the fitness, so each spin is a binary search.
      *
      * @param populationSize size of the population.
      */
     private void selection(int populationSize) {
-        List<Team> shuffledPopulation = new ArrayList<>();
+        int size = this.generation.size();
+        if (this.cumulativeFitness.length < size) {
+            this.cumulativeFitness = new double[size];
+        }
         double sumFitness = 0;
-        for (Team team : this.generation) {
-            sumFitness += team.getFitness();
+        for (int i = 0; i < size; ++i) {
+            sumFitness += this.generation.getFitness(i);
+            this.cumulativeFitness[i] = sumFitness;
         }
+        this.currentGeneration.clear();
         while (--populationSize >= 0) {
-            double temp = 0;
             double rand = random.nextDouble() * sumFitness;
-            for (Team team : this.generation) {
-                temp += team.getFitness();
-                if (temp >= rand) {
-                    shuffledPopulation.add(team);
-                    log.info("Selected Team " + team.getId());
-                    break;
+            int low = 0;
+            int high = size - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (this.cumulativeFitness[mid] >= rand) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
                 }
             }
+            this.currentGeneration.add(this.generation, low);
+            log.debug("Selected Team-" + low);
         }
-        this.currentGeneration = shuffledPopulation;
     }
 
     /**
-     * This method does single point crossover operation on selected chromosomes and updates the current generation with
-     * crossed population.
+     * This method recombines pairs of selected chromosomes with the configured {@link CrossoverOperator} and updates
+     * the current generation with the offspring. Pairs which are not crossed, and a last unpaired chromosome, are
+     * cloned.
      */
     private void crossover() {
-        List<Team> crossedPopulation = new ArrayList<>();
-        int length = this.currentGeneration.get(0).getEmployees().size() - 1;
-        for (int i = 0; i < this.currentGeneration.size(); i = i + 2) {
-            if (random.nextDouble() <= this.crossoverRate) {
-                int crossoverPoint = random.nextInt(length);
-                if (crossoverPoint > 0 && crossoverPoint < length) {
-                    log.info("Crossover: Team-" + i + " with id: " + this.currentGeneration.get(i).getId() + " & Team-"
-                            + (i + 2) + " with id: " + this.currentGeneration.get(i + 1).getId() + " from position: "
-                            + crossoverPoint);
-                    List<Employee> team1_list = this.currentGeneration.get(i).getEmployees();
-                    List<Employee> team2_list = this.currentGeneration.get(i + 1).getEmployees();
-
-                    List<Employee> child1_list = new ArrayList<>();
-                    List<Employee> child2_list = new ArrayList<>();
-
-                    for (int j = 0; j < crossoverPoint; ++j) {
-                        child1_list.add(team1_list.get(j));
-                        child2_list.add(team2_list.get(j));
-                    }
-
-                    for (int j = crossoverPoint; j < team1_list.size(); ++j) {
-                        child1_list.add(team1_list.get(j));
-                        child2_list.add(team2_list.get(j));
-                    }
-                    crossedPopulation.add(this.population.generateTeam(child1_list));
-                    crossedPopulation.add(this.population.generateTeam(child2_list));
-                    continue;
+        int size = this.currentGeneration.size();
+        for (int i = 0; i + 1 < size; i = i + 2) {
+            if (!this.currentGeneration.sameTeam(i, i + 1) && random.nextDouble() <= this.crossoverRate) {
+                log.debug("Crossover: Team-" + i + " & Team-" + (i + 1));
+                double fitness1 = this.currentGeneration.getFitness(i);
+                double fitness2 = this.currentGeneration.getFitness(i + 1);
+                this.currentGeneration.copyTeam(i, this.parent1);
+                this.currentGeneration.copyTeam(i + 1, this.parent2);
+                this.crossoverOperator.cross(this.parent1, this.parent2, this.child1, this.child2, random);
+                double offspring1 = toOffspring(i, this.child1, fitness1, fitness2);
+                double offspring2 = toOffspring(i + 1, this.child2, fitness1, fitness2);
+                // With pre-screening, the success of the operators is judged by the predicted fitness
+                if (this.rateController != null) {
+                    double parentFitness = Math.max(fitness1, fitness2);
+                    this.rateController.recordCrossover(offspring1 > parentFitness);
+                    this.rateController.recordCrossover(offspring2 > parentFitness);
                 }
+                this.currentGeneration.set(i, this.child1, offspring1);
+                this.currentGeneration.set(i + 1, this.child2, offspring2);
+                continue;
             }
-            log.info("Cloning: Team-" + i + " with id: " + this.currentGeneration.get(i).getId() + " & Team-" + (i + 2)
-                    + " with id: " + this.currentGeneration.get(i + 1).getId());
-            crossedPopulation.add(this.currentGeneration.get(i));
-            crossedPopulation.add(this.currentGeneration.get(i + 1));
+            log.debug("Cloning: Team-" + i + " & Team-" + (i + 1));
         }
+    }
 
-        this.currentGeneration = crossedPopulation;
+    /**
+     * Scores an offspring. An offspring identical to one of its parents takes the fitness of the parent instead of
+     * being scored again. With pre-screening, other offspring get their predicted fitness until they are screened.
+     *
+     * @param team     index of the offspring in the current generation
+     * @param child    employee ordinals of the offspring, repaired in place
+     * @param fitness1 fitness of the first parent
+     * @param fitness2 fitness of the second parent
+     * @return fitness of the offspring
+     */
+    private double toOffspring(int team, int[] child, double fitness1, double fitness2) {
+        if (Arrays.equals(child, this.parent1)) {
+            return fitness1;
+        }
+        if (Arrays.equals(child, this.parent2)) {
+            return fitness2;
+        }
+        if (this.surrogate == null) {
+            return this.population.repairAndEvaluate(child);
+        }
+        this.population.repair(child);
+        return predict(team, child);
     }
 
     /**
-     * This method does mutation operation on selected chromosomes and update the current generation.
+     * Predicts the fitness of an offspring with the surrogate and marks it for screening.
+     *
+     * @param team  index of the offspring in the current generation
+     * @param child employee ordinals of the offspring
+     * @return predicted fitness
      */
-    private void mutate() {
-        List<Team> toRemove = new ArrayList<>(this.currentGeneration.size());
-        List<List<Employee>> toAdd = new ArrayList<>(this.currentGeneration.size());
-        for (Team team : this.currentGeneration) {
-            boolean isMutated = false;
-            List<Employee> employeeList = team.getEmployees();
-            List<Integer> removeIndexes = new ArrayList<>(employeeList.size());
-            for (int i = 0; i < employeeList.size(); ++i) {
-                if (random.nextDouble() <= this.mutationRate) {
-                    isMutated = true;
-                    removeIndexes.add(i);
-                    log.info("Mutating Employee-" + i + " with id " + employeeList.get(i).getId() + " in Team " + team
-                            .getId());
-                }
+    private double predict(int team, int[] child) {
+        this.pending[team] = true;
+        return this.surrogate.predict(child, 0, child.length);
+    }
+
+    /**
+     * Evaluates the offspring with the highest predicted fitness exactly, one in every surrogate factor of them. The
+     * other offspring are reverted to the parents they replaced, so the generation only holds exact fitness values.
+     * The exact evaluations measure the error of the surrogate and then train it.
+     */
+    private void screenOffspring() {
+        int size = this.currentGeneration.size();
+        int count = 0;
+        for (int team = 0; team < size; ++team) {
+            if (this.pending[team]) {
+                this.pendingTeams[count++] = team;
+                this.predictions[team] = this.currentGeneration.getFitness(team);
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        int exact = (int) Math.ceil(count / this.surrogateFactor);
+        GenerationStore.sortDescending(this.pendingTeams, this.predictions, 0, count);
+        int[] offspring = this.child1;
+        for (int i = 0; i < count; ++i) {
+            int team = this.pendingTeams[i];
+            this.pending[team] = false;
+            if (i < exact) {
+                this.currentGeneration.copyTeam(team, offspring);
+                double fitness = this.population.evaluate(offspring);
+                this.surrogate.recordError(this.predictions[team], fitness);
+                this.surrogate.train(offspring, 0, offspring.length, fitness);
+                this.currentGeneration.set(team, offspring, fitness, this.currentGeneration.getHash(team));
+            } else {
+                this.parents.copyTeam(team, offspring);
+                this.currentGeneration.set(team, offspring, this.parents.getFitness(team), this.parents.getHash(team));
             }
+        }
+        this.screenedOffspring += count;
+        this.exactOffspring += exact;
+        log.debug("Screened " + count + " offspring, evaluated " + exact + " exactly, surrogate mean absolute error "
+                + this.surrogate.getMeanAbsoluteError());
+    }
 
-            if (isMutated) {
-                List<Employee> mutatedTeam = new ArrayList<>();
-                for (int i = 0; i < employeeList.size(); ++i) {
-                    if (!removeIndexes.contains(i)) {
-                        mutatedTeam.add(employeeList.get(i));
-                    }
-                }
-                for (int index : removeIndexes) {
-                    String type = employeeList.get(index).getEmployeeType();
-                    List<Integer> typeList = new ArrayList<>();
-                    typeList.addAll(mutatedTeam.stream().filter(employee -> type.equals(employee.getEmployeeType()))
-                            .map(Employee::getId).collect(Collectors.toList()));
-                    mutatedTeam.add(index, this.population.generateEmployee(type, typeList));
+    /**
+     * This method does mutation operation on selected chromosomes and update the current generation. The genes of the
+     * generation are treated as one flattened sequence and the gap to the next mutated gene is drawn from a geometric
+     * distribution, so the cost scales with the number of mutations rather than the number of genes. A team is copied
+     * out on its first mutation and written back once all of its mutations are applied, and its hash is updated with
+     * every replaced member.
+     */
+    private void mutate() {
+        int size = this.currentGeneration.size();
+        if (size == 0 || this.mutationRate <= 0) {
+            return;
+        }
+        FeasibilityIndex index = this.population.getFeasibilityIndex();
+        int teamSize = index.getTeamSize();
+        long genes = (long) size * teamSize;
+        double logComplement = Math.log1p(-Math.min(this.mutationRate, 1.0));
+        int mutatedIndex = -1;
+        int[] mutated = this.child1;
+        ZobristHash zobristHash = this.population.getZobristHash();
+        long hash = 0;
+        long position = nextMutationGap(this.random, logComplement, genes);
+        while (position < genes) {
+            int teamIndex = (int) (position / teamSize);
+            int gene = (int) (position % teamSize);
+            if (teamIndex != mutatedIndex) {
+                replaceMutated(mutatedIndex, mutated, hash);
+                mutatedIndex = teamIndex;
+                this.currentGeneration.copyTeam(teamIndex, mutated);
+                hash = this.currentGeneration.getHash(teamIndex);
+            }
+            int ordinal = mutated[gene];
+            if (!index.isLocked(ordinal)) {
+                int replacement = this.population.generateEmployee(index.getTypeOf(ordinal), mutated);
+                if (replacement >= 0) {
+                    log.debug("Mutating Employee-" + gene + " with ordinal " + ordinal + " in Team-" + teamIndex);
+                    mutated[gene] = replacement;
+                    hash = zobristHash.replace(hash, ordinal, replacement);
                 }
-                toRemove.add(team);
-                toAdd.add(mutatedTeam);
             }
+            position += 1 + nextMutationGap(this.random, logComplement, genes);
         }
+        replaceMutated(mutatedIndex, mutated, hash);
+    }
 
-        for (Team team : toRemove) {
-            this.currentGeneration.remove(team);
+    /**
+     * Draws the number of genes skipped before the next mutated gene.
+     *
+     * @param random        random number generator
+     * @param logComplement natural logarithm of one minus the mutation rate
+     * @param limit         upper bound of the returned gap
+     * @return number of skipped genes
+     */
+    static long nextMutationGap(Random random, double logComplement, long limit) {
+        if (logComplement == Double.NEGATIVE_INFINITY) {
+            return 0;
         }
+        double gap = Math.floor(Math.log(1.0 - random.nextDouble()) / logComplement);
+        return gap >= limit ? limit : (long) gap;
+    }
 
-        this.currentGeneration.addAll(toAdd.stream().map(employees -> this.population.generateTeam(employees))
-                .collect(Collectors.toList()));
+    /**
+     * Replaces a team of the current generation with its mutated copy.
+     *
+     * @param teamIndex index of the team in the current generation, or -1 if there is none
+     * @param mutated   employee ordinals of the mutated team
+     * @param hash      {@link ZobristHash} of the mutated team
+     */
+    private void replaceMutated(int teamIndex, int[] mutated, long hash) {
+        if (teamIndex < 0 || this.currentGeneration.equalsTeam(teamIndex, mutated)) {
+            return;
+        }
+        if (this.population.repair(mutated)) {
+            hash = this.population.getZobristHash().hash(mutated);
+        }
+        double fitness = this.surrogate == null ? this.population.evaluate(mutated) : predict(teamIndex, mutated);
+        if (this.rateController != null) {
+            this.rateController.recordMutation(fitness > this.currentGeneration.getFitness(teamIndex));
+        }
+        this.currentGeneration.set(teamIndex, mutated, fitness, hash);
     }
 
     /**
-     * This method selects the best candidates from the immediate generations to continue to send to the next generation
+     * This method selects the best candidates from the immediate generations to continue to send to the next
+     * generation. The selected teams are ordered from the fittest. Only the first of teams with the same members is
+     * kept, so clones do not crowd out the rest of the generation; the free places are filled with random teams.
      *
      * @param selectionSize number of teams to select.
      */
     private void selectFittest(int selectionSize) {
         log.info("Selecting " + selectionSize + " fittest teams");
-        List<Team> combinedGen = Stream.concat(this.generation.stream(), this.currentGeneration.stream())
-                .collect(Collectors.toList());
-        Collections.sort(combinedGen, Team::compareTo);
-        this.generation.clear();
-
-        for (int i = combinedGen.size() - 1; i >= combinedGen.size() - selectionSize; --i) {
-            this.generation.add(combinedGen.get(i));
+        int generationSize = this.generation.size();
+        int combinedSize = generationSize + this.currentGeneration.size();
+        int[] indexes = new int[combinedSize];
+        double[] fitness = new double[combinedSize];
+        for (int i = 0; i < combinedSize; ++i) {
+            indexes[i] = i;
+            fitness[i] = i < generationSize ? this.generation.getFitness(i) :
+                    this.currentGeneration.getFitness(i - generationSize);
+        }
+        GenerationStore.sortDescending(indexes, fitness, 0, combinedSize);
+        this.survivors.clear();
+        this.survivorHashes.clear(selectionSize);
+        int duplicates = 0;
+        for (int i = 0; i < combinedSize && this.survivors.size() < selectionSize; ++i) {
+            int team = indexes[i];
+            GenerationStore source = team < generationSize ? this.generation : this.currentGeneration;
+            int sourceTeam = team < generationSize ? team : team - generationSize;
+            // A repeated hash is almost always a duplicate; the members are compared to rule out a collision
+            if (this.survivorHashes.add(source.getHash(sourceTeam)) || !this.survivors.contains(source, sourceTeam)) {
+                this.survivors.add(source, sourceTeam);
+            } else {
+                ++duplicates;
+            }
         }
+        log.debug("Dropped " + duplicates + " duplicate teams");
+        GenerationStore previous = this.generation;
+        this.generation = this.survivors;
+        this.survivors = previous;
     }
 }
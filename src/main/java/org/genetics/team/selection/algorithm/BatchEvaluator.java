@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class scores many teams at once. Teams are given as one flat array of employee ordinals, team after team, as
+ * kept by a generation.
+ * <p>
+ * Two objectives are covered: the weighted average, which gathers the precomputed weighted score of every member, and
+ * the per-attribute sums, which add up the attribute rows of the members and can be turned into the weighted average
+ * for any attribute weight vector. {@link #weightedAveragesScalar} is the reference implementation applying the
+ * weights to every member instead.
+ * <p>
+ * The kernels use the incubating Vector API when the JVM is started with {@code --add-modules jdk.incubator.vector}
+ * on Java 17 or later, and plain loops, which the JIT compiler unrolls and may vectorize, otherwise.
+ */
+public final class BatchEvaluator {
+    private static final String VECTOR_API = "jdk.incubator.vector.DoubleVector";
+    private static final String VECTOR_KERNEL = "org.genetics.team.selection.algorithm.VectorKernel";
+    private static Logger log = Logger.getLogger(BatchEvaluator.class);
+    private static final BatchKernel KERNEL = loadKernel();
+    private static final boolean VECTORIZED = KERNEL.getClass() != ScalarKernel.class;
+
+    private BatchEvaluator() {
+    }
+
+    /**
+     * Loads the Vector API kernel if the JVM provides the API, and falls back to the scalar kernel. The vector kernel
+     * runs once on a small batch, so a JVM whose incubating API does not match fails here rather than in a run.
+     */
+    private static BatchKernel loadKernel() {
+        ClassLoader loader = BatchEvaluator.class.getClassLoader();
+        try {
+            Class.forName(VECTOR_API, false, loader);
+            BatchKernel kernel = (BatchKernel) Class.forName(VECTOR_KERNEL, true, loader)
+                    .getDeclaredConstructor().newInstance();
+            kernel.attributeSums(new int[]{0, 1}, 2, 0, 1, new int[]{1, 2}, 1, new long[1]);
+            kernel.weightedAverages(new long[]{3}, 2, 0, 1, new double[]{1}, 1, new double[1]);
+            log.debug("Batch evaluation uses the Vector API");
+            return kernel;
+        } catch (ClassNotFoundException e) {
+            return new ScalarKernel();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            log.debug("The Vector API is not usable, batch evaluation uses scalar loops: " + e);
+            return new ScalarKernel();
+        }
+    }
+
+    /**
+     * Tells whether the kernels use the Vector API.
+     *
+     * @return whether the Vector API kernel is loaded
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    static BatchKernel getKernel() {
+        return KERNEL;
+    }
+
+    /**
+     * Calculates the fitness of a range of teams as the average weighted score of their members.
+     *
+     * @param genes    employee ordinals of the teams, team after team
+     * @param teamSize number of employees of a team
+     * @param from     index of the first team
+     * @param to       index after the last team
+     * @param scores   weighted scores indexed by employee ordinal
+     * @param fitness  array to write the fitness of team i into, at index i
+     */
+    public static void evaluate(int[] genes, int teamSize, int from, int to, double[] scores, double[] fitness) {
+        KERNEL.evaluate(genes, teamSize, from, to, scores, fitness);
+    }
+
+    /**
+     * Sums each attribute over the members of a range of teams.
+     *
+     * @param genes          employee ordinals of the teams, team after team
+     * @param teamSize       number of employees of a team
+     * @param from           index of the first team
+     * @param to             index after the last team
+     * @param rows           attribute values, one row of attributeCount values per employee ordinal
+     * @param attributeCount number of attributes of an employee
+     * @param sums           array to write the sums of team i into, from index i * attributeCount
+     */
+    public static void attributeSums(int[] genes, int teamSize, int from, int to, int[] rows, int attributeCount,
+                                     long[] sums) {
+        KERNEL.attributeSums(genes, teamSize, from, to, rows, attributeCount, sums);
+    }
+
+    /**
+     * Calculates the fitness of a range of teams from their per-attribute sums. The result equals
+     * {@link #evaluate(int[], int, int, int, double[], double[])} with scores calculated by the same weights.
+     *
+     * @param sums           per-attribute sums from {@link #attributeSums}
+     * @param teamSize       number of employees of a team
+     * @param from           index of the first team
+     * @param to             index after the last team
+     * @param weights        weight of each attribute, in row order
+     * @param attributeCount number of attributes of an employee
+     * @param fitness        array to write the fitness of team i into, at index i
+     */
+    public static void weightedAverages(long[] sums, int teamSize, int from, int to, double[] weights,
+                                        int attributeCount, double[] fitness) {
+        KERNEL.weightedAverages(sums, teamSize, from, to, weights, attributeCount, fitness);
+    }
+
+    /**
+     * Calculates the fitness of a range of teams by applying the weights to every attribute of every member.
+     *
+     * @see #weightedAverages(long[], int, int, int, double[], int, double[])
+     */
+    public static void weightedAveragesScalar(int[] genes, int teamSize, int from, int to, int[] rows,
+                                              int attributeCount, double[] weights, double[] fitness) {
+        for (int team = from; team < to; ++team) {
+            double sum = 0;
+            for (int i = team * teamSize; i < (team + 1) * teamSize; ++i) {
+                int row = genes[i] * attributeCount;
+                for (int a = 0; a < attributeCount; ++a) {
+                    sum += rows[row + a] * weights[a];
+                }
+            }
+            fitness[team] = sum / ((double) teamSize * attributeCount);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+/**
+ * The fitness kernels of {@link BatchEvaluator}. {@link ScalarKernel} runs on every Java version, and
+ * {@code VectorKernel} uses the incubating Vector API when the JVM provides it.
+ */
+interface BatchKernel {
+
+    /**
+     * @see BatchEvaluator#evaluate(int[], int, int, int, double[], double[])
+     */
+    void evaluate(int[] genes, int teamSize, int from, int to, double[] scores, double[] fitness);
+
+    /**
+     * @see BatchEvaluator#attributeSums(int[], int, int, int, int[], int, long[])
+     */
+    void attributeSums(int[] genes, int teamSize, int from, int to, int[] rows, int attributeCount, long[] sums);
+
+    /**
+     * @see BatchEvaluator#weightedAverages(long[], int, int, int, double[], int, double[])
+     */
+    void weightedAverages(long[] sums, int teamSize, int from, int to, double[] weights, int attributeCount,
+                          double[] fitness);
+}
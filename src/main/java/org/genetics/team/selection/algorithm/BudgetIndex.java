@@ -0,0 +1,342 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.roster.RosterAccessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class indexes the costs of the candidates of each employee type for a team budget. A candidate is dominated
+ * when as many other candidates of its type as the team needs are at most as expensive and score at least as high;
+ * some of them are always free to replace it, so dominated candidates are never needed by the best team within the
+ * budget and are dropped. The remaining candidates are kept in ascending order of cost. The index rejects budgets no
+ * team can meet and repairs teams which exceed the budget.
+ */
+class BudgetIndex {
+    private final FeasibilityIndex index;
+    private final String costColumn;
+    private double[] scores;
+    private int[] costs;
+    private long budget;
+    private long lockedCost;
+    private final long[][] costOrders;
+    private final int[][] candidates;
+
+    private BudgetIndex(FeasibilityIndex index, RosterAccessor roster, String costColumn, double[] scores,
+                        long budget) {
+        this.index = index;
+        this.costColumn = costColumn;
+        this.scores = scores;
+        this.budget = budget;
+        this.costs = new int[roster.getCapacity()];
+        String[] types = index.getTypes();
+        this.costOrders = new long[types.length][];
+        this.candidates = new int[types.length][];
+        for (int t = 0; t < types.length; ++t) {
+            for (int ordinal : index.getLockedCandidates(t)) {
+                readCost(roster, ordinal);
+            }
+            int[] ordinals = index.getCandidates(t);
+            long[] keys = new long[ordinals.length];
+            for (int i = 0; i < ordinals.length; ++i) {
+                keys[i] = (long) readCost(roster, ordinals[i]) << 32 | ordinals[i];
+            }
+            Arrays.sort(keys);
+            this.costOrders[t] = keys;
+            this.candidates[t] = undominated(keys, getFreeCount(t));
+        }
+        this.lockedCost = sumLockedCosts();
+    }
+
+    private int readCost(RosterAccessor roster, int ordinal) {
+        int cost = roster.getAttribute(ordinal, this.costColumn);
+        if (cost < 0) {
+            throw new IllegalArgumentException("Employee " + roster.getId(ordinal) + " has a negative cost");
+        }
+        this.costs[ordinal] = cost;
+        return cost;
+    }
+
+    private long sumLockedCosts() {
+        long lockedCost = 0;
+        for (int t = 0; t < this.candidates.length; ++t) {
+            for (int ordinal : this.index.getLockedCandidates(t)) {
+                lockedCost += this.costs[ordinal];
+            }
+        }
+        return lockedCost;
+    }
+
+    /**
+     * Builds the index and checks that the cheapest valid team is within the budget.
+     *
+     * @param index      {@link FeasibilityIndex} of the team definition
+     * @param roster     employees indexed by their ordinal
+     * @param costColumn input column holding the cost of an employee
+     * @param scores     weighted scores indexed by employee ordinal
+     * @param budget     maximum total cost of a team
+     * @return {@link BudgetIndex}
+     * @throws IllegalArgumentException if a cost is negative or every valid team exceeds the budget
+     */
+    static BudgetIndex build(FeasibilityIndex index, RosterAccessor roster, String costColumn, double[] scores,
+                             long budget) {
+        BudgetIndex budgetIndex = new BudgetIndex(index, roster, costColumn, scores, budget);
+        budgetIndex.checkBudget();
+        return budgetIndex;
+    }
+
+    /**
+     * Moves the index to a newer version of its roster, after its {@link FeasibilityIndex} was updated. The costs of
+     * the changed employees are read and merged into the cost order of the types whose candidates changed; only those
+     * types are swept for dominated candidates again.
+     *
+     * @param roster  newer version of the roster
+     * @param changes ordinals changed since the version the index holds, possibly with repetitions
+     * @param touched whether the selectable employees of each type changed
+     * @param scores  weighted scores indexed by employee ordinal, unchanged for the other employees
+     * @param budget  maximum total cost of a team
+     * @throws IllegalArgumentException if a cost is negative or every valid team exceeds the budget
+     */
+    void update(RosterAccessor roster, int[] changes, boolean[] touched, double[] scores, long budget) {
+        this.scores = scores;
+        this.budget = budget;
+        if (this.costs.length < roster.getCapacity()) {
+            this.costs = Arrays.copyOf(this.costs, roster.getCapacity());
+        }
+        BitSet changed = new BitSet();
+        for (int ordinal : changes) {
+            changed.set(ordinal);
+        }
+        long[][] added = new long[this.candidates.length][changed.cardinality()];
+        int[] addedCounts = new int[this.candidates.length];
+        for (int ordinal = changed.nextSetBit(0); ordinal >= 0; ordinal = changed.nextSetBit(ordinal + 1)) {
+            int type = this.index.getTypeOf(ordinal);
+            if (type < 0 || !this.index.isEligible(ordinal)) {
+                continue;
+            }
+            int cost = readCost(roster, ordinal);
+            if (!this.index.isLocked(ordinal)) {
+                added[type][addedCounts[type]++] = (long) cost << 32 | ordinal;
+            }
+        }
+        for (int t = 0; t < this.candidates.length; ++t) {
+            if (!touched[t]) {
+                continue;
+            }
+            long[] keys = Arrays.copyOf(added[t], addedCounts[t]);
+            Arrays.sort(keys);
+            this.costOrders[t] = merge(this.costOrders[t], changed, keys);
+            this.candidates[t] = undominated(this.costOrders[t], getFreeCount(t));
+        }
+        this.lockedCost = sumLockedCosts();
+        checkBudget();
+    }
+
+    /**
+     * Merges sorted keys into a sorted order of keys from which those of the changed employees are dropped.
+     */
+    private static long[] merge(long[] order, BitSet changed, long[] keys) {
+        int kept = 0;
+        for (long key : order) {
+            if (!changed.get((int) key)) {
+                ++kept;
+            }
+        }
+        long[] merged = new long[kept + keys.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; ++k) {
+            while (i < order.length && changed.get((int) order[i])) {
+                ++i;
+            }
+            merged[k] = j == keys.length || (i < order.length && order[i] < keys[j]) ? order[i++] : keys[j++];
+        }
+        return merged;
+    }
+
+    private void checkBudget() {
+        long cheapest = this.lockedCost;
+        for (int t = 0; t < this.candidates.length; ++t) {
+            int[] candidates = this.candidates[t];
+            for (int i = 0; i < getFreeCount(t); ++i) {
+                cheapest += this.costs[candidates[i]];
+            }
+        }
+        if (cheapest > this.budget) {
+            throw new IllegalArgumentException("Infeasible team definition: the cheapest team costs " + cheapest
+                    + " but the budget is " + this.budget);
+        }
+    }
+
+    /**
+     * Drops the dominated candidates of a type. The candidates are visited in ascending order of cost, and by
+     * descending score among equal costs, so a candidate is dominated when the required number of candidates visited
+     * before it score at least as high. A min-heap holds the highest scores visited so far; only the candidates of an
+     * equal cost which beat it need to be ordered by score.
+     *
+     * @param keys     candidates of a type as costs in the high and ordinals in the low half, in ascending order
+     * @param required number of candidates of the type the team needs
+     * @return undominated candidates in ascending order of cost
+     */
+    private int[] undominated(long[] keys, int required) {
+        if (required <= 0) {
+            return new int[0];
+        }
+        PriorityQueue<Double> best = new PriorityQueue<>(required);
+        List<Integer> sameCost = new ArrayList<>();
+        int[] kept = new int[keys.length];
+        int count = 0;
+        int from = 0;
+        while (from < keys.length) {
+            long cost = keys[from] >>> 32;
+            sameCost.clear();
+            for (; from < keys.length && keys[from] >>> 32 == cost; ++from) {
+                int ordinal = (int) keys[from];
+                if (best.size() < required || this.scores[ordinal] > best.peek()) {
+                    sameCost.add(ordinal);
+                }
+            }
+            sameCost.sort(Comparator.comparingDouble((Integer ordinal) -> -this.scores[ordinal])
+                    .thenComparingInt(ordinal -> ordinal));
+            for (int ordinal : sameCost) {
+                double score = this.scores[ordinal];
+                if (best.size() < required) {
+                    best.add(score);
+                    kept[count++] = ordinal;
+                } else if (score > best.peek()) {
+                    best.poll();
+                    best.add(score);
+                    kept[count++] = ordinal;
+                }
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    /**
+     * Repairs a team in place which exceeds the budget. Members are swapped for cheaper candidates of their type, each
+     * time the swap which loses the least score per unit of cost saved, until the team is within the budget. Locked
+     * members are kept.
+     *
+     * @param team employee ordinals laid out by type segments
+     * @return whether the team was changed
+     */
+    boolean repair(int[] team) {
+        long cost = getCost(team);
+        boolean changed = false;
+        while (cost > this.budget) {
+            int position = -1;
+            int replacement = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+            for (int t = 0; t < this.candidates.length; ++t) {
+                int from = this.index.getOffset(t);
+                int to = from + this.index.getCount(t);
+                for (int i = from; i < to; ++i) {
+                    int member = team[i];
+                    if (this.index.isLocked(member)) {
+                        continue;
+                    }
+                    for (int candidate : this.candidates[t]) {
+                        int saving = this.costs[member] - this.costs[candidate];
+                        if (saving <= 0) {
+                            break;
+                        }
+                        double ratio = (this.scores[member] - this.scores[candidate]) / saving;
+                        if (ratio < bestRatio && !contains(team, from, to, candidate)) {
+                            bestRatio = ratio;
+                            position = i;
+                            replacement = candidate;
+                        }
+                    }
+                }
+            }
+            if (position < 0) {
+                // Unreachable for a team holding every locked employee, as the cheapest team is within the budget
+                throw new IllegalStateException("Team cannot be repaired within the budget of " + this.budget);
+            }
+            cost -= this.costs[team[position]] - this.costs[replacement];
+            team[position] = replacement;
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Calculates the total cost of a team.
+     *
+     * @param team employee ordinals
+     * @return total cost
+     */
+    long getCost(int[] team) {
+        long cost = 0;
+        for (int ordinal : team) {
+            cost += this.costs[ordinal];
+        }
+        return cost;
+    }
+
+    int getCost(int ordinal) {
+        return this.costs[ordinal];
+    }
+
+    /**
+     * Returns the undominated candidates of a type which are not locked, in ascending order of cost.
+     *
+     * @param type index of the type
+     * @return employee ordinals
+     */
+    int[] getCandidates(int type) {
+        return this.candidates[type];
+    }
+
+    /**
+     * Returns the number of employees of a type the team needs besides the locked ones.
+     *
+     * @param type index of the type
+     * @return number of free positions
+     */
+    int getFreeCount(int type) {
+        return this.index.getCount(type) - this.index.getLockedCandidates(type).length;
+    }
+
+    String getCostColumn() {
+        return this.costColumn;
+    }
+
+    long getBudget() {
+        return this.budget;
+    }
+
+    long getLockedCost() {
+        return this.lockedCost;
+    }
+
+    private static boolean contains(int[] team, int from, int to, int ordinal) {
+        for (int i = from; i < to; ++i) {
+            if (team[i] == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.beans.SolverMetrics;
+import org.genetics.team.selection.beans.Team;
+
+import java.util.Arrays;
+
+/**
+ * This class selects the fittest team within the budget directly. The fitness of a team is the average weighted score
+ * of its members, so the fittest team picks the required number of employees of every type with the highest total
+ * score whose total cost is within the budget, i.e. a knapsack with a cardinality per type. It is solved over the
+ * undominated candidates of the {@link BudgetIndex}, either exactly by dynamic programming over the cost, or for large
+ * rosters and budgets by Lagrangian relaxation of the budget, which ranks the candidates of every type by their score
+ * minus a price per unit of cost and searches the lowest price at which the team fits. The selection is then improved
+ * by swaps which use up the remaining budget.
+ */
+class BudgetSolver extends AbstractSolver {
+    private static Logger log = Logger.getLogger(BudgetSolver.class);
+    // Budgets above this number of cost units are scaled down for the dynamic programme.
+    static final int MAX_COST_UNITS = 20000;
+    // Above this number of cell updates the dynamic programme takes too long for AUTO.
+    private static final long MAX_CELL_UPDATES = 100000000L;
+    private static final int BISECTION_STEPS = 50;
+    // Longest bit set array of a type, in bits.
+    private static final long MAX_BITS = 64L * (Integer.MAX_VALUE - 8);
+    private final long memoryLimit;
+    private BudgetIndex budgetIndex;
+    private long relaxations;
+    private double bound;
+
+    /**
+     * Methods the solver selects the team with.
+     */
+    enum Method {
+        AUTO, DP, LAGRANGIAN
+    }
+
+    BudgetSolver(Population population) {
+        this(population, Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    /**
+     * Constructs a {@link BudgetSolver} whose dynamic programme may use at most the given memory. Above it the budget
+     * is relaxed instead, even when the DP method is configured.
+     *
+     * @param population  {@link Population}
+     * @param memoryLimit maximum memory of the dynamic programme in bytes
+     */
+    BudgetSolver(Population population, long memoryLimit) {
+        super(population, "BUDGET");
+        this.memoryLimit = memoryLimit;
+    }
+
+    @Override
+    public void initialize() {
+        this.population.prepare();
+        this.budgetIndex = this.population.getBudgetIndex();
+        if (this.budgetIndex == null) {
+            throw new IllegalArgumentException("The BUDGET solver requires a budget");
+        }
+    }
+
+    @Override
+    protected Team run(SolverMetrics metrics) {
+        String configured = this.population.getConfiguration().getBudgetMethod();
+        Method method = configured == null ? Method.AUTO : Method.valueOf(configured.trim().toUpperCase());
+        int types = this.population.getFeasibilityIndex().getTypes().length;
+        long capacity = this.budgetIndex.getBudget() - this.budgetIndex.getLockedCost();
+        int scale = (int) Math.max(1, (capacity + MAX_COST_UNITS - 1) / MAX_COST_UNITS);
+        int units = (int) (capacity / scale);
+        long updates = 0;
+        for (int t = 0; t < types; ++t) {
+            updates += (long) this.budgetIndex.getCandidates(t).length * this.budgetIndex.getFreeCount(t) * (units + 1);
+        }
+        long memory = getDynamicProgrammeMemory(units);
+        if (method == Method.AUTO) {
+            method = updates <= MAX_CELL_UPDATES && memory <= this.memoryLimit ? Method.DP : Method.LAGRANGIAN;
+        } else if (method == Method.DP && memory > this.memoryLimit) {
+            log.warn("The dynamic programme needs " + (memory == Long.MAX_VALUE ? "more memory than an array holds"
+                    : memory / (1024 * 1024) + " MB") + ", above the limit of " + this.memoryLimit / (1024 * 1024)
+                    + " MB. Relaxing the budget instead.");
+            method = Method.LAGRANGIAN;
+        }
+
+        long start = System.nanoTime();
+        int[][] selection = null;
+        if (method == Method.DP) {
+            if (scale > 1) {
+                log.info("Costs are scaled down by " + scale + " for the dynamic programme");
+            }
+            selection = solveByDynamicProgramming(scale, units);
+            if (selection == null) {
+                log.info("No team fits the scaled costs. Relaxing the budget instead.");
+                method = Method.LAGRANGIAN;
+            }
+        }
+        if (selection == null) {
+            selection = solveByRelaxation(capacity);
+        }
+        int swaps = improve(selection, capacity);
+        if (method == Method.LAGRANGIAN) {
+            log.info("The fitness of the selected team is within " + (this.bound - score(selection))
+                    / this.population.getFeasibilityIndex().getTeamSize() + " of the fittest team within the budget");
+        }
+        int[] team = assemble(selection);
+        log.info("Selected the team by " + method + " in " + (System.nanoTime() - start) / 1000000 + " ms, "
+                + swaps + " improving swaps, cost " + this.population.getTeamCost(team) + " of "
+                + this.budgetIndex.getBudget());
+        metrics.setIterations(method == Method.DP ? updates : this.relaxations);
+        return this.population.generateTeam(team);
+    }
+
+    /**
+     * Selects the team by dynamic programming over the types and their candidates. A layer holds the highest score of
+     * the candidates taken so far for every cost up to the budget and every number of candidates taken of the current
+     * type. The candidates which improved a cell are recorded in a bit set, from which the selection is traced back.
+     *
+     * @param scale cost of one unit of the programme, costs are rounded up to whole units
+     * @param units budget left after the locked employees, in units
+     * @return positions of the selected candidates of each type, or null if no team fits the rounded costs
+     */
+    private int[][] solveByDynamicProgramming(int scale, int units) {
+        int types = this.population.getFeasibilityIndex().getTypes().length;
+        int cells = units + 1;
+        long[][] taken = new long[types][];
+        int[][] weights = new int[types][];
+        double[] previous = new double[cells];
+        for (int t = 0; t < types; ++t) {
+            int[] candidates = this.budgetIndex.getCandidates(t);
+            int required = this.budgetIndex.getFreeCount(t);
+            if (required == 0) {
+                continue;
+            }
+            long bits = (long) candidates.length * required * cells;
+            long[] bitSet = new long[(int) ((bits + 63) >>> 6)];
+            int[] weight = new int[candidates.length];
+            double[][] layers = new double[required + 1][];
+            layers[0] = previous;
+            for (int j = 1; j <= required; ++j) {
+                layers[j] = new double[cells];
+                Arrays.fill(layers[j], Double.NEGATIVE_INFINITY);
+            }
+            for (int i = 0; i < candidates.length; ++i) {
+                weight[i] = (int) Math.min(cells, (this.budgetIndex.getCost(candidates[i]) + scale - 1L) / scale);
+                double score = this.population.getWeightedScore(candidates[i]);
+                for (int j = Math.min(i + 1, required); j >= 1; --j) {
+                    double[] from = layers[j - 1];
+                    double[] to = layers[j];
+                    long base = ((long) i * required + j - 1) * cells;
+                    for (int c = units; c >= weight[i]; --c) {
+                        double value = from[c - weight[i]] + score;
+                        if (value > to[c]) {
+                            to[c] = value;
+                            bitSet[(int) ((base + c) >>> 6)] |= 1L << (base + c);
+                        }
+                    }
+                }
+            }
+            previous = layers[required];
+            taken[t] = bitSet;
+            weights[t] = weight;
+        }
+        if (previous[units] == Double.NEGATIVE_INFINITY) {
+            return null;
+        }
+
+        int[][] selection = new int[types][];
+        int c = units;
+        for (int t = types - 1; t >= 0; --t) {
+            int required = this.budgetIndex.getFreeCount(t);
+            selection[t] = new int[required];
+            int j = required;
+            for (int i = this.budgetIndex.getCandidates(t).length - 1; i >= 0 && j > 0; --i) {
+                long bit = ((long) i * required + j - 1) * cells + c;
+                if ((taken[t][(int) (bit >>> 6)] & 1L << bit) != 0) {
+                    selection[t][--j] = i;
+                    c -= weights[t][i];
+                }
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Estimates the memory of the dynamic programme: the bit sets of all types, which are kept for the trace back, and
+     * the score layers of the largest type.
+     *
+     * @param units budget left after the locked employees, in units
+     * @return memory in bytes, or {@link Long#MAX_VALUE} if a bit set does not fit into an array
+     */
+    private long getDynamicProgrammeMemory(int units) {
+        long cells = units + 1L;
+        long memory = 0;
+        int maxRequired = 0;
+        for (int t = 0; t < this.population.getFeasibilityIndex().getTypes().length; ++t) {
+            int required = this.budgetIndex.getFreeCount(t);
+            if (required == 0) {
+                continue;
+            }
+            long bits = (long) this.budgetIndex.getCandidates(t).length * required * cells;
+            if (bits > MAX_BITS) {
+                return Long.MAX_VALUE;
+            }
+            memory += (bits + 63) / 64 * Long.BYTES + (long) this.budgetIndex.getCandidates(t).length * Integer.BYTES;
+            maxRequired = Math.max(maxRequired, required);
+        }
+        return memory + (maxRequired + 2L) * cells * Double.BYTES;
+    }
+
+    /**
+     * Selects the team by Lagrangian relaxation of the budget. For a price per unit of cost, the best relaxed team
+     * takes the candidates of every type with the highest score minus their priced cost. The price is doubled until the
+     * relaxed team fits the budget and then bisected, keeping the fittest relaxed team within the budget. The relaxed
+     * scores plus the priced budget bound the score of the best team from above, which gives the gap of a selection.
+     *
+     * @param capacity budget left after the locked employees
+     * @return positions of the selected candidates of each type
+     */
+    private int[][] solveByRelaxation(long capacity) {
+        int types = this.population.getFeasibilityIndex().getTypes().length;
+        int[][] selection = new int[types][];
+        int[][] best = new int[types][];
+        for (int t = 0; t < types; ++t) {
+            selection[t] = new int[this.budgetIndex.getFreeCount(t)];
+        }
+        double bound = relax(0, selection);
+        if (cost(selection) <= capacity) {
+            this.bound = bound;
+            return selection;
+        }
+        double low = 0;
+        double high = 1;
+        bound = Math.min(bound, relax(high, selection) + high * capacity);
+        while (cost(selection) > capacity) {
+            low = high;
+            high *= 2;
+            bound = Math.min(bound, relax(high, selection) + high * capacity);
+        }
+        double bestScore = keep(selection, best, Double.NEGATIVE_INFINITY);
+        for (int step = 0; step < BISECTION_STEPS; ++step) {
+            double price = (low + high) / 2;
+            bound = Math.min(bound, relax(price, selection) + price * capacity);
+            if (cost(selection) <= capacity) {
+                high = price;
+                bestScore = keep(selection, best, bestScore);
+            } else {
+                low = price;
+            }
+        }
+        log.debug("Lagrangian relaxation stopped at a price of " + high + " per unit of cost");
+        this.bound = bound;
+        return best;
+    }
+
+    /**
+     * Copies a selection within the budget into the best one if it scores higher.
+     *
+     * @return score of the best selection
+     */
+    private double keep(int[][] selection, int[][] best, double bestScore) {
+        double score = score(selection);
+        if (score <= bestScore) {
+            return bestScore;
+        }
+        for (int t = 0; t < selection.length; ++t) {
+            best[t] = selection[t].clone();
+        }
+        return score;
+    }
+
+    /**
+     * Takes the candidates of every type with the highest score minus their priced cost, with a min-heap of the
+     * required size.
+     *
+     * @param price     price per unit of cost
+     * @param selection arrays receiving the positions of the selected candidates of each type
+     * @return sum of the score minus the priced cost of the selected candidates
+     */
+    private double relax(double price, int[][] selection) {
+        ++this.relaxations;
+        double relaxed = 0;
+        double[] values = new double[0];
+        for (int t = 0; t < selection.length; ++t) {
+            int[] candidates = this.budgetIndex.getCandidates(t);
+            int[] heap = selection[t];
+            if (values.length < heap.length) {
+                values = new double[heap.length];
+            }
+            int size = 0;
+            for (int i = 0; i < candidates.length; ++i) {
+                double value = this.population.getWeightedScore(candidates[i])
+                        - price * this.budgetIndex.getCost(candidates[i]);
+                if (size < heap.length) {
+                    int child = size++;
+                    while (child > 0 && values[(child - 1) / 2] > value) {
+                        heap[child] = heap[(child - 1) / 2];
+                        values[child] = values[(child - 1) / 2];
+                        child = (child - 1) / 2;
+                    }
+                    heap[child] = i;
+                    values[child] = value;
+                } else if (size > 0 && value > values[0]) {
+                    int parent = 0;
+                    while (2 * parent + 1 < size) {
+                        int child = 2 * parent + 1;
+                        if (child + 1 < size && values[child + 1] < values[child]) {
+                            ++child;
+                        }
+                        if (values[child] >= value) {
+                            break;
+                        }
+                        heap[parent] = heap[child];
+                        values[parent] = values[child];
+                        parent = child;
+                    }
+                    heap[parent] = i;
+                    values[parent] = value;
+                }
+            }
+            for (int k = 0; k < size; ++k) {
+                relaxed += values[k];
+            }
+        }
+        return relaxed;
+    }
+
+    /**
+     * Applies the best swap of a selected candidate for an unselected one of its type which raises the score and fits
+     * into the remaining budget, until no such swap is left.
+     *
+     * @param selection positions of the selected candidates of each type, updated in place
+     * @param capacity  budget left after the locked employees
+     * @return number of swaps applied
+     */
+    private int improve(int[][] selection, long capacity) {
+        boolean[][] selected = new boolean[selection.length][];
+        for (int t = 0; t < selection.length; ++t) {
+            selected[t] = new boolean[this.budgetIndex.getCandidates(t).length];
+            for (int i : selection[t]) {
+                selected[t][i] = true;
+            }
+        }
+        long slack = capacity - cost(selection);
+        int swaps = 0;
+        while (true) {
+            int bestType = -1;
+            int bestPosition = -1;
+            int bestCandidate = -1;
+            double bestGain = 0;
+            for (int t = 0; t < selection.length; ++t) {
+                int[] candidates = this.budgetIndex.getCandidates(t);
+                for (int k = 0; k < selection[t].length; ++k) {
+                    int member = candidates[selection[t][k]];
+                    long limit = this.budgetIndex.getCost(member) + slack;
+                    double score = this.population.getWeightedScore(member);
+                    for (int i = 0; i < candidates.length && this.budgetIndex.getCost(candidates[i]) <= limit; ++i) {
+                        double gain = this.population.getWeightedScore(candidates[i]) - score;
+                        if (gain > bestGain && !selected[t][i]) {
+                            bestGain = gain;
+                            bestType = t;
+                            bestPosition = k;
+                            bestCandidate = i;
+                        }
+                    }
+                }
+            }
+            if (bestType < 0) {
+                return swaps;
+            }
+            int[] candidates = this.budgetIndex.getCandidates(bestType);
+            int previous = selection[bestType][bestPosition];
+            slack -= this.budgetIndex.getCost(candidates[bestCandidate])
+                    - this.budgetIndex.getCost(candidates[previous]);
+            selected[bestType][previous] = false;
+            selected[bestType][bestCandidate] = true;
+            selection[bestType][bestPosition] = bestCandidate;
+            ++swaps;
+        }
+    }
+
+    /**
+     * Lays out the locked employees and the selected candidates by type segments.
+     */
+    private int[] assemble(int[][] selection) {
+        FeasibilityIndex index = this.population.getFeasibilityIndex();
+        int[] team = new int[index.getTeamSize()];
+        for (int t = 0; t < selection.length; ++t) {
+            int[] locked = index.getLockedCandidates(t);
+            int position = index.getOffset(t);
+            System.arraycopy(locked, 0, team, position, locked.length);
+            position += locked.length;
+            for (int i : selection[t]) {
+                team[position++] = this.budgetIndex.getCandidates(t)[i];
+            }
+        }
+        return team;
+    }
+
+    private long cost(int[][] selection) {
+        long cost = 0;
+        for (int t = 0; t < selection.length; ++t) {
+            for (int i : selection[t]) {
+                cost += this.budgetIndex.getCost(this.budgetIndex.getCandidates(t)[i]);
+            }
+        }
+        return cost;
+    }
+
+    private double score(int[][] selection) {
+        double score = 0;
+        for (int t = 0; t < selection.length; ++t) {
+            for (int i : selection[t]) {
+                score += this.population.getWeightedScore(this.budgetIndex.getCandidates(t)[i]);
+            }
+        }
+        return score;
+    }
+}
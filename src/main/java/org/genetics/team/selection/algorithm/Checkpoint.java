@@ -0,0 +1,283 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Snapshot of the state of a genetic algorithm run. Teams are stored as employee ordinals so that the snapshot can be
+ * written in a compact binary form and restored against the same input. The digest of the roster and the attribute
+ * weights identify that input; the snapshot taken when a run ends is marked as finished.
+ */
+final class Checkpoint {
+    private static final int MAGIC = 0x54534350;
+    private static final int VERSION = 2;
+
+    private int generation;
+    private int fittestGen;
+    private int rosterSize;
+    private byte[] rosterDigest;
+    private Map<String, Integer> teamDefinition;
+    private Map<String, Double> attributeWeights;
+    private boolean finished;
+    private int[][] teams;
+    private double[] fitness;
+    private int[] currentFittest;
+    private int[] previousFittest;
+    private byte[] algorithmRandom;
+    private byte[] populationRandom;
+
+    int getGeneration() {
+        return generation;
+    }
+
+    void setGeneration(int generation) {
+        this.generation = generation;
+    }
+
+    int getFittestGen() {
+        return fittestGen;
+    }
+
+    void setFittestGen(int fittestGen) {
+        this.fittestGen = fittestGen;
+    }
+
+    int getRosterSize() {
+        return rosterSize;
+    }
+
+    void setRosterSize(int rosterSize) {
+        this.rosterSize = rosterSize;
+    }
+
+    byte[] getRosterDigest() {
+        return rosterDigest;
+    }
+
+    void setRosterDigest(byte[] rosterDigest) {
+        this.rosterDigest = rosterDigest;
+    }
+
+    Map<String, Integer> getTeamDefinition() {
+        return teamDefinition;
+    }
+
+    void setTeamDefinition(Map<String, Integer> teamDefinition) {
+        this.teamDefinition = teamDefinition;
+    }
+
+    Map<String, Double> getAttributeWeights() {
+        return attributeWeights;
+    }
+
+    void setAttributeWeights(Map<String, Double> attributeWeights) {
+        this.attributeWeights = attributeWeights;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    int[][] getTeams() {
+        return teams;
+    }
+
+    void setTeams(int[][] teams) {
+        this.teams = teams;
+    }
+
+    double[] getFitness() {
+        return fitness;
+    }
+
+    void setFitness(double[] fitness) {
+        this.fitness = fitness;
+    }
+
+    int[] getCurrentFittest() {
+        return currentFittest;
+    }
+
+    void setCurrentFittest(int[] currentFittest) {
+        this.currentFittest = currentFittest;
+    }
+
+    int[] getPreviousFittest() {
+        return previousFittest;
+    }
+
+    void setPreviousFittest(int[] previousFittest) {
+        this.previousFittest = previousFittest;
+    }
+
+    Random getAlgorithmRandom() throws IOException {
+        return toRandom(algorithmRandom);
+    }
+
+    void setAlgorithmRandom(Random random) throws IOException {
+        this.algorithmRandom = toBytes(random);
+    }
+
+    Random getPopulationRandom() throws IOException {
+        return toRandom(populationRandom);
+    }
+
+    void setPopulationRandom(Random random) throws IOException {
+        this.populationRandom = toBytes(random);
+    }
+
+    /**
+     * Writes the checkpoint in binary form.
+     *
+     * @param out output stream
+     * @throws IOException if writing fails
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(generation);
+        out.writeInt(fittestGen);
+        out.writeInt(rosterSize);
+        writeBytes(out, rosterDigest);
+        out.writeInt(teamDefinition.size());
+        for (Map.Entry<String, Integer> entry : teamDefinition.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        out.writeInt(attributeWeights.size());
+        for (Map.Entry<String, Double> entry : attributeWeights.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+        out.writeBoolean(finished);
+        int teamSize = currentFittest.length;
+        out.writeInt(teams.length);
+        out.writeInt(teamSize);
+        for (int i = 0; i < teams.length; ++i) {
+            writeOrdinals(out, teams[i]);
+            out.writeDouble(fitness[i]);
+        }
+        writeOrdinals(out, currentFittest);
+        writeOrdinals(out, previousFittest);
+        writeBytes(out, algorithmRandom);
+        writeBytes(out, populationRandom);
+    }
+
+    /**
+     * Reads a checkpoint written by {@link #write(DataOutputStream)}.
+     *
+     * @param in input stream
+     * @return {@link Checkpoint}
+     * @throws IOException if the stream is not a valid checkpoint
+     */
+    static Checkpoint read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a team selection checkpoint file");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported checkpoint version: " + version);
+        }
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.generation = in.readInt();
+        checkpoint.fittestGen = in.readInt();
+        checkpoint.rosterSize = in.readInt();
+        checkpoint.rosterDigest = readBytes(in);
+        int types = in.readInt();
+        checkpoint.teamDefinition = new LinkedHashMap<>();
+        for (int i = 0; i < types; ++i) {
+            checkpoint.teamDefinition.put(in.readUTF(), in.readInt());
+        }
+        int attributes = in.readInt();
+        checkpoint.attributeWeights = new LinkedHashMap<>();
+        for (int i = 0; i < attributes; ++i) {
+            checkpoint.attributeWeights.put(in.readUTF(), in.readDouble());
+        }
+        checkpoint.finished = in.readBoolean();
+        int teamCount = in.readInt();
+        int teamSize = in.readInt();
+        checkpoint.teams = new int[teamCount][];
+        checkpoint.fitness = new double[teamCount];
+        for (int i = 0; i < teamCount; ++i) {
+            checkpoint.teams[i] = readOrdinals(in, teamSize);
+            checkpoint.fitness[i] = in.readDouble();
+        }
+        checkpoint.currentFittest = readOrdinals(in, teamSize);
+        checkpoint.previousFittest = readOrdinals(in, teamSize);
+        checkpoint.algorithmRandom = readBytes(in);
+        checkpoint.populationRandom = readBytes(in);
+        return checkpoint;
+    }
+
+    private static void writeOrdinals(DataOutputStream out, int[] ordinals) throws IOException {
+        for (int ordinal : ordinals) {
+            out.writeInt(ordinal);
+        }
+    }
+
+    private static int[] readOrdinals(DataInputStream in, int size) throws IOException {
+        int[] ordinals = new int[size];
+        for (int i = 0; i < size; ++i) {
+            ordinals[i] = in.readInt();
+        }
+        return ordinals;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * {@link Random} does not expose its seed, but its serialized form carries the full generator state.
+     */
+    private static byte[] toBytes(Random random) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(random);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Random toRandom(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Random) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Invalid random generator state in checkpoint", e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class writes {@link Checkpoint}s to disk on a background thread and reads them back when resuming a run.
+ */
+class CheckpointManager {
+    private static Logger log = Logger.getLogger(CheckpointManager.class);
+    private final Path path;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructs a {@link CheckpointManager} which writes to the given path.
+     *
+     * @param path path of the checkpoint file
+     */
+    CheckpointManager(String path) {
+        this.path = Paths.get(path);
+        // A single pending write is enough; an older snapshot waiting in the queue is superseded by a newer one.
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "checkpoint-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    /**
+     * Schedules the given checkpoint to be written. The call does not wait for the write.
+     *
+     * @param checkpoint {@link Checkpoint}
+     */
+    void submit(Checkpoint checkpoint) {
+        this.executor.execute(() -> {
+            try {
+                write(checkpoint);
+            } catch (IOException e) {
+                log.error("Error occurred when writing the checkpoint to " + this.path, e);
+            }
+        });
+    }
+
+    /**
+     * Waits for pending writes and stops the background writer.
+     */
+    void close() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Timed out while waiting for the checkpoint writer");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the checkpoint into a temporary file and moves it over the previous checkpoint, so a crash while
+     * writing never leaves a truncated checkpoint behind.
+     */
+    private void write(Checkpoint checkpoint) throws IOException {
+        Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            checkpoint.write(out);
+        }
+        try {
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.debug("Checkpoint of generation " + checkpoint.getGeneration() + " written to " + this.path);
+    }
+
+    /**
+     * Reads the checkpoint in the given path.
+     *
+     * @param path path of the checkpoint file
+     * @return {@link Checkpoint}
+     * @throws IOException if the file cannot be read
+     */
+    static Checkpoint read(String path) throws IOException {
+        try (InputStream file = Files.newInputStream(Paths.get(path));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            return Checkpoint.read(in);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Random;
+
+/**
+ * This interface represents a crossover operator which recombines the employee ordinals of two parent teams. Teams are
+ * laid out by the type segments of a {@link FeasibilityIndex}, and operators only exchange employees within the same
+ * segment so that the offspring keep the team definition.
+ */
+interface CrossoverOperator {
+
+    /**
+     * Recombines two parents into two offspring. Offspring may hold duplicates which are resolved when the team is
+     * repaired.
+     *
+     * @param parent1 employee ordinals of the first parent
+     * @param parent2 employee ordinals of the second parent
+     * @param child1  array to write the first offspring into
+     * @param child2  array to write the second offspring into
+     * @param random  random generator
+     */
+    void cross(int[] parent1, int[] parent2, int[] child1, int[] child2, Random random);
+
+    /**
+     * Creates the crossover operator of the given name.
+     *
+     * @param name  SEGMENT, UNIFORM or PMX. SEGMENT is used when the name is not given.
+     * @param index {@link FeasibilityIndex} of the team definition
+     * @return {@link CrossoverOperator}
+     */
+    static CrossoverOperator create(String name, FeasibilityIndex index) {
+        if (name == null || "SEGMENT".equalsIgnoreCase(name)) {
+            return new SegmentCrossover(index);
+        } else if ("UNIFORM".equalsIgnoreCase(name)) {
+            return new UniformCrossover();
+        } else if ("PMX".equalsIgnoreCase(name)) {
+            return new PartiallyMappedCrossover(index);
+        }
+        throw new IllegalArgumentException("Unknown crossover operator: " + name);
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.roster.RosterAccessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class indexes the attribute values of the employees of each type, so that threshold rules can be evaluated
+ * without scanning the roster. For every type and attribute the employees are kept sorted by the attribute value; a
+ * rule selects a contiguous range of that order with two binary searches, and the rules of a type are intersected as
+ * bitmaps over the employees of the type. When the roster changes, the index is updated with the changed employees
+ * only.
+ */
+final class EligibilityIndex {
+    private RosterAccessor roster;
+    private final String[] types;
+    private final List<String> attributes;
+    private final BitSet[] members;
+    private final int[][][] sortedOrdinals;
+    private final int[][][] sortedValues;
+
+    /**
+     * Builds the index of a roster.
+     *
+     * @param roster     {@link RosterAccessor}
+     * @param types      employee types to index
+     * @param attributes attribute names to index
+     */
+    EligibilityIndex(RosterAccessor roster, String[] types, List<String> attributes) {
+        this.roster = roster;
+        this.types = types;
+        this.attributes = attributes;
+        int[] counts = new int[types.length];
+        int[] typeOf = new int[roster.getCapacity()];
+        for (int ordinal = 0; ordinal < typeOf.length; ++ordinal) {
+            typeOf[ordinal] = indexOf(roster.getType(ordinal));
+            if (typeOf[ordinal] >= 0) {
+                ++counts[typeOf[ordinal]];
+            }
+        }
+        int[][] typeMembers = new int[types.length][];
+        this.members = new BitSet[types.length];
+        for (int t = 0; t < types.length; ++t) {
+            typeMembers[t] = new int[counts[t]];
+            this.members[t] = new BitSet(typeOf.length);
+            counts[t] = 0;
+        }
+        for (int ordinal = 0; ordinal < typeOf.length; ++ordinal) {
+            if (typeOf[ordinal] >= 0) {
+                typeMembers[typeOf[ordinal]][counts[typeOf[ordinal]]++] = ordinal;
+                this.members[typeOf[ordinal]].set(ordinal);
+            }
+        }
+
+        this.sortedOrdinals = new int[types.length][attributes.size()][];
+        this.sortedValues = new int[types.length][attributes.size()][];
+        for (int t = 0; t < types.length; ++t) {
+            for (int a = 0; a < attributes.size(); ++a) {
+                long[] keys = keys(typeMembers[t], typeMembers[t].length, attributes.get(a));
+                int[] ordinals = new int[keys.length];
+                int[] values = new int[keys.length];
+                for (int i = 0; i < keys.length; ++i) {
+                    ordinals[i] = (int) keys[i];
+                    values[i] = (int) (keys[i] >> 32);
+                }
+                this.sortedOrdinals[t][a] = ordinals;
+                this.sortedValues[t][a] = values;
+            }
+        }
+    }
+
+    /**
+     * Returns the sort keys of employees for an attribute in ascending order.
+     */
+    private long[] keys(int[] ordinals, int count, String attribute) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; ++i) {
+            // Value in the high half and ordinal in the low half, so a primitive sort orders by value.
+            keys[i] = ((long) this.roster.getAttribute(ordinals[i], attribute) << 32) | ordinals[i];
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Moves the index to a newer version of its roster. The changed employees are removed from the sorted orders of
+     * their old type and merged into those of their new type, so the attributes of the other employees are not read.
+     *
+     * @param roster  newer version of the roster
+     * @param changes ordinals changed since the version the index holds, possibly with repetitions
+     */
+    void update(RosterAccessor roster, int[] changes) {
+        BitSet changed = new BitSet();
+        for (int ordinal : changes) {
+            changed.set(ordinal);
+        }
+        boolean[] touched = new boolean[this.types.length];
+        int[][] added = new int[this.types.length][changed.cardinality()];
+        int[] addedCounts = new int[this.types.length];
+        for (int ordinal = changed.nextSetBit(0); ordinal >= 0; ordinal = changed.nextSetBit(ordinal + 1)) {
+            int oldType = ordinal < this.roster.getCapacity() ? indexOf(this.roster.getType(ordinal)) : -1;
+            int type = ordinal < roster.getCapacity() ? indexOf(roster.getType(ordinal)) : -1;
+            if (oldType >= 0) {
+                this.members[oldType].clear(ordinal);
+                touched[oldType] = true;
+            }
+            if (type >= 0) {
+                this.members[type].set(ordinal);
+                added[type][addedCounts[type]++] = ordinal;
+                touched[type] = true;
+            }
+        }
+        this.roster = roster;
+        for (int t = 0; t < this.types.length; ++t) {
+            if (!touched[t]) {
+                continue;
+            }
+            for (int a = 0; a < this.attributes.size(); ++a) {
+                merge(t, a, changed, keys(added[t], addedCounts[t], this.attributes.get(a)));
+            }
+        }
+    }
+
+    /**
+     * Replaces the sorted order of an attribute of a type by the order without the changed employees, merged with
+     * the sorted keys of the changed employees now of the type.
+     */
+    private void merge(int type, int attribute, BitSet changed, long[] keys) {
+        int[] ordinals = this.sortedOrdinals[type][attribute];
+        int[] values = this.sortedValues[type][attribute];
+        int kept = 0;
+        for (int ordinal : ordinals) {
+            if (!changed.get(ordinal)) {
+                ++kept;
+            }
+        }
+        int[] mergedOrdinals = new int[kept + keys.length];
+        int[] mergedValues = new int[kept + keys.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < mergedOrdinals.length; ++k) {
+            while (i < ordinals.length && changed.get(ordinals[i])) {
+                ++i;
+            }
+            if (j == keys.length || (i < ordinals.length && (((long) values[i] << 32) | ordinals[i]) < keys[j])) {
+                mergedOrdinals[k] = ordinals[i];
+                mergedValues[k] = values[i++];
+            } else {
+                mergedOrdinals[k] = (int) keys[j];
+                mergedValues[k] = (int) (keys[j++] >> 32);
+            }
+        }
+        this.sortedOrdinals[type][attribute] = mergedOrdinals;
+        this.sortedValues[type][attribute] = mergedValues;
+    }
+
+    /**
+     * Returns the employees which satisfy all rules which apply to their type.
+     *
+     * @param rules {@link ThresholdRule}s
+     * @return ordinals of the eligible employees
+     * @throws IllegalArgumentException if a rule refers to an unknown type or attribute
+     */
+    BitSet select(List<ThresholdRule> rules) {
+        List<List<ThresholdRule>> typeRules = new ArrayList<>();
+        for (int t = 0; t < this.types.length; ++t) {
+            typeRules.add(new ArrayList<>());
+        }
+        for (ThresholdRule rule : rules) {
+            if (!this.attributes.contains(rule.getAttribute())) {
+                throw new IllegalArgumentException("Unknown attribute in eligibility rule: " + rule);
+            }
+            if (rule.getType() == null) {
+                typeRules.forEach(list -> list.add(rule));
+            } else if (indexOf(rule.getType()) >= 0) {
+                typeRules.get(indexOf(rule.getType())).add(rule);
+            } else {
+                throw new IllegalArgumentException("Unknown type in eligibility rule: " + rule);
+            }
+        }
+        BitSet eligible = new BitSet(this.roster.getCapacity());
+        for (int t = 0; t < this.types.length; ++t) {
+            BitSet selected = (BitSet) this.members[t].clone();
+            for (ThresholdRule rule : typeRules.get(t)) {
+                BitSet matches = matches(t, this.attributes.indexOf(rule.getAttribute()), rule);
+                if ("!=".equals(rule.getOperator())) {
+                    selected.andNot(matches);
+                } else {
+                    selected.and(matches);
+                }
+            }
+            eligible.or(selected);
+        }
+        return eligible;
+    }
+
+    /**
+     * Returns the ordinals of the members of a type which satisfy a rule, or which are equal to the threshold for an
+     * inequality rule.
+     */
+    private BitSet matches(int type, int attribute, ThresholdRule rule) {
+        int[] values = this.sortedValues[type][attribute];
+        int[] ordinals = this.sortedOrdinals[type][attribute];
+        int threshold = rule.getThreshold();
+        int lower = bound(values, threshold, false);
+        int upper = bound(values, threshold, true);
+        int from;
+        int to;
+        switch (rule.getOperator()) {
+            case ">=":
+                from = lower;
+                to = values.length;
+                break;
+            case ">":
+                from = upper;
+                to = values.length;
+                break;
+            case "<=":
+                from = 0;
+                to = upper;
+                break;
+            case "<":
+                from = 0;
+                to = lower;
+                break;
+            case "=":
+            case "!=":
+                from = lower;
+                to = upper;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operator in eligibility rule: " + rule);
+        }
+        BitSet matches = new BitSet(this.roster.getCapacity());
+        for (int i = from; i < to; ++i) {
+            matches.set(ordinals[i]);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the first index of the sorted values which is greater than the threshold, or greater than or equal to
+     * it when not strict.
+     */
+    private static int bound(int[] values, int threshold, boolean strict) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < threshold || (strict && values[mid] == threshold)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(String type) {
+        for (int t = 0; t < this.types.length; ++t) {
+            if (this.types[t].equals(type)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the index covers the given types and attributes.
+     *
+     * @param types      employee types
+     * @param attributes attribute names
+     * @return whether the index can evaluate rules over them
+     */
+    boolean covers(String[] types, List<String> attributes) {
+        return Arrays.equals(this.types, types) && this.attributes.equals(attributes);
+    }
+
+    RosterAccessor getRoster() {
+        return roster;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * This class appends events of a run to a newline delimited JSON (NDJSON) file on a background thread. Events are
+ * handed over as suppliers of their JSON line, so formatting also happens off the solver thread. Handing over an event
+ * never blocks; when the writer falls behind and the queue is full the event is dropped and counted. The file is
+ * flushed whenever the queue runs empty, so it can be tailed during a run.
+ */
+class EventLog {
+    private static Logger log = Logger.getLogger(EventLog.class);
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Supplier<String> END = () -> null;
+    private final String path;
+    private final BufferedWriter out;
+    private final BlockingQueue<Supplier<String>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private long dropped;
+
+    /**
+     * Opens the event log in the given path for appending.
+     *
+     * @param path path of the event log
+     * @throws IOException if the file cannot be opened
+     */
+    EventLog(String path) throws IOException {
+        this.path = path;
+        this.out = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        this.writer = new Thread(this::drain, "event-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Hands over an event to the writer without waiting.
+     *
+     * @param event supplier of the JSON line of the event, called on the writer thread
+     */
+    void emit(Supplier<String> event) {
+        if (!this.queue.offer(event)) {
+            ++this.dropped;
+        }
+    }
+
+    /**
+     * Writes the pending events and closes the file.
+     */
+    void close() {
+        try {
+            this.queue.put(END);
+            this.writer.join(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.dropped > 0) {
+            log.warn(this.dropped + " events were dropped from the event log " + this.path);
+        }
+    }
+
+    private void drain() {
+        boolean failed = false;
+        try {
+            while (true) {
+                Supplier<String> event = this.queue.take();
+                if (event == END) {
+                    break;
+                }
+                if (failed) {
+                    continue;
+                }
+                try {
+                    this.out.write(event.get());
+                    this.out.newLine();
+                    if (this.queue.isEmpty()) {
+                        this.out.flush();
+                    }
+                } catch (IOException e) {
+                    log.error("Error occurred when writing the event log " + this.path + ". Discarding events", e);
+                    failed = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                this.out.close();
+            } catch (IOException e) {
+                log.error("Error occurred when closing the event log " + this.path, e);
+            }
+        }
+    }
+
+    /**
+     * Appends a number as a JSON value. JSON has no NaN or infinities, so they are written as null.
+     *
+     * @param builder builder of the JSON line
+     * @param value   number
+     * @return the builder
+     */
+    static StringBuilder appendNumber(StringBuilder builder, double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? builder.append("null") : builder.append(value);
+    }
+
+    /**
+     * Quotes a string as a JSON string.
+     *
+     * @param value string
+     * @return JSON string
+     */
+    static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.roster.RosterAccessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class indexes the candidates of each employee type for a team definition. It knows how many employees of a type
+ * are available, which employees are excluded from or locked into every team, and lays out a team as one segment of
+ * positions per type in the configured type order. It is used to reject impossible team definitions before a run and
+ * to repair teams produced by the genetic operators.
+ */
+class FeasibilityIndex {
+    private final String[] types;
+    private final Map<String, Integer> teamDefinition;
+    private final int[] counts;
+    private final int[] offsets;
+    private final int teamSize;
+    private final Set<Integer> excludedIds;
+    private final Set<Integer> lockedIds;
+    private int[] typeOf;
+    private boolean[] eligible;
+    private boolean[] locked;
+    private int[] positions;
+    private final int[][] candidates;
+    private final int[][] lockedCandidates;
+    private int[] stamps;
+    private int stamp;
+
+    private FeasibilityIndex(String[] types, Map<String, Integer> teamDefinition, RosterAccessor roster,
+                             Set<Integer> excludedIds, BitSet eligibleOrdinals, Set<Integer> lockedIds, Random random) {
+        this.types = types;
+        this.teamDefinition = new HashMap<>(teamDefinition);
+        this.excludedIds = excludedIds;
+        this.lockedIds = lockedIds;
+        this.counts = new int[types.length];
+        this.offsets = new int[types.length];
+        int offset = 0;
+        for (int t = 0; t < types.length; ++t) {
+            Integer count = teamDefinition.get(types[t]);
+            this.counts[t] = count == null ? 0 : count;
+            this.offsets[t] = offset;
+            offset += Math.max(0, this.counts[t]);
+        }
+        this.teamSize = offset;
+
+        int capacity = roster.getCapacity();
+        this.typeOf = new int[capacity];
+        this.eligible = new boolean[capacity];
+        this.locked = new boolean[capacity];
+        this.positions = new int[capacity];
+        this.stamps = new int[capacity];
+        int[] freeCounts = new int[types.length];
+        int[] fixedCounts = new int[types.length];
+        Arrays.fill(this.typeOf, -1);
+        for (int ordinal = 0; ordinal < capacity; ++ordinal) {
+            String employeeType = roster.getType(ordinal);
+            if (employeeType == null) {
+                continue;
+            }
+            int type = indexOf(employeeType);
+            this.typeOf[ordinal] = type;
+            if (type < 0) {
+                continue;
+            }
+            int id = roster.getId(ordinal);
+            this.eligible[ordinal] = (excludedIds.isEmpty() || !excludedIds.contains(id))
+                    && (eligibleOrdinals == null || eligibleOrdinals.get(ordinal));
+            this.locked[ordinal] = this.eligible[ordinal] && !lockedIds.isEmpty() && lockedIds.contains(id);
+            if (this.locked[ordinal]) {
+                ++fixedCounts[type];
+            } else if (this.eligible[ordinal]) {
+                ++freeCounts[type];
+            }
+        }
+        this.candidates = new int[types.length][];
+        this.lockedCandidates = new int[types.length][];
+        for (int t = 0; t < types.length; ++t) {
+            this.candidates[t] = new int[freeCounts[t]];
+            this.lockedCandidates[t] = new int[fixedCounts[t]];
+        }
+        Arrays.fill(freeCounts, 0);
+        Arrays.fill(fixedCounts, 0);
+        for (int ordinal = 0; ordinal < capacity; ++ordinal) {
+            int type = this.typeOf[ordinal];
+            if (type < 0) {
+                continue;
+            }
+            if (this.locked[ordinal]) {
+                this.lockedCandidates[type][fixedCounts[type]++] = ordinal;
+            } else if (this.eligible[ordinal]) {
+                this.candidates[type][freeCounts[type]++] = ordinal;
+            }
+        }
+        for (int t = 0; t < types.length; ++t) {
+            shuffle(this.candidates[t], random);
+            for (int i = 0; i < this.candidates[t].length; ++i) {
+                this.positions[this.candidates[t][i]] = i;
+            }
+        }
+    }
+
+    /**
+     * Shuffles ordinals in place. The swaps are those of {@link Collections#shuffle(List, Random)}, so a seeded run
+     * visits the candidates in the same order as before.
+     *
+     * @param ordinals employee ordinals
+     * @param random   random generator
+     */
+    private static void shuffle(int[] ordinals, Random random) {
+        for (int i = ordinals.length; i > 1; --i) {
+            int j = random.nextInt(i);
+            int ordinal = ordinals[i - 1];
+            ordinals[i - 1] = ordinals[j];
+            ordinals[j] = ordinal;
+        }
+    }
+
+    /**
+     * Builds the index and validates the team definition against it.
+     *
+     * @param types          employee types in team layout order
+     * @param teamDefinition number of employees required of each type
+     * @param roster         employees indexed by their ordinal
+     * @param excludedIds    ids of employees which must not be selected
+     * @param eligible       ordinals of the employees satisfying the eligibility rules, or null if there are none
+     * @param lockedIds      ids of employees which must be in every team
+     * @param random         random generator used to shuffle the candidates
+     * @return {@link FeasibilityIndex}
+     * @throws IllegalArgumentException if no valid team exists for the definition
+     */
+    static FeasibilityIndex build(String[] types, Map<String, Integer> teamDefinition, RosterAccessor roster,
+                                  Collection<Integer> excludedIds, BitSet eligible, Collection<Integer> lockedIds,
+                                  Random random) {
+        Set<Integer> excluded = excludedIds == null ? Collections.emptySet() : new HashSet<>(excludedIds);
+        Set<Integer> locked = lockedIds == null ? Collections.emptySet() : new HashSet<>(lockedIds);
+        FeasibilityIndex index = new FeasibilityIndex(types, teamDefinition, roster, excluded, eligible, locked,
+                random);
+        index.validate(roster);
+        return index;
+    }
+
+    /**
+     * Moves the index to a newer version of its roster. Only the changed ordinals are visited: they are taken out of
+     * the candidates of their old type and put at a random position of the candidates of their new type, so the
+     * candidates stay shuffled. The team definition, excluded, locked and eligibility rules must be those the index
+     * was built for.
+     *
+     * @param roster   newer version of the roster
+     * @param changes  ordinals changed since the version the index holds, possibly with repetitions
+     * @param eligible ordinals of the employees satisfying the eligibility rules, or null if there are none
+     * @param random   random generator used to place the new candidates
+     * @return whether the selectable employees of each type changed
+     * @throws IllegalArgumentException if no valid team exists for the definition any more
+     */
+    boolean[] update(RosterAccessor roster, int[] changes, BitSet eligible, Random random) {
+        int capacity = roster.getCapacity();
+        if (capacity > this.typeOf.length) {
+            int oldCapacity = this.typeOf.length;
+            this.typeOf = Arrays.copyOf(this.typeOf, capacity);
+            Arrays.fill(this.typeOf, oldCapacity, capacity, -1);
+            this.eligible = Arrays.copyOf(this.eligible, capacity);
+            this.locked = Arrays.copyOf(this.locked, capacity);
+            this.positions = Arrays.copyOf(this.positions, capacity);
+            this.stamps = Arrays.copyOf(this.stamps, capacity);
+        }
+        boolean[] touched = new boolean[this.types.length];
+        boolean[] lockedTouched = new boolean[this.types.length];
+        int[] sizes = new int[this.types.length];
+        for (int t = 0; t < this.types.length; ++t) {
+            sizes[t] = this.candidates[t].length;
+        }
+        for (int ordinal : changes) {
+            int oldType = this.typeOf[ordinal];
+            boolean wasFree = oldType >= 0 && this.eligible[ordinal] && !this.locked[ordinal];
+            String employeeType = ordinal < capacity ? roster.getType(ordinal) : null;
+            int type = employeeType == null ? -1 : indexOf(employeeType);
+            boolean isEligible = false;
+            boolean isLocked = false;
+            if (type >= 0) {
+                int id = roster.getId(ordinal);
+                isEligible = (this.excludedIds.isEmpty() || !this.excludedIds.contains(id))
+                        && (eligible == null || eligible.get(ordinal));
+                isLocked = isEligible && !this.lockedIds.isEmpty() && this.lockedIds.contains(id);
+            }
+            boolean isFree = isEligible && !isLocked;
+            if (oldType >= 0 && this.eligible[ordinal]) {
+                touched[oldType] = true;
+                lockedTouched[oldType] |= this.locked[ordinal];
+            }
+            if (isEligible) {
+                touched[type] = true;
+                lockedTouched[type] |= isLocked;
+            }
+            if (wasFree && !(isFree && type == oldType)) {
+                removeCandidate(oldType, ordinal, sizes);
+            }
+            if (isFree && !(wasFree && type == oldType)) {
+                addCandidate(type, ordinal, sizes, random);
+            }
+            this.typeOf[ordinal] = type;
+            this.eligible[ordinal] = isEligible;
+            this.locked[ordinal] = isLocked;
+        }
+        for (int t = 0; t < this.types.length; ++t) {
+            if (sizes[t] != this.candidates[t].length) {
+                this.candidates[t] = Arrays.copyOf(this.candidates[t], sizes[t]);
+            }
+            if (lockedTouched[t]) {
+                updateLockedCandidates(t, changes);
+            }
+        }
+        validate(roster);
+        return touched;
+    }
+
+    private void removeCandidate(int type, int ordinal, int[] sizes) {
+        int[] free = this.candidates[type];
+        int last = free[--sizes[type]];
+        free[this.positions[ordinal]] = last;
+        this.positions[last] = this.positions[ordinal];
+    }
+
+    private void addCandidate(int type, int ordinal, int[] sizes, Random random) {
+        int size = sizes[type]++;
+        if (size == this.candidates[type].length) {
+            this.candidates[type] = Arrays.copyOf(this.candidates[type], size + (size >> 1) + 1);
+        }
+        int[] free = this.candidates[type];
+        int position = random.nextInt(size + 1);
+        if (position < size) {
+            free[size] = free[position];
+            this.positions[free[size]] = size;
+        }
+        free[position] = ordinal;
+        this.positions[ordinal] = position;
+    }
+
+    /**
+     * Collects the employees locked into a type again after some of them changed. Locked employees are few, so they
+     * are kept in ascending order of ordinal like a freshly built index.
+     */
+    private void updateLockedCandidates(int type, int[] changes) {
+        int[] current = this.lockedCandidates[type];
+        int[] updated = new int[current.length + changes.length];
+        int count = 0;
+        for (int ordinal : current) {
+            if (this.locked[ordinal] && this.typeOf[ordinal] == type) {
+                updated[count++] = ordinal;
+            }
+        }
+        for (int ordinal : changes) {
+            if (this.locked[ordinal] && this.typeOf[ordinal] == type) {
+                updated[count++] = ordinal;
+            }
+        }
+        this.lockedCandidates[type] = Arrays.stream(updated, 0, count).sorted().distinct().toArray();
+    }
+
+    /**
+     * Checks that a valid team exists for the team definition.
+     *
+     * @param roster employees indexed by their ordinal
+     * @throws IllegalArgumentException if no valid team exists for the definition
+     */
+    private void validate(RosterAccessor roster) {
+        List<String> problems = new ArrayList<>();
+        int lockedCount = 0;
+        for (int t = 0; t < this.types.length; ++t) {
+            Integer count = this.teamDefinition.get(this.types[t]);
+            lockedCount += this.lockedCandidates[t].length;
+            if (count == null || count < 0) {
+                problems.add("No valid employee count is defined for " + this.types[t]);
+            } else if (count > available(t)) {
+                problems.add(count + " " + this.types[t] + " requested but only " + available(t) + " available");
+            } else if (this.lockedCandidates[t].length > count) {
+                problems.add(this.lockedCandidates[t].length + " " + this.types[t] + " locked but only " + count
+                        + " requested");
+            }
+        }
+        if (lockedCount != this.lockedIds.size()) {
+            // Only when a locked id was not matched, as finding out why takes a pass over the roster
+            Set<Integer> missing = new HashSet<>(this.lockedIds);
+            for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+                if (roster.getType(ordinal) == null) {
+                    continue;
+                }
+                int id = roster.getId(ordinal);
+                if (missing.remove(id) && !this.locked[ordinal]) {
+                    problems.add("Employee " + id + " is locked but excluded or not eligible");
+                }
+            }
+            if (!missing.isEmpty()) {
+                problems.add("Locked employees not found in the input: " + missing);
+            }
+        }
+        if (this.teamSize == 0) {
+            problems.add("Team definition does not request any employees");
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Infeasible team definition: " + String.join(", ", problems));
+        }
+    }
+
+    /**
+     * Repairs a team in place, so that every segment holds distinct eligible employees of its type and contains all
+     * employees locked into that type. Invalid positions are refilled from the shuffled candidates, so the cost is
+     * bounded by the number of candidates of a type even for crowded types.
+     *
+     * @param team   employee ordinals laid out by type segments
+     * @param random random generator
+     * @return whether the team was changed
+     */
+    boolean repair(int[] team, Random random) {
+        boolean changed = false;
+        int[] holes = new int[0];
+        for (int t = 0; t < this.types.length; ++t) {
+            if (++this.stamp == 0) {
+                Arrays.fill(this.stamps, 0);
+                this.stamp = 1;
+            }
+            int from = this.offsets[t];
+            int to = from + this.counts[t];
+            if (holes.length < this.counts[t]) {
+                holes = new int[this.counts[t]];
+            }
+            int holeCount = 0;
+            int lockedInTeam = 0;
+            for (int i = from; i < to; ++i) {
+                int ordinal = team[i];
+                if (ordinal < 0 || ordinal >= this.typeOf.length || this.typeOf[ordinal] != t || !this.eligible[ordinal]
+                        || this.stamps[ordinal] == this.stamp) {
+                    holes[holeCount++] = i;
+                } else {
+                    this.stamps[ordinal] = this.stamp;
+                    if (this.locked[ordinal]) {
+                        ++lockedInTeam;
+                    }
+                }
+            }
+            if (lockedInTeam < this.lockedCandidates[t].length) {
+                for (int ordinal : this.lockedCandidates[t]) {
+                    if (this.stamps[ordinal] == this.stamp) {
+                        continue;
+                    }
+                    int position;
+                    if (holeCount > 0) {
+                        position = holes[--holeCount];
+                    } else {
+                        position = from + random.nextInt(this.counts[t]);
+                        while (this.locked[team[position]]) {
+                            position = position + 1 < to ? position + 1 : from;
+                        }
+                        this.stamps[team[position]] = 0;
+                    }
+                    team[position] = ordinal;
+                    this.stamps[ordinal] = this.stamp;
+                    changed = true;
+                }
+            }
+            if (holeCount > 0) {
+                int[] free = this.candidates[t];
+                int next = random.nextInt(free.length);
+                while (holeCount > 0) {
+                    int ordinal = free[next];
+                    next = next + 1 < free.length ? next + 1 : 0;
+                    if (this.stamps[ordinal] != this.stamp) {
+                        this.stamps[ordinal] = this.stamp;
+                        team[holes[--holeCount]] = ordinal;
+                    }
+                }
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the number of employees of a type which can be selected.
+     *
+     * @param type index of the type
+     * @return number of available employees
+     */
+    int available(int type) {
+        return this.candidates[type].length + this.lockedCandidates[type].length;
+    }
+
+    /**
+     * Returns the number of employees of all types which can be selected.
+     *
+     * @return number of available employees
+     */
+    int available() {
+        int available = 0;
+        for (int t = 0; t < this.types.length; ++t) {
+            available += available(t);
+        }
+        return available;
+    }
+
+    /**
+     * Returns the index of the given type in the team layout.
+     *
+     * @param type employee type
+     * @return index of the type, or -1 if the type is not configured
+     */
+    int indexOf(String type) {
+        for (int t = 0; t < this.types.length; ++t) {
+            if (this.types[t].equals(type)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the eligible employees of a type which are not locked, in shuffled order.
+     *
+     * @param type index of the type
+     * @return employee ordinals
+     */
+    int[] getCandidates(int type) {
+        return this.candidates[type];
+    }
+
+    /**
+     * Returns the employees locked into every team of a type.
+     *
+     * @param type index of the type
+     * @return employee ordinals
+     */
+    int[] getLockedCandidates(int type) {
+        return this.lockedCandidates[type];
+    }
+
+    boolean isEligible(int ordinal) {
+        return this.eligible[ordinal];
+    }
+
+    boolean isLocked(int ordinal) {
+        return this.locked[ordinal];
+    }
+
+    int getTypeOf(int ordinal) {
+        return this.typeOf[ordinal];
+    }
+
+    int getCount(int type) {
+        return this.counts[type];
+    }
+
+    int getOffset(int type) {
+        return this.offsets[type];
+    }
+
+    int getTeamSize() {
+        return this.teamSize;
+    }
+
+    String[] getTypes() {
+        return this.types;
+    }
+}
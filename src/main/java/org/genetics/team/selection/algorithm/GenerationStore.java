@@ -0,0 +1,310 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the teams of a generation as a struct of arrays: the employee ordinals of all teams in one flat
+ * array, team after team, and the fitness of the teams in a parallel array. A team costs its ordinals and one double,
+ * without an object per team, so {@link org.genetics.team.selection.beans.Team} views are only created for output.
+ * Each team also keeps its {@link ZobristHash}, so only teams of an equal hash need their members compared to find
+ * duplicates.
+ */
+final class GenerationStore {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private final int teamSize;
+    private final ZobristHash zobristHash;
+    private int[] genes;
+    private double[] fitness;
+    private long[] hashes;
+    private int size;
+
+    /**
+     * Constructs an empty {@link GenerationStore}.
+     *
+     * @param teamSize    number of employees of a team
+     * @param capacity    number of teams to reserve space for
+     * @param zobristHash {@link ZobristHash} to hash the teams with
+     */
+    GenerationStore(int teamSize, int capacity, ZobristHash zobristHash) {
+        this.teamSize = teamSize;
+        this.zobristHash = zobristHash;
+        this.genes = new int[Math.max(1, capacity) * teamSize];
+        this.fitness = new double[Math.max(1, capacity)];
+        this.hashes = new long[Math.max(1, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getTeamSize() {
+        return teamSize;
+    }
+
+    /**
+     * Returns the flat array of ordinals. Team i starts at i * team size. The array is replaced when the store grows.
+     *
+     * @return employee ordinals of all teams
+     */
+    int[] getGenes() {
+        return genes;
+    }
+
+    /**
+     * Returns the fitness array the teams are scored into. The array is replaced when the store grows.
+     *
+     * @return fitness of all teams, followed by unused space
+     */
+    double[] getFitnessValues() {
+        return fitness;
+    }
+
+    double getFitness(int team) {
+        return this.fitness[team];
+    }
+
+    /**
+     * Appends a team.
+     *
+     * @param ordinals employee ordinals of the team
+     * @param fitness  fitness of the team
+     * @return index of the team
+     */
+    int add(int[] ordinals, double fitness) {
+        ensureCapacity(this.size + 1);
+        set(this.size, ordinals, fitness);
+        return this.size++;
+    }
+
+    /**
+     * Appends a team of another store.
+     *
+     * @param source store holding the team
+     * @param team   index of the team in the source store
+     * @return index of the team
+     */
+    int add(GenerationStore source, int team) {
+        ensureCapacity(this.size + 1);
+        System.arraycopy(source.genes, team * this.teamSize, this.genes, this.size * this.teamSize, this.teamSize);
+        this.fitness[this.size] = source.fitness[team];
+        this.hashes[this.size] = source.hashes[team];
+        return this.size++;
+    }
+
+    /**
+     * Replaces a team.
+     *
+     * @param team     index of the team
+     * @param ordinals employee ordinals of the new team
+     * @param fitness  fitness of the new team
+     */
+    void set(int team, int[] ordinals, double fitness) {
+        set(team, ordinals, fitness, this.zobristHash.hash(ordinals));
+    }
+
+    /**
+     * Replaces a team whose hash is already known, e.g. because it was updated member by member.
+     *
+     * @param team     index of the team
+     * @param ordinals employee ordinals of the new team
+     * @param fitness  fitness of the new team
+     * @param hash     {@link ZobristHash} of the new team
+     */
+    void set(int team, int[] ordinals, double fitness, long hash) {
+        System.arraycopy(ordinals, 0, this.genes, team * this.teamSize, this.teamSize);
+        this.fitness[team] = fitness;
+        this.hashes[team] = hash;
+    }
+
+    long getHash(int team) {
+        return this.hashes[team];
+    }
+
+    /**
+     * Copies the ordinals of a team into the given array.
+     *
+     * @param team   index of the team
+     * @param target array of the team size
+     */
+    void copyTeam(int team, int[] target) {
+        System.arraycopy(this.genes, team * this.teamSize, target, 0, this.teamSize);
+    }
+
+    /**
+     * Returns a copy of the ordinals of a team.
+     *
+     * @param team index of the team
+     * @return employee ordinals
+     */
+    int[] getTeam(int team) {
+        return Arrays.copyOfRange(this.genes, team * this.teamSize, (team + 1) * this.teamSize);
+    }
+
+    /**
+     * Checks whether a team holds the given ordinals in the same order.
+     *
+     * @param team     index of the team
+     * @param ordinals employee ordinals
+     * @return whether the team equals the ordinals
+     */
+    boolean equalsTeam(int team, int[] ordinals) {
+        int offset = team * this.teamSize;
+        for (int i = 0; i < this.teamSize; ++i) {
+            if (this.genes[offset + i] != ordinals[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the store holds a team of the given members, in any order. Only teams of an equal
+     * {@link ZobristHash} have their members compared.
+     *
+     * @param ordinals employee ordinals
+     * @return whether a team of the members is stored
+     */
+    boolean contains(int[] ordinals) {
+        long hash = this.zobristHash.hash(ordinals);
+        for (int team = 0; team < this.size; ++team) {
+            if (this.hashes[team] == hash && sameMembers(team, ordinals, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the store holds a team of the same members as a team of another store, in any order.
+     *
+     * @param source store holding the team
+     * @param team   index of the team in the source store
+     * @return whether a team of the members is stored
+     */
+    boolean contains(GenerationStore source, int team) {
+        long hash = source.hashes[team];
+        for (int i = 0; i < this.size; ++i) {
+            if (this.hashes[i] == hash && sameMembers(i, source.genes, team * this.teamSize)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a team holds the members at the given offset of an array, in any order. The members of a team are
+     * distinct, so it is enough that each of them is found.
+     */
+    private boolean sameMembers(int team, int[] genes, int offset) {
+        int from = team * this.teamSize;
+        int to = from + this.teamSize;
+        for (int i = offset; i < offset + this.teamSize; ++i) {
+            int ordinal = genes[i];
+            int j = from;
+            while (j < to && this.genes[j] != ordinal) {
+                ++j;
+            }
+            if (j == to) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether two teams hold the same members, in any order. Only teams of an equal {@link ZobristHash} have
+     * their members compared.
+     */
+    boolean sameTeam(int first, int second) {
+        return this.hashes[first] == this.hashes[second] && sameMembers(first, this.genes, second * this.teamSize);
+    }
+
+    void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Copies the fitness of all teams into an array.
+     *
+     * @return fitness of the teams
+     */
+    double[] getFitness() {
+        return Arrays.copyOf(this.fitness, this.size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.fitness.length) {
+            int grown = Math.max(capacity, this.fitness.length + (this.fitness.length >> 1));
+            this.fitness = Arrays.copyOf(this.fitness, grown);
+            this.genes = Arrays.copyOf(this.genes, grown * this.teamSize);
+            this.hashes = Arrays.copyOf(this.hashes, grown);
+        }
+    }
+
+    /**
+     * Sorts indexes by their keys in descending order, without boxing.
+     *
+     * @param indexes indexes to sort
+     * @param keys    key of each index
+     * @param from    first position to sort, inclusive
+     * @param to      last position to sort, exclusive
+     */
+    static void sortDescending(int[] indexes, double[] keys, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int middle = (from + to) >>> 1;
+            double pivot = median(keys[indexes[from]], keys[indexes[middle]], keys[indexes[to - 1]]);
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (keys[indexes[i]] > pivot) {
+                    ++i;
+                }
+                while (keys[indexes[j]] < pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    int temp = indexes[i];
+                    indexes[i++] = indexes[j];
+                    indexes[j--] = temp;
+                }
+            }
+            // Recurse into the smaller part so the stack stays logarithmic.
+            if (j - from < to - i) {
+                sortDescending(indexes, keys, from, j + 1);
+                from = i;
+            } else {
+                sortDescending(indexes, keys, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; ++i) {
+            int index = indexes[i];
+            int j = i - 1;
+            while (j >= from && keys[indexes[j]] < keys[index]) {
+                indexes[j + 1] = indexes[j];
+                --j;
+            }
+            indexes[j + 1] = index;
+        }
+    }
+
+    private static double median(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+}
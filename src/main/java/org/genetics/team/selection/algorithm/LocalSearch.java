@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * This class is the memetic refinement stage of the genetic algorithm. It hill-climbs the fittest teams of a
+ * generation by swapping a member for a non member of the same type. Candidates of each type are kept sorted by
+ * weighted score, and since the fitness of a team is the average weighted score of its members, a move is evaluated
+ * from the scores of the two employees alone. With a budget, a member is only swapped for a candidate which keeps the
+ * team within the budget. Teams are refined in parallel.
+ */
+class LocalSearch {
+    private final Population population;
+    private final FeasibilityIndex index;
+    private final BudgetIndex budgetIndex;
+    private final Strategy strategy;
+    private final int maxMoves;
+
+    /**
+     * Move selection strategies of the local search.
+     */
+    enum Strategy {
+        NONE, FIRST_IMPROVEMENT, BEST_IMPROVEMENT
+    }
+
+    /**
+     * Constructs a {@link LocalSearch}.
+     *
+     * @param population {@link Population}
+     * @param strategy   move selection strategy
+     * @param maxMoves   maximum number of swaps applied to a team
+     */
+    LocalSearch(Population population, Strategy strategy, int maxMoves) {
+        this.population = population;
+        this.index = population.getFeasibilityIndex();
+        this.budgetIndex = population.getBudgetIndex();
+        this.strategy = strategy;
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Refines the first teams of the given store in place. Teams which cannot be improved are left as is.
+     *
+     * @param teams store holding the teams to refine
+     * @param count number of teams to refine
+     */
+    void refine(GenerationStore teams, int count) {
+        int[][] refined = IntStream.range(0, Math.min(count, teams.size())).parallel()
+                .mapToObj(i -> climb(teams.getTeam(i))).toArray(int[][]::new);
+        for (int i = 0; i < refined.length; ++i) {
+            if (refined[i] != null) {
+                teams.set(i, refined[i], this.population.repairAndEvaluate(refined[i]));
+            }
+        }
+    }
+
+    /**
+     * Applies improving swaps to a copy of the team until no swap improves it or the move limit is reached.
+     *
+     * @param ordinals employee ordinals of the team
+     * @return improved employee ordinals, or null if no improving swap exists
+     */
+    private int[] climb(int[] ordinals) {
+        int[] team = null;
+        long cost = this.population.getTeamCost(ordinals);
+        for (int move = 0; move < this.maxMoves; ++move) {
+            int[] current = team == null ? ordinals : team;
+            int[] swap = this.strategy == Strategy.BEST_IMPROVEMENT
+                    ? bestMove(current, cost) : firstMove(current, cost);
+            if (swap == null) {
+                break;
+            }
+            if (team == null) {
+                team = Arrays.copyOf(ordinals, ordinals.length);
+            }
+            cost += this.population.getCostChange(team[swap[0]], swap[1]);
+            team[swap[0]] = swap[1];
+        }
+        return team;
+    }
+
+    /**
+     * Finds the swap with the largest gain: in every type each unlocked member against the highest scored non member
+     * which fits into the budget. Without a budget this is the lowest scored member against the highest scored non
+     * member.
+     *
+     * @param team employee ordinals of the team
+     * @param cost total cost of the team
+     * @return position and new employee ordinal, or null if no swap improves the team
+     */
+    private int[] bestMove(int[] team, long cost) {
+        int[] best = null;
+        double bestGain = 0;
+        for (int t = 0; t < this.index.getTypes().length; ++t) {
+            int from = this.index.getOffset(t);
+            int to = from + this.index.getCount(t);
+            for (int i = from; i < to; ++i) {
+                if (this.index.isLocked(team[i])) {
+                    continue;
+                }
+                int candidate = bestOutsider(team, t, from, to, team[i], cost);
+                if (candidate >= 0 && score(candidate) - score(team[i]) > bestGain) {
+                    bestGain = score(candidate) - score(team[i]);
+                    best = new int[]{i, candidate};
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the first member, in team order, which a higher scored non member within the budget can replace.
+     *
+     * @param team employee ordinals of the team
+     * @param cost total cost of the team
+     * @return position and new employee ordinal, or null if no swap improves the team
+     */
+    private int[] firstMove(int[] team, long cost) {
+        for (int t = 0; t < this.index.getTypes().length; ++t) {
+            int from = this.index.getOffset(t);
+            int to = from + this.index.getCount(t);
+            for (int i = from; i < to; ++i) {
+                if (this.index.isLocked(team[i])) {
+                    continue;
+                }
+                int candidate = bestOutsider(team, t, from, to, team[i], cost);
+                if (candidate >= 0 && score(candidate) > score(team[i])) {
+                    return new int[]{i, candidate};
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the highest scored candidate of a type which is not in the team segment and which can replace the given
+     * member within the budget. Without a budget at most as many sorted candidates as the segment holds are skipped.
+     * With a budget the undominated candidates of the {@link BudgetIndex} are searched up to the affordable cost; a
+     * dominated candidate is never needed, as one of the candidates dominating it is outside the team.
+     */
+    private int bestOutsider(int[] team, int type, int from, int to, int member, long cost) {
+        if (this.budgetIndex == null) {
+            for (int candidate : this.population.getSortedCandidates(this.index.getTypes()[type])) {
+                if (!contains(team, from, to, candidate)) {
+                    return candidate;
+                }
+            }
+            return -1;
+        }
+        long limit = this.budgetIndex.getBudget() - cost + this.budgetIndex.getCost(member);
+        int best = -1;
+        for (int candidate : this.budgetIndex.getCandidates(type)) {
+            if (this.budgetIndex.getCost(candidate) > limit) {
+                break;
+            }
+            if ((best < 0 || score(candidate) > score(best)) && !contains(team, from, to, candidate)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private double score(int ordinal) {
+        return this.population.getWeightedScore(ordinal);
+    }
+
+    private static boolean contains(int[] team, int from, int to, int ordinal) {
+        for (int i = from; i < to; ++i) {
+            if (team[i] == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
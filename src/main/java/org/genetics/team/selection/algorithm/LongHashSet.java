@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * This class is a set of long values with open addressing and linear probing, without boxing. It is meant to be
+ * cleared and filled again, e.g. once per generation.
+ */
+final class LongHashSet {
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+    private long[] slots = new long[16];
+    private boolean[] used = new boolean[16];
+    private int mask = 15;
+
+    /**
+     * Empties the set and makes room for the given number of values.
+     *
+     * @param expected number of values to be added before the next clear
+     */
+    void clear(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(8, expected) * 2 - 1) << 1;
+        if (capacity > this.slots.length) {
+            this.slots = new long[capacity];
+            this.used = new boolean[capacity];
+            this.mask = capacity - 1;
+        } else {
+            Arrays.fill(this.used, false);
+        }
+    }
+
+    /**
+     * Adds a value. The set must have been cleared for at least as many values as are added.
+     *
+     * @param value value to add
+     * @return whether the value was not in the set yet
+     */
+    boolean add(long value) {
+        int slot = (int) ((value * MIX) >>> 32) & this.mask;
+        while (this.used[slot]) {
+            if (this.slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.used[slot] = true;
+        this.slots[slot] = value;
+        return true;
+    }
+}
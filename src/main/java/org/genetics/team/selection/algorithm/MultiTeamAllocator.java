@@ -0,0 +1,420 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.beans.ProjectDefinition;
+import org.genetics.team.selection.beans.SolverMetrics;
+import org.genetics.team.selection.beans.Team;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.genetics.team.selection.util.CommonConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * This class staffs several projects from the same roster at once, so that no employee is assigned to more than one
+ * project. A chromosome is the concatenation of the teams of all projects, each laid out by type segments like a
+ * single team. Employees assigned more than once are detected with a per-employee assignment array and replaced by
+ * unassigned employees. The objective is the sum of the fitness of the teams, each scored with the attribute weights
+ * of its project.
+ */
+public class MultiTeamAllocator {
+    private static Logger log = Logger.getLogger(MultiTeamAllocator.class);
+    // Below this number of genes a chromosome is cheaper to evaluate on the calling thread.
+    private static final int PARALLEL_THRESHOLD = 1024;
+    private final Population population;
+    private final Configuration configuration;
+    private List<ProjectDefinition> projects;
+    private String[] projectNames;
+    private FeasibilityIndex[] layouts;
+    private int[] projectOffsets;
+    private int[] geneTypes;
+    private int[][] typePositions;
+    private int[][] candidates;
+    private double[][] scores;
+    private int[] assignment;
+    private int[] holes;
+    private int stamp;
+    private long evaluations;
+    private SolverMetrics metrics;
+    private Random random;
+
+    public MultiTeamAllocator(Population population) {
+        this.population = population;
+        this.configuration = population.getConfiguration();
+    }
+
+    /**
+     * Builds the layout of the chromosome and validates the projects against the roster.
+     *
+     * @throws IllegalArgumentException if the projects cannot be staffed with disjoint teams
+     */
+    public void initialize() {
+        this.projects = this.configuration.getProjects();
+        if (this.projects == null || this.projects.isEmpty()) {
+            throw new IllegalArgumentException("No projects are configured");
+        }
+        if (this.configuration.getLockedEmployees() != null && !this.configuration.getLockedEmployees().isEmpty()) {
+            log.warn("Locked employees cannot be part of every team of disjoint allocation. Ignoring them.");
+        }
+        if (this.population.getBudget() != null) {
+            log.warn("The budget applies to a single team and not to disjoint allocation. Ignoring it.");
+        }
+        this.population.reseed();
+        this.random = this.population.getRandom();
+        String[] types = this.configuration.getTypes();
+        RosterAccessor roster = this.population.getRoster();
+        int projectCount = this.projects.size();
+        this.projectNames = new String[projectCount];
+        this.layouts = new FeasibilityIndex[projectCount];
+        this.scores = new double[projectCount][];
+        this.projectOffsets = new int[projectCount + 1];
+        int[] required = new int[types.length];
+        List<String> problems = new ArrayList<>();
+        for (int p = 0; p < projectCount; ++p) {
+            ProjectDefinition project = this.projects.get(p);
+            this.projectNames[p] = project.getName() == null ? "Project " + (p + 1) : project.getName();
+            if (project.getTeamDefinition() == null || project.getAttributeWeights() == null) {
+                problems.add(this.projectNames[p] + " has no team definition or attribute weights");
+                continue;
+            }
+            String missingWeight = findMissingWeight(project.getAttributeWeights());
+            if (missingWeight != null) {
+                problems.add(this.projectNames[p] + " has no weight for " + missingWeight);
+                continue;
+            }
+            try {
+                this.layouts[p] = FeasibilityIndex.build(types, project.getTeamDefinition(), roster,
+                        this.configuration.getExcludedEmployees(), this.population.getEligibleEmployees(), null,
+                        this.random);
+            } catch (IllegalArgumentException e) {
+                problems.add(this.projectNames[p] + ": " + e.getMessage());
+                continue;
+            }
+            this.scores[p] = this.population.calculateWeightedScores(project.getAttributeWeights());
+            this.projectOffsets[p + 1] = this.projectOffsets[p] + this.layouts[p].getTeamSize();
+            for (int t = 0; t < types.length; ++t) {
+                required[t] += this.layouts[p].getCount(t);
+            }
+        }
+        if (problems.isEmpty()) {
+            for (int t = 0; t < types.length; ++t) {
+                if (required[t] > this.layouts[0].available(t)) {
+                    problems.add(required[t] + " " + types[t] + " requested by all projects but only "
+                            + this.layouts[0].available(t) + " available");
+                }
+            }
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Infeasible allocation: " + String.join(", ", problems));
+        }
+
+        int chromosomeSize = this.projectOffsets[projectCount];
+        this.geneTypes = new int[chromosomeSize];
+        this.typePositions = new int[types.length][];
+        this.candidates = new int[types.length][];
+        int[] filled = new int[types.length];
+        for (int t = 0; t < types.length; ++t) {
+            this.typePositions[t] = new int[required[t]];
+            // Without locked employees every eligible employee of a type is a candidate of every project.
+            this.candidates[t] = this.layouts[0].getCandidates(t);
+        }
+        for (int p = 0; p < projectCount; ++p) {
+            for (int t = 0; t < types.length; ++t) {
+                int from = this.projectOffsets[p] + this.layouts[p].getOffset(t);
+                for (int i = from; i < from + this.layouts[p].getCount(t); ++i) {
+                    this.geneTypes[i] = t;
+                    this.typePositions[t][filled[t]++] = i;
+                }
+            }
+        }
+        this.assignment = new int[roster.getCapacity()];
+        this.holes = new int[chromosomeSize];
+        log.info("Allocating " + chromosomeSize + " employees to " + projectCount + " projects");
+    }
+
+    /**
+     * Allocates the teams of all projects with a genetic algorithm over the joint chromosome.
+     *
+     * @return the team of each project, in the configured project order
+     */
+    public List<Team> allocate() {
+        long evaluationsBefore = this.evaluations;
+        long cpuTime = AbstractSolver.getCpuTime();
+        long wallTime = System.nanoTime();
+        SolverMetrics metrics = new SolverMetrics();
+        metrics.setSolver("MULTI");
+        this.metrics = metrics;
+
+        int populationSize = Math.max(2, this.configuration.getInitialPopulationSize());
+        int chromosomeSize = this.geneTypes.length;
+        int[][] generation = new int[populationSize][];
+        double[] fitness = new double[populationSize];
+        List<String> seeding = this.configuration.getSeeding();
+        for (int i = 0; i < populationSize; ++i) {
+            if (i == 0 && seeding != null && seeding.stream().anyMatch(s -> "GREEDY".equalsIgnoreCase(s.trim()))) {
+                generation[i] = greedy();
+            } else {
+                generation[i] = new int[chromosomeSize];
+                Arrays.fill(generation[i], -1);
+                repair(generation[i]);
+            }
+            fitness[i] = evaluate(generation[i]);
+        }
+        int best = fittest(fitness);
+
+        double crossoverRate = this.configuration.getCrossoverRate();
+        double mutationRate = this.configuration.getMutationRate();
+        TerminationPolicy policy = TerminationPolicy.of(this.configuration, this.configuration.getGenerations(), 0);
+        policy.start();
+        int generationCount = 0;
+        while (!policy.shouldStop(generationCount, fitness[best])) {
+            ++generationCount;
+            int[][] next = new int[populationSize][];
+            double[] nextFitness = new double[populationSize];
+            next[0] = generation[best];
+            nextFitness[0] = fitness[best];
+            for (int i = 1; i < populationSize; ++i) {
+                int[] first = generation[tournament(fitness)];
+                int[] child = this.random.nextDouble() < crossoverRate ?
+                        crossover(first, generation[tournament(fitness)]) : first.clone();
+                mutate(child, mutationRate);
+                repair(child);
+                next[i] = child;
+                nextFitness[i] = evaluate(child);
+            }
+            generation = next;
+            fitness = nextFitness;
+            best = fittest(fitness);
+        }
+        log.info("Allocation stopped after " + generationCount + " generations: " + policy.getReason());
+
+        List<Team> teams = toTeams(generation[best]);
+        metrics.setIterations(generationCount);
+        metrics.setWallTimeNanos(System.nanoTime() - wallTime);
+        metrics.setCpuTimeNanos(cpuTime < 0 ? metrics.getWallTimeNanos() : AbstractSolver.getCpuTime() - cpuTime);
+        metrics.setEvaluations(this.evaluations - evaluationsBefore);
+        metrics.setBestFitness(fitness[best]);
+        for (int p = 0; p < teams.size(); ++p) {
+            log.info(this.projectNames[p]);
+            log.info("======================");
+            for (Employee employee : teams.get(p).getEmployees()) {
+                log.info(employee.getName());
+            }
+            log.info("Team Fitness: " + teams.get(p).getFitness());
+        }
+        log.info("Total Fitness: " + fitness[best]);
+        log.info(metrics);
+        return teams;
+    }
+
+    /**
+     * Staffs the projects one by one in the configured order with the top scored employees which are still free.
+     *
+     * @return chromosome
+     */
+    private int[] greedy() {
+        int[] chromosome = new int[this.geneTypes.length];
+        if (++this.stamp == 0) {
+            Arrays.fill(this.assignment, 0);
+            this.stamp = 1;
+        }
+        for (int p = 0; p < this.layouts.length; ++p) {
+            double[] projectScores = this.scores[p];
+            for (int t = 0; t < this.candidates.length; ++t) {
+                int position = this.projectOffsets[p] + this.layouts[p].getOffset(t);
+                int count = this.layouts[p].getCount(t);
+                int[] sorted = Arrays.stream(this.candidates[t]).boxed()
+                        .sorted((a, b) -> Double.compare(projectScores[b], projectScores[a]))
+                        .mapToInt(Integer::intValue).toArray();
+                for (int i = 0; count > 0; ++i) {
+                    if (this.assignment[sorted[i]] != this.stamp) {
+                        this.assignment[sorted[i]] = this.stamp;
+                        chromosome[position++] = sorted[i];
+                        --count;
+                    }
+                }
+            }
+        }
+        return chromosome;
+    }
+
+    /**
+     * Repairs a chromosome in place, so that every position holds an eligible employee of its type and no employee is
+     * assigned twice. The first occurrence of an employee keeps the assignment and the other positions are refilled
+     * with unassigned employees.
+     *
+     * @param chromosome employee ordinals of all teams
+     */
+    void repair(int[] chromosome) {
+        if (++this.stamp == 0) {
+            Arrays.fill(this.assignment, 0);
+            this.stamp = 1;
+        }
+        FeasibilityIndex index = this.layouts[0];
+        int holeCount = 0;
+        for (int i = 0; i < chromosome.length; ++i) {
+            int ordinal = chromosome[i];
+            if (ordinal < 0 || ordinal >= this.assignment.length || index.getTypeOf(ordinal) != this.geneTypes[i]
+                    || !index.isEligible(ordinal) || this.assignment[ordinal] == this.stamp) {
+                this.holes[holeCount++] = i;
+            } else {
+                this.assignment[ordinal] = this.stamp;
+            }
+        }
+        for (int h = 0; h < holeCount; ++h) {
+            int[] free = this.candidates[this.geneTypes[this.holes[h]]];
+            int next = this.random.nextInt(free.length);
+            while (this.assignment[free[next]] == this.stamp) {
+                next = next + 1 < free.length ? next + 1 : 0;
+            }
+            this.assignment[free[next]] = this.stamp;
+            chromosome[this.holes[h]] = free[next];
+        }
+    }
+
+    /**
+     * Calculates the total fitness of the teams of a chromosome. The teams are scored in parallel when the chromosome
+     * is large enough to pay for the fork.
+     *
+     * @param chromosome employee ordinals of all teams
+     * @return total fitness
+     */
+    private double evaluate(int[] chromosome) {
+        this.evaluations += this.layouts.length;
+        IntStream projectIndexes = IntStream.range(0, this.layouts.length);
+        if (chromosome.length >= PARALLEL_THRESHOLD) {
+            projectIndexes = projectIndexes.parallel();
+        }
+        return projectIndexes.mapToDouble(p -> teamFitness(chromosome, p)).sum();
+    }
+
+    private double teamFitness(int[] chromosome, int project) {
+        double[] projectScores = this.scores[project];
+        int from = this.projectOffsets[project];
+        int to = this.projectOffsets[project + 1];
+        double fitness = 0;
+        for (int i = from; i < to; ++i) {
+            fitness += projectScores[chromosome[i]];
+        }
+        return fitness / (to - from);
+    }
+
+    /**
+     * Takes the team of each project from either parent.
+     */
+    private int[] crossover(int[] first, int[] second) {
+        int[] child = new int[first.length];
+        for (int p = 0; p < this.layouts.length; ++p) {
+            int from = this.projectOffsets[p];
+            System.arraycopy(this.random.nextBoolean() ? first : second, from, child, from,
+                    this.projectOffsets[p + 1] - from);
+        }
+        return child;
+    }
+
+    /**
+     * Mutates the positions of a chromosome with the given probability. Half of the mutations exchange the employee
+     * with one of the same type in another position, which moves employees between projects, and the other half
+     * assign a random employee of the type, which may take them from another project and leave a conflict for the
+     * repair.
+     */
+    private void mutate(int[] chromosome, double mutationRate) {
+        for (int i = 0; i < chromosome.length; ++i) {
+            if (this.random.nextDouble() >= mutationRate) {
+                continue;
+            }
+            int type = this.geneTypes[i];
+            if (this.random.nextBoolean()) {
+                int[] positions = this.typePositions[type];
+                int other = positions[this.random.nextInt(positions.length)];
+                int ordinal = chromosome[i];
+                chromosome[i] = chromosome[other];
+                chromosome[other] = ordinal;
+            } else {
+                int[] free = this.candidates[type];
+                chromosome[i] = free[this.random.nextInt(free.length)];
+            }
+        }
+    }
+
+    private int tournament(double[] fitness) {
+        int first = this.random.nextInt(fitness.length);
+        int second = this.random.nextInt(fitness.length);
+        return fitness[first] >= fitness[second] ? first : second;
+    }
+
+    private static int fittest(double[] fitness) {
+        int best = 0;
+        for (int i = 1; i < fitness.length; ++i) {
+            if (fitness[i] > fitness[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private List<Team> toTeams(int[] chromosome) {
+        RosterAccessor roster = this.population.getRoster();
+        List<Team> teams = new ArrayList<>(this.layouts.length);
+        for (int p = 0; p < this.layouts.length; ++p) {
+            List<Employee> members = new ArrayList<>();
+            for (int i = this.projectOffsets[p]; i < this.projectOffsets[p + 1]; ++i) {
+                members.add(roster.getEmployee(chromosome[i]));
+            }
+            Team team = new Team(members);
+            team.setFitness(teamFitness(chromosome, p));
+            teams.add(team);
+        }
+        return teams;
+    }
+
+    private String findMissingWeight(Map<String, Double> weights) {
+        for (int i = 1; i < this.configuration.getAttributeCount() + 1; ++i) {
+            String attribute = this.configuration.getHeaderMapping().get(CommonConstants.ATTRIBUTE_PREFIX + i);
+            if (weights.get(attribute) == null) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the metrics of the last allocation.
+     *
+     * @return {@link SolverMetrics} or null if no allocation was done
+     */
+    public SolverMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns the names of the projects, in the configured order.
+     *
+     * @return project names
+     */
+    public String[] getProjectNames() {
+        return this.projectNames;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Random;
+
+/**
+ * Partially mapped crossover (PMX) applied to every type segment. A random window of the segment is exchanged between
+ * the parents and employees outside the window which clash with the window are replaced through the mapping defined by
+ * the window, so the offspring never hold duplicates.
+ */
+class PartiallyMappedCrossover implements CrossoverOperator {
+    private final FeasibilityIndex index;
+
+    PartiallyMappedCrossover(FeasibilityIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void cross(int[] parent1, int[] parent2, int[] child1, int[] child2, Random random) {
+        for (int t = 0; t < this.index.getTypes().length; ++t) {
+            int from = this.index.getOffset(t);
+            int count = this.index.getCount(t);
+            if (count == 0) {
+                continue;
+            }
+            int start = from + random.nextInt(count);
+            int end = start + 1 + random.nextInt(from + count - start);
+            crossSegment(parent1, parent2, child1, from, from + count, start, end);
+            crossSegment(parent2, parent1, child2, from, from + count, start, end);
+        }
+    }
+
+    /**
+     * Builds the segment of an offspring which takes the window from the donor and the rest from the receiver.
+     */
+    private static void crossSegment(int[] receiver, int[] donor, int[] child, int from, int to, int start, int end) {
+        System.arraycopy(donor, start, child, start, end - start);
+        for (int i = from; i < to; ++i) {
+            if (i >= start && i < end) {
+                continue;
+            }
+            int ordinal = receiver[i];
+            int position = find(donor, start, end, ordinal);
+            while (position >= 0) {
+                ordinal = receiver[position];
+                position = find(donor, start, end, ordinal);
+            }
+            child[i] = ordinal;
+        }
+    }
+
+    private static int find(int[] team, int start, int end, int ordinal) {
+        for (int i = start; i < end; ++i) {
+            if (team[i] == ordinal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.jfr.FlightRecorderSupport;
+import org.genetics.team.selection.jfr.GenerationEvent;
+import org.genetics.team.selection.jfr.PhaseEvent;
+
+/**
+ * This class emits Flight Recorder events for the generations of a genetic algorithm run and their phases. The
+ * events are timed by the recorder itself and cost next to nothing while no recording is running; on runtimes without
+ * the Flight Recorder API every method returns immediately.
+ */
+final class PhaseProfiler {
+    static final String SELECTION = "selection";
+    static final String CROSSOVER = "crossover";
+    static final String MUTATION = "mutation";
+    static final String SCREENING = "screening";
+    static final String SURVIVOR_SELECTION = "selectFittest";
+    static final String LOCAL_SEARCH = "localSearch";
+    static final String REFILL = "refill";
+    private final Population population;
+    // Typed as Object, so the event classes are only loaded on runtimes which provide the recorder API.
+    private Object generationEvent;
+    private long generationEvaluations;
+    private Object phaseEvent;
+    private long phaseEvaluations;
+
+    PhaseProfiler(Population population) {
+        this.population = population;
+    }
+
+    void beginGeneration() {
+        if (FlightRecorderSupport.AVAILABLE) {
+            GenerationEvent event = new GenerationEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                this.generationEvent = event;
+                this.generationEvaluations = this.population.getEvaluations();
+            }
+        }
+    }
+
+    void endGeneration(int generation, int populationSize, double bestFitness, double mutationRate,
+                       double crossoverRate) {
+        if (this.generationEvent == null) {
+            return;
+        }
+        GenerationEvent event = (GenerationEvent) this.generationEvent;
+        this.generationEvent = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.generation = generation;
+            event.populationSize = populationSize;
+            event.evaluations = this.population.getEvaluations() - this.generationEvaluations;
+            event.bestFitness = bestFitness;
+            event.mutationRate = mutationRate;
+            event.crossoverRate = crossoverRate;
+            event.commit();
+        }
+    }
+
+    void beginPhase() {
+        if (FlightRecorderSupport.AVAILABLE) {
+            PhaseEvent event = new PhaseEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                this.phaseEvent = event;
+                this.phaseEvaluations = this.population.getEvaluations();
+            }
+        }
+    }
+
+    void endPhase(int generation, String phase, int populationSize) {
+        if (this.phaseEvent == null) {
+            return;
+        }
+        PhaseEvent event = (PhaseEvent) this.phaseEvent;
+        this.phaseEvent = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.generation = generation;
+            event.phase = phase;
+            event.populationSize = populationSize;
+            event.evaluations = this.population.getEvaluations() - this.phaseEvaluations;
+            event.commit();
+        }
+    }
+}
@@ -20,41 +20,90 @@ import org.apache.log4j.Logger;
 import org.genetics.team.selection.beans.Employee;
 import org.genetics.team.selection.beans.Team;
 import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.roster.Roster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.genetics.team.selection.roster.RosterSnapshot;
 import org.genetics.team.selection.util.CommonConstants;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
-
-import static java.util.Comparator.comparingInt;
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.toCollection;
 
 /**
  * This class has the behaviour to generate and maintain Population
  */
 public class Population {
     private static Logger log = Logger.getLogger(Population.class);
+    private static final int MAX_EMPLOYEE_DRAWS = 8;
+    // Indexes are rebuilt rather than updated when more than this fraction of the roster changed
+    private static final int MAX_UPDATED_FRACTION = 8;
     private Configuration configuration;
-    private Map<String, List<Employee>> population;
-    private List<Team> initialPopulation;
+    private RosterAccessor roster;
+    private GenerationStore initialPopulation;
     private Map<String, Integer> teamDefinition;
     private Map<String, Double> attributeWeights;
+    private double[] weightedScores;
+    private Map<String, Double> scoredWeights;
+    private Map<String, int[]> sortedCandidates;
+    private FeasibilityIndex feasibilityIndex;
+    private List<Object> indexKey;
+    private RosterAccessor indexedRoster;
+    private ZobristHash zobristHash;
+    private List<String> eligibility;
+    private EligibilityIndex eligibilityIndex;
+    private Long budget;
+    private BudgetIndex budgetIndex;
+    private TeamSampler teamSampler;
+    private long evaluations;
     private Random random;
+    private byte[] rosterDigest;
 
     public Population(Configuration configuration) {
         this.configuration = configuration;
-        this.initialPopulation = new ArrayList<>();
         this.random = new Random();
     }
 
     public void setPopulation(Map<String, List<Employee>> population) {
-        this.population = population;
+        setRoster(new Roster(population).getSnapshot());
+    }
+
+    /**
+     * Moves the population to a roster. When the population already holds an older snapshot of the same
+     * {@link Roster}, only the weighted scores of the changed rows are updated. The population must not be moved
+     * while a solver is running on it; other populations keep the roster they hold.
+     *
+     * @param roster {@link RosterAccessor}, such as a {@link RosterSnapshot} or an off-heap roster
+     */
+    public void setRoster(RosterAccessor roster) {
+        if (roster == this.roster) {
+            return;
+        }
+        int[] changes = null;
+        if (roster instanceof RosterSnapshot && this.roster instanceof RosterSnapshot) {
+            changes = ((RosterSnapshot) roster).changesSince((RosterSnapshot) this.roster);
+        }
+        this.roster = roster;
+        this.rosterDigest = null;
+        if (changes == null) {
+            this.weightedScores = null;
+            return;
+        }
+        if (this.weightedScores != null) {
+            if (this.weightedScores.length < roster.getCapacity()) {
+                this.weightedScores = Arrays.copyOf(this.weightedScores, roster.getCapacity());
+            }
+            for (int ordinal : changes) {
+                this.weightedScores[ordinal] = roster.getType(ordinal) == null ? 0 :
+                        weightedScore(ordinal, this.scoredWeights);
+            }
+        }
+        log.info("Population moved to roster version " + ((RosterSnapshot) roster).getVersion() + " with "
+                + changes.length + " changed employees");
     }
 
     /**
@@ -63,51 +112,383 @@ public class Population {
     public void generateInitialPopulation() {
         int initialPopSize = this.configuration.getInitialPopulationSize();
         log.info("Generating initial population of size: "+ initialPopSize);
-        if (this.initialPopulation.size() > 0) {
-            this.initialPopulation.clear();
+        prepare();
+        this.initialPopulation = new GenerationStore(this.feasibilityIndex.getTeamSize(), initialPopSize,
+                this.zobristHash);
+        new PopulationSeeder(this).generateSeeds(this.initialPopulation, initialPopSize);
+        sampleTeams(this.initialPopulation, initialPopSize);
+    }
+
+    /**
+     * Calculates the fitness of the best team for the current team definition, attribute weights, eligibility rules and
+     * locked and excluded employees: the locked employees and the top scored selectable candidates of every type. The
+     * budget is ignored, so the result is an upper bound of the fitness when a budget is set. The indexes of the run
+     * are prepared again, so this must not be called while a solver is running on the population.
+     *
+     * @return fitness of the best team
+     * @throws IllegalArgumentException if no valid team exists for the team definition
+     */
+    public double calculateOptimalFitness() {
+        prepare();
+        int[] team = new int[this.feasibilityIndex.getTeamSize()];
+        String[] types = this.feasibilityIndex.getTypes();
+        for (int t = 0; t < types.length; ++t) {
+            int[] locked = this.feasibilityIndex.getLockedCandidates(t);
+            int position = this.feasibilityIndex.getOffset(t);
+            System.arraycopy(locked, 0, team, position, locked.length);
+            position += locked.length;
+            int end = this.feasibilityIndex.getOffset(t) + this.feasibilityIndex.getCount(t);
+            for (int candidate : this.sortedCandidates.get(types[t])) {
+                if (position == end) {
+                    break;
+                }
+                if (!this.feasibilityIndex.isLocked(candidate)) {
+                    team[position++] = candidate;
+                }
+            }
         }
-        while (--initialPopSize >= 0) {
-            this.initialPopulation.add(generateTeam());
+        return evaluate(team);
+    }
+
+    /**
+     * Builds the indexes of a run for the current team definition, attribute weights and budget. When only the roster
+     * moved to a newer snapshot since the indexes were built, they are updated with the changed employees instead.
+     *
+     * @throws IllegalArgumentException if no valid team exists for the team definition and budget
+     */
+    void prepare() {
+        reseed();
+        Random shuffle = new Random(this.random.nextLong());
+        List<Object> key = Arrays.asList(Arrays.asList(this.configuration.getTypes()),
+                new HashMap<>(this.teamDefinition), copy(this.configuration.getExcludedEmployees()),
+                copy(this.configuration.getLockedEmployees()), copy(getEligibility()),
+                this.configuration.getRandomSeed());
+        int[] changes = key.equals(this.indexKey) ? changesSince(this.indexedRoster) : null;
+        // Cleared until the indexes are consistent again, so a failed update is followed by a rebuild
+        this.indexKey = null;
+        BitSet eligible = getEligibleEmployees();
+        boolean[] touched = null;
+        if (changes == null) {
+            this.feasibilityIndex = FeasibilityIndex.build(this.configuration.getTypes(), this.teamDefinition,
+                    this.roster, this.configuration.getExcludedEmployees(), eligible,
+                    this.configuration.getLockedEmployees(), shuffle);
+        } else {
+            touched = this.feasibilityIndex.update(this.roster, changes, eligible, shuffle);
+            log.debug("Updated the indexes with " + changes.length + " changed employees");
         }
+        if (this.zobristHash == null || this.zobristHash.getCapacity() != this.roster.getCapacity()) {
+            this.zobristHash = new ZobristHash(this.roster.getCapacity());
+        }
+        if (this.weightedScores == null || !this.attributeWeights.equals(this.scoredWeights)) {
+            this.weightedScores = calculateWeightedScores(this.attributeWeights);
+            this.scoredWeights = new HashMap<>(this.attributeWeights);
+            touched = null;
+        }
+        if (touched == null) {
+            buildScoreIndex();
+        } else {
+            updateScoreIndex(changes, touched);
+        }
+        Long teamBudget = getBudget();
+        String costColumn = this.configuration.getHeaderMapping().get(CommonConstants.HEADER_COST);
+        if (teamBudget == null) {
+            this.budgetIndex = null;
+        } else if (touched != null && this.budgetIndex != null && this.budgetIndex.getCostColumn().equals(costColumn)) {
+            this.budgetIndex.update(this.roster, changes, touched, this.weightedScores, teamBudget);
+        } else {
+            long start = System.nanoTime();
+            this.budgetIndex = BudgetIndex.build(this.feasibilityIndex, this.roster, costColumn, this.weightedScores,
+                    teamBudget);
+            log.debug("Built the budget index in " + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+        String sampling = this.configuration.getTeamSampling();
+        this.teamSampler = new TeamSampler(this.feasibilityIndex, this,
+                sampling == null ? TeamSampler.Mode.UNIFORM : TeamSampler.Mode.valueOf(sampling.trim().toUpperCase()));
+        this.indexKey = key;
+        this.indexedRoster = this.roster;
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        return list == null ? null : new ArrayList<>(list);
     }
 
     /**
-     * Generates unique set of random integers between given two integers.
+     * Returns the ordinals changed between an older roster and the current one, if they are few enough to update the
+     * indexes built for the older roster.
      *
-     * @param min   minimum value
-     * @param max   maximum value
-     * @param count number of unique integers to generate.
-     * @return Set of unique integers
+     * @param older roster the indexes were built for
+     * @return changed ordinals, possibly with repetitions, or null if the indexes have to be rebuilt
      */
-    private Set<Integer> getRandomNumbers(int min, int max, int count) {
-        Set<Integer> generated = new LinkedHashSet<>();
-        while (generated.size() < count) {
-            Integer next = this.random.nextInt((max - min) + 1) + min;
-            generated.add(next);
+    private int[] changesSince(RosterAccessor older) {
+        if (older == this.roster) {
+            return new int[0];
+        }
+        if (!(older instanceof RosterSnapshot) || !(this.roster instanceof RosterSnapshot)) {
+            return null;
         }
-        return generated;
+        int[] changes = ((RosterSnapshot) this.roster).changesSince((RosterSnapshot) older);
+        return changes == null || changes.length > this.roster.getCapacity() / MAX_UPDATED_FRACTION ? null : changes;
     }
 
     /**
-     * Calculates the fitness value of a given Chromosome ({@link Team})
+     * Evaluates the eligibility rules of the run. The attribute index of the roster is built on first use and updated
+     * with the changed employees when the roster moves to a newer snapshot.
      *
-     * @param team {@link Team}
-     * @return fitness value
+     * @return ordinals of the employees satisfying the rules, or null if there are no rules
+     * @throws IllegalArgumentException if a rule is not valid
+     */
+    BitSet getEligibleEmployees() {
+        List<String> rules = getEligibility();
+        if (rules == null || rules.isEmpty()) {
+            return null;
+        }
+        List<ThresholdRule> parsed = new ArrayList<>();
+        for (String rule : rules) {
+            parsed.add(ThresholdRule.parse(rule));
+        }
+        List<String> attributes = new ArrayList<>();
+        for (int i = 1; i < this.configuration.getAttributeCount() + 1; ++i) {
+            attributes.add(this.configuration.getHeaderMapping().get(CommonConstants.ATTRIBUTE_PREFIX + i));
+        }
+        int[] changes = null;
+        if (this.eligibilityIndex != null && this.eligibilityIndex.covers(this.configuration.getTypes(), attributes)) {
+            changes = changesSince(this.eligibilityIndex.getRoster());
+        }
+        long start = System.nanoTime();
+        if (changes == null) {
+            this.eligibilityIndex = new EligibilityIndex(this.roster, this.configuration.getTypes(), attributes);
+            log.info("Built the eligibility index in " + (System.nanoTime() - start) / 1000000 + " ms");
+        } else if (changes.length > 0) {
+            this.eligibilityIndex.update(this.roster, changes);
+            log.debug("Updated the eligibility index in " + (System.nanoTime() - start) / 1000 + " us");
+        }
+        start = System.nanoTime();
+        BitSet eligible = this.eligibilityIndex.select(parsed);
+        log.info(eligible.cardinality() + " of " + this.roster.size() + " employees satisfy " + parsed + " ("
+                + (System.nanoTime() - start) / 1000 + " us)");
+        return eligible;
+    }
+
+    /**
+     * Sorts the selectable candidates of each type by their weighted score. The fitness of a team is the average
+     * weighted score of its members, so these are the building blocks of heuristic teams.
+     */
+    private void buildScoreIndex() {
+        this.sortedCandidates = new HashMap<>();
+        String[] types = this.feasibilityIndex.getTypes();
+        for (int t = 0; t < types.length; ++t) {
+            int[] free = this.feasibilityIndex.getCandidates(t);
+            int[] fixed = this.feasibilityIndex.getLockedCandidates(t);
+            int[] sorted = Arrays.copyOf(free, free.length + fixed.length);
+            System.arraycopy(fixed, 0, sorted, free.length, fixed.length);
+            GenerationStore.sortDescending(sorted, this.weightedScores, 0, sorted.length);
+            this.sortedCandidates.put(types[t], sorted);
+        }
+    }
+
+    /**
+     * Updates the sorted candidates of the types whose selectable employees changed: the changed employees are
+     * dropped from the order and merged into it again if they are still selectable.
+     *
+     * @param changes changed ordinals, possibly with repetitions
+     * @param touched whether the selectable employees of each type changed
+     */
+    private void updateScoreIndex(int[] changes, boolean[] touched) {
+        BitSet changed = new BitSet();
+        for (int ordinal : changes) {
+            changed.set(ordinal);
+        }
+        String[] types = this.feasibilityIndex.getTypes();
+        for (int t = 0; t < types.length; ++t) {
+            if (!touched[t]) {
+                continue;
+            }
+            int[] added = new int[changed.cardinality()];
+            int count = 0;
+            for (int ordinal = changed.nextSetBit(0); ordinal >= 0; ordinal = changed.nextSetBit(ordinal + 1)) {
+                if (this.feasibilityIndex.getTypeOf(ordinal) == t && this.feasibilityIndex.isEligible(ordinal)) {
+                    added[count++] = ordinal;
+                }
+            }
+            GenerationStore.sortDescending(added, this.weightedScores, 0, count);
+            int[] sorted = this.sortedCandidates.get(types[t]);
+            int kept = 0;
+            for (int ordinal : sorted) {
+                if (!changed.get(ordinal)) {
+                    ++kept;
+                }
+            }
+            int[] merged = new int[kept + count];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < merged.length; ++k) {
+                while (i < sorted.length && changed.get(sorted[i])) {
+                    ++i;
+                }
+                merged[k] = j == count || (i < sorted.length
+                        && this.weightedScores[sorted[i]] >= this.weightedScores[added[j]]) ? sorted[i++] : added[j++];
+            }
+            this.sortedCandidates.put(types[t], merged);
+        }
+    }
+
+    /**
+     * Calculates the weighted score of every employee for the given attribute weights.
+     *
+     * @param weights weight of each attribute
+     * @return weighted scores indexed by employee ordinal
      */
-    private double calculateFitness(Team team) {
+    double[] calculateWeightedScores(Map<String, Double> weights) {
+        double[] scores = new double[this.roster.getCapacity()];
+        for (int ordinal = 0; ordinal < scores.length; ++ordinal) {
+            if (this.roster.getType(ordinal) != null) {
+                scores[ordinal] = weightedScore(ordinal, weights);
+            }
+        }
+        return scores;
+    }
+
+    private double weightedScore(int ordinal, Map<String, Double> weights) {
         Map<String, String> headerMapping = this.configuration.getHeaderMapping();
         int attributeCount = this.configuration.getAttributeCount();
-        double fitness = 0;
-        List<Employee> employees = team.getEmployees();
+        double score = 0;
         for (int i = 1; i < attributeCount + 1; ++i) {
             String attribute = headerMapping.get(CommonConstants.ATTRIBUTE_PREFIX + i);
-            double temp = 0;
-            for (Employee employee : employees) {
-                temp += employee.getAttributeValues().get(attribute);
+            score += this.roster.getAttribute(ordinal, attribute) * weights.get(attribute);
+        }
+        return score / attributeCount;
+    }
+
+    /**
+     * Calculates the fitness value of a Chromosome given by its employee ordinals. The fitness of a team is the
+     * average weighted score of its members.
+     *
+     * @param ordinals employee ordinals
+     * @return fitness value
+     */
+    double evaluate(int[] ordinals) {
+        ++this.evaluations;
+        double fitness = 0;
+        for (int ordinal : ordinals) {
+            fitness += this.weightedScores[ordinal];
+        }
+        return fitness / ordinals.length;
+    }
+
+    /**
+     * Calculates the fitness of the teams of a store from the given team onwards, in one batch.
+     *
+     * @param store {@link GenerationStore}
+     * @param from  index of the first team to score
+     */
+    void evaluateAll(GenerationStore store, int from) {
+        this.evaluations += store.size() - from;
+        BatchEvaluator.evaluate(store.getGenes(), store.getTeamSize(), from, store.size(), this.weightedScores,
+                store.getFitnessValues());
+    }
+
+    /**
+     * Adds random teams to a store until it holds the given number of teams, and scores them in one batch.
+     *
+     * @param store {@link GenerationStore}
+     * @param size  number of teams the store should hold
+     */
+    void sampleTeams(GenerationStore store, int size) {
+        int from = store.size();
+        int[] ordinals = new int[store.getTeamSize()];
+        while (store.size() < size) {
+            this.teamSampler.sample(ordinals, this.random);
+            if (this.budgetIndex != null) {
+                this.budgetIndex.repair(ordinals);
             }
-            fitness += temp * attributeWeights.get(attribute) / employees.size();
+            store.add(ordinals, 0);
+        }
+        evaluateAll(store, from);
+    }
+
+    /**
+     * Calculates the average value of each attribute over the members of a team.
+     *
+     * @param team {@link Team}
+     * @return average of each attribute, in the configured attribute order
+     */
+    Map<String, Double> getAttributeAverages(Team team) {
+        List<Employee> members = team.getEmployees();
+        int[] genes = new int[members.size()];
+        for (int i = 0; i < genes.length; ++i) {
+            genes[i] = members.get(i).getOrdinal();
         }
-        return fitness / attributeCount;
+        return getAttributeAverages(genes, genes.length, 1);
+    }
+
+    /**
+     * Calculates the average value of each attribute over the members of all teams of a generation. The values are
+     * read from the roster for the members alone, so an off-heap roster is not copied to the heap.
+     *
+     * @param store {@link GenerationStore}
+     * @return average of each attribute, in the configured attribute order
+     */
+    Map<String, Double> getAttributeAverages(GenerationStore store) {
+        return getAttributeAverages(store.getGenes(), store.getTeamSize(), store.size());
+    }
+
+    private Map<String, Double> getAttributeAverages(int[] genes, int teamSize, int teams) {
+        Map<String, String> headerMapping = this.configuration.getHeaderMapping();
+        int members = teams * teamSize;
+        Map<String, Double> averages = new LinkedHashMap<>();
+        for (int a = 1; a <= this.configuration.getAttributeCount(); ++a) {
+            String attribute = headerMapping.get(CommonConstants.ATTRIBUTE_PREFIX + a);
+            long sum = 0;
+            for (int i = 0; i < members; ++i) {
+                sum += this.roster.getAttribute(genes[i], attribute);
+            }
+            averages.put(attribute, members == 0 ? 0 : (double) sum / members);
+        }
+        return averages;
+    }
+
+    /**
+     * Samples a random team into the given array.
+     *
+     * @param ordinals array of the team size to write the employee ordinals into
+     * @return fitness of the team
+     */
+    double sampleTeam(int[] ordinals) {
+        this.teamSampler.sample(ordinals, this.random);
+        if (this.budgetIndex != null) {
+            this.budgetIndex.repair(ordinals);
+        }
+        return evaluate(ordinals);
+    }
+
+    /**
+     * Repairs a team given by its employee ordinals in place, so that it holds distinct selectable employees of the
+     * defined types, and calculates its fitness.
+     *
+     * @param ordinals employee ordinals
+     * @return fitness of the repaired team
+     */
+    double repairAndEvaluate(int[] ordinals) {
+        repair(ordinals);
+        return evaluate(ordinals);
+    }
+
+    /**
+     * Repairs a team given by its employee ordinals in place, so that it holds distinct selectable employees of the
+     * defined types and stays within the budget.
+     *
+     * @param ordinals employee ordinals
+     * @return whether the team was changed
+     */
+    boolean repair(int[] ordinals) {
+        if (ordinals.length != this.feasibilityIndex.getTeamSize()) {
+            throw new IllegalArgumentException("Team of size " + ordinals.length + " does not match the definition");
+        }
+        boolean changed = this.feasibilityIndex.repair(ordinals, this.random);
+        if (this.budgetIndex != null) {
+            changed |= this.budgetIndex.repair(ordinals);
+        }
+        return changed;
     }
 
     /**
@@ -116,44 +497,88 @@ public class Population {
      * @return {@link Team}
      */
     Team generateTeam() {
-        String[] types = this.configuration.getTypes();
-        List<Employee> employeeList = new ArrayList<>();
-        for (String type : types) {
-            int count = teamDefinition.get(type);
-            List<Employee> candidates = population.get(type);
-            Set<Integer> rnd = getRandomNumbers(0, candidates.size() - 1, count);
-            employeeList.addAll(rnd.stream().map(candidates::get).collect(Collectors.toList()));
-        }
-        return generateTeam(employeeList);
+        int[] ordinals = new int[this.feasibilityIndex.getTeamSize()];
+        return toTeam(ordinals, sampleTeam(ordinals));
     }
 
     /**
-     * Generates a Chromosome {@link Team} by a given employee list.
+     * Generates a Chromosome {@link Team} by a given employee list. The team is repaired if it does not hold distinct
+     * selectable employees of the defined types.
      *
      * @return {@link Team}
      */
     Team generateTeam(List<Employee> employeeList) {
+        return generateTeam(employeeList.stream().mapToInt(Employee::getOrdinal).toArray());
+    }
+
+    /**
+     * Generates a Chromosome {@link Team} by a given array of employee ordinals. The array is repaired in place if it
+     * does not hold distinct selectable employees of the defined types.
+     *
+     * @param ordinals employee ordinals
+     * @return {@link Team}
+     */
+    Team generateTeam(int[] ordinals) {
+        return toTeam(ordinals, repairAndEvaluate(ordinals));
+    }
+
+    /**
+     * Creates the {@link Team} view of a team for output.
+     *
+     * @param ordinals employee ordinals, which the view keeps
+     * @param fitness  fitness of the team
+     * @return {@link Team}
+     */
+    Team toTeam(int[] ordinals, double fitness) {
+        List<Employee> employeeList = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            employeeList.add(this.roster.getEmployee(ordinal));
+        }
         Team team = new Team(employeeList);
-        double fitness = isUnique(team) ? calculateFitness(team) : 0;
         team.setFitness(fitness);
         return team;
     }
 
     /**
-     * Generates an Individual {@link Employee} of a given type.
+     * Generates an Individual of a given type which is not yet part of the given team. A few random draws are tried
+     * first, then the shuffled candidates of the type are scanned, so the cost stays bounded when most candidates are
+     * already in the team.
      *
-     * @param type               type of the employee to generate.
-     * @param availableEmployees list of individual id's that are already in the team
-     * @return {@link Team}
+     * @param type index of the type of the employee to generate
+     * @param team employee ordinals of the team
+     * @return employee ordinal or -1 if every candidate of the type is already in the team
      */
-    Employee generateEmployee(String type, List<Integer> availableEmployees) {
-        int index = this.random.nextInt(population.get(type).size());
-        Employee employee = population.get(type).get(index);
-        if (availableEmployees.contains(employee.getId())) {
-            return generateEmployee(type, availableEmployees);
-        } else {
-            return employee;
+    int generateEmployee(int type, int[] team) {
+        FeasibilityIndex index = this.feasibilityIndex;
+        int[] candidates = index.getCandidates(type);
+        if (candidates.length == 0) {
+            return -1;
+        }
+        int from = index.getOffset(type);
+        int to = from + index.getCount(type);
+        for (int attempt = 0; attempt < MAX_EMPLOYEE_DRAWS; ++attempt) {
+            int ordinal = candidates[this.random.nextInt(candidates.length)];
+            if (!contains(team, from, to, ordinal)) {
+                return ordinal;
+            }
         }
+        int start = this.random.nextInt(candidates.length);
+        for (int i = 0; i < candidates.length; ++i) {
+            int ordinal = candidates[(start + i) % candidates.length];
+            if (!contains(team, from, to, ordinal)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contains(int[] team, int from, int to, int ordinal) {
+        for (int i = from; i < to; ++i) {
+            if (team[i] == ordinal) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public void setTeamDefinition(Map<String, Integer> teamDefinition) {
@@ -164,23 +589,217 @@ public class Population {
         this.attributeWeights = attributeWeights;
     }
 
-    List<Team> getInitialPopulation() {
-        return this.initialPopulation;
+    /**
+     * Sets the eligibility rules of a request, such as "ENGINEER: EXPERIENCE &gt;= 5", in place of the configured
+     * ones.
+     *
+     * @param eligibility threshold rules, or null to use the configured rules
+     */
+    public void setEligibility(List<String> eligibility) {
+        this.eligibility = eligibility;
     }
 
-    Configuration getConfiguration() {
-        return configuration;
+    /**
+     * Returns the eligibility rules of the run.
+     *
+     * @return rules of the request, or the configured rules if the request does not set any
+     */
+    List<String> getEligibility() {
+        return this.eligibility != null ? this.eligibility : this.configuration.getEligibility();
     }
 
     /**
-     * Checks whether the team has unique employees.
+     * Sets the budget of a request in place of the configured one.
      *
-     * @param team {@link Team}
-     * @return whether the team is unique.
+     * @param budget maximum total cost of a team, or null to use the configured budget
+     */
+    public void setBudget(Long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the budget of the run.
+     *
+     * @return budget of the request, or the configured budget if the request does not set one, or null if the cost
+     * of a team is not limited
+     */
+    Long getBudget() {
+        return this.budget != null ? this.budget : this.configuration.getBudget();
+    }
+
+    /**
+     * Restarts the random generator from the configured seed, if one is set, so that a run does not depend on the
+     * runs before it.
+     */
+    void reseed() {
+        Long seed = this.configuration.getRandomSeed();
+        if (seed != null) {
+            this.random = new Random(seed);
+        }
+    }
+
+    /**
+     * Returns the hash of the content of the roster, computed once per roster.
+     *
+     * @return hash of the roster
+     */
+    byte[] getRosterDigest() {
+        if (this.rosterDigest == null) {
+            long start = System.nanoTime();
+            this.rosterDigest = ResultCache.digest(this.roster, this.configuration);
+            log.debug("Hashed the roster in " + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+        return this.rosterDigest;
+    }
+
+    /**
+     * Checks whether the given checkpoint can be resumed: it must be taken during a run on the same input, team
+     * definition and attribute weights.
+     *
+     * @param checkpoint {@link Checkpoint}
+     * @throws IllegalStateException if the checkpoint cannot be resumed
+     */
+    void checkCompatible(Checkpoint checkpoint) {
+        if (checkpoint.isFinished()) {
+            throw new IllegalStateException("Checkpoint was taken at the end of a finished run");
+        }
+        checkSameTeams(checkpoint);
+        if (!checkpoint.getAttributeWeights().equals(this.attributeWeights)) {
+            throw new IllegalStateException("Checkpoint was taken with different attribute weights");
+        }
+    }
+
+    /**
+     * Checks whether the teams of the given checkpoint are teams of this population: the checkpoint must be taken on
+     * the same input and team definition. Its teams can seed a run with other attribute weights, as they are
+     * evaluated again.
+     *
+     * @param checkpoint {@link Checkpoint}
+     * @throws IllegalStateException if the teams of the checkpoint do not fit
+     */
+    void checkSameTeams(Checkpoint checkpoint) {
+        if (checkpoint.getRosterSize() != getRosterSize()
+                || !Arrays.equals(checkpoint.getRosterDigest(), getRosterDigest())) {
+            throw new IllegalStateException("Checkpoint was taken with a different input");
+        }
+        if (!checkpoint.getTeamDefinition().equals(this.teamDefinition)) {
+            throw new IllegalStateException("Checkpoint was taken with a different team definition");
+        }
+    }
+
+    /**
+     * Evaluates the change in fitness of a team when one member is replaced by another employee of the same type.
+     *
+     * @param ordinal     ordinal of the member leaving the team
+     * @param replacement ordinal of the employee joining the team
+     * @return change in fitness
+     */
+    double evaluateSwap(int ordinal, int replacement) {
+        ++this.evaluations;
+        return (this.weightedScores[replacement] - this.weightedScores[ordinal]) / this.feasibilityIndex.getTeamSize();
+    }
+
+    /**
+     * Calculates the change in the cost of a team when one member is replaced by another employee of the same type.
+     *
+     * @param ordinal     ordinal of the member leaving the team
+     * @param replacement ordinal of the employee joining the team
+     * @return change in cost, or 0 if there is no budget
+     */
+    long getCostChange(int ordinal, int replacement) {
+        return this.budgetIndex == null ? 0 : this.budgetIndex.getCost(replacement) - this.budgetIndex.getCost(ordinal);
+    }
+
+    /**
+     * Calculates the total cost of a team.
+     *
+     * @param ordinals employee ordinals
+     * @return total cost, or 0 if there is no budget
+     */
+    long getTeamCost(int[] ordinals) {
+        return this.budgetIndex == null ? 0 : this.budgetIndex.getCost(ordinals);
+    }
+
+    /**
+     * Checks whether a team of the given total cost is within the budget.
+     *
+     * @param cost total cost of a team
+     * @return whether the cost is within the budget, always true if there is no budget
+     */
+    boolean isWithinBudget(long cost) {
+        return this.budgetIndex == null || cost <= this.budgetIndex.getBudget();
+    }
+
+    /**
+     * Returns the number of fitness evaluations done so far.
+     *
+     * @return number of evaluations
+     */
+    long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Returns the weighted score of an employee.
+     *
+     * @param ordinal employee ordinal
+     * @return weighted score
      */
-    private boolean isUnique(Team team) {
-        List<Employee> unique = team.getEmployees().stream().collect(
-                collectingAndThen(toCollection(() -> new TreeSet<>(comparingInt(Employee::getId))), ArrayList::new));
-        return unique.size() == team.getEmployees().size();
+    double getWeightedScore(int ordinal) {
+        return this.weightedScores[ordinal];
+    }
+
+    /**
+     * Returns the ordinals of the employees of a given type, in descending order of their weighted score.
+     *
+     * @param type employee type
+     * @return sorted employee ordinals
+     */
+    int[] getSortedCandidates(String type) {
+        return this.sortedCandidates.get(type);
+    }
+
+    ZobristHash getZobristHash() {
+        return zobristHash;
+    }
+
+    FeasibilityIndex getFeasibilityIndex() {
+        return feasibilityIndex;
+    }
+
+    BudgetIndex getBudgetIndex() {
+        return budgetIndex;
+    }
+
+    Map<String, Integer> getTeamDefinition() {
+        return teamDefinition;
+    }
+
+    Map<String, Double> getAttributeWeights() {
+        return attributeWeights;
+    }
+
+    RosterAccessor getRoster() {
+        return roster;
+    }
+
+    int getRosterSize() {
+        return this.roster.getCapacity();
+    }
+
+    Random getRandom() {
+        return random;
+    }
+
+    void setRandom(Random random) {
+        this.random = random;
+    }
+
+    GenerationStore getInitialPopulation() {
+        return this.initialPopulation;
+    }
+
+    Configuration getConfiguration() {
+        return configuration;
     }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.util.CommonConstants;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * This class generates seeded teams for the initial population, so that a run does not have to start from purely
+ * random teams.
+ */
+class PopulationSeeder {
+    private static Logger log = Logger.getLogger(PopulationSeeder.class);
+    private final Population population;
+    private final Configuration configuration;
+
+    /**
+     * Seeding strategies supported by the seeder.
+     */
+    enum Strategy {
+        CHECKPOINT, GREEDY, GRASP
+    }
+
+    PopulationSeeder(Population population) {
+        this.population = population;
+        this.configuration = population.getConfiguration();
+    }
+
+    /**
+     * Generates seeded teams using the configured strategies. Elite teams of a previous run come first, followed by
+     * the greedy team, and the remaining seed quota is filled with GRASP teams.
+     *
+     * @param seeds          store to add the seeded teams to
+     * @param populationSize size of the initial population
+     */
+    void generateSeeds(GenerationStore seeds, int populationSize) {
+        List<String> strategies = this.configuration.getSeeding();
+        if (strategies == null || strategies.isEmpty()) {
+            return;
+        }
+        Double ratio = this.configuration.getSeedRatio();
+        int quota = (int) Math.round(populationSize * (ratio == null ? CommonConstants.DEFAULT_SEED_RATIO : ratio));
+        List<Strategy> enabled = new ArrayList<>();
+        for (String strategy : strategies) {
+            try {
+                enabled.add(Strategy.valueOf(strategy.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                log.error("Unknown seeding strategy: " + strategy + ". Ignoring it.");
+            }
+        }
+
+        if (enabled.contains(Strategy.CHECKPOINT) && quota > 0) {
+            loadElites(seeds, quota);
+        }
+        if (enabled.contains(Strategy.GREEDY) && seeds.size() < quota) {
+            add(seeds, greedy());
+        }
+        if (enabled.contains(Strategy.GRASP)) {
+            Double alpha = this.configuration.getGraspAlpha();
+            double graspAlpha = alpha == null ? CommonConstants.DEFAULT_GRASP_ALPHA : alpha;
+            while (seeds.size() < quota) {
+                add(seeds, grasp(graspAlpha));
+            }
+        }
+        log.info("Seeded " + seeds.size() + " teams of the initial population");
+    }
+
+    private void add(GenerationStore seeds, int[] ordinals) {
+        seeds.add(ordinals, this.population.repairAndEvaluate(ordinals));
+    }
+
+    /**
+     * Adds a team unless the store already holds a team of the same members after repair.
+     */
+    private void addDistinct(GenerationStore seeds, int[] ordinals) {
+        double fitness = this.population.repairAndEvaluate(ordinals);
+        if (!seeds.contains(ordinals)) {
+            seeds.add(ordinals, fitness);
+        }
+    }
+
+    /**
+     * Loads the fittest distinct teams of a previous run from its checkpoint. The fittest team of the run is usually
+     * also among its last generation, so duplicates are skipped.
+     *
+     * @param seeds store to add the elite teams to
+     * @param limit maximum number of teams to load
+     */
+    private void loadElites(GenerationStore seeds, int limit) {
+        String path = this.configuration.getSeedPath() != null ? this.configuration.getSeedPath() :
+                this.configuration.getCheckpointPath();
+        if (path == null) {
+            log.warn("No seed path or checkpoint path is configured. Skipping checkpoint seeding.");
+            return;
+        }
+        try {
+            Checkpoint checkpoint = CheckpointManager.read(path);
+            this.population.checkSameTeams(checkpoint);
+            double[] fitness = checkpoint.getFitness();
+            int[][] teams = checkpoint.getTeams();
+            int target = seeds.size() + limit;
+            addDistinct(seeds, checkpoint.getCurrentFittest());
+            Integer[] order = IntStream.range(0, teams.length).boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> fitness[i]).reversed())
+                    .toArray(Integer[]::new);
+            for (int i = 0; i < order.length && seeds.size() < target; ++i) {
+                addDistinct(seeds, teams[order[i]]);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Unable to seed from " + path + ": " + e.getMessage() + ". Skipping checkpoint seeding.");
+        }
+    }
+
+    /**
+     * Constructs the team of the top scored employees of each type.
+     *
+     * @return employee ordinals of the team
+     */
+    int[] greedy() {
+        return grasp(0);
+    }
+
+    /**
+     * Constructs a team with the randomized greedy (GRASP) heuristic. Each member is picked randomly from the
+     * restricted candidate list, i.e. the remaining candidates whose score is within alpha of the best remaining one.
+     *
+     * @param alpha size of the restricted candidate list, from 0 (greedy) to 1 (random)
+     * @return employee ordinals of the team
+     */
+    int[] grasp(double alpha) {
+        Map<String, Integer> teamDefinition = this.population.getTeamDefinition();
+        String[] types = this.configuration.getTypes();
+        int[] team = new int[teamDefinition.values().stream().mapToInt(Integer::intValue).sum()];
+        int position = 0;
+        for (String type : types) {
+            int count = teamDefinition.get(type);
+            int[] candidates = this.population.getSortedCandidates(type);
+            boolean[] taken = new boolean[candidates.length];
+            double min = this.population.getWeightedScore(candidates[candidates.length - 1]);
+            int first = 0;
+            for (int picked = 0; picked < count; ++picked) {
+                while (taken[first]) {
+                    ++first;
+                }
+                double max = this.population.getWeightedScore(candidates[first]);
+                double threshold = max - alpha * (max - min);
+                int bound = restrictedListBound(candidates, threshold);
+                int free = bound - first - countTaken(taken, first, bound);
+                int choice = this.population.getRandom().nextInt(free);
+                int index = first;
+                while (taken[index] || choice-- > 0) {
+                    ++index;
+                }
+                taken[index] = true;
+                team[position++] = candidates[index];
+            }
+        }
+        return team;
+    }
+
+    /**
+     * Returns the index after the last candidate scoring at least the given threshold.
+     */
+    private int restrictedListBound(int[] candidates, double threshold) {
+        int low = 0;
+        int high = candidates.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.population.getWeightedScore(candidates[mid]) >= threshold) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int countTaken(boolean[] taken, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; ++i) {
+            if (taken[i]) {
+                ++count;
+            }
+        }
+        return count;
+    }
+}
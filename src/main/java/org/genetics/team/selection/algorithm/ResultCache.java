@@ -0,0 +1,401 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.beans.Team;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.genetics.team.selection.util.CommonConstants;
+import org.genetics.team.selection.util.InputProcessor;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class caches the fittest teams of finished runs. A result is keyed by a SHA-256 hash of the roster content, the
+ * team definition, the attribute weights, the eligibility rules and the configuration, so that a repeated request is
+ * answered without running a solver, while a change of any of them, including an update of the roster, misses the
+ * cache. The most recently used results are kept in memory. When a cache directory is configured, results are also
+ * written there, so that they survive restarts, and the least recently used files are deleted beyond the configured
+ * number. Only runs with a random seed are cached, since an unseeded run is expected to explore a different team on
+ * every request.
+ */
+public class ResultCache {
+    private static Logger log = Logger.getLogger(ResultCache.class);
+    private static final int FORMAT_VERSION = 2;
+    private static final int MAGIC = 0x54535243;
+    private static final String SUFFIX = ".result";
+    private final int capacity;
+    private final Path directory;
+    private final int diskCapacity;
+    private final Map<String, Result> results;
+
+    /**
+     * Selected team of a run.
+     */
+    private static class Result {
+        private final int[] ordinals;
+        private final double fitness;
+
+        private Result(int[] ordinals, double fitness) {
+            this.ordinals = ordinals;
+            this.fitness = fitness;
+        }
+    }
+
+    /**
+     * Constructs a {@link ResultCache} sized by the given configuration.
+     *
+     * @param configuration {@link Configuration}
+     */
+    public ResultCache(Configuration configuration) {
+        Integer size = configuration.getResultCacheSize();
+        this.capacity = size == null ? CommonConstants.DEFAULT_RESULT_CACHE_SIZE : size;
+        Integer diskSize = configuration.getResultCacheDiskSize();
+        this.diskCapacity = diskSize == null ? CommonConstants.DEFAULT_RESULT_CACHE_DISK_SIZE : diskSize;
+        this.directory = configuration.getResultCachePath() == null || this.capacity == 0 ? null :
+                Paths.get(configuration.getResultCachePath());
+        int limit = this.capacity;
+        this.results = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > limit;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached team of a run of the population with its current roster and inputs.
+     *
+     * @param population {@link Population}
+     * @return the fittest {@link Team} of the run, or null if the run is not cached
+     */
+    public synchronized Team get(Population population) {
+        if (!isCacheable(population.getConfiguration())) {
+            return null;
+        }
+        String key = key(population);
+        Result result = this.results.get(key);
+        if (result == null && this.directory != null) {
+            result = read(key);
+            if (result != null && !isValid(result, population)) {
+                log.warn("Ignoring the cached result " + key + ", which does not fit the roster");
+                result = null;
+            }
+            if (result != null) {
+                this.results.put(key, result);
+            }
+        }
+        if (result == null) {
+            return null;
+        }
+        touch(key);
+        Team team = population.toTeam(result.ordinals.clone(), result.fitness);
+        log.info("Fittest Team Selected (cached)");
+        log.info("======================");
+        for (Employee employee : team.getEmployees()) {
+            log.info(employee.getName());
+        }
+        log.info("Team Fitness: " + team.getFitness());
+        return team;
+    }
+
+    /**
+     * Caches the fittest team of a run of the population with its current roster and inputs.
+     *
+     * @param population {@link Population}
+     * @param team       the fittest {@link Team} of the run
+     */
+    public synchronized void put(Population population, Team team) {
+        if (!isCacheable(population.getConfiguration())) {
+            return;
+        }
+        String key = key(population);
+        Result result = new Result(team.getOrdinals().clone(), team.getFitness());
+        this.results.put(key, result);
+        if (this.directory != null) {
+            try {
+                write(key, result);
+                evict();
+            } catch (IOException e) {
+                log.warn("Unable to write the result to the cache directory " + this.directory + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks whether runs of a configuration can be cached. Runs without a random seed are not reproducible, and runs
+     * which continue or are seeded from a checkpoint depend on the content of the checkpoint as well, so they are not.
+     */
+    private boolean isCacheable(Configuration configuration) {
+        if (this.capacity == 0 || configuration.getRandomSeed() == null
+                || Boolean.TRUE.equals(configuration.getResume())) {
+            return false;
+        }
+        List<String> seeding = configuration.getSeeding();
+        return seeding == null || seeding.stream().noneMatch(strategy ->
+                strategy.trim().equalsIgnoreCase(PopulationSeeder.Strategy.CHECKPOINT.name()));
+    }
+
+    /**
+     * Checks that a result read from the cache directory refers to employees of the current roster, so a damaged file
+     * cannot select a removed employee or an ordinal beyond the roster.
+     */
+    private static boolean isValid(Result result, Population population) {
+        int teamSize = population.getTeamDefinition().values().stream().mapToInt(Integer::intValue).sum();
+        if (result.ordinals.length != teamSize) {
+            return false;
+        }
+        RosterAccessor roster = population.getRoster();
+        for (int ordinal : result.ordinals) {
+            if (ordinal < 0 || ordinal >= roster.getCapacity() || roster.getType(ordinal) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the key of a run of the population with its current roster and inputs.
+     *
+     * @param population {@link Population}
+     * @return hex encoded hash of the run inputs
+     */
+    String key(Population population) {
+        MessageDigest digest = newDigest();
+        try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest))) {
+            out.writeInt(FORMAT_VERSION);
+            out.write(population.getRosterDigest());
+            Map<String, Integer> teamDefinition = population.getTeamDefinition();
+            out.writeInt(teamDefinition == null ? -1 : teamDefinition.size());
+            if (teamDefinition != null) {
+                for (Map.Entry<String, Integer> entry : new TreeMap<>(teamDefinition).entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeInt(entry.getValue() == null ? -1 : entry.getValue());
+                }
+            }
+            Map<String, Double> attributeWeights = population.getAttributeWeights();
+            out.writeInt(attributeWeights == null ? -1 : attributeWeights.size());
+            if (attributeWeights != null) {
+                for (Map.Entry<String, Double> entry : new TreeMap<>(attributeWeights).entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeDouble(entry.getValue() == null ? Double.NaN : entry.getValue());
+                }
+            }
+            List<String> eligibility = population.getEligibility();
+            out.writeInt(eligibility == null ? -1 : eligibility.size());
+            if (eligibility != null) {
+                for (String rule : eligibility) {
+                    writeString(out, rule);
+                }
+            }
+            Long budget = population.getBudget();
+            out.writeLong(budget == null ? -1 : budget);
+            // Covers the solver, its parameters and the random seed. The property order of the dump is stable.
+            writeString(out, new Yaml().dump(population.getConfiguration()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to hash the run inputs", e);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Computes a hash of the content of a roster, i.e. the type, id, attributes and cost of every employee by ordinal.
+     * Names are left out, since a result refers to employees by ordinal and is read back with the current names.
+     *
+     * @param roster        {@link RosterAccessor}
+     * @param configuration {@link Configuration} defining the attributes
+     * @return hash of the roster
+     */
+    static byte[] digest(RosterAccessor roster, Configuration configuration) {
+        List<String> attributes = InputProcessor.getRosterColumns(configuration);
+        MessageDigest digest = newDigest();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DigestOutputStream(new NullOutputStream(), digest), 1 << 16))) {
+            out.writeInt(roster.getCapacity());
+            for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+                String type = roster.getType(ordinal);
+                if (type == null) {
+                    out.writeBoolean(false);
+                    continue;
+                }
+                out.writeBoolean(true);
+                writeString(out, type);
+                out.writeInt(roster.getId(ordinal));
+                for (String attribute : attributes) {
+                    out.writeInt(roster.getAttribute(ordinal, attribute));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to hash the roster", e);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Writes a string as its length and UTF-8 bytes. Unlike {@link DataOutputStream#writeUTF(String)}, it is not
+     * limited to 64 KB, which a configuration dump with many projects or employee lists can exceed.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private Result read(String key) {
+        Path path = this.directory.resolve(key + SUFFIX);
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a result file of this version");
+            }
+            double fitness = in.readDouble();
+            int length = in.readInt();
+            if (length < 0 || length > Files.size(path) / Integer.BYTES) {
+                throw new IOException("Invalid team size " + length);
+            }
+            int[] ordinals = new int[length];
+            for (int i = 0; i < ordinals.length; ++i) {
+                ordinals[i] = in.readInt();
+            }
+            return new Result(ordinals, fitness);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Ignoring the unreadable cached result " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a result into a temporary file and moves it into place, so a concurrent reader never sees a partial
+     * result.
+     */
+    private void write(String key, Result result) throws IOException {
+        Files.createDirectories(this.directory);
+        Path path = this.directory.resolve(key + SUFFIX);
+        Path temp = this.directory.resolve(key + SUFFIX + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeDouble(result.fitness);
+            out.writeInt(result.ordinals.length);
+            for (int ordinal : result.ordinals) {
+                out.writeInt(ordinal);
+            }
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Marks a result file as recently used, since the disk tier evicts by modification time.
+     */
+    private void touch(String key) {
+        if (this.directory == null) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(this.directory.resolve(key + SUFFIX), FileTime.fromMillis(
+                    System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Unable to touch the cached result " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the least recently used result files beyond the configured number.
+     */
+    private void evict() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        if (files.size() <= this.diskCapacity) {
+            return;
+        }
+        Map<Path, FileTime> modified = new LinkedHashMap<>();
+        for (Path file : files) {
+            modified.put(file, Files.getLastModifiedTime(file));
+        }
+        files.sort(Comparator.comparing(modified::get));
+        for (Path file : files.subList(0, files.size() - this.diskCapacity)) {
+            Files.deleteIfExists(file);
+        }
+        log.debug("Evicted " + (files.size() - this.diskCapacity) + " results from " + this.directory);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Output stream discarding everything written to it, used to feed a digest.
+     */
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+/**
+ * This class implements the fitness kernels as plain counted loops over primitive arrays, which the JIT compiler
+ * unrolls and, for the contiguous attribute rows, vectorizes.
+ */
+class ScalarKernel implements BatchKernel {
+
+    @Override
+    public void evaluate(int[] genes, int teamSize, int from, int to, double[] scores, double[] fitness) {
+        for (int team = from; team < to; ++team) {
+            double sum = 0;
+            for (int i = team * teamSize, end = i + teamSize; i < end; ++i) {
+                sum += scores[genes[i]];
+            }
+            fitness[team] = sum / teamSize;
+        }
+    }
+
+    @Override
+    public void attributeSums(int[] genes, int teamSize, int from, int to, int[] rows, int attributeCount,
+                              long[] sums) {
+        for (int team = from; team < to; ++team) {
+            int target = team * attributeCount;
+            for (int a = 0; a < attributeCount; ++a) {
+                sums[target + a] = 0;
+            }
+            for (int i = team * teamSize; i < (team + 1) * teamSize; ++i) {
+                int row = genes[i] * attributeCount;
+                // Rows are contiguous, so this loop is a vector add of the member row into the sums of the team.
+                for (int a = 0; a < attributeCount; ++a) {
+                    sums[target + a] += rows[row + a];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void weightedAverages(long[] sums, int teamSize, int from, int to, double[] weights, int attributeCount,
+                                 double[] fitness) {
+        double divisor = (double) teamSize * attributeCount;
+        for (int team = from; team < to; ++team) {
+            int base = team * attributeCount;
+            double dot = 0;
+            for (int a = 0; a < attributeCount; ++a) {
+                dot += sums[base + a] * weights[a];
+            }
+            fitness[team] = dot / divisor;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Random;
+
+/**
+ * Single point crossover applied to every type segment. Each segment is cut at its own random point and the tails of
+ * the segments are exchanged.
+ */
+class SegmentCrossover implements CrossoverOperator {
+    private final FeasibilityIndex index;
+
+    SegmentCrossover(FeasibilityIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void cross(int[] parent1, int[] parent2, int[] child1, int[] child2, Random random) {
+        for (int t = 0; t < this.index.getTypes().length; ++t) {
+            int from = this.index.getOffset(t);
+            int count = this.index.getCount(t);
+            if (count == 0) {
+                continue;
+            }
+            int point = count > 1 ? from + 1 + random.nextInt(count - 1) : from + random.nextInt(2);
+            System.arraycopy(parent1, from, child1, from, point - from);
+            System.arraycopy(parent2, from, child2, from, point - from);
+            System.arraycopy(parent2, point, child1, point, from + count - point);
+            System.arraycopy(parent1, point, child2, point, from + count - point);
+        }
+    }
+}
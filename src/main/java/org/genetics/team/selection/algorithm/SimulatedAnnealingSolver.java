@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.beans.SolverMetrics;
+import org.genetics.team.selection.beans.Team;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.util.CommonConstants;
+
+import java.util.Random;
+
+/**
+ * This class selects a team with simulated annealing. A move swaps a random unlocked member for a random non member of
+ * the same type, unless the swap exceeds the budget. Improving moves are always accepted and worsening moves with a
+ * probability which shrinks as the temperature cools down geometrically.
+ */
+class SimulatedAnnealingSolver extends AbstractSolver {
+    private static Logger log = Logger.getLogger(SimulatedAnnealingSolver.class);
+    private static final int TEMPERATURE_SAMPLES = 100;
+
+    SimulatedAnnealingSolver(Population population) {
+        super(population, "SA");
+    }
+
+    @Override
+    public void initialize() {
+        this.population.prepare();
+    }
+
+    @Override
+    protected Team run(SolverMetrics metrics) {
+        Configuration configuration = this.population.getConfiguration();
+        FeasibilityIndex index = this.population.getFeasibilityIndex();
+        Random random = this.population.getRandom();
+        TerminationPolicy policy = TerminationPolicy.of(configuration,
+                valueOrDefault(configuration.getMaxIterations(), CommonConstants.DEFAULT_MAX_ITERATIONS),
+                valueOrDefault(configuration.getStagnationLimit(), CommonConstants.DEFAULT_STAGNATION_LIMIT));
+        double cooling = configuration.getAnnealingCooling() == null ? CommonConstants.DEFAULT_ANNEALING_COOLING :
+                configuration.getAnnealingCooling();
+
+        Team start = this.population.generateTeam();
+        int[] current = start.getOrdinals().clone();
+        double currentFitness = start.getFitness();
+        long currentCost = this.population.getTeamCost(current);
+        int[] best = current.clone();
+        double bestFitness = currentFitness;
+        double temperature = configuration.getAnnealingTemperature() == null ? initialTemperature(current, random) :
+                configuration.getAnnealingTemperature();
+        log.info("Simulated annealing starting at temperature " + temperature);
+
+        policy.start();
+        long iteration = 0;
+        while (!policy.shouldStop(iteration, bestFitness)) {
+            ++iteration;
+            temperature *= cooling;
+            int position = random.nextInt(current.length);
+            int ordinal = current[position];
+            if (index.isLocked(ordinal)) {
+                continue;
+            }
+            int replacement = this.population.generateEmployee(index.getTypeOf(ordinal), current);
+            if (replacement < 0) {
+                continue;
+            }
+            long costChange = this.population.getCostChange(ordinal, replacement);
+            if (!this.population.isWithinBudget(currentCost + costChange)) {
+                continue;
+            }
+            double gain = this.population.evaluateSwap(ordinal, replacement);
+            if (gain >= 0 || random.nextDouble() < Math.exp(gain / temperature)) {
+                current[position] = replacement;
+                currentFitness += gain;
+                currentCost += costChange;
+                if (currentFitness > bestFitness) {
+                    bestFitness = currentFitness;
+                    System.arraycopy(current, 0, best, 0, current.length);
+                }
+            }
+        }
+        log.info("Simulated annealing stopped after " + iteration + " iterations: " + policy.getReason());
+        metrics.setIterations(iteration);
+        return this.population.generateTeam(best);
+    }
+
+    /**
+     * Estimates a starting temperature at which an average worsening move is accepted with a probability of one half.
+     */
+    private double initialTemperature(int[] team, Random random) {
+        FeasibilityIndex index = this.population.getFeasibilityIndex();
+        double sum = 0;
+        int samples = 0;
+        for (int i = 0; i < TEMPERATURE_SAMPLES; ++i) {
+            int ordinal = team[random.nextInt(team.length)];
+            int replacement = this.population.generateEmployee(index.getTypeOf(ordinal), team);
+            if (replacement >= 0) {
+                sum += Math.abs(this.population.evaluateSwap(ordinal, replacement));
+                ++samples;
+            }
+        }
+        double average = samples == 0 || sum == 0 ? 1 : sum / samples;
+        return average / Math.log(2);
+    }
+
+    private static long valueOrDefault(Integer value, long defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+}
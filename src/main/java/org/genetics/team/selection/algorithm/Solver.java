@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.beans.SolverMetrics;
+import org.genetics.team.selection.beans.Team;
+
+/**
+ * This interface represents an optimizer which selects a team from a {@link Population}.
+ */
+public interface Solver {
+
+    /**
+     * Prepares the solver for a run, e.g. builds the indexes of the population and the initial solutions.
+     *
+     * @throws IllegalArgumentException if no valid team exists for the team definition
+     */
+    void initialize();
+
+    /**
+     * Runs the solver.
+     *
+     * @return the fittest {@link Team} found
+     */
+    Team solve();
+
+    /**
+     * Returns the metrics of the last run.
+     *
+     * @return {@link SolverMetrics}
+     */
+    SolverMetrics getMetrics();
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+/**
+ * This class creates the {@link Solver} configured for a {@link Population}.
+ */
+public class SolverFactory {
+
+    private SolverFactory() {
+    }
+
+    /**
+     * Creates the configured solver: GA (default), SA, TABU or BUDGET.
+     *
+     * @param population {@link Population}
+     * @return {@link Solver}
+     */
+    public static Solver createSolver(Population population) {
+        return createSolver(population, population.getConfiguration().getSolver());
+    }
+
+    /**
+     * Creates the solver of the given name.
+     *
+     * @param population {@link Population}
+     * @param name       GA, SA, TABU or BUDGET. GA is used when the name is not given.
+     * @return {@link Solver}
+     */
+    public static Solver createSolver(Population population, String name) {
+        if (name == null || "GA".equalsIgnoreCase(name)) {
+            return new Algorithm(population);
+        } else if ("SA".equalsIgnoreCase(name)) {
+            return new SimulatedAnnealingSolver(population);
+        } else if ("TABU".equalsIgnoreCase(name)) {
+            return new TabuSearchSolver(population);
+        } else if ("BUDGET".equalsIgnoreCase(name)) {
+            return new BudgetSolver(population);
+        }
+        throw new IllegalArgumentException("Unknown solver: " + name);
+    }
+}
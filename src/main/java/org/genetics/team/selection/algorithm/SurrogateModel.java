@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+/**
+ * This class is a cheap model of the fitness of a team, used to pre-screen offspring before they are evaluated
+ * exactly. The predicted fitness is the mean fitness seen so far plus the average contribution of the members, so the
+ * model can represent any fitness which is an average of per-employee scores, and approximates heavier fitness terms
+ * by their additive part. It is trained online from exactly evaluated teams with the least mean squares rule, and
+ * tracks its error on teams it was not trained on yet.
+ */
+class SurrogateModel {
+    // Moves the prediction of a trained team half way towards its exact fitness; stable below 2
+    private static final double LEARNING_RATE = 0.5;
+    private final double[] contributions;
+    private double meanFitness;
+    private long samples;
+    private double absoluteError;
+    private long errorSamples;
+
+    /**
+     * Constructs an untrained model.
+     *
+     * @param capacity upper bound of the employee ordinals
+     */
+    SurrogateModel(int capacity) {
+        this.contributions = new double[capacity];
+    }
+
+    /**
+     * Predicts the fitness of a team.
+     *
+     * @param genes  array holding the team
+     * @param from   position of the first member
+     * @param length number of members
+     * @return predicted fitness
+     */
+    double predict(int[] genes, int from, int length) {
+        double sum = 0;
+        for (int i = from; i < from + length; ++i) {
+            sum += this.contributions[genes[i]];
+        }
+        return this.meanFitness + sum / length;
+    }
+
+    /**
+     * Trains the model with the exact fitness of a team.
+     *
+     * @param genes   array holding the team
+     * @param from    position of the first member
+     * @param length  number of members
+     * @param fitness exact fitness of the team
+     */
+    void train(int[] genes, int from, int length, double fitness) {
+        this.meanFitness += (fitness - this.meanFitness) / ++this.samples;
+        double step = LEARNING_RATE * (fitness - predict(genes, from, length));
+        for (int i = from; i < from + length; ++i) {
+            this.contributions[genes[i]] += step;
+        }
+    }
+
+    /**
+     * Records the error of a prediction made before the team was trained on.
+     *
+     * @param predicted predicted fitness
+     * @param exact     exact fitness
+     */
+    void recordError(double predicted, double exact) {
+        this.absoluteError += Math.abs(exact - predicted);
+        ++this.errorSamples;
+    }
+
+    /**
+     * Returns the mean absolute error of the recorded predictions.
+     *
+     * @return mean absolute error, or 0 if no prediction was recorded
+     */
+    double getMeanAbsoluteError() {
+        return this.errorSamples == 0 ? 0 : this.absoluteError / this.errorSamples;
+    }
+
+    /**
+     * Returns the mean fitness of the teams trained on.
+     *
+     * @return mean fitness
+     */
+    double getMeanFitness() {
+        return meanFitness;
+    }
+}
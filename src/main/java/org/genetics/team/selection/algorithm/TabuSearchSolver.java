@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.beans.SolverMetrics;
+import org.genetics.team.selection.beans.Team;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.util.CommonConstants;
+
+import java.util.Random;
+
+/**
+ * This class selects a team with tabu search. Every iteration samples a neighbourhood of swap moves within the budget,
+ * i.e. a random unlocked member for a random non member of the same type, and applies the best one which is not tabu,
+ * even when it worsens the team. An employee which left the team may not return for a number of iterations, unless the
+ * move yields a new best team.
+ */
+class TabuSearchSolver extends AbstractSolver {
+    private static Logger log = Logger.getLogger(TabuSearchSolver.class);
+
+    TabuSearchSolver(Population population) {
+        super(population, "TABU");
+    }
+
+    @Override
+    public void initialize() {
+        this.population.prepare();
+    }
+
+    @Override
+    protected Team run(SolverMetrics metrics) {
+        Configuration configuration = this.population.getConfiguration();
+        FeasibilityIndex index = this.population.getFeasibilityIndex();
+        Random random = this.population.getRandom();
+        TerminationPolicy policy = TerminationPolicy.of(configuration,
+                valueOrDefault(configuration.getMaxIterations(), CommonConstants.DEFAULT_MAX_ITERATIONS),
+                valueOrDefault(configuration.getStagnationLimit(), CommonConstants.DEFAULT_STAGNATION_LIMIT));
+        long tenure = valueOrDefault(configuration.getTabuTenure(), CommonConstants.DEFAULT_TABU_TENURE);
+        long neighbourhood = valueOrDefault(configuration.getTabuNeighbourhood(),
+                CommonConstants.DEFAULT_TABU_NEIGHBOURHOOD);
+
+        Team start = this.population.generateTeam();
+        int[] current = start.getOrdinals().clone();
+        double currentFitness = start.getFitness();
+        long currentCost = this.population.getTeamCost(current);
+        int[] best = current.clone();
+        double bestFitness = currentFitness;
+        long[] tabuUntil = new long[this.population.getRosterSize()];
+
+        policy.start();
+        long iteration = 0;
+        while (!policy.shouldStop(iteration, bestFitness)) {
+            ++iteration;
+            int movePosition = -1;
+            int moveOrdinal = -1;
+            double moveGain = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < neighbourhood; ++i) {
+                int position = random.nextInt(current.length);
+                int ordinal = current[position];
+                if (index.isLocked(ordinal)) {
+                    continue;
+                }
+                int replacement = this.population.generateEmployee(index.getTypeOf(ordinal), current);
+                if (replacement < 0 || !this.population.isWithinBudget(currentCost
+                        + this.population.getCostChange(ordinal, replacement))) {
+                    continue;
+                }
+                double gain = this.population.evaluateSwap(ordinal, replacement);
+                boolean aspiration = currentFitness + gain > bestFitness;
+                if (gain > moveGain && (tabuUntil[replacement] <= iteration || aspiration)) {
+                    movePosition = position;
+                    moveOrdinal = replacement;
+                    moveGain = gain;
+                }
+            }
+            if (movePosition < 0) {
+                continue;
+            }
+            tabuUntil[current[movePosition]] = iteration + tenure;
+            currentCost += this.population.getCostChange(current[movePosition], moveOrdinal);
+            current[movePosition] = moveOrdinal;
+            currentFitness += moveGain;
+            if (currentFitness > bestFitness) {
+                bestFitness = currentFitness;
+                System.arraycopy(current, 0, best, 0, current.length);
+            }
+        }
+        log.info("Tabu search stopped after " + iteration + " iterations: " + policy.getReason());
+        metrics.setIterations(iteration);
+        return this.population.generateTeam(best);
+    }
+
+    private static long valueOrDefault(Integer value, long defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class samples random teams for a {@link FeasibilityIndex}. Uniform sampling runs a partial Fisher-Yates shuffle
+ * over a reusable candidate array per type, so a team costs O(team size) and no allocation besides the team itself.
+ * Fitness biased sampling draws candidates from per-type alias tables built from the weighted scores of the employees,
+ * so better employees are picked more often while every candidate keeps a chance.
+ */
+class TeamSampler {
+    private static final int MAX_ALIAS_DRAWS_PER_MEMBER = 4;
+
+    private final FeasibilityIndex index;
+    private final int[][] pools;
+    private final double[][] probabilities;
+    private final int[][] aliases;
+    private final int[] stamps;
+    private int stamp;
+
+    /**
+     * Sampling modes supported by the sampler.
+     */
+    enum Mode {
+        UNIFORM, FITNESS
+    }
+
+    /**
+     * Constructs a {@link TeamSampler}.
+     *
+     * @param index      {@link FeasibilityIndex} of the team definition
+     * @param population {@link Population} holding the weighted scores of the employees
+     * @param mode       sampling mode
+     */
+    TeamSampler(FeasibilityIndex index, Population population, Mode mode) {
+        this.index = index;
+        int types = index.getTypes().length;
+        this.pools = new int[types][];
+        for (int t = 0; t < types; ++t) {
+            this.pools[t] = index.getCandidates(t).clone();
+        }
+        if (mode == Mode.FITNESS) {
+            this.probabilities = new double[types][];
+            this.aliases = new int[types][];
+            this.stamps = new int[population.getRosterSize()];
+            for (int t = 0; t < types; ++t) {
+                buildAliasTable(t, population);
+            }
+        } else {
+            this.probabilities = null;
+            this.aliases = null;
+            this.stamps = null;
+        }
+    }
+
+    /**
+     * Samples a team into the given array. Locked employees are placed first in their segments.
+     *
+     * @param team   array of the size of the team to write the employee ordinals into
+     * @param random random generator
+     */
+    void sample(int[] team, Random random) {
+        for (int t = 0; t < this.pools.length; ++t) {
+            int position = this.index.getOffset(t);
+            int[] locked = this.index.getLockedCandidates(t);
+            System.arraycopy(locked, 0, team, position, locked.length);
+            position += locked.length;
+            int count = this.index.getCount(t) - locked.length;
+            if (this.aliases == null) {
+                sampleUniform(t, team, position, count, random);
+            } else {
+                sampleBiased(t, team, position, count, random);
+            }
+        }
+    }
+
+    /**
+     * Picks count distinct candidates with a partial Fisher-Yates shuffle of the pool of the type. The pool is left
+     * shuffled, which is as good a starting point as any for the next team.
+     */
+    private void sampleUniform(int type, int[] team, int position, int count, Random random) {
+        int[] pool = this.pools[type];
+        for (int i = 0; i < count; ++i) {
+            int j = i + random.nextInt(pool.length - i);
+            int ordinal = pool[j];
+            pool[j] = pool[i];
+            pool[i] = ordinal;
+            team[position + i] = ordinal;
+        }
+    }
+
+    /**
+     * Picks count distinct candidates from the alias table of the type. Draws which hit an employee already picked are
+     * rejected, and after a bounded number of draws the remaining members are picked uniformly from the candidates
+     * left.
+     */
+    private void sampleBiased(int type, int[] team, int position, int count, Random random) {
+        if (count == 0) {
+            return;
+        }
+        if (++this.stamp == 0) {
+            Arrays.fill(this.stamps, 0);
+            this.stamp = 1;
+        }
+        int[] pool = this.pools[type];
+        double[] probability = this.probabilities[type];
+        int[] alias = this.aliases[type];
+        int picked = 0;
+        for (int draws = count * MAX_ALIAS_DRAWS_PER_MEMBER; picked < count && draws > 0; --draws) {
+            int slot = random.nextInt(pool.length);
+            int ordinal = random.nextDouble() < probability[slot] ? pool[slot] : pool[alias[slot]];
+            if (this.stamps[ordinal] != this.stamp) {
+                this.stamps[ordinal] = this.stamp;
+                team[position + picked++] = ordinal;
+            }
+        }
+        for (int next = random.nextInt(pool.length); picked < count; next = next + 1 < pool.length ? next + 1 : 0) {
+            int ordinal = pool[next];
+            if (this.stamps[ordinal] != this.stamp) {
+                this.stamps[ordinal] = this.stamp;
+                team[position + picked++] = ordinal;
+            }
+        }
+    }
+
+    /**
+     * Builds the alias table of a type with Vose's method. The weight of a candidate is its weighted score shifted so
+     * that the lowest scored candidate keeps a small, non zero weight.
+     */
+    private void buildAliasTable(int type, Population population) {
+        int[] pool = this.pools[type];
+        int n = pool.length;
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        this.probabilities[type] = probability;
+        this.aliases[type] = alias;
+        if (n == 0) {
+            return;
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int ordinal : pool) {
+            min = Math.min(min, population.getWeightedScore(ordinal));
+            max = Math.max(max, population.getWeightedScore(ordinal));
+        }
+        double floor = (max - min) * 0.01 + 1e-9;
+        double total = 0;
+        double[] scaled = new double[n];
+        for (int i = 0; i < n; ++i) {
+            scaled[i] = population.getWeightedScore(pool[i]) - min + floor;
+            total += scaled[i];
+        }
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; ++i) {
+            scaled[i] = scaled[i] * n / total;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.configuration.Configuration;
+
+/**
+ * This class decides when a solver stops: after a maximum number of iterations, once the target fitness is reached,
+ * once the time limit is exceeded or when the best fitness has not improved for a number of iterations.
+ */
+class TerminationPolicy {
+    private final long maxIterations;
+    private final Double targetFitness;
+    private final long timeLimitNanos;
+    private final long stagnationLimit;
+    private long startTime;
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+    private long lastImprovement;
+    private String reason;
+
+    /**
+     * Constructs a {@link TerminationPolicy}.
+     *
+     * @param maxIterations   maximum number of iterations
+     * @param targetFitness   fitness to stop at, or null
+     * @param timeLimit       time limit in seconds, or null
+     * @param stagnationLimit number of iterations without improvement to stop after, or 0 to never stop on stagnation
+     */
+    TerminationPolicy(long maxIterations, Double targetFitness, Double timeLimit, long stagnationLimit) {
+        this.maxIterations = maxIterations;
+        this.targetFitness = targetFitness;
+        this.timeLimitNanos = timeLimit == null ? Long.MAX_VALUE : (long) (timeLimit * 1e9);
+        this.stagnationLimit = stagnationLimit;
+    }
+
+    /**
+     * Creates the policy of the given configuration.
+     *
+     * @param configuration   {@link Configuration}
+     * @param maxIterations   maximum number of iterations
+     * @param stagnationLimit number of iterations without improvement to stop after, or 0 to never stop on stagnation
+     * @return {@link TerminationPolicy}
+     */
+    static TerminationPolicy of(Configuration configuration, long maxIterations, long stagnationLimit) {
+        return new TerminationPolicy(maxIterations, configuration.getTargetFitness(), configuration.getTimeLimit(),
+                stagnationLimit);
+    }
+
+    /**
+     * Starts the clock of the time limit.
+     */
+    void start() {
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Checks whether the solver should stop.
+     *
+     * @param iteration   number of completed iterations
+     * @param bestFitness best fitness found so far
+     * @return whether to stop
+     */
+    boolean shouldStop(long iteration, double bestFitness) {
+        if (bestFitness > this.bestFitness) {
+            this.bestFitness = bestFitness;
+            this.lastImprovement = iteration;
+        }
+        if (iteration >= this.maxIterations) {
+            this.reason = "maximum iterations reached";
+        } else if (this.targetFitness != null && bestFitness >= this.targetFitness) {
+            this.reason = "target fitness reached";
+        } else if (System.nanoTime() - this.startTime >= this.timeLimitNanos) {
+            this.reason = "time limit reached";
+        } else if (this.stagnationLimit > 0 && iteration - this.lastImprovement >= this.stagnationLimit) {
+            this.reason = "no improvement in " + this.stagnationLimit + " iterations";
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns why the solver stopped.
+     *
+     * @return reason or null if the policy has not stopped the solver
+     */
+    String getReason() {
+        return this.reason;
+    }
+}
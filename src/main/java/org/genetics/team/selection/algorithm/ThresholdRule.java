@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class is an eligibility rule comparing an attribute of an employee with a threshold, such as
+ * "EXPERIENCE &gt;= 5". A rule prefixed with a type, such as "ENGINEER: EXPERIENCE &gt;= 5", applies to the employees
+ * of that type only. Supported operators are &gt;=, &gt;, &lt;=, &lt;, = (or ==) and !=.
+ */
+final class ThresholdRule {
+    private static final Pattern RULE = Pattern.compile(
+            "\\s*(?:([^:]+?)\\s*:)?\\s*([^<>=!:]+?)\\s*(>=|<=|==|!=|=|>|<)\\s*(-?\\d+)\\s*");
+    private final String type;
+    private final String attribute;
+    private final String operator;
+    private final int threshold;
+
+    private ThresholdRule(String type, String attribute, String operator, int threshold) {
+        this.type = type;
+        this.attribute = attribute;
+        this.operator = "==".equals(operator) ? "=" : operator;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Parses a rule.
+     *
+     * @param rule rule such as "ENGINEER: EXPERIENCE &gt;= 5"
+     * @return {@link ThresholdRule}
+     * @throws IllegalArgumentException if the rule cannot be parsed
+     */
+    static ThresholdRule parse(String rule) {
+        Matcher matcher = rule == null ? null : RULE.matcher(rule);
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("Invalid eligibility rule: " + rule);
+        }
+        try {
+            return new ThresholdRule(matcher.group(1), matcher.group(2), matcher.group(3),
+                    Integer.parseInt(matcher.group(4)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid eligibility rule: " + rule);
+        }
+    }
+
+    /**
+     * Returns the type the rule applies to.
+     *
+     * @return employee type, or null if the rule applies to all types
+     */
+    String getType() {
+        return type;
+    }
+
+    String getAttribute() {
+        return attribute;
+    }
+
+    String getOperator() {
+        return operator;
+    }
+
+    int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public String toString() {
+        return (this.type == null ? "" : this.type + ": ") + this.attribute + " " + this.operator + " "
+                + this.threshold;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Random;
+
+/**
+ * Uniform crossover. Every position of the first offspring is inherited from either parent with equal probability and
+ * the second offspring receives the other parent's employee.
+ */
+class UniformCrossover implements CrossoverOperator {
+
+    @Override
+    public void cross(int[] parent1, int[] parent2, int[] child1, int[] child2, Random random) {
+        int i = 0;
+        while (i < parent1.length) {
+            int bits = random.nextInt();
+            for (int b = 0; b < 32 && i < parent1.length; ++b, ++i) {
+                boolean swap = (bits & (1 << b)) != 0;
+                child1[i] = swap ? parent2[i] : parent1[i];
+                child2[i] = swap ? parent1[i] : parent2[i];
+            }
+        }
+    }
+}
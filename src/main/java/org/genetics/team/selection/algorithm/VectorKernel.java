@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class implements the fitness kernels with the incubating Vector API of Java 17. It is compiled separately for
+ * Java 17 and only loaded by {@link BatchEvaluator} when the jdk.incubator.vector module is present, so the rest of
+ * the code keeps running on Java 8.
+ * <p>
+ * Attribute rows are widened from int to long lanes and added up in registers, one chunk of attributes at a time, and
+ * the sums are converted to double lanes for the dot product with the weights. Attributes left over at the end of a
+ * row are handled by scalar loops. The vector dot product adds up in a different order than the scalar one, so
+ * fitness values may differ in the last bits. The weighted scores of the members are still added up by the scalar
+ * loop: gathering them a vector at a time measured slower in the FitnessBenchmark, since the loads are bound by the
+ * latency of the random accesses.
+ */
+final class VectorKernel extends ScalarKernel {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = VectorSpecies.of(long.class, DOUBLES.vectorShape());
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class,
+            VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    @Override
+    public void attributeSums(int[] genes, int teamSize, int from, int to, int[] rows, int attributeCount,
+                              long[] sums) {
+        int bound = INTS.loopBound(attributeCount);
+        for (int team = from; team < to; ++team) {
+            int target = team * attributeCount;
+            int first = team * teamSize;
+            int last = first + teamSize;
+            int a = 0;
+            for (; a < bound; a += INTS.length()) {
+                LongVector sum = LongVector.zero(LONGS);
+                for (int i = first; i < last; ++i) {
+                    IntVector row = IntVector.fromArray(INTS, rows, genes[i] * attributeCount + a);
+                    sum = sum.add((LongVector) row.convertShape(VectorOperators.I2L, LONGS, 0));
+                }
+                sum.intoArray(sums, target + a);
+            }
+            for (; a < attributeCount; ++a) {
+                long sum = 0;
+                for (int i = first; i < last; ++i) {
+                    sum += rows[genes[i] * attributeCount + a];
+                }
+                sums[target + a] = sum;
+            }
+        }
+    }
+
+    @Override
+    public void weightedAverages(long[] sums, int teamSize, int from, int to, double[] weights, int attributeCount,
+                                 double[] fitness) {
+        double divisor = (double) teamSize * attributeCount;
+        int bound = LONGS.loopBound(attributeCount);
+        for (int team = from; team < to; ++team) {
+            int base = team * attributeCount;
+            DoubleVector dot = DoubleVector.zero(DOUBLES);
+            int a = 0;
+            for (; a < bound; a += LONGS.length()) {
+                DoubleVector sum = (DoubleVector) LongVector.fromArray(LONGS, sums, base + a)
+                        .convertShape(VectorOperators.L2D, DOUBLES, 0);
+                dot = sum.fma(DoubleVector.fromArray(DOUBLES, weights, a), dot);
+            }
+            double total = dot.reduceLanes(VectorOperators.ADD);
+            for (; a < attributeCount; ++a) {
+                total += sums[base + a] * weights[a];
+            }
+            fitness[team] = total / divisor;
+        }
+    }
+}
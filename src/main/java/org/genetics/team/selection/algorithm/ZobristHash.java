@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import java.util.Random;
+
+/**
+ * This class hashes teams with Zobrist hashing: every employee ordinal gets a random 64-bit key, and the hash of a team
+ * is the XOR of the keys of its members. The hash does not depend on the order of the members, and replacing one
+ * member updates it in constant time. Two different teams get the same hash with negligible probability, so the
+ * members of teams are only compared when their hashes are equal.
+ */
+final class ZobristHash {
+    // A fixed seed keeps the hashes stable between runs and leaves the random generators of a run untouched.
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private final long[] keys;
+
+    /**
+     * Constructs the keys of the given number of ordinals.
+     *
+     * @param capacity upper bound of the employee ordinals
+     */
+    ZobristHash(int capacity) {
+        this.keys = new long[capacity];
+        Random random = new Random(SEED);
+        for (int i = 0; i < capacity; ++i) {
+            this.keys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Hashes a team.
+     *
+     * @param genes  array holding the team
+     * @param from   position of the first member
+     * @param length number of members
+     * @return hash of the team
+     */
+    long hash(int[] genes, int from, int length) {
+        long hash = 0;
+        for (int i = from; i < from + length; ++i) {
+            hash ^= this.keys[genes[i]];
+        }
+        return hash;
+    }
+
+    long hash(int[] team) {
+        return hash(team, 0, team.length);
+    }
+
+    /**
+     * Updates the hash of a team when one member is replaced by another employee.
+     *
+     * @param hash    hash of the team
+     * @param removed ordinal of the member leaving the team
+     * @param added   ordinal of the employee joining the team
+     * @return hash of the changed team
+     */
+    long replace(long hash, int removed, int added) {
+        return hash ^ this.keys[removed] ^ this.keys[added];
+    }
+
+    int getCapacity() {
+        return this.keys.length;
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Map;
  */
 public class Employee {
     private int id;
+    private int ordinal;
     private String name;
     private String employeeType;
     private Map<String, Integer> attributeValues;
@@ -49,6 +50,21 @@ public class Employee {
         this.id = id;
     }
 
+    /**
+     * Position of the employee record in the input. Ordinals are used to refer to an employee in compact team
+     * encodings such as checkpoints. They are dense after reading the input; employees added to a roster later get
+     * new ordinals and the ordinals of removed employees are left unused.
+     *
+     * @return ordinal of the employee
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.beans;
+
+import java.util.Map;
+
+/**
+ * This class represents a project to be staffed in the multi-team mode, with its own team definition and attribute
+ * weights.
+ */
+public class ProjectDefinition {
+    private String name;
+    private Map<String, Integer> teamDefinition;
+    private Map<String, Double> attributeWeights;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Map<String, Integer> getTeamDefinition() {
+        return teamDefinition;
+    }
+
+    public void setTeamDefinition(Map<String, Integer> teamDefinition) {
+        this.teamDefinition = teamDefinition;
+    }
+
+    public Map<String, Double> getAttributeWeights() {
+        return attributeWeights;
+    }
+
+    public void setAttributeWeights(Map<String, Double> attributeWeights) {
+        this.attributeWeights = attributeWeights;
+    }
+}
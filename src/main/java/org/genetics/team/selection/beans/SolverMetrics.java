@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.beans;
+
+/**
+ * This class holds the metrics of a solver run, so that different solvers can be compared on the same input.
+ */
+public class SolverMetrics {
+    private String solver;
+    private long iterations;
+    private long evaluations;
+    private long cpuTimeNanos;
+    private long wallTimeNanos;
+    private double bestFitness;
+
+    public String getSolver() {
+        return solver;
+    }
+
+    public void setSolver(String solver) {
+        this.solver = solver;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(long iterations) {
+        this.iterations = iterations;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public void setEvaluations(long evaluations) {
+        this.evaluations = evaluations;
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    public void setCpuTimeNanos(long cpuTimeNanos) {
+        this.cpuTimeNanos = cpuTimeNanos;
+    }
+
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public void setWallTimeNanos(long wallTimeNanos) {
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    public double getBestFitness() {
+        return bestFitness;
+    }
+
+    public void setBestFitness(double bestFitness) {
+        this.bestFitness = bestFitness;
+    }
+
+    /**
+     * Returns the best fitness reached per CPU-second spent by the run.
+     *
+     * @return fitness per CPU-second
+     */
+    public double getFitnessPerCpuSecond() {
+        return cpuTimeNanos > 0 ? bestFitness / (cpuTimeNanos / 1e9) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Solver: " + solver + ", best fitness: " + bestFitness + ", iterations: " + iterations
+                + ", evaluations: " + evaluations + ", CPU time: " + cpuTimeNanos / 1000000 + " ms, wall time: "
+                + wallTimeNanos / 1000000 + " ms, fitness per CPU-second: " + getFitnessPerCpuSecond();
+    }
+}
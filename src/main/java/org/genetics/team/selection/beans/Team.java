@@ -27,17 +27,28 @@ public class Team implements Comparable<Team> {
     private static final AtomicInteger count = new AtomicInteger(0);
     private final int id;
     private final List<Employee> employees;
+    private final int[] ordinals;
     private double fitness;
 
     public Team(List<Employee> employees) {
         this.id = count.incrementAndGet();
         this.employees = Collections.unmodifiableList(employees);
+        this.ordinals = employees.stream().mapToInt(Employee::getOrdinal).toArray();
     }
 
     public List<Employee> getEmployees() {
         return employees;
     }
 
+    /**
+     * Returns the ordinals of the members in team order. The returned array is shared and must not be modified.
+     *
+     * @return employee ordinals
+     */
+    public int[] getOrdinals() {
+        return ordinals;
+    }
+
     public double getFitness() {
         return fitness;
     }
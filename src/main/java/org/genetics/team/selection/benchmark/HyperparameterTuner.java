@@ -0,0 +1,400 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.benchmark;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.algorithm.Population;
+import org.genetics.team.selection.algorithm.Solver;
+import org.genetics.team.selection.algorithm.SolverFactory;
+import org.genetics.team.selection.beans.ProjectDefinition;
+import org.genetics.team.selection.beans.SolverMetrics;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.genetics.team.selection.util.InputProcessor;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class tunes the mutation rate, crossover rate and population size of the genetic algorithm for a roster by
+ * racing configuration variants with successive halving. The variants are the given configuration and random samples
+ * around it. In every round each remaining variant runs a number of times with a generation budget, and
+ * only the best third of the variants advances to the next round, whose budget is three times larger, until the
+ * winner is left. Usage:
+ * <pre>
+ *     HyperparameterTuner &lt;config path&gt; &lt;profile path&gt; [project name]
+ * </pre>
+ * The runs select teams of the named project of the config file, or of its first project. The teamDefinition and
+ * attributeWeights system properties, written like ENGINEER:3,QA:1,BA:1, take precedence over those of the project.
+ * <p>
+ * Variants are ranked by their mean best fitness per CPU-second. Variants whose mean fitness is below minQuality
+ * (default 0.98) of the best mean fitness of the round rank after the others, so a variant which converges fast to a
+ * poor team does not win. The race is controlled with system properties: variants (default 27), eta (3), generations
+ * (budget of the first round, 25), repeats (runs per variant and round, 3), threads (runs at once, the number of
+ * processors), seed (1) and minQuality. All variants of a round run with the same random seeds and with adaptive rates
+ * disabled, so the sampled rates are the ones raced.
+ * <p>
+ * The runs of a round race in parallel. Each run is timed by the CPU time of its own threads: it runs in a fork/join
+ * pool of its own, so the parallel stages of the run such as local search use the workers of that pool, and the CPU
+ * time of every worker is added up when the pool terminates.
+ * <p>
+ * The winning values, with the generations of the last round, are written to the profile path as a copy of the given
+ * config file, so the profile keeps its comments and can be used in place of the config file.
+ */
+public class HyperparameterTuner {
+    private static Logger log = Logger.getLogger(HyperparameterTuner.class);
+    private static final int[] POPULATION_SIZES = {10, 20, 50, 100, 200, 500};
+
+    /**
+     * Tuned values of a configuration variant and its results in the current round.
+     */
+    private static final class Variant {
+        private final int id;
+        private final double mutationRate;
+        private final double crossoverRate;
+        private final int populationSize;
+        private double meanFitness;
+        private double meanCpuSeconds;
+        private double meanGenerations;
+        private boolean qualified;
+
+        private Variant(int id, double mutationRate, double crossoverRate, int populationSize) {
+            this.id = id;
+            this.mutationRate = mutationRate;
+            this.crossoverRate = crossoverRate;
+            this.populationSize = populationSize;
+        }
+
+        private double getFitnessPerCpuSecond() {
+            return this.meanCpuSeconds == 0 ? 0 : this.meanFitness / this.meanCpuSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return "variant " + this.id + " (mutationRate: " + this.mutationRate + ", crossoverRate: "
+                    + this.crossoverRate + ", initialPopulationSize: " + this.populationSize + ") mean fitness "
+                    + this.meanFitness + ", fitness per CPU-second " + getFitnessPerCpuSecond();
+        }
+    }
+
+    /**
+     * Fork/join worker factory which adds up the CPU time of the workers of a pool when they terminate.
+     */
+    private static final class TrialThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final ThreadMXBean threads;
+        private final AtomicLong cpuTimeNanos = new AtomicLong();
+
+        private TrialThreadFactory(ThreadMXBean threads) {
+            this.threads = threads;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            return new ForkJoinWorkerThread(pool) {
+                @Override
+                protected void onTermination(Throwable exception) {
+                    cpuTimeNanos.addAndGet(Math.max(0, threads.getCurrentThreadCpuTime()));
+                    super.onTermination(exception);
+                }
+            };
+        }
+    }
+
+    /**
+     * Best fitness, generations and CPU time of a run.
+     */
+    private static final class Trial {
+        private final double bestFitness;
+        private final long iterations;
+        private final long cpuTimeNanos;
+
+        private Trial(double bestFitness, long iterations, long cpuTimeNanos) {
+            this.bestFitness = bestFitness;
+            this.iterations = iterations;
+            this.cpuTimeNanos = cpuTimeNanos;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 2) {
+            System.err.println("Usage: HyperparameterTuner <config path> <profile path> [project name]");
+            System.exit(1);
+        }
+        Logger.getRootLogger().setLevel(Level.WARN);
+        log.setLevel(Level.INFO);
+        int variantCount = Integer.parseInt(System.getProperty("variants", "27"));
+        int eta = Integer.parseInt(System.getProperty("eta", "3"));
+        int budget = Integer.parseInt(System.getProperty("generations", "25"));
+        int repeats = Integer.parseInt(System.getProperty("repeats", "3"));
+        int threads = Integer.parseInt(System.getProperty("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long seed = Long.parseLong(System.getProperty("seed", "1"));
+        double minQuality = Double.parseDouble(System.getProperty("minQuality", "0.98"));
+
+        Configuration base = ConfigurationManager.loadConfiguration(args[0]);
+        ProjectDefinition project = findProject(base, args.length > 2 ? args[2] : null);
+        Map<String, Integer> teamDefinition = parseTeamDefinition(System.getProperty("teamDefinition"));
+        Map<String, Double> weights = parseWeights(System.getProperty("attributeWeights"));
+        if (teamDefinition == null && project != null) {
+            teamDefinition = project.getTeamDefinition();
+        }
+        if (weights == null && project != null) {
+            weights = project.getAttributeWeights();
+        }
+        if (teamDefinition == null || weights == null) {
+            System.err.println("No team definition and attribute weights: configure a project in " + args[0]
+                    + " or set the teamDefinition and attributeWeights system properties");
+            System.exit(1);
+        }
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!threadBean.isThreadCpuTimeSupported()) {
+            System.err.println("The CPU time of threads cannot be measured on this JVM");
+            System.exit(1);
+        }
+        threadBean.setThreadCpuTimeEnabled(true);
+        RosterAccessor roster = InputProcessor.createInputProcessor(base).readRosterAccessor(base.getPopulationData());
+        log.info("Tuning for " + teamDefinition + " weighted by " + weights + " with " + threads + " threads");
+
+        List<Variant> variants = sample(base, variantCount, new Random(seed));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 1; ; ++round) {
+                long start = System.nanoTime();
+                race(args[0], roster, teamDefinition, weights, variants, budget, repeats, seed, minQuality,
+                        executor, threadBean, Math.max(1, Runtime.getRuntime().availableProcessors() / threads));
+                log.info("Round " + round + ": " + variants.size() + " variants with " + budget + " generations in "
+                        + (System.nanoTime() - start) / 1000000 + " ms, leading " + variants.get(0));
+                int survivors = (variants.size() + eta - 1) / eta;
+                if (survivors <= 1) {
+                    break;
+                }
+                variants = new ArrayList<>(variants.subList(0, survivors));
+                budget *= eta;
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Variant winner = variants.get(0);
+        writeProfile(args[0], args[1], winner, budget, roster.size());
+        log.info("Tuned profile written to " + args[1] + ": " + winner);
+    }
+
+    /**
+     * Returns the project of the given name, or the first project when no name is given.
+     */
+    private static ProjectDefinition findProject(Configuration configuration, String name) {
+        List<ProjectDefinition> projects = configuration.getProjects();
+        if (projects == null || projects.isEmpty()) {
+            if (name != null) {
+                throw new IllegalArgumentException("No projects are configured");
+            }
+            return null;
+        }
+        if (name == null) {
+            return projects.get(0);
+        }
+        for (ProjectDefinition project : projects) {
+            if (name.equals(project.getName())) {
+                return project;
+            }
+        }
+        throw new IllegalArgumentException("Unknown project: " + name);
+    }
+
+    private static Map<String, Integer> parseTeamDefinition(String value) {
+        if (value == null) {
+            return null;
+        }
+        Map<String, Integer> teamDefinition = new LinkedHashMap<>();
+        parseEntries(value).forEach((type, count) -> teamDefinition.put(type, Integer.parseInt(count)));
+        return teamDefinition;
+    }
+
+    private static Map<String, Double> parseWeights(String value) {
+        if (value == null) {
+            return null;
+        }
+        Map<String, Double> weights = new LinkedHashMap<>();
+        parseEntries(value).forEach((attribute, weight) -> weights.put(attribute, Double.parseDouble(weight)));
+        return weights;
+    }
+
+    /**
+     * Splits a list of the form KEY:value,KEY:value into its entries.
+     */
+    private static Map<String, String> parseEntries(String value) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected KEY:value but found " + entry.trim());
+            }
+            entries.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+        }
+        return entries;
+    }
+
+    /**
+     * Samples the variants to race. The first variant holds the values of the given configuration.
+     */
+    private static List<Variant> sample(Configuration base, int count, Random random) {
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant(0, base.getMutationRate(), base.getCrossoverRate(), base.getInitialPopulationSize()));
+        for (int id = 1; id < count; ++id) {
+            // Log-uniform between 0.005 and 0.3, since the effect of the mutation rate is multiplicative
+            double mutationRate = 0.005 * Math.pow(60, random.nextDouble());
+            double crossoverRate = 0.3 + 0.7 * random.nextDouble();
+            int populationSize = POPULATION_SIZES[random.nextInt(POPULATION_SIZES.length)];
+            variants.add(new Variant(id, round(mutationRate), round(crossoverRate), populationSize));
+        }
+        return variants;
+    }
+
+    /**
+     * Runs every variant the given number of times in parallel and sorts the variants from the best.
+     */
+    private static void race(String configPath, RosterAccessor roster, Map<String, Integer> teamDefinition,
+                             Map<String, Double> weights, List<Variant> variants, int budget, int repeats, long seed,
+                             double minQuality, ExecutorService executor, ThreadMXBean threadBean, int parallelism)
+            throws IOException, InterruptedException, ExecutionException {
+        List<List<Future<Trial>>> runs = new ArrayList<>();
+        for (Variant variant : variants) {
+            List<Future<Trial>> variantRuns = new ArrayList<>();
+            for (int repeat = 0; repeat < repeats; ++repeat) {
+                Configuration configuration = ConfigurationManager.loadConfiguration(configPath);
+                configuration.setMutationRate(variant.mutationRate);
+                configuration.setCrossoverRate(variant.crossoverRate);
+                configuration.setInitialPopulationSize(variant.populationSize);
+                configuration.setGenerations(budget);
+                configuration.setRandomSeed(seed + repeat);
+                configuration.setAdaptiveRates(false);
+                configuration.setSolver("GA");
+                configuration.setProjects(null);
+                configuration.setResume(false);
+                configuration.setCheckpointPath(null);
+                configuration.setEventLogPath(null);
+                variantRuns.add(executor.submit(() -> runTrial(configuration, roster, teamDefinition, weights,
+                        threadBean, parallelism)));
+            }
+            runs.add(variantRuns);
+        }
+        double bestFitness = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < variants.size(); ++v) {
+            Variant variant = variants.get(v);
+            double fitness = 0;
+            double cpuSeconds = 0;
+            double generations = 0;
+            for (Future<Trial> run : runs.get(v)) {
+                Trial trial = run.get();
+                fitness += trial.bestFitness;
+                cpuSeconds += trial.cpuTimeNanos / 1e9;
+                generations += trial.iterations;
+            }
+            variant.meanFitness = fitness / repeats;
+            variant.meanCpuSeconds = cpuSeconds / repeats;
+            variant.meanGenerations = generations / repeats;
+            bestFitness = Math.max(bestFitness, variant.meanFitness);
+        }
+        for (Variant variant : variants) {
+            variant.qualified = variant.meanFitness >= minQuality * bestFitness;
+            log.debug(variant + ", mean generations " + variant.meanGenerations);
+        }
+        variants.sort(Comparator.comparing((Variant variant) -> !variant.qualified)
+                .thenComparing(Comparator.comparingDouble(Variant::getFitnessPerCpuSecond).reversed()));
+    }
+
+    /**
+     * Runs the solver of a configuration in a fork/join pool of its own and measures the CPU time of the pool.
+     */
+    private static Trial runTrial(Configuration configuration, RosterAccessor roster,
+                                  Map<String, Integer> teamDefinition, Map<String, Double> weights,
+                                  ThreadMXBean threadBean, int parallelism)
+            throws InterruptedException, ExecutionException {
+        TrialThreadFactory threads = new TrialThreadFactory(threadBean);
+        ForkJoinPool pool = new ForkJoinPool(parallelism, threads, null, false);
+        SolverMetrics metrics;
+        try {
+            metrics = pool.submit(() -> {
+                Population population = new Population(configuration);
+                population.setRoster(roster);
+                population.setTeamDefinition(teamDefinition);
+                population.setAttributeWeights(weights);
+                Solver solver = SolverFactory.createSolver(population);
+                solver.initialize();
+                solver.solve();
+                return solver.getMetrics();
+            }).get();
+        } finally {
+            pool.shutdown();
+        }
+        // Workers add their CPU time as they terminate, which the shutdown lets them do once idle
+        while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Waiting for the workers of a run to terminate");
+        }
+        return new Trial(metrics.getBestFitness(), metrics.getIterations(), threads.cpuTimeNanos.get());
+    }
+
+    /**
+     * Writes a copy of the config file with the values of the winning variant.
+     */
+    private static void writeProfile(String configPath, String profilePath, Variant winner, int generations,
+                                     int rosterSize) throws IOException {
+        String profile = new String(Files.readAllBytes(Paths.get(configPath)), StandardCharsets.UTF_8);
+        profile = setValue(profile, "mutationRate", String.valueOf(winner.mutationRate));
+        profile = setValue(profile, "crossoverRate", String.valueOf(winner.crossoverRate));
+        profile = setValue(profile, "initialPopulationSize", String.valueOf(winner.populationSize));
+        profile = setValue(profile, "generations", String.valueOf(generations));
+        String header = "# Tuned profile of " + configPath + " for " + rosterSize + " employees: mean fitness "
+                + winner.meanFitness + ", " + winner.getFitnessPerCpuSecond() + " fitness per CPU-second\n";
+        Files.write(Paths.get(profilePath), (header + profile).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String setValue(String config, String key, String value) {
+        Matcher matcher = Pattern.compile("^" + key + ":.*$", Pattern.MULTILINE).matcher(config);
+        if (matcher.find()) {
+            return matcher.replaceFirst(Matcher.quoteReplacement(key + ": " + value));
+        }
+        return config + (config.endsWith("\n") ? "" : "\n") + key + ": " + value + "\n";
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.genetics.team.selection.configuration;
 
+import org.genetics.team.selection.beans.ProjectDefinition;
+
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +31,53 @@ public final class Configuration {
     private Integer attributeCount;
     private Map<String, String> headerMapping;
     private List<String> excluded;
+    private List<Integer> excludedEmployees;
+    private List<Integer> lockedEmployees;
+    private List<String> eligibility;
     private Double mutationRate;
     private Double crossoverRate;
+    private String crossoverOperator;
     private Integer generations;
+    private Double targetFitness;
+    private Boolean adaptiveRates;
+    private Double minMutationRate;
+    private Double maxMutationRate;
+    private Double minCrossoverRate;
+    private Double maxCrossoverRate;
     private Integer initialPopulationSize;
+    private String teamSampling;
+    private String localSearch;
+    private Integer localSearchElites;
+    private Integer localSearchMaxMoves;
+    private Double surrogateFactor;
+    private String checkpointPath;
+    private Integer checkpointInterval;
+    private Boolean resume;
+    private List<String> seeding;
+    private String seedPath;
+    private Double seedRatio;
+    private Double graspAlpha;
+    private String solver;
+    private Integer maxIterations;
+    private Double timeLimit;
+    private Integer stagnationLimit;
+    private Double annealingTemperature;
+    private Double annealingCooling;
+    private Integer tabuTenure;
+    private Integer tabuNeighbourhood;
+    private List<ProjectDefinition> projects;
+    private String eventLogPath;
+    private Integer eventLogTopN;
+    private String rosterStorage;
+    private Long randomSeed;
+    private Integer resultCacheSize;
+    private String resultCachePath;
+    private Integer resultCacheDiskSize;
+    private Map<String, String> units;
+    private Long unitMemoryBudget;
+    private String unitSpillPath;
+    private Long budget;
+    private String budgetMethod;
 
     public String getPopulationData() {
         return populationData;
@@ -50,6 +95,30 @@ public final class Configuration {
         this.excluded = excluded;
     }
 
+    public List<Integer> getExcludedEmployees() {
+        return excludedEmployees;
+    }
+
+    public void setExcludedEmployees(List<Integer> excludedEmployees) {
+        this.excludedEmployees = excludedEmployees;
+    }
+
+    public List<String> getEligibility() {
+        return eligibility;
+    }
+
+    public void setEligibility(List<String> eligibility) {
+        this.eligibility = eligibility;
+    }
+
+    public List<Integer> getLockedEmployees() {
+        return lockedEmployees;
+    }
+
+    public void setLockedEmployees(List<Integer> lockedEmployees) {
+        this.lockedEmployees = lockedEmployees;
+    }
+
     public Double getMutationRate() {
         return mutationRate;
     }
@@ -74,6 +143,54 @@ public final class Configuration {
         this.generations = generations;
     }
 
+    public Double getTargetFitness() {
+        return targetFitness;
+    }
+
+    public void setTargetFitness(Double targetFitness) {
+        this.targetFitness = targetFitness;
+    }
+
+    public Boolean getAdaptiveRates() {
+        return adaptiveRates;
+    }
+
+    public void setAdaptiveRates(Boolean adaptiveRates) {
+        this.adaptiveRates = adaptiveRates;
+    }
+
+    public Double getMinMutationRate() {
+        return minMutationRate;
+    }
+
+    public void setMinMutationRate(Double minMutationRate) {
+        this.minMutationRate = minMutationRate;
+    }
+
+    public Double getMaxMutationRate() {
+        return maxMutationRate;
+    }
+
+    public void setMaxMutationRate(Double maxMutationRate) {
+        this.maxMutationRate = maxMutationRate;
+    }
+
+    public Double getMinCrossoverRate() {
+        return minCrossoverRate;
+    }
+
+    public void setMinCrossoverRate(Double minCrossoverRate) {
+        this.minCrossoverRate = minCrossoverRate;
+    }
+
+    public Double getMaxCrossoverRate() {
+        return maxCrossoverRate;
+    }
+
+    public void setMaxCrossoverRate(Double maxCrossoverRate) {
+        this.maxCrossoverRate = maxCrossoverRate;
+    }
+
     public Integer getInitialPopulationSize() {
         return initialPopulationSize;
     }
@@ -82,6 +199,38 @@ public final class Configuration {
         this.initialPopulationSize = initialPopulationSize;
     }
 
+    public String getTeamSampling() {
+        return teamSampling;
+    }
+
+    public void setTeamSampling(String teamSampling) {
+        this.teamSampling = teamSampling;
+    }
+
+    public String getLocalSearch() {
+        return localSearch;
+    }
+
+    public void setLocalSearch(String localSearch) {
+        this.localSearch = localSearch;
+    }
+
+    public Integer getLocalSearchElites() {
+        return localSearchElites;
+    }
+
+    public void setLocalSearchElites(Integer localSearchElites) {
+        this.localSearchElites = localSearchElites;
+    }
+
+    public Integer getLocalSearchMaxMoves() {
+        return localSearchMaxMoves;
+    }
+
+    public void setLocalSearchMaxMoves(Integer localSearchMaxMoves) {
+        this.localSearchMaxMoves = localSearchMaxMoves;
+    }
+
     public Integer getAttributeCount() {
         return attributeCount;
     }
@@ -98,6 +247,14 @@ public final class Configuration {
         this.types = types;
     }
 
+    public String getCrossoverOperator() {
+        return crossoverOperator;
+    }
+
+    public void setCrossoverOperator(String crossoverOperator) {
+        this.crossoverOperator = crossoverOperator;
+    }
+
     public Double getCrossoverRate() {
         return crossoverRate;
     }
@@ -105,4 +262,236 @@ public final class Configuration {
     public void setCrossoverRate(Double crossoverRate) {
         this.crossoverRate = crossoverRate;
     }
+
+    public String getCheckpointPath() {
+        return checkpointPath;
+    }
+
+    public void setCheckpointPath(String checkpointPath) {
+        this.checkpointPath = checkpointPath;
+    }
+
+    public Integer getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(Integer checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public Boolean getResume() {
+        return resume;
+    }
+
+    public void setResume(Boolean resume) {
+        this.resume = resume;
+    }
+
+    public List<String> getSeeding() {
+        return seeding;
+    }
+
+    public void setSeeding(List<String> seeding) {
+        this.seeding = seeding;
+    }
+
+    public String getSeedPath() {
+        return seedPath;
+    }
+
+    public void setSeedPath(String seedPath) {
+        this.seedPath = seedPath;
+    }
+
+    public Double getSeedRatio() {
+        return seedRatio;
+    }
+
+    public void setSeedRatio(Double seedRatio) {
+        this.seedRatio = seedRatio;
+    }
+
+    public Double getGraspAlpha() {
+        return graspAlpha;
+    }
+
+    public void setGraspAlpha(Double graspAlpha) {
+        this.graspAlpha = graspAlpha;
+    }
+
+    public String getSolver() {
+        return solver;
+    }
+
+    public void setSolver(String solver) {
+        this.solver = solver;
+    }
+
+    public Integer getMaxIterations() {
+        return maxIterations;
+    }
+
+    public void setMaxIterations(Integer maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public Double getTimeLimit() {
+        return timeLimit;
+    }
+
+    public void setTimeLimit(Double timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    public Integer getStagnationLimit() {
+        return stagnationLimit;
+    }
+
+    public void setStagnationLimit(Integer stagnationLimit) {
+        this.stagnationLimit = stagnationLimit;
+    }
+
+    public Double getAnnealingTemperature() {
+        return annealingTemperature;
+    }
+
+    public void setAnnealingTemperature(Double annealingTemperature) {
+        this.annealingTemperature = annealingTemperature;
+    }
+
+    public Double getAnnealingCooling() {
+        return annealingCooling;
+    }
+
+    public void setAnnealingCooling(Double annealingCooling) {
+        this.annealingCooling = annealingCooling;
+    }
+
+    public Integer getTabuTenure() {
+        return tabuTenure;
+    }
+
+    public void setTabuTenure(Integer tabuTenure) {
+        this.tabuTenure = tabuTenure;
+    }
+
+    public Integer getTabuNeighbourhood() {
+        return tabuNeighbourhood;
+    }
+
+    public void setTabuNeighbourhood(Integer tabuNeighbourhood) {
+        this.tabuNeighbourhood = tabuNeighbourhood;
+    }
+
+    public List<ProjectDefinition> getProjects() {
+        return projects;
+    }
+
+    public void setProjects(List<ProjectDefinition> projects) {
+        this.projects = projects;
+    }
+
+    public String getEventLogPath() {
+        return eventLogPath;
+    }
+
+    public void setEventLogPath(String eventLogPath) {
+        this.eventLogPath = eventLogPath;
+    }
+
+    public Integer getEventLogTopN() {
+        return eventLogTopN;
+    }
+
+    public void setEventLogTopN(Integer eventLogTopN) {
+        this.eventLogTopN = eventLogTopN;
+    }
+
+    public String getRosterStorage() {
+        return rosterStorage;
+    }
+
+    public void setRosterStorage(String rosterStorage) {
+        this.rosterStorage = rosterStorage;
+    }
+
+    public Long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public void setRandomSeed(Long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+
+    public Integer getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public void setResultCacheSize(Integer resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    public String getResultCachePath() {
+        return resultCachePath;
+    }
+
+    public void setResultCachePath(String resultCachePath) {
+        this.resultCachePath = resultCachePath;
+    }
+
+    public Integer getResultCacheDiskSize() {
+        return resultCacheDiskSize;
+    }
+
+    public void setResultCacheDiskSize(Integer resultCacheDiskSize) {
+        this.resultCacheDiskSize = resultCacheDiskSize;
+    }
+
+    public Map<String, String> getUnits() {
+        return units;
+    }
+
+    public void setUnits(Map<String, String> units) {
+        this.units = units;
+    }
+
+    public Long getUnitMemoryBudget() {
+        return unitMemoryBudget;
+    }
+
+    public void setUnitMemoryBudget(Long unitMemoryBudget) {
+        this.unitMemoryBudget = unitMemoryBudget;
+    }
+
+    public String getUnitSpillPath() {
+        return unitSpillPath;
+    }
+
+    public void setUnitSpillPath(String unitSpillPath) {
+        this.unitSpillPath = unitSpillPath;
+    }
+
+    public Double getSurrogateFactor() {
+        return surrogateFactor;
+    }
+
+    public void setSurrogateFactor(Double surrogateFactor) {
+        this.surrogateFactor = surrogateFactor;
+    }
+
+    public Long getBudget() {
+        return budget;
+    }
+
+    public void setBudget(Long budget) {
+        this.budget = budget;
+    }
+
+    public String getBudgetMethod() {
+        return budgetMethod;
+    }
+
+    public void setBudgetMethod(String budgetMethod) {
+        this.budgetMethod = budgetMethod;
+    }
 }
@@ -18,33 +18,133 @@ package org.genetics.team.selection.configuration;
 
 import org.genetics.team.selection.util.CommonConstants;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
 
 import javax.swing.*;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * This class reads the configuration and
  */
 public class ConfigurationManager {
 
-    private static Configuration configuration;
+    private static volatile Configuration configuration;
 
     private static void readConfiguration(String configPath) throws IOException {
-        Yaml yaml = new Yaml();
-        try (InputStream in = Files.newInputStream(Paths.get(configPath))) {
-            configuration = yaml.loadAs(in, Configuration.class);
+        try {
+            configuration = loadConfiguration(configPath);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(new JFrame(),
                     "Error occurred when reading the config file.", "Dialog",
                     JOptionPane.ERROR_MESSAGE);
             System.exit(-1);
         }
+    }
+
+    /**
+     * Reads and validates the configuration in the given path without caching it.
+     *
+     * @param configPath path to config file.
+     * @return {@link Configuration}
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the configuration is not valid
+     */
+    public static Configuration loadConfiguration(String configPath) throws IOException {
+        Yaml yaml = new Yaml();
+        Configuration loaded;
+        try (InputStream in = Files.newInputStream(Paths.get(configPath))) {
+            loaded = yaml.loadAs(in, Configuration.class);
+        } catch (YAMLException e) {
+            throw new IllegalArgumentException("Invalid configuration: " + e.getMessage(), e);
+        }
+        if (loaded == null) {
+            throw new IllegalArgumentException("Invalid configuration: " + configPath + " is empty");
+        }
+        if (loaded.getPopulationData() == null) {
+            loaded.setPopulationData(CommonConstants.DEFAULT_INPUT_PATH);
+        }
+        validate(loaded);
+        return loaded;
+    }
 
-        if(configuration.getPopulationData() == null) {
-            configuration.setPopulationData(CommonConstants.DEFAULT_INPUT_PATH);
+    /**
+     * Checks the parameters every run depends on.
+     *
+     * @param configuration {@link Configuration}
+     * @throws IllegalArgumentException if a parameter is missing or out of range
+     */
+    private static void validate(Configuration configuration) {
+        List<String> problems = new ArrayList<>();
+        if (configuration.getTypes() == null || configuration.getTypes().length == 0) {
+            problems.add("types are not defined");
+        }
+        if (configuration.getAttributeCount() == null || configuration.getAttributeCount() < 1) {
+            problems.add("attributeCount must be positive");
+        } else if (configuration.getHeaderMapping() == null) {
+            problems.add("headerMapping is not defined");
+        } else {
+            List<String> headers = new ArrayList<>(Arrays.asList(CommonConstants.HEADER_ID,
+                    CommonConstants.HEADER_NAME, CommonConstants.HEADER_TYPE));
+            for (int i = 1; i < configuration.getAttributeCount() + 1; ++i) {
+                headers.add(CommonConstants.ATTRIBUTE_PREFIX + i);
+            }
+            for (String header : headers) {
+                if (configuration.getHeaderMapping().get(header) == null) {
+                    problems.add("headerMapping has no " + header);
+                }
+            }
+        }
+        if (configuration.getMutationRate() == null || configuration.getMutationRate() < 0
+                || configuration.getMutationRate() > 1) {
+            problems.add("mutationRate must be between 0 and 1");
+        }
+        if (configuration.getCrossoverRate() == null || configuration.getCrossoverRate() < 0
+                || configuration.getCrossoverRate() > 1) {
+            problems.add("crossoverRate must be between 0 and 1");
+        }
+        if (configuration.getGenerations() == null || configuration.getGenerations() < 0) {
+            problems.add("generations must not be negative");
+        }
+        if (configuration.getInitialPopulationSize() == null || configuration.getInitialPopulationSize() < 1) {
+            problems.add("initialPopulationSize must be positive");
+        }
+        if (configuration.getRosterStorage() != null && !configuration.getRosterStorage().equalsIgnoreCase("HEAP")
+                && !configuration.getRosterStorage().equalsIgnoreCase(CommonConstants.ROSTER_STORAGE_OFF_HEAP)) {
+            problems.add("rosterStorage must be HEAP or " + CommonConstants.ROSTER_STORAGE_OFF_HEAP);
+        }
+        if (configuration.getResultCacheSize() != null && configuration.getResultCacheSize() < 0) {
+            problems.add("resultCacheSize must not be negative");
+        }
+        if (configuration.getResultCacheDiskSize() != null && configuration.getResultCacheDiskSize() < 1) {
+            problems.add("resultCacheDiskSize must be positive");
+        }
+        if (configuration.getSurrogateFactor() != null && configuration.getSurrogateFactor() < 1) {
+            problems.add("surrogateFactor must be at least 1");
+        }
+        if (configuration.getUnitMemoryBudget() != null && configuration.getUnitMemoryBudget() < 1) {
+            problems.add("unitMemoryBudget must be positive");
+        }
+        if (configuration.getBudget() != null) {
+            if (configuration.getBudget() < 0) {
+                problems.add("budget must not be negative");
+            }
+            if (configuration.getHeaderMapping() == null
+                    || configuration.getHeaderMapping().get(CommonConstants.HEADER_COST) == null) {
+                problems.add("budget requires a " + CommonConstants.HEADER_COST + " column in headerMapping");
+            }
+        }
+        if (configuration.getBudgetMethod() != null && !Arrays.asList("AUTO", "DP", "LAGRANGIAN")
+                .contains(configuration.getBudgetMethod().trim().toUpperCase())) {
+            problems.add("budgetMethod must be AUTO, DP or LAGRANGIAN");
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Invalid configuration: " + String.join(", ", problems));
         }
     }
 
@@ -62,4 +162,13 @@ public class ConfigurationManager {
 
         return configuration;
     }
+
+    /**
+     * Replaces the configuration returned by {@link #getConfiguration(String)}, e.g. after the file was reloaded.
+     *
+     * @param reloaded {@link Configuration}
+     */
+    static void setConfiguration(Configuration reloaded) {
+        configuration = reloaded;
+    }
 }
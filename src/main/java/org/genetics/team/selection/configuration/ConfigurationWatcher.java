@@ -0,0 +1,260 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.configuration;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.roster.Roster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.genetics.team.selection.roster.RosterSnapshot;
+import org.genetics.team.selection.util.CommonConstants;
+import org.genetics.team.selection.util.InputProcessor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class watches the configuration file and the input file and reloads them when they change. A reloaded
+ * configuration and roster are validated first and then swapped in together as a new {@link EngineState}, so a broken
+ * edit keeps the previous state. When only some employees of the input changed, they are applied to the existing
+ * {@link Roster} as one update, so populations moving to the new snapshot refresh the changed employees only.
+ */
+public class ConfigurationWatcher implements Closeable {
+    private static Logger log = Logger.getLogger(ConfigurationWatcher.class);
+    // Editors save a file with several events; wait for them to settle before reloading.
+    private static final long SETTLE_MILLIS = 200;
+    private final Path configPath;
+    private final AtomicReference<EngineState> state = new AtomicReference<>();
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private Roster roster;
+    private Path inputPath;
+    private FileTime inputModified;
+    private WatchService watchService;
+
+    /**
+     * Constructs a {@link ConfigurationWatcher} of the given configuration file.
+     *
+     * @param configPath path to config file.
+     */
+    public ConfigurationWatcher(String configPath) {
+        this.configPath = Paths.get(configPath).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Loads the configuration and the input for the first time.
+     *
+     * @return {@link EngineState}
+     * @throws IOException              if a file cannot be read
+     * @throws IllegalArgumentException if the configuration or the input is not valid
+     */
+    public synchronized EngineState load() throws IOException {
+        EngineState current = this.state.get();
+        Configuration configuration = ConfigurationManager.loadConfiguration(this.configPath.toString());
+        RosterAccessor snapshot = loadRoster(current, configuration);
+        EngineState next = new EngineState(current == null ? 0 : current.getVersion() + 1, configuration, snapshot);
+        this.state.set(next);
+        ConfigurationManager.setConfiguration(configuration);
+        if (this.watchService != null) {
+            watch(this.inputPath.getParent());
+        }
+        return next;
+    }
+
+    /**
+     * Reloads the configuration and the input. A state which fails to load is logged and the previous state is kept.
+     *
+     * @return whether a new state was swapped in
+     */
+    public synchronized boolean reload() {
+        try {
+            EngineState next = load();
+            log.info("Reloaded configuration and roster (state " + next.getVersion() + ", " + next.getRoster().size()
+                    + " employees)");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to reload " + this.configPath + ". Keeping the previous configuration. "
+                    + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the latest loaded state.
+     *
+     * @return {@link EngineState} or null if nothing was loaded yet
+     */
+    public EngineState getState() {
+        return this.state.get();
+    }
+
+    /**
+     * Starts watching the files on a background thread. {@link #load()} must have been called before.
+     *
+     * @throws IOException if the directories cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (this.state.get() == null) {
+            throw new IllegalStateException("Nothing is loaded to watch");
+        }
+        this.watchService = FileSystems.getDefault().newWatchService();
+        watch(this.configPath.getParent());
+        watch(this.inputPath.getParent());
+        Thread thread = new Thread(this::watchLoop, "configuration-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching " + this.configPath + " and " + this.inputPath + " for changes");
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.watchService != null) {
+            this.watchService.close();
+            this.watchService = null;
+        }
+    }
+
+    private void watchLoop() {
+        WatchService service = this.watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                if (isRelevant(key)) {
+                    Thread.sleep(SETTLE_MILLIS);
+                    for (WatchKey pending = service.poll(); pending != null; pending = service.poll()) {
+                        isRelevant(pending);
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Stopped watching " + this.configPath);
+        }
+    }
+
+    /**
+     * Checks whether the events of a key touch the watched files, and resets the key.
+     */
+    private boolean isRelevant(WatchKey key) {
+        boolean relevant = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            relevant |= file.equals(this.configPath) || file.equals(this.inputPath);
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private void watch(Path directory) throws IOException {
+        if (this.watchedDirectories.add(directory)) {
+            directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+    }
+
+    /**
+     * Reads the roster of a configuration. The input is read again only if it changed, and its changes are applied
+     * to the current roster when the input layout of both configurations is the same. An off-heap roster is read
+     * again as a whole.
+     */
+    private RosterAccessor loadRoster(EngineState current, Configuration configuration) throws IOException {
+        Path path = Paths.get(configuration.getPopulationData()).toAbsolutePath().normalize();
+        FileTime modified = Files.getLastModifiedTime(path);
+        Configuration previous = current == null ? null : current.getConfiguration();
+        boolean sameLayout = previous != null
+                && Objects.equals(previous.getHeaderMapping(), configuration.getHeaderMapping())
+                && Objects.equals(previous.getAttributeCount(), configuration.getAttributeCount())
+                && isOffHeap(previous) == isOffHeap(configuration);
+        if (sameLayout && path.equals(this.inputPath) && modified.equals(this.inputModified)) {
+            return current.getRoster();
+        }
+        if (isOffHeap(configuration)) {
+            RosterAccessor offHeapRoster = InputProcessor.getInputProcessor(configuration).readOffHeapRoster(
+                    path.toString());
+            this.roster = null;
+            this.inputPath = path;
+            this.inputModified = modified;
+            return offHeapRoster;
+        }
+        Map<String, List<Employee>> population = InputProcessor.getInputProcessor(configuration).readPopulation(
+                path.toString());
+        if (sameLayout && this.roster != null) {
+            applyChanges(population);
+        } else {
+            this.roster = new Roster(population);
+        }
+        this.inputPath = path;
+        this.inputModified = modified;
+        return this.roster.getSnapshot();
+    }
+
+    private static boolean isOffHeap(Configuration configuration) {
+        return CommonConstants.ROSTER_STORAGE_OFF_HEAP.equalsIgnoreCase(configuration.getRosterStorage());
+    }
+
+    /**
+     * Applies the employees which were added, changed or removed in the input to the current roster.
+     */
+    private void applyChanges(Map<String, List<Employee>> population) {
+        RosterSnapshot current = this.roster.getSnapshot();
+        Map<Integer, Employee> existing = new HashMap<>();
+        for (int ordinal = 0; ordinal < current.getCapacity(); ++ordinal) {
+            Employee employee = current.getEmployee(ordinal);
+            if (employee != null) {
+                existing.put(employee.getId(), employee);
+            }
+        }
+        List<Employee> upserts = new ArrayList<>();
+        for (List<Employee> employees : population.values()) {
+            for (Employee employee : employees) {
+                Employee old = existing.remove(employee.getId());
+                if (old == null || !old.getEmployeeType().equals(employee.getEmployeeType())
+                        || !old.getName().equals(employee.getName())
+                        || !old.getAttributeValues().equals(employee.getAttributeValues())) {
+                    upserts.add(employee);
+                }
+            }
+        }
+        if (!upserts.isEmpty() || !existing.isEmpty()) {
+            this.roster.apply(upserts, existing.keySet());
+        }
+    }
+}
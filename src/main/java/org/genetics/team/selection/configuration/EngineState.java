@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.configuration;
+
+import org.genetics.team.selection.roster.RosterAccessor;
+
+/**
+ * This class holds a configuration together with the roster read with it. A run takes the state once when
+ * it starts, so a reload never changes the configuration or the employees of a running selection.
+ */
+public final class EngineState {
+    private final long version;
+    private final Configuration configuration;
+    private final RosterAccessor roster;
+
+    EngineState(long version, Configuration configuration, RosterAccessor roster) {
+        this.version = version;
+        this.configuration = configuration;
+        this.roster = roster;
+    }
+
+    /**
+     * Returns the number of reloads before this state was loaded.
+     *
+     * @return version of the state
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public RosterAccessor getRoster() {
+        return roster;
+    }
+}
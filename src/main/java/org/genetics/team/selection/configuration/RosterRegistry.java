@@ -0,0 +1,347 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.configuration;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.genetics.team.selection.roster.RosterFile;
+import org.genetics.team.selection.util.CommonConstants;
+import org.genetics.team.selection.util.InputProcessor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class serves the rosters of several business units from one process. Every unit has a configuration file of
+ * its own, with its own input and header mapping, which is read together with the roster on first use. The registry
+ * estimates the memory held by each loaded roster, and when a load exceeds the memory budget it evicts the least
+ * recently used rosters. An evicted roster is written to the spill directory in its binary form, which is read back
+ * on the next use of the unit much faster than the CSV input, unless the input or the configuration changed
+ * meanwhile.
+ * <p>
+ * Runs take a roster with {@link #acquire(String)} and hand it back with {@link #release(EngineState)}. A roster in
+ * use is not evicted, and a roster replaced while in use, e.g. because its input changed, is still counted against
+ * the memory budget until the last run releases it.
+ */
+public class RosterRegistry {
+    private static Logger log = Logger.getLogger(RosterRegistry.class);
+    private final long memoryBudget;
+    private final Path spillDirectory;
+    // Access ordered, so iteration starts at the least recently used unit
+    private final Map<String, Unit> units = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<RosterAccessor, Pin> pins = new IdentityHashMap<>();
+    private long memoryUsage;
+
+    /**
+     * Business unit with its configuration and roster.
+     */
+    private static final class Unit {
+        private final String name;
+        private final Path configPath;
+        private FileTime configModified;
+        private Configuration configuration;
+        private FileTime inputModified;
+        private RosterAccessor roster;
+        private long footprint;
+        private Path spill;
+        private long version;
+
+        private Unit(String name, Path configPath) {
+            this.name = name;
+            this.configPath = configPath;
+        }
+    }
+
+    /**
+     * Roster in use by runs.
+     */
+    private static final class Pin {
+        private final long footprint;
+        private int count;
+        // Whether the roster was unloaded from its unit while in use, so its footprint is freed on release
+        private boolean retired;
+
+        private Pin(long footprint) {
+            this.footprint = footprint;
+        }
+    }
+
+    /**
+     * Constructs a {@link RosterRegistry} with the units, memory budget and spill directory of the given
+     * configuration.
+     *
+     * @param configuration {@link Configuration}
+     */
+    public RosterRegistry(Configuration configuration) {
+        this(configuration.getUnitMemoryBudget() == null ? CommonConstants.DEFAULT_UNIT_MEMORY_BUDGET :
+                        configuration.getUnitMemoryBudget(), configuration.getUnitSpillPath());
+        if (configuration.getUnits() != null) {
+            configuration.getUnits().forEach(this::register);
+        }
+    }
+
+    /**
+     * Constructs an empty {@link RosterRegistry}.
+     *
+     * @param memoryBudgetMegabytes memory the loaded rosters may hold together, in megabytes
+     * @param spillDirectory        directory evicted rosters are written to, or null to read them from their input
+     *                              again
+     */
+    public RosterRegistry(long memoryBudgetMegabytes, String spillDirectory) {
+        this.memoryBudget = memoryBudgetMegabytes << 20;
+        this.spillDirectory = spillDirectory == null ? null : Paths.get(spillDirectory);
+    }
+
+    /**
+     * Registers a unit. Nothing is read until the unit is used.
+     *
+     * @param unit       name of the unit
+     * @param configPath path to the config file of the unit
+     * @throws IllegalArgumentException if the unit is already registered
+     */
+    public synchronized void register(String unit, String configPath) {
+        if (this.units.containsKey(unit)) {
+            throw new IllegalArgumentException("Unit " + unit + " is already registered");
+        }
+        this.units.put(unit, new Unit(unit, Paths.get(configPath).toAbsolutePath().normalize()));
+    }
+
+    /**
+     * Removes a unit and deletes its spilled roster.
+     *
+     * @param unit name of the unit
+     */
+    public synchronized void unregister(String unit) {
+        Unit removed = this.units.remove(unit);
+        if (removed != null) {
+            unload(removed);
+            deleteSpill(removed);
+        }
+    }
+
+    /**
+     * Returns the configuration and roster of a unit, reading them if they are not loaded or changed on disk. Rosters
+     * of other units are evicted as needed to stay within the memory budget.
+     *
+     * @param unit name of the unit
+     * @return {@link EngineState}
+     * @throws IOException              if a file cannot be read
+     * @throws IllegalArgumentException if the unit is unknown or its configuration or input is not valid
+     */
+    public synchronized EngineState get(String unit) throws IOException {
+        Unit entry = this.units.get(unit);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown unit: " + unit);
+        }
+        FileTime configModified = Files.getLastModifiedTime(entry.configPath);
+        if (entry.configuration == null || !configModified.equals(entry.configModified)) {
+            Configuration configuration = ConfigurationManager.loadConfiguration(entry.configPath.toString());
+            unload(entry);
+            deleteSpill(entry);
+            entry.configuration = configuration;
+            entry.configModified = configModified;
+        }
+        Path inputPath = Paths.get(entry.configuration.getPopulationData());
+        FileTime inputModified = Files.getLastModifiedTime(inputPath);
+        if (!inputModified.equals(entry.inputModified)) {
+            unload(entry);
+            deleteSpill(entry);
+        }
+        if (entry.roster == null) {
+            long start = System.nanoTime();
+            boolean offHeap = CommonConstants.ROSTER_STORAGE_OFF_HEAP.equalsIgnoreCase(
+                    entry.configuration.getRosterStorage());
+            RosterAccessor roster = null;
+            if (entry.spill != null) {
+                try {
+                    roster = RosterFile.read(entry.spill, offHeap);
+                } catch (IOException e) {
+                    log.warn("Unable to read the spilled roster of " + unit + ": " + e.getMessage()
+                            + ". Reading the input again.");
+                    deleteSpill(entry);
+                }
+            }
+            String source = entry.spill != null ? entry.spill.toString() : inputPath.toString();
+            if (roster == null) {
+                roster = InputProcessor.createInputProcessor(entry.configuration).readRosterAccessor(
+                        inputPath.toString());
+            }
+            entry.roster = roster;
+            entry.inputModified = inputModified;
+            entry.footprint = roster.getMemoryFootprint();
+            ++entry.version;
+            this.memoryUsage += entry.footprint;
+            log.info("Loaded " + roster.size() + " employees of " + unit + " from " + source + " in "
+                    + (System.nanoTime() - start) / 1000000 + " ms, holding " + (entry.footprint >> 10) + " KB");
+            evict(entry);
+        }
+        return new EngineState(entry.version, entry.configuration, entry.roster);
+    }
+
+    /**
+     * Returns the configuration and roster of a unit like {@link #get(String)} and marks the roster as in use until it
+     * is released. Every call must be followed by a call of {@link #release(EngineState)} once the run finishes.
+     *
+     * @param unit name of the unit
+     * @return {@link EngineState}
+     * @throws IOException              if a file cannot be read
+     * @throws IllegalArgumentException if the unit is unknown or its configuration or input is not valid
+     */
+    public synchronized EngineState acquire(String unit) throws IOException {
+        EngineState state = get(unit);
+        Pin pin = this.pins.get(state.getRoster());
+        if (pin == null) {
+            pin = new Pin(this.units.get(unit).footprint);
+            this.pins.put(state.getRoster(), pin);
+        }
+        ++pin.count;
+        return state;
+    }
+
+    /**
+     * Marks the roster of a state taken with {@link #acquire(String)} as no longer used by a run. A roster which was
+     * replaced meanwhile stops counting against the memory budget once its last run releases it.
+     *
+     * @param state {@link EngineState}
+     */
+    public synchronized void release(EngineState state) {
+        Pin pin = this.pins.get(state.getRoster());
+        if (pin == null || --pin.count > 0) {
+            return;
+        }
+        this.pins.remove(state.getRoster());
+        if (pin.retired) {
+            this.memoryUsage -= pin.footprint;
+        }
+    }
+
+    /**
+     * Evicts the least recently used rosters until the loaded rosters fit into the memory budget. Rosters in use and
+     * the roster which was just loaded are kept, even if the budget is exceeded.
+     */
+    private void evict(Unit loaded) {
+        List<Unit> candidates = new ArrayList<>();
+        for (Unit entry : this.units.values()) {
+            if (entry != loaded && entry.roster != null && !this.pins.containsKey(entry.roster)) {
+                candidates.add(entry);
+            }
+        }
+        for (Unit entry : candidates) {
+            if (this.memoryUsage <= this.memoryBudget) {
+                return;
+            }
+            spill(entry);
+            unload(entry);
+        }
+        if (this.memoryUsage > this.memoryBudget) {
+            log.warn((this.pins.isEmpty() ? "Roster of " + loaded.name + " alone exceeds" : "Rosters in use exceed")
+                    + " the memory budget of " + (this.memoryBudget >> 20) + " MB");
+        }
+    }
+
+    /**
+     * Writes the roster of a unit to the spill directory, unless a spilled copy of the same input exists.
+     */
+    private void spill(Unit entry) {
+        if (this.spillDirectory == null || entry.spill != null) {
+            return;
+        }
+        Path path = this.spillDirectory.resolve(entry.name.replaceAll("[^A-Za-z0-9._-]", "_") + "-"
+                + Integer.toHexString(entry.name.hashCode()) + ".roster");
+        try {
+            long start = System.nanoTime();
+            Files.createDirectories(this.spillDirectory);
+            long size = RosterFile.write(entry.roster, InputProcessor.getRosterColumns(entry.configuration), path);
+            entry.spill = path;
+            log.info("Spilled the roster of " + entry.name + " to " + path + " (" + (size >> 10) + " KB) in "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+        } catch (IOException e) {
+            log.warn("Unable to spill the roster of " + entry.name + ": " + e.getMessage()
+                    + ". It will be read from its input again.");
+        }
+    }
+
+    private void unload(Unit entry) {
+        if (entry.roster != null) {
+            Pin pin = this.pins.get(entry.roster);
+            if (pin != null) {
+                pin.retired = true;
+            } else {
+                this.memoryUsage -= entry.footprint;
+            }
+            entry.roster = null;
+            entry.footprint = 0;
+        }
+    }
+
+    private void deleteSpill(Unit entry) {
+        if (entry.spill == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(entry.spill);
+        } catch (IOException e) {
+            log.warn("Unable to delete the spilled roster " + entry.spill + ": " + e.getMessage());
+        }
+        entry.spill = null;
+    }
+
+    /**
+     * Returns the estimated memory held by the loaded rosters and by replaced rosters which are still in use.
+     *
+     * @return memory usage in bytes
+     */
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Returns the names of the registered units.
+     *
+     * @return unit names
+     */
+    public synchronized Set<String> getUnits() {
+        return new LinkedHashSet<>(this.units.keySet());
+    }
+
+    /**
+     * Checks whether the roster of a unit is loaded, without counting it as a use.
+     *
+     * @param unit name of the unit
+     * @return whether the roster is in memory
+     */
+    public synchronized boolean isLoaded(String unit) {
+        for (Unit entry : this.units.values()) {
+            if (Objects.equals(entry.name, unit)) {
+                return entry.roster != null;
+            }
+        }
+        return false;
+    }
+}
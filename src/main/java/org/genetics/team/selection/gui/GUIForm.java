@@ -21,10 +21,17 @@ import com.intellij.uiDesigner.core.GridLayoutManager;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PropertyConfigurator;
-import org.genetics.team.selection.algorithm.Algorithm;
+import org.genetics.team.selection.algorithm.MultiTeamAllocator;
 import org.genetics.team.selection.algorithm.Population;
+import org.genetics.team.selection.algorithm.ResultCache;
+import org.genetics.team.selection.algorithm.Solver;
+import org.genetics.team.selection.algorithm.SolverFactory;
+import org.genetics.team.selection.beans.ProjectDefinition;
 import org.genetics.team.selection.configuration.Configuration;
 import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.configuration.ConfigurationWatcher;
+import org.genetics.team.selection.configuration.EngineState;
+import org.genetics.team.selection.configuration.RosterRegistry;
 import org.genetics.team.selection.util.CommonConstants;
 import org.genetics.team.selection.util.InputProcessor;
 import org.genetics.team.selection.util.LogAppender;
@@ -39,7 +46,9 @@ import java.awt.event.ActionEvent;
 import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -52,7 +61,12 @@ public class GUIForm {
     private InputProcessor inputProcessor;
     private Map<String, JTextField> teamConfigComponentMap;
     private Map<String, JTextField> attributeConfigComponentMap;
+    private JTextField budgetField;
     private Population population;
+    private ResultCache resultCache;
+    private ConfigurationWatcher configurationWatcher;
+    private RosterRegistry rosterRegistry;
+    private String unit;
 
     private JFrame frame;
     private JPanel dialogPane;
@@ -64,12 +78,20 @@ public class GUIForm {
     private JScrollPane textAreaScrollPane;
     private JTextArea console;
     private JPanel buttonBar;
+    private JComboBox<String> unitSelector;
     private JButton runButton;
 
     public GUIForm() {
         this.appConfiguration = readAppConfiguration();
+        Map<String, String> units = this.appConfiguration.getUnits();
+        if (units != null && !units.isEmpty()) {
+            this.rosterRegistry = new RosterRegistry(this.appConfiguration);
+            this.unit = units.keySet().iterator().next();
+            this.appConfiguration = readUnitConfiguration(this.unit);
+        }
         this.inputProcessor = generateInputProcessor();
         this.population = new Population(this.appConfiguration);
+        this.resultCache = new ResultCache(this.appConfiguration);
         initComponents();
     }
 
@@ -88,6 +110,22 @@ public class GUIForm {
         return null;
     }
 
+    /**
+     * Reads the configuration and roster of a business unit through the {@link RosterRegistry}.
+     *
+     * @param unit name of the unit
+     * @return {@link Configuration} of the unit
+     */
+    private Configuration readUnitConfiguration(String unit) {
+        try {
+            return this.rosterRegistry.get(unit).getConfiguration();
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Error occurred while reading the configuration of unit " + unit, e);
+            System.exit(-1);
+        }
+        return null;
+    }
+
     /**
      * This method generates the {@link InputProcessor}
      *
@@ -98,7 +136,9 @@ public class GUIForm {
             throw new IllegalStateException("Application Configuration is empty. Unable to process");
         }
 
-        return InputProcessor.getInputProcessor(this.appConfiguration);
+        // The shared instance is bound to the application configuration, every unit has a header of its own
+        return this.rosterRegistry == null ? InputProcessor.getInputProcessor(this.appConfiguration) :
+                InputProcessor.createInputProcessor(this.appConfiguration);
     }
 
     /**
@@ -108,6 +148,30 @@ public class GUIForm {
      */
     private void runButtonActionPerformed(ActionEvent e) {
         this.console.setText("");
+        EngineState unitState = null;
+        if (this.rosterRegistry != null) {
+            unitState = acquireUnitState();
+            if (unitState == null) {
+                return;
+            }
+        }
+        try {
+            runSelection();
+        } finally {
+            if (unitState != null) {
+                this.rosterRegistry.release(unitState);
+            }
+        }
+    }
+
+    /**
+     * Runs the selection with the team definition, attribute weights and budget entered in the GUI.
+     */
+    private void runSelection() {
+        if (!refreshState()) {
+            showPanelsChanged();
+            return;
+        }
         try {
             if (teamConfigComponentMap != null) {
                 Map<String, Integer> teamDefinition = new HashMap<>();
@@ -128,16 +192,172 @@ public class GUIForm {
                 }
                 this.population.setAttributeWeights(attributeWeights);
             }
+
+            if (budgetField != null) {
+                String budget = budgetField.getText().trim();
+                this.population.setBudget(budget.isEmpty() ? null : Long.parseLong(budget));
+            }
         } catch (NumberFormatException e1) {
             JOptionPane.showMessageDialog(new JFrame(), e1.getClass() + e1.getMessage() +
                             ", There is an error in values you provided, please correct them and try again. ", "Dialog",
                     JOptionPane.ERROR_MESSAGE);
             return;
         }
-        this.population.generateInitialPopulation();
+        List<ProjectDefinition> projects = this.appConfiguration.getProjects();
+        if (projects != null && !projects.isEmpty()) {
+            MultiTeamAllocator allocator = new MultiTeamAllocator(this.population);
+            try {
+                allocator.initialize();
+            } catch (IllegalArgumentException e1) {
+                showRunError(e1);
+                return;
+            }
+            allocator.allocate();
+            return;
+        }
+        if (this.resultCache.get(this.population) != null) {
+            return;
+        }
+        Solver solver;
+        try {
+            solver = SolverFactory.createSolver(this.population);
+            solver.initialize();
+        } catch (IllegalArgumentException e1) {
+            showRunError(e1);
+            return;
+        }
+        this.resultCache.put(this.population, solver.solve());
+    }
+
+    /**
+     * Reports a run which was not started because the reloaded configuration changed the fields of the panels.
+     */
+    private void showPanelsChanged() {
+        JOptionPane.showMessageDialog(new JFrame(), "The reloaded configuration changed the types or attributes. "
+                + "Enter the team definition and the attribute weights again and run.", "Dialog",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Reports a run which cannot be started.
+     *
+     * @param e cause
+     */
+    private void showRunError(IllegalArgumentException e) {
+        log.error("Unable to run the selection.", e);
+        JOptionPane.showMessageDialog(new JFrame(), e.getMessage(), "Dialog", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Takes the configuration and roster of the selected unit for a run, reading them again if they changed on disk.
+     * The registry keeps the roster until the run releases it.
+     *
+     * @return {@link EngineState} to release after the run, or null if the unit cannot be read
+     */
+    private EngineState acquireUnitState() {
+        EngineState state;
+        try {
+            state = this.rosterRegistry.acquire(this.unit);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Unable to read the unit " + this.unit, e);
+            JOptionPane.showMessageDialog(new JFrame(), "Unable to read the unit " + this.unit + ": " + e.getMessage(),
+                    "Dialog", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        if (state.getConfiguration() != this.appConfiguration && !moveToConfiguration(state.getConfiguration())) {
+            this.rosterRegistry.release(state);
+            showPanelsChanged();
+            return null;
+        }
+        this.population.setRoster(state.getRoster());
+        return state;
+    }
+
+    /**
+     * This method listens to the selection of a business unit and shows the team definition and attributes of the
+     * unit.
+     *
+     * @param e selection {@link ActionEvent}
+     */
+    private void unitSelectorActionPerformed(ActionEvent e) {
+        String selected = (String) this.unitSelector.getSelectedItem();
+        if (selected == null || selected.equals(this.unit)) {
+            return;
+        }
+        try {
+            this.appConfiguration = this.rosterRegistry.get(selected).getConfiguration();
+        } catch (IOException | IllegalArgumentException e1) {
+            log.error("Unable to read the unit " + selected, e1);
+            JOptionPane.showMessageDialog(new JFrame(), "Unable to read the unit " + selected + ": " + e1.getMessage(),
+                    "Dialog", JOptionPane.ERROR_MESSAGE);
+            this.unitSelector.setSelectedItem(this.unit);
+            return;
+        }
+        this.unit = selected;
+        this.inputProcessor = generateInputProcessor();
+        this.population = new Population(this.appConfiguration);
+        this.resultCache = new ResultCache(this.appConfiguration);
+        rebuildPanels();
+    }
 
-        Algorithm algorithm = new Algorithm(this.population);
-        algorithm.runGA();
+    /**
+     * Replaces the team definition and attribute panels with the ones of the current configuration.
+     */
+    private void rebuildPanels() {
+        contentPanel.remove(teamConfigPanel);
+        createUIComponents();
+        teamConfigPanel.setBorder(new TitledBorder("Define Team Combination"));
+        contentPanel.add(teamConfigPanel,
+                new GridConstraints(0, 0, 1, 1, GridConstraints.ANCHOR_CENTER, GridConstraints.FILL_BOTH,
+                        GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW,
+                        GridConstraints.SIZEPOLICY_CAN_SHRINK | GridConstraints.SIZEPOLICY_CAN_GROW, null,
+                        null, null));
+        attributeConfigPanel.setBorder(new TitledBorder("Attribute Configuration"));
+        attributeConfigPanel.setLayout(new GridLayout());
+        attributeConfigPane.setViewportView(attributeConfigPanel);
+        frame.pack();
+    }
+
+    /**
+     * Moves the population to the latest configuration and roster loaded by the watcher. It is called before a run
+     * starts, so a reload never affects a running selection.
+     *
+     * @return false if the panels were rebuilt for other types or attributes, so their values must be entered again
+     */
+    private boolean refreshState() {
+        EngineState state = this.configurationWatcher == null ? null : this.configurationWatcher.getState();
+        if (state == null) {
+            return true;
+        }
+        boolean panelsKept = state.getConfiguration() == this.appConfiguration
+                || moveToConfiguration(state.getConfiguration());
+        this.population.setRoster(state.getRoster());
+        return panelsKept;
+    }
+
+    /**
+     * Moves the population to a reloaded configuration. When the configuration has other types, attributes or cost
+     * column than the panels show, the panels are rebuilt, as the values entered for the old ones no longer apply.
+     *
+     * @param configuration reloaded {@link Configuration}
+     * @return false if the panels were rebuilt
+     */
+    private boolean moveToConfiguration(Configuration configuration) {
+        this.appConfiguration = configuration;
+        this.inputProcessor = generateInputProcessor();
+        this.population = new Population(this.appConfiguration);
+        this.resultCache = new ResultCache(this.appConfiguration);
+        Map<String, String> headerMapping = configuration.getHeaderMapping();
+        boolean costMapped = headerMapping != null && headerMapping.get(CommonConstants.HEADER_COST) != null;
+        if (configuration.getTypes() != null && headerMapping != null
+                && new HashSet<>(Arrays.asList(configuration.getTypes())).equals(teamConfigComponentMap.keySet())
+                && new HashSet<>(getAttributeHeader()).equals(attributeConfigComponentMap.keySet())
+                && costMapped == (budgetField != null)) {
+            return true;
+        }
+        log.info("The reloaded configuration changed the types or attributes. Rebuilding the panels.");
+        rebuildPanels();
+        return false;
     }
 
     /**
@@ -161,8 +381,12 @@ public class GUIForm {
                     "Types is a required configuration. Unable tp proceed with type being empty.");
         }
         teamConfigComponentMap = new HashMap<>();
-        int cols = types.length > 5 ? 10 : types.length * 2;
-        int rows = types.length > 5 ? (int) Math.ceil((double) types.length / 5) : 1;
+        budgetField = null;
+        Map<String, String> headerMapping = this.appConfiguration.getHeaderMapping();
+        boolean costMapped = headerMapping != null && headerMapping.get(CommonConstants.HEADER_COST) != null;
+        int fields = costMapped ? types.length + 1 : types.length;
+        int cols = fields > 5 ? 10 : fields * 2;
+        int rows = fields > 5 ? (int) Math.ceil((double) fields / 5) : 1;
         teamConfigPanel = new JPanel(new GridLayout(rows, cols, 10, 5));
         NumberFormatter formatter = new NumberFormatter(NumberFormat.getInstance());
         formatter.setValueClass(Integer.class);
@@ -178,6 +402,15 @@ public class GUIForm {
             teamConfigPanel.add(label);
             teamConfigPanel.add(textField);
         }
+        if (costMapped) {
+            // Left empty, the configured budget applies
+            JLabel label = new JLabel("BUDGET:");
+            label.setBorder(new EmptyBorder(0, 10, 0, 5));
+            label.setHorizontalAlignment(SwingConstants.RIGHT);
+            budgetField = new JTextField();
+            teamConfigPanel.add(label);
+            teamConfigPanel.add(budgetField);
+        }
     }
 
     /**
@@ -192,15 +425,7 @@ public class GUIForm {
             throw new IllegalArgumentException(
                     "HeaderMapping is a required configuration. Unable tp proceed with header mapping being empty.");
         }
-        List<String> excluded = this.appConfiguration.getExcluded();
-        if (excluded == null) {
-            excluded = new ArrayList<>();
-        }
-        excluded.add(headerMapping.get(CommonConstants.HEADER_ID));
-        excluded.add(headerMapping.get(CommonConstants.HEADER_NAME));
-        excluded.add(headerMapping.get(CommonConstants.HEADER_TYPE));
-
-        List<String> header = this.inputProcessor.getHeader(excluded);
+        List<String> header = getAttributeHeader();
         int cols = header.size() > 5 ? 10 : header.size() * 2;
         int rows = header.size() > 5 ? (int) Math.ceil((double) header.size() / 5) : 1;
         attributeConfigPanel = new JPanel(new GridLayout(rows, cols, 10, 5));
@@ -216,6 +441,22 @@ public class GUIForm {
         }
     }
 
+    /**
+     * Returns the attributes which are weighted in the attribute panel: the input header without the id, name, type
+     * and excluded columns.
+     *
+     * @return attribute names
+     */
+    private List<String> getAttributeHeader() {
+        Map<String, String> headerMapping = this.appConfiguration.getHeaderMapping();
+        List<String> excluded = this.appConfiguration.getExcluded() == null ? new ArrayList<>() :
+                new ArrayList<>(this.appConfiguration.getExcluded());
+        excluded.add(headerMapping.get(CommonConstants.HEADER_ID));
+        excluded.add(headerMapping.get(CommonConstants.HEADER_NAME));
+        excluded.add(headerMapping.get(CommonConstants.HEADER_TYPE));
+        return this.inputProcessor.getHeader(excluded);
+    }
+
     private void initComponents() {
         createUIComponents();
 
@@ -318,6 +559,15 @@ public class GUIForm {
                     ((GridBagLayout) buttonBar.getLayout()).columnWidths = new int[] { 0, 80 };
                     ((GridBagLayout) buttonBar.getLayout()).columnWeights = new double[] { 1.0, 0.0 };
 
+                    //---- unitSelector ----
+                    if (this.rosterRegistry != null) {
+                        unitSelector = new JComboBox<>(this.rosterRegistry.getUnits().toArray(new String[0]));
+                        unitSelector.setSelectedItem(this.unit);
+                        unitSelector.addActionListener(this::unitSelectorActionPerformed);
+                        buttonBar.add(unitSelector, new GridBagConstraints(0, 0, 1, 1, 0.0, 0.0,
+                                GridBagConstraints.WEST, GridBagConstraints.NONE, new Insets(0, 0, 0, 0), 0, 0));
+                    }
+
                     //---- runButton ----
                     runButton.setText("Run");
                     runButton.addActionListener(this::runButtonActionPerformed);
@@ -346,14 +596,19 @@ public class GUIForm {
         String log4jConfPath = CommonConstants.DEFAULT_LOG_PROPERTY_PATH;
         PropertyConfigurator.configure(log4jConfPath);
         GUIForm mainForm = new GUIForm();
-        try {
-            mainForm.population.setPopulation(
-                    mainForm.inputProcessor.readPopulation(mainForm.appConfiguration.getPopulationData()));
-        } catch (IOException e) {
-            log.error("Error occurred when reading the input file.", e);
-            JOptionPane.showMessageDialog(new JFrame(),
-                    "Error occurred when reading the input file.", "Dialog",
-                    JOptionPane.ERROR_MESSAGE);
+        // The registry reads the configuration and input of a unit again when they change
+        if (mainForm.rosterRegistry == null) {
+            mainForm.configurationWatcher = new ConfigurationWatcher(CommonConstants.DEFAULT_CONFIG_PATH);
+            try {
+                mainForm.configurationWatcher.load();
+                mainForm.refreshState();
+                mainForm.configurationWatcher.start();
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Error occurred when reading the input file.", e);
+                JOptionPane.showMessageDialog(new JFrame(),
+                        "Error occurred when reading the input file.", "Dialog",
+                        JOptionPane.ERROR_MESSAGE);
+            }
         }
         mainForm.frame.setVisible(true);
     }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a whole generation of the genetic algorithm.
+ */
+@Name("org.genetics.team.selection.GAGeneration")
+@Label("GA Generation")
+@Description("A generation of the genetic algorithm")
+@Category({"Team Selection", "Genetic Algorithm"})
+@StackTrace(false)
+public class GenerationEvent extends Event {
+    @Label("Generation")
+    public int generation;
+
+    @Label("Population Size")
+    public int populationSize;
+
+    @Label("Evaluations")
+    @Description("Fitness evaluations done in the generation")
+    public long evaluations;
+
+    @Label("Best Fitness")
+    @Description("Fitness of the fittest team found so far")
+    public double bestFitness;
+
+    @Label("Mutation Rate")
+    public double mutationRate;
+
+    @Label("Crossover Rate")
+    public double crossoverRate;
+}
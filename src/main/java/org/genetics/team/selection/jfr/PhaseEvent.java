@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one phase of a generation of the genetic algorithm, e.g. selection or crossover.
+ */
+@Name("org.genetics.team.selection.GAPhase")
+@Label("GA Phase")
+@Description("A phase of a generation of the genetic algorithm")
+@Category({"Team Selection", "Genetic Algorithm"})
+@StackTrace(false)
+public class PhaseEvent extends Event {
+    @Label("Generation")
+    public int generation;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Population Size")
+    @Description("Number of teams the phase worked on")
+    public int populationSize;
+
+    @Label("Evaluations")
+    @Description("Fitness evaluations done in the phase")
+    public long evaluations;
+}
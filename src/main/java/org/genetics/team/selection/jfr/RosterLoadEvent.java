@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of reading the employees from the input file.
+ */
+@Name("org.genetics.team.selection.RosterLoad")
+@Label("Roster Load")
+@Description("Reading the employees from the input file")
+@Category({"Team Selection", "Input"})
+@StackTrace(false)
+public class RosterLoadEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Storage")
+    @Description("HEAP or OFF_HEAP")
+    public String storage;
+
+    @Label("Employees")
+    public int employees;
+
+    @Label("File Size")
+    @Description("0 when the size could not be read")
+    @DataAmount
+    public long fileSize;
+
+    @Label("Off-heap Size")
+    @DataAmount
+    public long offHeapSize;
+}
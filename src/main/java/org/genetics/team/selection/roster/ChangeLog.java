@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.roster;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * This class remembers which ordinals the recent versions of a {@link Roster} changed, so that holders of an older
+ * snapshot can catch up by the changed rows only.
+ */
+class ChangeLog {
+    private static final int MAX_ENTRIES = 256;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+
+    private static class Entry {
+        private final long version;
+        private final int[] ordinals;
+
+        private Entry(long version, int[] ordinals) {
+            this.version = version;
+            this.ordinals = ordinals;
+        }
+    }
+
+    /**
+     * Records the ordinals changed by a version.
+     *
+     * @param version  version which made the changes
+     * @param ordinals changed ordinals
+     */
+    synchronized void record(long version, int[] ordinals) {
+        this.entries.addLast(new Entry(version, ordinals));
+        if (this.entries.size() > MAX_ENTRIES) {
+            this.entries.removeFirst();
+        }
+    }
+
+    /**
+     * Collects the ordinals changed after one version up to another.
+     *
+     * @param from version already known to the caller
+     * @param to   version the caller moves to
+     * @return changed ordinals, possibly with repetitions, or null if the log no longer covers the range
+     */
+    synchronized int[] changes(long from, long to) {
+        if (from == to) {
+            return new int[0];
+        }
+        if (from > to || this.entries.isEmpty() || this.entries.peekFirst().version > from + 1) {
+            return null;
+        }
+        int size = 0;
+        for (Entry entry : this.entries) {
+            if (entry.version > from && entry.version <= to) {
+                size += entry.ordinals.length;
+            }
+        }
+        int[] changes = new int[size];
+        int position = 0;
+        for (Entry entry : this.entries) {
+            if (entry.version > from && entry.version <= to) {
+                System.arraycopy(entry.ordinals, 0, changes, position, entry.ordinals.length);
+                position += entry.ordinals.length;
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.roster;
+
+import org.genetics.team.selection.beans.Employee;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a read-only roster stored outside of the Java heap, so that heap size and garbage collection pauses do
+ * not grow with the number of employees. Employees are kept in one direct buffer per type, as fixed-width records of
+ * the id, the location of the name and the attribute values, and the names are kept UTF-8 encoded in a separate direct
+ * buffer.
+ * <p>
+ * Ordinals follow the type partitions: the employees of the first type read get the lowest ordinals in input order,
+ * followed by those of the next type. {@link Employee} objects are only created when asked for.
+ */
+public final class OffHeapRoster implements RosterAccessor {
+    private static final int ID = 0;
+    private static final int NAME_OFFSET = 4;
+    private static final int NAME_LENGTH = 8;
+    private static final int ATTRIBUTES = 12;
+    private final String[] types;
+    private final int[] bases;
+    private final ByteBuffer[] records;
+    private final ByteBuffer names;
+    private final String[] attributes;
+    private final Map<String, Integer> attributeIndexes;
+    private final int recordSize;
+
+    private OffHeapRoster(String[] types, int[] bases, ByteBuffer[] records, ByteBuffer names, String[] attributes) {
+        this.types = types;
+        this.bases = bases;
+        this.records = records;
+        this.names = names;
+        this.attributes = attributes;
+        this.attributeIndexes = new HashMap<>();
+        for (int a = 0; a < attributes.length; ++a) {
+            this.attributeIndexes.put(attributes[a], a);
+        }
+        this.recordSize = ATTRIBUTES + 4 * attributes.length;
+    }
+
+    @Override
+    public int getCapacity() {
+        return this.bases[this.types.length];
+    }
+
+    @Override
+    public int size() {
+        return getCapacity();
+    }
+
+    @Override
+    public String getType(int ordinal) {
+        int partition = partitionOf(ordinal);
+        return partition < 0 ? null : this.types[partition];
+    }
+
+    @Override
+    public int getId(int ordinal) {
+        int partition = partitionOf(ordinal);
+        return this.records[partition].getInt(position(partition, ordinal) + ID);
+    }
+
+    @Override
+    public int getAttribute(int ordinal, String attribute) {
+        Integer index = this.attributeIndexes.get(attribute);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown attribute: " + attribute);
+        }
+        int partition = partitionOf(ordinal);
+        return this.records[partition].getInt(position(partition, ordinal) + ATTRIBUTES + 4 * index);
+    }
+
+    @Override
+    public Employee getEmployee(int ordinal) {
+        int partition = partitionOf(ordinal);
+        if (partition < 0) {
+            return null;
+        }
+        ByteBuffer partitionRecords = this.records[partition];
+        int position = position(partition, ordinal);
+        byte[] name = new byte[partitionRecords.getInt(position + NAME_LENGTH)];
+        int nameOffset = partitionRecords.getInt(position + NAME_OFFSET);
+        for (int i = 0; i < name.length; ++i) {
+            name[i] = this.names.get(nameOffset + i);
+        }
+        Employee employee = new Employee(partitionRecords.getInt(position + ID), this.types[partition],
+                new String(name, StandardCharsets.UTF_8));
+        employee.setOrdinal(ordinal);
+        Map<String, Integer> attributeValues = new HashMap<>();
+        for (int a = 0; a < this.attributes.length; ++a) {
+            attributeValues.put(this.attributes[a], partitionRecords.getInt(position + ATTRIBUTES + 4 * a));
+        }
+        employee.setAttributeValues(attributeValues);
+        return employee;
+    }
+
+    @Override
+    public long getMemoryFootprint() {
+        return getOffHeapSize();
+    }
+
+    /**
+     * Returns the number of bytes held outside of the heap.
+     *
+     * @return off-heap size in bytes
+     */
+    public long getOffHeapSize() {
+        long size = this.names.capacity();
+        for (ByteBuffer partition : this.records) {
+            size += partition.capacity();
+        }
+        return size;
+    }
+
+    private int partitionOf(int ordinal) {
+        if (ordinal < 0) {
+            return -1;
+        }
+        for (int t = 0; t < this.types.length; ++t) {
+            if (ordinal < this.bases[t + 1]) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    private int position(int partition, int ordinal) {
+        return (ordinal - this.bases[partition]) * this.recordSize;
+    }
+
+    /**
+     * This class collects employees into the off-heap buffers of a new {@link OffHeapRoster}. The buffers are grown by
+     * doubling, so the roster can be filled while streaming the input without knowing its size in advance.
+     */
+    public static final class Builder {
+        private static final int INITIAL_RECORDS = 1024;
+        private final String[] attributes;
+        private final int recordSize;
+        private final List<String> types = new ArrayList<>();
+        private final List<ByteBuffer> records = new ArrayList<>();
+        private final Map<String, Integer> partitions = new HashMap<>();
+        private ByteBuffer names = allocate(INITIAL_RECORDS * 16);
+
+        /**
+         * Constructs a builder for employees with the given attributes.
+         *
+         * @param attributes attribute names, in the order their values are passed to {@link #add}
+         */
+        public Builder(List<String> attributes) {
+            this.attributes = attributes.toArray(new String[0]);
+            this.recordSize = ATTRIBUTES + 4 * this.attributes.length;
+        }
+
+        /**
+         * Adds an employee.
+         *
+         * @param id              employee id
+         * @param type            employee type
+         * @param name            employee name
+         * @param attributeValues attribute values in the order of the attributes of the builder
+         */
+        public void add(int id, String type, String name, int[] attributeValues) {
+            Integer partition = this.partitions.get(type);
+            if (partition == null) {
+                partition = this.types.size();
+                this.partitions.put(type, partition);
+                this.types.add(type);
+                this.records.add(allocate(INITIAL_RECORDS * this.recordSize));
+            }
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            this.names = ensureCapacity(this.names, encoded.length);
+            int nameOffset = this.names.position();
+            this.names.put(encoded);
+
+            ByteBuffer partitionRecords = ensureCapacity(this.records.get(partition), this.recordSize);
+            this.records.set(partition, partitionRecords);
+            partitionRecords.putInt(id).putInt(nameOffset).putInt(encoded.length);
+            for (int a = 0; a < this.attributes.length; ++a) {
+                partitionRecords.putInt(attributeValues[a]);
+            }
+        }
+
+        /**
+         * Creates the roster from the employees added so far. The builder must not be used afterwards.
+         *
+         * @return {@link OffHeapRoster}
+         */
+        public OffHeapRoster build() {
+            int[] bases = new int[this.types.size() + 1];
+            ByteBuffer[] partitionRecords = new ByteBuffer[this.types.size()];
+            for (int t = 0; t < partitionRecords.length; ++t) {
+                partitionRecords[t] = this.records.get(t);
+                long next = (long) bases[t] + partitionRecords[t].position() / this.recordSize;
+                if (next > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Roster exceeds " + Integer.MAX_VALUE + " employees");
+                }
+                bases[t + 1] = (int) next;
+            }
+            return new OffHeapRoster(this.types.toArray(new String[0]), bases, partitionRecords, this.names,
+                    Arrays.copyOf(this.attributes, this.attributes.length));
+        }
+
+        private static ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        }
+
+        private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+            if (buffer.remaining() >= needed) {
+                return buffer;
+            }
+            long capacity = Math.max(2L * buffer.capacity(), (long) buffer.position() + needed);
+            if (capacity > Integer.MAX_VALUE) {
+                if ((long) buffer.position() + needed > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Off-heap roster buffer exceeds " + Integer.MAX_VALUE + " bytes");
+                }
+                capacity = Integer.MAX_VALUE;
+            }
+            ByteBuffer larger = allocate((int) capacity);
+            buffer.flip();
+            larger.put(buffer);
+            return larger;
+        }
+    }
+}
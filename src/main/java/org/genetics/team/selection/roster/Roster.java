@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.roster;
+
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.beans.Employee;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class holds the employees of the input and applies incremental updates to them without reloading the input.
+ * Every update publishes a new {@link RosterSnapshot} with copy-on-write, so runs keep working on the snapshot they
+ * started with. Employees are treated as immutable once they are in the roster; an update replaces an employee with a
+ * new {@link Employee} of the same id.
+ */
+public class Roster {
+    private static Logger log = Logger.getLogger(Roster.class);
+    private final ChangeLog changeLog = new ChangeLog();
+    private final Map<Integer, Integer> ordinalById = new HashMap<>();
+    private volatile RosterSnapshot snapshot;
+
+    /**
+     * Constructs a {@link Roster} holding the given employees at their current ordinals.
+     *
+     * @param population Map of {@link Employee} by type
+     * @throws IllegalArgumentException if two employees have the same id or ordinal
+     */
+    public Roster(Map<String, List<Employee>> population) {
+        int capacity = 0;
+        for (List<Employee> employees : population.values()) {
+            for (Employee employee : employees) {
+                capacity = Math.max(capacity, employee.getOrdinal() + 1);
+            }
+        }
+        Employee[][] chunks = new Employee[chunkCount(capacity)][];
+        Map<String, Integer> typeCounts = new HashMap<>();
+        int size = 0;
+        for (List<Employee> employees : population.values()) {
+            for (Employee employee : employees) {
+                int ordinal = employee.getOrdinal();
+                if (this.ordinalById.put(employee.getId(), ordinal) != null) {
+                    throw new IllegalArgumentException("Duplicate employee id: " + employee.getId());
+                }
+                Employee[] chunk = chunks[ordinal >>> RosterSnapshot.CHUNK_BITS];
+                if (chunk == null) {
+                    chunk = new Employee[RosterSnapshot.CHUNK_SIZE];
+                    chunks[ordinal >>> RosterSnapshot.CHUNK_BITS] = chunk;
+                }
+                if (chunk[ordinal & RosterSnapshot.CHUNK_MASK] != null) {
+                    throw new IllegalArgumentException("Duplicate employee ordinal: " + ordinal);
+                }
+                chunk[ordinal & RosterSnapshot.CHUNK_MASK] = employee;
+                typeCounts.merge(employee.getEmployeeType(), 1, Integer::sum);
+                ++size;
+            }
+        }
+        this.snapshot = new RosterSnapshot(0, chunks, capacity, size, typeCounts, this.changeLog);
+    }
+
+    /**
+     * Returns the latest snapshot of the roster.
+     *
+     * @return {@link RosterSnapshot}
+     */
+    public RosterSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Adds a new employee. The employee is given the next free ordinal.
+     *
+     * @param employee {@link Employee}
+     * @return the new {@link RosterSnapshot}
+     * @throws IllegalArgumentException if an employee with the same id exists
+     */
+    public synchronized RosterSnapshot add(Employee employee) {
+        if (this.ordinalById.containsKey(employee.getId())) {
+            throw new IllegalArgumentException("Employee " + employee.getId() + " already exists");
+        }
+        return apply(Collections.singletonList(employee), Collections.emptyList());
+    }
+
+    /**
+     * Replaces an employee, e.g. to change its attribute values. The employee keeps its ordinal.
+     *
+     * @param employee {@link Employee} with the id of the employee to replace
+     * @return the new {@link RosterSnapshot}
+     * @throws IllegalArgumentException if no employee with the id exists
+     */
+    public synchronized RosterSnapshot update(Employee employee) {
+        if (!this.ordinalById.containsKey(employee.getId())) {
+            throw new IllegalArgumentException("Employee " + employee.getId() + " does not exist");
+        }
+        return apply(Collections.singletonList(employee), Collections.emptyList());
+    }
+
+    /**
+     * Removes an employee. Its ordinal is not reused.
+     *
+     * @param id employee id
+     * @return the new {@link RosterSnapshot}
+     * @throws IllegalArgumentException if no employee with the id exists
+     */
+    public synchronized RosterSnapshot remove(int id) {
+        return apply(Collections.emptyList(), Collections.singletonList(id));
+    }
+
+    /**
+     * Applies a batch of changes as one new version. Employees with a known id replace the existing employee and the
+     * others are added. Only the chunks holding changed rows are copied.
+     *
+     * @param upserts    employees to add or replace
+     * @param removedIds ids of the employees to remove
+     * @return the new {@link RosterSnapshot}
+     * @throws IllegalArgumentException if an id is repeated or a removed id does not exist
+     */
+    public synchronized RosterSnapshot apply(Collection<Employee> upserts, Collection<Integer> removedIds) {
+        Set<Integer> ids = new HashSet<>();
+        for (Employee employee : upserts) {
+            if (!ids.add(employee.getId())) {
+                throw new IllegalArgumentException("Employee " + employee.getId() + " is changed more than once");
+            }
+        }
+        for (Integer id : removedIds) {
+            if (!ids.add(id)) {
+                throw new IllegalArgumentException("Employee " + id + " is changed more than once");
+            }
+            if (!this.ordinalById.containsKey(id)) {
+                throw new IllegalArgumentException("Employee " + id + " does not exist");
+            }
+        }
+
+        RosterSnapshot current = this.snapshot;
+        int capacity = current.getCapacity();
+        int size = current.size();
+        Employee[][] chunks = current.getChunks().clone();
+        BitSet copied = new BitSet();
+        Map<String, Integer> typeCounts = new HashMap<>(current.getTypeCounts());
+        int[] changed = new int[ids.size()];
+        int changes = 0;
+        for (Integer id : removedIds) {
+            int ordinal = this.ordinalById.remove(id);
+            Employee removed = current.getEmployee(ordinal);
+            typeCounts.merge(removed.getEmployeeType(), -1, Integer::sum);
+            writableChunk(chunks, ordinal, copied)[ordinal & RosterSnapshot.CHUNK_MASK] = null;
+            --size;
+            changed[changes++] = ordinal;
+        }
+        for (Employee employee : upserts) {
+            Integer ordinal = this.ordinalById.get(employee.getId());
+            if (ordinal == null) {
+                ordinal = capacity++;
+                this.ordinalById.put(employee.getId(), ordinal);
+                ++size;
+            } else {
+                typeCounts.merge(current.getEmployee(ordinal).getEmployeeType(), -1, Integer::sum);
+            }
+            employee.setOrdinal(ordinal);
+            typeCounts.merge(employee.getEmployeeType(), 1, Integer::sum);
+            if (chunks.length < chunkCount(capacity)) {
+                chunks = Arrays.copyOf(chunks, chunkCount(capacity) * 2);
+            }
+            writableChunk(chunks, ordinal, copied)[ordinal & RosterSnapshot.CHUNK_MASK] = employee;
+            changed[changes++] = ordinal;
+        }
+        long version = current.getVersion() + 1;
+        this.changeLog.record(version, changed);
+        this.snapshot = new RosterSnapshot(version, chunks, capacity, size, typeCounts, this.changeLog);
+        log.info("Roster version " + version + ": " + upserts.size() + " employees added or updated, "
+                + removedIds.size() + " removed");
+        return this.snapshot;
+    }
+
+    /**
+     * Returns the chunk holding an ordinal, copying it first if it is still shared with the previous snapshot.
+     */
+    private static Employee[] writableChunk(Employee[][] chunks, int ordinal, BitSet copied) {
+        int index = ordinal >>> RosterSnapshot.CHUNK_BITS;
+        if (!copied.get(index)) {
+            chunks[index] = chunks[index] == null ? new Employee[RosterSnapshot.CHUNK_SIZE] : chunks[index].clone();
+            copied.set(index);
+        }
+        return chunks[index];
+    }
+
+    private static int chunkCount(int capacity) {
+        return (capacity + RosterSnapshot.CHUNK_MASK) >>> RosterSnapshot.CHUNK_BITS;
+    }
+}
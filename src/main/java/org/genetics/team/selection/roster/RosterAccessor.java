@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.roster;
+
+import org.genetics.team.selection.beans.Employee;
+
+/**
+ * This interface gives read access to the employees of a roster by ordinal, independent of how the roster is stored.
+ * Ordinals range from 0 to the capacity of the roster; ordinals of removed employees have no type.
+ */
+public interface RosterAccessor {
+
+    /**
+     * Returns the upper bound of the ordinals of the roster.
+     *
+     * @return ordinal bound
+     */
+    int getCapacity();
+
+    /**
+     * Returns the number of employees in the roster.
+     *
+     * @return number of employees
+     */
+    int size();
+
+    /**
+     * Returns the type of an employee.
+     *
+     * @param ordinal employee ordinal
+     * @return employee type, or null if there is no employee with the ordinal
+     */
+    String getType(int ordinal);
+
+    /**
+     * Returns the id of an employee.
+     *
+     * @param ordinal ordinal of an existing employee
+     * @return employee id
+     */
+    int getId(int ordinal);
+
+    /**
+     * Returns an attribute value of an employee.
+     *
+     * @param ordinal   ordinal of an existing employee
+     * @param attribute attribute name
+     * @return attribute value
+     */
+    int getAttribute(int ordinal, String attribute);
+
+    /**
+     * Returns an employee. Rosters which do not keep {@link Employee} objects create one on every call, so this is
+     * meant for output rather than for scoring.
+     *
+     * @param ordinal employee ordinal
+     * @return {@link Employee} or null if there is no employee with the ordinal
+     */
+    Employee getEmployee(int ordinal);
+
+    /**
+     * Returns an estimate of the memory held by the roster, on and off the heap.
+     *
+     * @return memory footprint in bytes
+     */
+    long getMemoryFootprint();
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.roster;
+
+import org.genetics.team.selection.beans.Employee;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class writes rosters into a compact binary form and reads them back. Employees are written in ordinal order,
+ * so a roster read back keeps the ordinals it was written with, and reading it is much cheaper than parsing the CSV
+ * input again.
+ */
+public final class RosterFile {
+    private static final int MAGIC = 0x52535446;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private RosterFile() {
+    }
+
+    /**
+     * Writes a roster into a temporary file and moves it to the given path, so a crash while writing never leaves a
+     * truncated roster behind.
+     *
+     * @param roster     {@link RosterAccessor}
+     * @param attributes attribute names to write, in order
+     * @param path       path of the roster file
+     * @return size of the file in bytes
+     * @throws IOException if the file cannot be written
+     */
+    public static long write(RosterAccessor roster, List<String> attributes, Path path) throws IOException {
+        Map<String, Integer> types = new LinkedHashMap<>();
+        for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+            String type = roster.getType(ordinal);
+            if (type != null) {
+                types.putIfAbsent(type, types.size());
+            }
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(attributes.size());
+            for (String attribute : attributes) {
+                out.writeUTF(attribute);
+            }
+            out.writeInt(types.size());
+            for (String type : types.keySet()) {
+                out.writeUTF(type);
+            }
+            out.writeInt(roster.getCapacity());
+            for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+                String type = roster.getType(ordinal);
+                if (type == null) {
+                    out.writeInt(-1);
+                    continue;
+                }
+                Employee employee = roster.getEmployee(ordinal);
+                out.writeInt(types.get(type));
+                out.writeInt(employee.getId());
+                out.writeUTF(employee.getName());
+                for (String attribute : attributes) {
+                    out.writeInt(roster.getAttribute(ordinal, attribute));
+                }
+            }
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return Files.size(path);
+    }
+
+    /**
+     * Reads a roster file.
+     *
+     * @param path    path of the roster file
+     * @param offHeap whether to read the employees into an {@link OffHeapRoster} instead of a {@link Roster}
+     * @return {@link RosterAccessor}
+     * @throws IOException if the file cannot be read or is not a roster file
+     */
+    public static RosterAccessor read(Path path, boolean offHeap) throws IOException {
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException(path + " is not a roster file of this version");
+            }
+            String[] attributes = new String[in.readInt()];
+            for (int a = 0; a < attributes.length; ++a) {
+                attributes[a] = in.readUTF();
+            }
+            String[] types = new String[in.readInt()];
+            for (int t = 0; t < types.length; ++t) {
+                types[t] = in.readUTF();
+            }
+            int capacity = in.readInt();
+            int[] attributeValues = new int[attributes.length];
+            OffHeapRoster.Builder builder = offHeap ? new OffHeapRoster.Builder(Arrays.asList(attributes)) : null;
+            Map<String, List<Employee>> population = new HashMap<>();
+            for (int ordinal = 0; ordinal < capacity; ++ordinal) {
+                int type = in.readInt();
+                if (type < 0) {
+                    continue;
+                }
+                int id = in.readInt();
+                String name = in.readUTF();
+                for (int a = 0; a < attributes.length; ++a) {
+                    attributeValues[a] = in.readInt();
+                }
+                if (offHeap) {
+                    builder.add(id, types[type], name, attributeValues);
+                    continue;
+                }
+                Employee employee = new Employee(id, types[type], name);
+                employee.setOrdinal(ordinal);
+                Map<String, Integer> values = new HashMap<>();
+                for (int a = 0; a < attributes.length; ++a) {
+                    values.put(attributes[a], attributeValues[a]);
+                }
+                employee.setAttributeValues(values);
+                population.computeIfAbsent(types[type], key -> new ArrayList<>()).add(employee);
+            }
+            return offHeap ? builder.build() : new Roster(population).getSnapshot();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.roster;
+
+import org.genetics.team.selection.beans.Employee;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is an immutable version of a {@link Roster}. Employees are indexed by their ordinal, which stays the same
+ * for the lifetime of an employee in the roster; the ordinals of removed employees are left empty and never reused.
+ * Consecutive versions share every chunk of employees which did not change, so taking a new version costs the changed
+ * rows only, and a run which holds a snapshot is not affected by later updates.
+ */
+public final class RosterSnapshot implements RosterAccessor {
+    static final int CHUNK_BITS = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    // Approximate heap size of an employee with its name and attribute map, and of one attribute entry, assuming
+    // compressed references and single byte names
+    private static final int EMPLOYEE_BYTES = 200;
+    private static final int ATTRIBUTE_BYTES = 48;
+    private final long version;
+    private final Employee[][] chunks;
+    private final int capacity;
+    private final int size;
+    private final Map<String, Integer> typeCounts;
+    private final ChangeLog changeLog;
+    private volatile long memoryFootprint = -1;
+
+    RosterSnapshot(long version, Employee[][] chunks, int capacity, int size, Map<String, Integer> typeCounts,
+                   ChangeLog changeLog) {
+        this.version = version;
+        this.chunks = chunks;
+        this.capacity = capacity;
+        this.size = size;
+        this.typeCounts = Collections.unmodifiableMap(typeCounts);
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Returns the employee of the given ordinal.
+     *
+     * @param ordinal employee ordinal
+     * @return {@link Employee} or null if the ordinal belongs to a removed employee
+     */
+    @Override
+    public Employee getEmployee(int ordinal) {
+        if (ordinal < 0 || ordinal >= this.capacity) {
+            return null;
+        }
+        Employee[] chunk = this.chunks[ordinal >>> CHUNK_BITS];
+        return chunk == null ? null : chunk[ordinal & CHUNK_MASK];
+    }
+
+    @Override
+    public String getType(int ordinal) {
+        Employee employee = getEmployee(ordinal);
+        return employee == null ? null : employee.getEmployeeType();
+    }
+
+    @Override
+    public int getId(int ordinal) {
+        return getEmployee(ordinal).getId();
+    }
+
+    @Override
+    public int getAttribute(int ordinal, String attribute) {
+        return getEmployee(ordinal).getAttributeValues().get(attribute);
+    }
+
+    /**
+     * Returns the upper bound of the ordinals of the snapshot, including those of removed employees.
+     *
+     * @return ordinal bound
+     */
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of employees in the snapshot.
+     *
+     * @return number of employees
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an estimate of the heap held by the employees of the snapshot. Employees shared with other versions of
+     * the roster are included, since the snapshot keeps them alive. The estimate is computed on first use.
+     *
+     * @return memory footprint in bytes
+     */
+    @Override
+    public long getMemoryFootprint() {
+        long footprint = this.memoryFootprint;
+        if (footprint < 0) {
+            footprint = 16L + 4L * this.chunks.length;
+            for (Employee[] chunk : this.chunks) {
+                if (chunk == null) {
+                    continue;
+                }
+                footprint += 16L + 4L * chunk.length;
+                for (Employee employee : chunk) {
+                    if (employee != null) {
+                        footprint += EMPLOYEE_BYTES + employee.getName().length()
+                                + (long) ATTRIBUTE_BYTES * employee.getAttributeValues().size();
+                    }
+                }
+            }
+            this.memoryFootprint = footprint;
+        }
+        return footprint;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of employees of a type.
+     *
+     * @param type employee type
+     * @return number of employees
+     */
+    public int getCount(String type) {
+        Integer count = this.typeCounts.get(type);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Returns the ordinals which changed between an older snapshot of the same roster and this one.
+     *
+     * @param older older {@link RosterSnapshot}
+     * @return changed ordinals, possibly with repetitions, or null if the changes are no longer known and the caller
+     * has to rebuild from this snapshot
+     */
+    public int[] changesSince(RosterSnapshot older) {
+        if (older.changeLog != this.changeLog) {
+            return null;
+        }
+        return this.changeLog.changes(older.version, this.version);
+    }
+
+    /**
+     * Groups the employees of the snapshot by type.
+     *
+     * @return Map of {@link Employee} by type
+     */
+    public Map<String, List<Employee>> toPopulation() {
+        Map<String, List<Employee>> population = new HashMap<>();
+        for (int ordinal = 0; ordinal < this.capacity; ++ordinal) {
+            Employee employee = getEmployee(ordinal);
+            if (employee != null) {
+                population.computeIfAbsent(employee.getEmployeeType(), type -> new ArrayList<>()).add(employee);
+            }
+        }
+        return population;
+    }
+
+    Employee[][] getChunks() {
+        return chunks;
+    }
+
+    Map<String, Integer> getTypeCounts() {
+        return typeCounts;
+    }
+}
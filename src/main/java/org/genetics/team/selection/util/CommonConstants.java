@@ -46,8 +46,88 @@ public class CommonConstants {
      */
     public static final String HEADER_NAME = "name";
 
+    /**
+     * Header mappers - cost, used by the budget of a team
+     */
+    public static final String HEADER_COST = "cost";
+
     /**
      * Header mappers - prefix for attribute
      */
     public static final String ATTRIBUTE_PREFIX = "attribute";
+
+    /**
+     * Default number of generations between two checkpoints
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 50;
+
+    /**
+     * Default number of results kept in memory by the result cache
+     */
+    public static final int DEFAULT_RESULT_CACHE_SIZE = 0;
+
+    /**
+     * Default number of results kept on disk by the result cache
+     */
+    public static final int DEFAULT_RESULT_CACHE_DISK_SIZE = 1024;
+
+    /**
+     * Default memory budget of the rosters of all units, in megabytes
+     */
+    public static final long DEFAULT_UNIT_MEMORY_BUDGET = 1024;
+
+    /**
+     * Default fraction of the initial population filled with seeded teams
+     */
+    public static final double DEFAULT_SEED_RATIO = 0.5;
+
+    /**
+     * Default size of the GRASP restricted candidate list
+     */
+    public static final double DEFAULT_GRASP_ALPHA = 0.3;
+
+    /**
+     * Default number of fittest teams refined by the local search
+     */
+    public static final int DEFAULT_LOCAL_SEARCH_ELITES = 3;
+
+    /**
+     * Default maximum number of swaps applied to a team by the local search
+     */
+    public static final int DEFAULT_LOCAL_SEARCH_MAX_MOVES = 10;
+
+    /**
+     * Default maximum number of moves of the SA and TABU solvers
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 100000;
+
+    /**
+     * Default number of moves without improvement after which the SA and TABU solvers stop
+     */
+    public static final int DEFAULT_STAGNATION_LIMIT = 10000;
+
+    /**
+     * Default cooling factor per move of the SA solver
+     */
+    public static final double DEFAULT_ANNEALING_COOLING = 0.9995;
+
+    /**
+     * Default number of moves an employee which left the team stays tabu
+     */
+    public static final int DEFAULT_TABU_TENURE = 20;
+
+    /**
+     * Default number of moves sampled per TABU iteration
+     */
+    public static final int DEFAULT_TABU_NEIGHBOURHOOD = 50;
+
+    /**
+     * Default number of top teams recorded per generation in the event log
+     */
+    public static final int DEFAULT_EVENT_LOG_TOP_N = 5;
+
+    /**
+     * Roster storage keeping the employees outside of the Java heap
+     */
+    public static final String ROSTER_STORAGE_OFF_HEAP = "OFF_HEAP";
 }
@@ -22,9 +22,16 @@ import org.apache.commons.csv.CSVRecord;
 import org.apache.log4j.Logger;
 import org.genetics.team.selection.beans.Employee;
 import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.jfr.FlightRecorderSupport;
+import org.genetics.team.selection.jfr.RosterLoadEvent;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.Roster;
+import org.genetics.team.selection.roster.RosterAccessor;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -46,26 +53,56 @@ public class InputProcessor {
     }
 
     /**
-     * Initializes input processor
+     * Initializes input processor. The input processor is created again when the configuration was reloaded.
      *
      * @param configuration {@link Configuration} object.
      * @return {@link InputProcessor}
      */
-    public static InputProcessor getInputProcessor(Configuration configuration) {
+    public static synchronized InputProcessor getInputProcessor(Configuration configuration) {
+        if(inputProcessor == null || inputProcessor.configuration != configuration) {
+            inputProcessor = createInputProcessor(configuration);
+        }
+        return inputProcessor;
+    }
+
+    /**
+     * Creates an input processor of its own for the given configuration, e.g. for one of several inputs served side
+     * by side. The shared input processor is not affected.
+     *
+     * @param configuration {@link Configuration} object.
+     * @return {@link InputProcessor}
+     */
+    public static InputProcessor createInputProcessor(Configuration configuration) {
         Map<String, String> headerMap = configuration.getHeaderMapping();
         Integer attributeCount = configuration.getAttributeCount();
-        if(inputProcessor == null) {
-            String[] inputHeaders = new String[headerMap.size()];
-            inputHeaders[0] = headerMap.get(CommonConstants.HEADER_ID);
-            inputHeaders[1] = headerMap.get(CommonConstants.HEADER_NAME);
-            inputHeaders[2] = headerMap.get(CommonConstants.HEADER_TYPE);
-
-            for(int i = 1; i < 1 + attributeCount; ++i) {
-                inputHeaders[i+2] = headerMap.get(CommonConstants.ATTRIBUTE_PREFIX + i);
-            }
-            inputProcessor = new InputProcessor(inputHeaders, configuration);
+        String[] inputHeaders = new String[3 + attributeCount];
+        inputHeaders[0] = headerMap.get(CommonConstants.HEADER_ID);
+        inputHeaders[1] = headerMap.get(CommonConstants.HEADER_NAME);
+        inputHeaders[2] = headerMap.get(CommonConstants.HEADER_TYPE);
+
+        for(int i = 1; i < 1 + attributeCount; ++i) {
+            inputHeaders[i+2] = headerMap.get(CommonConstants.ATTRIBUTE_PREFIX + i);
         }
-        return inputProcessor;
+        return new InputProcessor(inputHeaders, configuration);
+    }
+
+    /**
+     * Returns the input columns kept for every employee: the attributes in the configured order, followed by the cost
+     * column when one is mapped.
+     *
+     * @param configuration {@link Configuration} object.
+     * @return column names
+     */
+    public static List<String> getRosterColumns(Configuration configuration) {
+        Map<String, String> headerMapping = configuration.getHeaderMapping();
+        List<String> columns = new ArrayList<>();
+        for (int i = 1; i < configuration.getAttributeCount() + 1; ++i) {
+            columns.add(headerMapping.get(CommonConstants.ATTRIBUTE_PREFIX + i));
+        }
+        if (headerMapping.get(CommonConstants.HEADER_COST) != null) {
+            columns.add(headerMapping.get(CommonConstants.HEADER_COST));
+        }
+        return columns;
     }
 
     /**
@@ -99,25 +136,26 @@ public class InputProcessor {
      */
     public Map<String, List<Employee>> readPopulation(String path) throws IOException {
         log.info("Reading Population Data");
+        Object loadEvent = beginLoad();
         Map<String, String> headerMapping = configuration.getHeaderMapping();
-        Integer attributeCount = configuration.getAttributeCount();
+        List<String> columns = getRosterColumns(configuration);
         Map<String, List<Employee>> employees = new HashMap<>();
         CSVFormat csvFormat = CSVFormat.DEFAULT.withFirstRecordAsHeader();
         FileReader fileReader = new FileReader(path);
         CSVParser csvFileParser = new CSVParser(fileReader, csvFormat);
 
         List<CSVRecord> csvRecords = csvFileParser.getRecords();
+        int ordinal = 0;
         for(CSVRecord csvRecord: csvRecords) {
             int id = Integer.parseInt(csvRecord.get(headerMapping.get(CommonConstants.HEADER_ID)));
             String type = csvRecord.get(headerMapping.get(CommonConstants.HEADER_TYPE));
             String name = csvRecord.get(headerMapping.get(CommonConstants.HEADER_NAME));
 
             Employee employee = new Employee(id, type, name);
+            employee.setOrdinal(ordinal++);
             Map<String, Integer> attributeMap = new HashMap<>();
-            for (int i = 1; i < attributeCount + 1; ++i) {
-                String attribute = headerMapping.get(CommonConstants.ATTRIBUTE_PREFIX + i);
-                int attributeValue = Integer.parseInt(csvRecord.get(attribute));
-                attributeMap.put(attribute, attributeValue);
+            for (String column : columns) {
+                attributeMap.put(column, Integer.parseInt(csvRecord.get(column)));
             }
             employee.setAttributeValues(attributeMap);
 
@@ -130,6 +168,110 @@ public class InputProcessor {
             }
         }
         log.info("Generated " + csvRecords.size() + " employees.");
+        endLoad(loadEvent, path, "HEAP", csvRecords.size(), 0);
         return employees;
     }
+
+    /**
+     * Processes given CSV file into a {@link Roster}, which can be updated afterwards without reading the file again.
+     *
+     * @param path path of the input CSV file
+     * @return {@link Roster}
+     * @throws IOException
+     */
+    public Roster readRoster(String path) throws IOException {
+        return new Roster(readPopulation(path));
+    }
+
+    /**
+     * Processes given CSV file into an {@link OffHeapRoster}. The records are streamed into off-heap buffers, so no
+     * {@link Employee} objects are created while reading.
+     *
+     * @param path path of the input CSV file
+     * @return {@link OffHeapRoster}
+     * @throws IOException
+     */
+    public OffHeapRoster readOffHeapRoster(String path) throws IOException {
+        log.info("Reading Population Data into off-heap storage");
+        Object loadEvent = beginLoad();
+        Map<String, String> headerMapping = configuration.getHeaderMapping();
+        List<String> attributes = getRosterColumns(configuration);
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(attributes);
+        int[] attributeValues = new int[attributes.size()];
+        CSVFormat csvFormat = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        try (CSVParser csvFileParser = new CSVParser(new FileReader(path), csvFormat)) {
+            for (CSVRecord csvRecord : csvFileParser) {
+                for (int i = 0; i < attributeValues.length; ++i) {
+                    attributeValues[i] = Integer.parseInt(csvRecord.get(attributes.get(i)));
+                }
+                builder.add(Integer.parseInt(csvRecord.get(headerMapping.get(CommonConstants.HEADER_ID))),
+                        csvRecord.get(headerMapping.get(CommonConstants.HEADER_TYPE)),
+                        csvRecord.get(headerMapping.get(CommonConstants.HEADER_NAME)), attributeValues);
+            }
+        }
+        OffHeapRoster roster = builder.build();
+        log.info("Stored " + roster.size() + " employees in " + roster.getOffHeapSize() + " bytes off-heap.");
+        endLoad(loadEvent, path, CommonConstants.ROSTER_STORAGE_OFF_HEAP, roster.size(), roster.getOffHeapSize());
+        return roster;
+    }
+
+    /**
+     * Starts timing a roster load for the Flight Recorder.
+     *
+     * @return {@link RosterLoadEvent}, or null if no recording is interested in it
+     */
+    private static Object beginLoad() {
+        if (FlightRecorderSupport.AVAILABLE) {
+            RosterLoadEvent event = new RosterLoadEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Commits the Flight Recorder event of a roster load. The event is best effort and never fails the load; the file
+     * size is left unset when it cannot be read.
+     *
+     * @param loadEvent   event from {@link #beginLoad()}, or null
+     * @param path        path of the input file
+     * @param storage     roster storage
+     * @param employees   number of employees loaded
+     * @param offHeapSize off-heap bytes of the roster, or 0 on the heap
+     */
+    private static void endLoad(Object loadEvent, String path, String storage, int employees, long offHeapSize) {
+        if (loadEvent == null) {
+            return;
+        }
+        RosterLoadEvent event = (RosterLoadEvent) loadEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.storage = storage;
+            event.employees = employees;
+            try {
+                event.fileSize = Files.size(Paths.get(path));
+            } catch (IOException e) {
+                log.debug("Unable to read the size of " + path + " for the roster load event: " + e.getMessage());
+            }
+            event.offHeapSize = offHeapSize;
+            event.commit();
+        }
+    }
+
+    /**
+     * Processes given CSV file with the roster storage of the configuration.
+     *
+     * @param path path of the input CSV file
+     * @return {@link RosterAccessor}
+     * @throws IOException
+     */
+    public RosterAccessor readRosterAccessor(String path) throws IOException {
+        if (CommonConstants.ROSTER_STORAGE_OFF_HEAP.equalsIgnoreCase(configuration.getRosterStorage())) {
+            return readOffHeapRoster(path);
+        }
+        return readRoster(path).getSnapshot();
+    }
 }
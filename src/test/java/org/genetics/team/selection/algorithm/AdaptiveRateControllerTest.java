@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveRateControllerTest {
+    private static final int TEAM_SIZE = 4;
+    private static final int EMPLOYEES = 100;
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setMutationRate(0.1);
+        this.configuration.setCrossoverRate(0.6);
+        this.configuration.setMinMutationRate(0.01);
+        this.configuration.setMaxMutationRate(0.3);
+        this.configuration.setMinCrossoverRate(0.4);
+        this.configuration.setMaxCrossoverRate(0.95);
+    }
+
+    @Test
+    public void operatorsAboveTheTargetSuccessRatioGetHigherRates() {
+        AdaptiveRateController controller = new AdaptiveRateController(this.configuration, EMPLOYEES, EMPLOYEES);
+        record(controller, 5, 10, 1, 10);
+        controller.update(diverse(), 1.0);
+        assertEquals(0.12, controller.getMutationRate(), 1e-9);
+        assertEquals(0.5, controller.getCrossoverRate(), 1e-9);
+        // Generations without trials keep the rates
+        controller.update(diverse(), 2.0);
+        assertEquals(0.12, controller.getMutationRate(), 1e-9);
+        assertEquals(0.5, controller.getCrossoverRate(), 1e-9);
+    }
+
+    @Test
+    public void ratesStayWithinTheirBounds() {
+        AdaptiveRateController controller = new AdaptiveRateController(this.configuration, EMPLOYEES, EMPLOYEES);
+        for (int generation = 0; generation < 50; ++generation) {
+            record(controller, 10, 10, 10, 10);
+            controller.update(diverse(), generation);
+        }
+        assertEquals(0.3, controller.getMutationRate(), 0);
+        assertEquals(0.95, controller.getCrossoverRate(), 0);
+        for (int generation = 50; generation < 100; ++generation) {
+            record(controller, 0, 10, 0, 10);
+            controller.update(diverse(), generation);
+        }
+        assertEquals(0.01, controller.getMutationRate(), 0);
+        assertEquals(0.4, controller.getCrossoverRate(), 0);
+    }
+
+    @Test
+    public void convergedGenerationFavoursMutation() {
+        AdaptiveRateController controller = new AdaptiveRateController(this.configuration, EMPLOYEES, EMPLOYEES);
+        GenerationStore converged = new GenerationStore(TEAM_SIZE, 20, new ZobristHash(EMPLOYEES));
+        for (int team = 0; team < 20; ++team) {
+            converged.add(new int[]{0, 1, 2, 3}, 1.0);
+        }
+        controller.update(converged, 1.0);
+        assertEquals(0, controller.getDiversity(), 0);
+        assertEquals(0.12, controller.getMutationRate(), 1e-9);
+        assertEquals(0.5, controller.getCrossoverRate(), 1e-9);
+    }
+
+    @Test
+    public void stagnationFavoursMutation() {
+        AdaptiveRateController controller = new AdaptiveRateController(this.configuration, EMPLOYEES, EMPLOYEES);
+        controller.update(diverse(), 1.0);
+        for (int generation = 1; generation < 5; ++generation) {
+            controller.update(diverse(), 1.0);
+            assertEquals(0.1, controller.getMutationRate(), 1e-9);
+        }
+        controller.update(diverse(), 1.0);
+        assertEquals(0.12, controller.getMutationRate(), 1e-9);
+        assertTrue(controller.getDiversity() > 0.9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMinimumAboveTheMaximum() {
+        this.configuration.setMinMutationRate(0.5);
+        new AdaptiveRateController(this.configuration, EMPLOYEES, EMPLOYEES);
+    }
+
+    private static void record(AdaptiveRateController controller, int mutationSuccesses, int mutations,
+                               int crossoverSuccesses, int crossovers) {
+        for (int i = 0; i < mutations; ++i) {
+            controller.recordMutation(i < mutationSuccesses);
+        }
+        for (int i = 0; i < crossovers; ++i) {
+            controller.recordCrossover(i < crossoverSuccesses);
+        }
+    }
+
+    /**
+     * Creates a generation of disjoint teams, holding every employee once.
+     */
+    private static GenerationStore diverse() {
+        GenerationStore generation = new GenerationStore(TEAM_SIZE, EMPLOYEES / TEAM_SIZE, new ZobristHash(EMPLOYEES));
+        for (int team = 0; team < EMPLOYEES / TEAM_SIZE; ++team) {
+            int first = team * TEAM_SIZE;
+            generation.add(new int[]{first, first + 1, first + 2, first + 3}, 1.0);
+        }
+        return generation;
+    }
+}
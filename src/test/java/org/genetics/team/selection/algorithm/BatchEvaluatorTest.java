@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BatchEvaluatorTest {
+    private static final int EMPLOYEES = 200;
+    private static final int TEAMS = 50;
+    private static final int TEAM_SIZE = 7;
+
+    @Test
+    public void kernelsMatchTheScalarReference() {
+        Random random = new Random(7);
+        int[] genes = new int[TEAMS * TEAM_SIZE];
+        for (int i = 0; i < genes.length; ++i) {
+            genes[i] = random.nextInt(EMPLOYEES);
+        }
+        BatchKernel scalar = new ScalarKernel();
+        BatchKernel kernel = BatchEvaluator.getKernel();
+        // Covers attribute counts below, at and above the vector lengths
+        for (int attributeCount = 1; attributeCount <= 19; ++attributeCount) {
+            int[] rows = new int[EMPLOYEES * attributeCount];
+            for (int i = 0; i < rows.length; ++i) {
+                rows[i] = random.nextInt(1000);
+            }
+            double[] weights = new double[attributeCount];
+            for (int a = 0; a < attributeCount; ++a) {
+                weights[a] = random.nextDouble();
+            }
+            double[] expected = new double[TEAMS];
+            BatchEvaluator.weightedAveragesScalar(genes, TEAM_SIZE, 0, TEAMS, rows, attributeCount, weights,
+                    expected);
+
+            long[] expectedSums = new long[TEAMS * attributeCount];
+            long[] sums = new long[TEAMS * attributeCount];
+            scalar.attributeSums(genes, TEAM_SIZE, 0, TEAMS, rows, attributeCount, expectedSums);
+            kernel.attributeSums(genes, TEAM_SIZE, 0, TEAMS, rows, attributeCount, sums);
+            assertArrayEquals(expectedSums, sums);
+
+            double[] fitness = new double[TEAMS];
+            kernel.weightedAverages(sums, TEAM_SIZE, 0, TEAMS, weights, attributeCount, fitness);
+            assertArrayEquals(expected, fitness, 1e-9);
+        }
+    }
+
+    @Test
+    public void evaluateAveragesTheScoresOfARange() {
+        int[] genes = {0, 1, 2, 3, 1, 2};
+        double[] scores = {1, 2, 3, 4};
+        double[] fitness = new double[3];
+        BatchEvaluator.evaluate(genes, 2, 1, 3, scores, fitness);
+        assertEquals(0, fitness[0], 0);
+        assertEquals(3.5, fitness[1], 1e-12);
+        assertEquals(2.5, fitness[2], 1e-12);
+    }
+
+    @Test
+    public void attributeSumsOverwriteTheRange() {
+        int[] genes = {0, 1, 1, 1};
+        int[] rows = {1, 2, 3, 4};
+        long[] sums = {9, 9, 9, 9};
+        BatchEvaluator.attributeSums(genes, 2, 1, 2, rows, 2, sums);
+        assertArrayEquals(new long[]{9, 9, 6, 8}, sums);
+    }
+}
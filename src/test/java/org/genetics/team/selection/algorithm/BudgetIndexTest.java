@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BudgetIndexTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final List<String> ATTRIBUTES = Collections.singletonList("SALARY");
+
+    @Test
+    public void repairAlwaysReachesTheBudget() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; ++round) {
+            RosterAccessor roster = roster(random, 2 + random.nextInt(10));
+            FeasibilityIndex index = index(roster, random);
+            double[] scores = scores(roster, random);
+            long cheapest = cheapest(index, roster);
+            long budget = cheapest + random.nextInt(60);
+            BudgetIndex budgetIndex = BudgetIndex.build(index, roster, "SALARY", scores, budget);
+            for (int team = 0; team < 20; ++team) {
+                int[] ordinals = team(index, random);
+                budgetIndex.repair(ordinals);
+                assertTrue(budgetIndex.getCost(ordinals) <= budget);
+                Set<Integer> members = new HashSet<>();
+                for (int t = 0; t < TYPES.length; ++t) {
+                    for (int i = index.getOffset(t); i < index.getOffset(t) + index.getCount(t); ++i) {
+                        assertEquals(t, index.getTypeOf(ordinals[i]));
+                        assertTrue(members.add(ordinals[i]));
+                    }
+                    for (int locked : index.getLockedCandidates(t)) {
+                        assertTrue(members.contains(locked));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void teamWithinTheBudgetIsNotRepaired() {
+        Random random = new Random(9);
+        RosterAccessor roster = roster(random, 8);
+        FeasibilityIndex index = index(roster, random);
+        int[] team = team(index, random);
+        BudgetIndex budgetIndex = BudgetIndex.build(index, roster, "SALARY", scores(roster, random),
+                cost(roster, team));
+        int[] repaired = team.clone();
+        assertFalse(budgetIndex.repair(repaired));
+        assertArrayEquals(team, repaired);
+    }
+
+    @Test
+    public void buildRejectsBudgetsBelowTheCheapestTeam() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; ++round) {
+            RosterAccessor roster = roster(random, 2 + random.nextInt(10));
+            FeasibilityIndex index = index(roster, random);
+            double[] scores = scores(roster, random);
+            long cheapest = cheapest(index, roster);
+            assertEquals(cheapest, BudgetIndex.build(index, roster, "SALARY", scores, cheapest).getBudget());
+            try {
+                BudgetIndex.build(index, roster, "SALARY", scores, cheapest - 1);
+                fail("Budget below the cheapest team of " + cheapest + " accepted");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("Infeasible team definition"));
+            }
+        }
+    }
+
+    /**
+     * Builds the index of a team of up to three employees of every type. In half of the rounds a random employee is
+     * locked, which sometimes leaves its type without free positions.
+     */
+    private static FeasibilityIndex index(RosterAccessor roster, Random random) {
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        for (String type : TYPES) {
+            teamDefinition.put(type, 1 + random.nextInt(Math.min(3, roster.getCapacity() / TYPES.length)));
+        }
+        List<Integer> locked = random.nextBoolean()
+                ? Collections.singletonList(roster.getId(random.nextInt(roster.getCapacity()))) : null;
+        return FeasibilityIndex.build(TYPES, teamDefinition, roster, null, null, locked, random);
+    }
+
+    /**
+     * Samples a team holding the locked employees and random candidates of every type.
+     */
+    private static int[] team(FeasibilityIndex index, Random random) {
+        int[] team = new int[index.getTeamSize()];
+        for (int t = 0; t < TYPES.length; ++t) {
+            int[] locked = index.getLockedCandidates(t);
+            int[] candidates = index.getCandidates(t).clone();
+            int position = index.getOffset(t);
+            System.arraycopy(locked, 0, team, position, locked.length);
+            for (int i = 0; i < index.getCount(t) - locked.length; ++i) {
+                int pick = i + random.nextInt(candidates.length - i);
+                int candidate = candidates[pick];
+                candidates[pick] = candidates[i];
+                team[position + locked.length + i] = candidate;
+            }
+        }
+        return team;
+    }
+
+    private static long cheapest(FeasibilityIndex index, RosterAccessor roster) {
+        long cheapest = 0;
+        for (int t = 0; t < TYPES.length; ++t) {
+            int[] costs = Arrays.stream(index.getCandidates(t)).map(ordinal -> roster.getAttribute(ordinal, "SALARY"))
+                    .sorted().toArray();
+            for (int i = 0; i < index.getCount(t) - index.getLockedCandidates(t).length; ++i) {
+                cheapest += costs[i];
+            }
+            cheapest += cost(roster, index.getLockedCandidates(t));
+        }
+        return cheapest;
+    }
+
+    private static long cost(RosterAccessor roster, int[] ordinals) {
+        long cost = 0;
+        for (int ordinal : ordinals) {
+            cost += roster.getAttribute(ordinal, "SALARY");
+        }
+        return cost;
+    }
+
+    private static double[] scores(RosterAccessor roster, Random random) {
+        double[] scores = new double[roster.getCapacity()];
+        for (int ordinal = 0; ordinal < scores.length; ++ordinal) {
+            scores[ordinal] = random.nextInt(5);
+        }
+        return scores;
+    }
+
+    /**
+     * Creates a roster with the given number of employees of every type and small costs, so costs tie.
+     */
+    private static RosterAccessor roster(Random random, int perType) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        int id = 0;
+        for (String type : TYPES) {
+            for (int i = 0; i < perType; ++i) {
+                builder.add(++id, type, "Employee " + id, new int[]{random.nextInt(20)});
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BudgetSolverTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL", "SALARY");
+    private static final double EPSILON = 1e-9;
+
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setRandomSeed(1L);
+        this.configuration.getHeaderMapping().put("cost", "SALARY");
+    }
+
+    @Test
+    public void dynamicProgrammeFindsTheFittestTeam() {
+        Random random = new Random(7);
+        for (int round = 0; round < 40; ++round) {
+            Population population = population(roster(random, 7, 1, 20), random);
+            population.setBudget(budget(population, random));
+            this.configuration.setBudgetMethod("DP");
+            int[] team = solve(new BudgetSolver(population));
+            assertValid(population, team);
+            assertEquals(optimum(population, 1), score(population, team), EPSILON);
+        }
+    }
+
+    @Test
+    public void relaxationStaysWithinTheBudgetAndNearTheFittestTeam() {
+        Random random = new Random(11);
+        for (int round = 0; round < 40; ++round) {
+            Population population = population(roster(random, 7, 1, 20), random);
+            population.setBudget(budget(population, random));
+            this.configuration.setBudgetMethod("LAGRANGIAN");
+            int[] team = solve(new BudgetSolver(population));
+            assertValid(population, team);
+            double optimum = optimum(population, 1);
+            double score = score(population, team);
+            assertTrue(score <= optimum + EPSILON);
+            assertTrue(score + " of " + optimum, score >= 0.9 * optimum);
+        }
+    }
+
+    @Test
+    public void typeWithoutFreeMembersKeepsItsLockedMember() {
+        RosterAccessor roster = roster(new Random(3), 6, 1, 20);
+        Population population = population(roster, firstId(roster, "BA"));
+        population.setBudget(budget(population, new Random(3)));
+        for (String method : new String[]{"DP", "LAGRANGIAN"}) {
+            this.configuration.setBudgetMethod(method);
+            int[] team = solve(new BudgetSolver(population));
+            assertValid(population, team);
+            assertEquals(0, population.getBudgetIndex().getFreeCount(2));
+            if ("DP".equals(method)) {
+                assertEquals(optimum(population, 1), score(population, team), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void scaledCostsStayWithinTheBudget() {
+        Random random = new Random(13);
+        for (int round = 0; round < 20; ++round) {
+            Population population = population(roster(random, 6, 20000, 50000), random);
+            population.setBudget(budget(population, random));
+            this.configuration.setBudgetMethod("DP");
+            int[] team = solve(new BudgetSolver(population));
+            assertValid(population, team);
+            BudgetIndex index = population.getBudgetIndex();
+            long capacity = index.getBudget() - index.getLockedCost();
+            long scale = (capacity + BudgetSolver.MAX_COST_UNITS - 1) / BudgetSolver.MAX_COST_UNITS;
+            assertTrue(scale > 1);
+            // Exact for the costs rounded up to the scale, and swaps only improve on it
+            double score = score(population, team);
+            assertTrue(score >= optimum(population, scale) - EPSILON);
+            assertTrue(score <= optimum(population, 1) + EPSILON);
+        }
+    }
+
+    @Test
+    public void scaledCostsWithoutAFittingTeamAreRelaxed() {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        int id = 0;
+        for (String type : TYPES) {
+            builder.add(++id, type, "Employee " + id, new int[]{1, 1, 1, 20001});
+            builder.add(++id, type, "Employee " + id, new int[]{2, 2, 2, 20001});
+        }
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        for (String type : TYPES) {
+            teamDefinition.put(type, 1);
+        }
+        Population population = population(builder.build(), teamDefinition);
+        // At a scale of 4 the three costs round up to 5001 units each, above the 15000 units of the budget
+        population.setBudget(60003L);
+        this.configuration.setBudgetMethod("DP");
+        int[] team = solve(new BudgetSolver(population));
+        assertValid(population, team);
+        assertEquals(optimum(population, 1), score(population, team), EPSILON);
+    }
+
+    @Test
+    public void dynamicProgrammeAboveTheMemoryLimitFallsBackToRelaxation() {
+        Random random = new Random(17);
+        Population population = population(roster(random, 7, 1, 20), (Integer) null);
+        population.setBudget(budget(population, random));
+        this.configuration.setBudgetMethod("LAGRANGIAN");
+        BudgetSolver relaxed = new BudgetSolver(population);
+        int[] expected = solve(relaxed);
+
+        this.configuration.setBudgetMethod("DP");
+        BudgetSolver limited = new BudgetSolver(population, 0);
+        int[] team = solve(limited);
+        assertArrayEquals(expected, team);
+        assertEquals(relaxed.getMetrics().getIterations(), limited.getMetrics().getIterations());
+    }
+
+    private static int[] solve(BudgetSolver solver) {
+        solver.initialize();
+        return solver.solve().getOrdinals();
+    }
+
+    /**
+     * Checks that the team has the defined number of distinct members of every type, all locked employees and a cost
+     * within the budget.
+     */
+    private static void assertValid(Population population, int[] team) {
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        Set<Integer> members = new HashSet<>();
+        for (int t = 0; t < index.getTypes().length; ++t) {
+            for (int i = index.getOffset(t); i < index.getOffset(t) + index.getCount(t); ++i) {
+                assertEquals(t, index.getTypeOf(team[i]));
+                assertTrue(members.add(team[i]));
+            }
+            for (int locked : index.getLockedCandidates(t)) {
+                assertTrue(members.contains(locked));
+            }
+        }
+        assertEquals(index.getTeamSize(), team.length);
+        assertTrue(population.isWithinBudget(population.getTeamCost(team)));
+    }
+
+    private static double score(Population population, int[] team) {
+        double score = 0;
+        for (int ordinal : team) {
+            score += population.getWeightedScore(ordinal);
+        }
+        return score;
+    }
+
+    /**
+     * Finds the highest total score of a team within the budget by enumerating every valid team, with the costs
+     * beyond the locked employees rounded up to multiples of the given scale.
+     */
+    private static double optimum(Population population, long scale) {
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        BudgetIndex budgetIndex = population.getBudgetIndex();
+        double locked = 0;
+        for (int t = 0; t < index.getTypes().length; ++t) {
+            for (int ordinal : index.getLockedCandidates(t)) {
+                locked += population.getWeightedScore(ordinal);
+            }
+        }
+        long units = (budgetIndex.getBudget() - budgetIndex.getLockedCost()) / scale;
+        return locked + optimum(population, scale, 0, 0, 0, units);
+    }
+
+    private static double optimum(Population population, long scale, int type, int from, int taken, long units) {
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        if (type == index.getTypes().length) {
+            return 0;
+        }
+        int[] candidates = index.getCandidates(type);
+        if (taken == index.getCount(type) - index.getLockedCandidates(type).length) {
+            return optimum(population, scale, type + 1, 0, 0, units);
+        }
+        double best = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < candidates.length; ++i) {
+            long cost = (population.getBudgetIndex().getCost(candidates[i]) + scale - 1) / scale;
+            if (cost <= units) {
+                best = Math.max(best, population.getWeightedScore(candidates[i])
+                        + optimum(population, scale, type, i + 1, taken + 1, units - cost));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Picks a budget between the cheapest team and the most expensive one, so it is binding in most runs.
+     */
+    private static long budget(Population population, Random random) {
+        population.setBudget(null);
+        population.prepare();
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        long cheapest = 0;
+        long dearest = 0;
+        RosterAccessor roster = population.getRoster();
+        for (int t = 0; t < index.getTypes().length; ++t) {
+            List<Integer> costs = new ArrayList<>();
+            for (int ordinal : index.getCandidates(t)) {
+                costs.add(roster.getAttribute(ordinal, "SALARY"));
+            }
+            Collections.sort(costs);
+            int free = index.getCount(t) - index.getLockedCandidates(t).length;
+            for (int k = 0; k < free; ++k) {
+                cheapest += costs.get(k);
+                dearest += costs.get(costs.size() - 1 - k);
+            }
+            for (int ordinal : index.getLockedCandidates(t)) {
+                cheapest += roster.getAttribute(ordinal, "SALARY");
+                dearest += roster.getAttribute(ordinal, "SALARY");
+            }
+        }
+        return cheapest + (long) (random.nextDouble() * (dearest - cheapest));
+    }
+
+    /**
+     * Creates a population which locks the first employee of a random type in half of the calls.
+     */
+    private Population population(RosterAccessor roster, Random random) {
+        return population(roster, random.nextBoolean() ? firstId(roster, TYPES[random.nextInt(TYPES.length)]) : null);
+    }
+
+    /**
+     * Creates a population which takes two engineers, two QAs and one BA.
+     *
+     * @param locked id of the employee locked into the team, or null
+     */
+    private Population population(RosterAccessor roster, Integer locked) {
+        this.configuration.setLockedEmployees(locked == null ? null : Collections.singletonList(locked));
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 2);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 1);
+        return population(roster, teamDefinition);
+    }
+
+    private Population population(RosterAccessor roster, Map<String, Integer> teamDefinition) {
+        Population population = new Population(this.configuration);
+        population.setRoster(roster);
+        population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (String attribute : ATTRIBUTES.subList(0, 3)) {
+            weights.put(attribute, 1.0);
+        }
+        population.setAttributeWeights(weights);
+        return population;
+    }
+
+    /**
+     * Creates a roster with the given number of employees of every type, small attributes so scores tie, and costs
+     * between the given bounds.
+     */
+    private static RosterAccessor roster(Random random, int perType, int minCost, int maxCost) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        int id = 0;
+        for (String type : TYPES) {
+            for (int i = 0; i < perType; ++i) {
+                builder.add(++id, type, "Employee " + id, new int[]{random.nextInt(6), random.nextInt(6),
+                        random.nextInt(6), minCost + random.nextInt(maxCost - minCost + 1)});
+            }
+        }
+        return builder.build();
+    }
+
+    private static int firstId(RosterAccessor roster, String type) {
+        for (int ordinal = 0; ; ++ordinal) {
+            if (type.equals(roster.getType(ordinal))) {
+                return roster.getId(ordinal);
+            }
+        }
+    }
+}
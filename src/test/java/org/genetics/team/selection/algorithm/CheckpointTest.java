@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CheckpointTest {
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Configuration configuration;
+    private Path path;
+
+    @Before
+    public void setUp() throws IOException {
+        this.path = this.folder.getRoot().toPath().resolve("run.ckpt");
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setRandomSeed(1L);
+        this.configuration.setSolver("GA");
+        this.configuration.setGenerations(20);
+        this.configuration.setResume(false);
+        this.configuration.setCheckpointPath(this.path.toString());
+        this.configuration.setCheckpointInterval(5);
+        this.configuration.setEventLogPath(null);
+    }
+
+    @Test
+    public void roundTripKeepsTheStateAndTheRandomGenerators() throws IOException {
+        Random algorithmRandom = new Random(11);
+        Random populationRandom = new Random(12);
+        algorithmRandom.nextInt();
+        populationRandom.nextGaussian();
+        Checkpoint checkpoint = new Checkpoint();
+        checkpoint.setGeneration(40);
+        checkpoint.setFittestGen(37);
+        checkpoint.setRosterSize(60);
+        checkpoint.setRosterDigest(new byte[]{1, 2, 3});
+        Map<String, Integer> teamDefinition = new LinkedHashMap<>();
+        teamDefinition.put("ENGINEER", 2);
+        teamDefinition.put("QA", 1);
+        checkpoint.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("EXPERIENCE", 0.5);
+        checkpoint.setAttributeWeights(weights);
+        checkpoint.setFinished(true);
+        checkpoint.setTeams(new int[][]{{0, 1, 2}, {3, 4, 5}});
+        checkpoint.setFitness(new double[]{1.5, 2.5});
+        checkpoint.setCurrentFittest(new int[]{3, 4, 5});
+        checkpoint.setPreviousFittest(new int[]{0, 1, 2});
+        checkpoint.setAlgorithmRandom(algorithmRandom);
+        checkpoint.setPopulationRandom(populationRandom);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            checkpoint.write(out);
+        }
+        Checkpoint read = Checkpoint.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(40, read.getGeneration());
+        assertEquals(37, read.getFittestGen());
+        assertEquals(60, read.getRosterSize());
+        assertArrayEquals(new byte[]{1, 2, 3}, read.getRosterDigest());
+        assertEquals(teamDefinition, read.getTeamDefinition());
+        assertEquals(weights, read.getAttributeWeights());
+        assertTrue(read.isFinished());
+        assertArrayEquals(checkpoint.getTeams(), read.getTeams());
+        assertArrayEquals(checkpoint.getFitness(), read.getFitness(), 0);
+        assertArrayEquals(checkpoint.getCurrentFittest(), read.getCurrentFittest());
+        assertArrayEquals(checkpoint.getPreviousFittest(), read.getPreviousFittest());
+        Random restoredAlgorithm = read.getAlgorithmRandom();
+        Random restoredPopulation = read.getPopulationRandom();
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(algorithmRandom.nextLong(), restoredAlgorithm.nextLong());
+            assertEquals(populationRandom.nextGaussian(), restoredPopulation.nextGaussian(), 0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        Checkpoint.read(new DataInputStream(new ByteArrayInputStream(new byte[]{0, 1, 2, 3, 4, 5, 6, 7})));
+    }
+
+    @Test
+    public void checkpointOfAFinishedRunIsNotResumed() throws IOException {
+        RosterAccessor roster = roster(0);
+        run(population(roster, 1.0));
+        Checkpoint checkpoint = CheckpointManager.read(this.path.toString());
+        assertTrue(checkpoint.isFinished());
+        assertResumeFails(population(roster, 1.0));
+
+        markUnfinished(checkpoint);
+        Algorithm algorithm = new Algorithm(population(roster, 1.0));
+        algorithm.resume();
+    }
+
+    @Test
+    public void checkpointIsNotResumedOnAnotherInputOrOtherWeights() throws IOException {
+        RosterAccessor roster = roster(0);
+        run(population(roster, 1.0));
+        markUnfinished(CheckpointManager.read(this.path.toString()));
+        // Same size and team definition, one attribute value differs
+        assertResumeFails(population(roster(1), 1.0));
+        assertResumeFails(population(roster, 2.0));
+    }
+
+    @Test
+    public void incompatibleCheckpointStartsANewRun() throws IOException {
+        RosterAccessor roster = roster(0);
+        run(population(roster, 1.0));
+        markUnfinished(CheckpointManager.read(this.path.toString()));
+        this.configuration.setResume(true);
+        Population population = population(roster(1), 1.0);
+        Algorithm algorithm = new Algorithm(population);
+        algorithm.initialize();
+        // Only a new run generates the initial population
+        assertNotNull(population.getInitialPopulation());
+    }
+
+    private void run(Population population) {
+        Algorithm algorithm = new Algorithm(population);
+        algorithm.initialize();
+        algorithm.solve();
+        assertTrue(Files.exists(this.path));
+    }
+
+    private void assertResumeFails(Population population) throws IOException {
+        try {
+            new Algorithm(population).resume();
+            fail("Checkpoint resumed");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    private void markUnfinished(Checkpoint checkpoint) throws IOException {
+        checkpoint.setFinished(false);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(this.path))) {
+            checkpoint.write(out);
+        }
+    }
+
+    private Population population(RosterAccessor roster, double weight) {
+        Population population = new Population(this.configuration);
+        population.setRoster(roster);
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 2);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 1);
+        population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (String attribute : ATTRIBUTES) {
+            weights.put(attribute, weight);
+        }
+        population.setAttributeWeights(weights);
+        return population;
+    }
+
+    /**
+     * Creates a roster of 20 employees of every type. The offset changes one attribute of the last employee.
+     */
+    private static RosterAccessor roster(int offset) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        String[] types = {"ENGINEER", "QA", "BA"};
+        for (int id = 0; id < 60; ++id) {
+            builder.add(id + 1, types[id % 3], "Employee " + id,
+                    new int[]{id % 7, id % 5, id == 59 ? offset : id % 4});
+        }
+        return builder.build();
+    }
+}
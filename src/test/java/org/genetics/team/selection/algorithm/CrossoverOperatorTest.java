@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CrossoverOperatorTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+
+    @Test
+    public void pmxOffspringHoldDistinctMembersOfTheParentSegments() {
+        Random random = new Random(1);
+        FeasibilityIndex index = index(random, 4, 3, 1);
+        CrossoverOperator pmx = CrossoverOperator.create("PMX", index);
+        for (int round = 0; round < 2000; ++round) {
+            int[] parent1 = team(index, random);
+            int[] parent2 = team(index, random);
+            int[] child1 = new int[parent1.length];
+            int[] child2 = new int[parent1.length];
+            pmx.cross(parent1, parent2, child1, child2, random);
+            for (int[] child : new int[][]{child1, child2}) {
+                for (int t = 0; t < TYPES.length; ++t) {
+                    Set<Integer> parents = new HashSet<>();
+                    Set<Integer> members = new HashSet<>();
+                    for (int i = index.getOffset(t); i < index.getOffset(t) + index.getCount(t); ++i) {
+                        parents.add(parent1[i]);
+                        parents.add(parent2[i]);
+                    }
+                    for (int i = index.getOffset(t); i < index.getOffset(t) + index.getCount(t); ++i) {
+                        assertTrue(parents.contains(child[i]));
+                        assertTrue(members.add(child[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void offspringOfEqualParentsEqualTheParents() {
+        Random random = new Random(2);
+        FeasibilityIndex index = index(random, 4, 3, 1);
+        for (String name : new String[]{"SEGMENT", "UNIFORM", "PMX"}) {
+            CrossoverOperator operator = CrossoverOperator.create(name, index);
+            for (int round = 0; round < 100; ++round) {
+                int[] parent = team(index, random);
+                int[] child1 = new int[parent.length];
+                int[] child2 = new int[parent.length];
+                operator.cross(parent, parent.clone(), child1, child2, random);
+                assertArrayEquals(parent, child1);
+                assertArrayEquals(parent, child2);
+            }
+        }
+    }
+
+    @Test
+    public void segmentAndUniformOffspringShareOutEveryPosition() {
+        Random random = new Random(3);
+        FeasibilityIndex index = index(random, 5, 2, 1);
+        for (String name : new String[]{"SEGMENT", "UNIFORM"}) {
+            CrossoverOperator operator = CrossoverOperator.create(name, index);
+            for (int round = 0; round < 500; ++round) {
+                int[] parent1 = team(index, random);
+                int[] parent2 = team(index, random);
+                int[] child1 = new int[parent1.length];
+                int[] child2 = new int[parent1.length];
+                operator.cross(parent1, parent2, child1, child2, random);
+                for (int i = 0; i < parent1.length; ++i) {
+                    assertTrue(child1[i] == parent1[i] && child2[i] == parent2[i]
+                            || child1[i] == parent2[i] && child2[i] == parent1[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void createFallsBackToTheSegmentCrossover() {
+        FeasibilityIndex index = index(new Random(4), 1, 1, 1);
+        assertEquals(SegmentCrossover.class, CrossoverOperator.create(null, index).getClass());
+        assertEquals(PartiallyMappedCrossover.class, CrossoverOperator.create("pmx", index).getClass());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createRejectsAnUnknownOperator() {
+        CrossoverOperator.create("TWO_POINT", index(new Random(5), 1, 1, 1));
+    }
+
+    private static FeasibilityIndex index(Random random, int engineers, int qas, int bas) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(Collections.singletonList("EXPERIENCE"));
+        for (int id = 1; id <= 30; ++id) {
+            builder.add(id, TYPES[id % 3], "Employee " + id, new int[]{random.nextInt(10)});
+        }
+        RosterAccessor roster = builder.build();
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", engineers);
+        teamDefinition.put("QA", qas);
+        teamDefinition.put("BA", bas);
+        return FeasibilityIndex.build(TYPES, teamDefinition, roster, null, null, null, random);
+    }
+
+    /**
+     * Draws distinct random candidates for every segment.
+     */
+    private static int[] team(FeasibilityIndex index, Random random) {
+        int[] team = new int[index.getTeamSize()];
+        for (int t = 0; t < TYPES.length; ++t) {
+            int[] candidates = index.getCandidates(t).clone();
+            for (int i = 0; i < index.getCount(t); ++i) {
+                int pick = i + random.nextInt(candidates.length - i);
+                int candidate = candidates[pick];
+                candidates[pick] = candidates[i];
+                candidates[i] = candidate;
+                team[index.getOffset(t) + i] = candidate;
+            }
+        }
+        return team;
+    }
+}
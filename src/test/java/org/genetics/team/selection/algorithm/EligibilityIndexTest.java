@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class EligibilityIndexTest {
+    private static final String[] TYPES = {"ENGINEER", "QA"};
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE");
+    private static final String[] OPERATORS = {">=", ">", "<=", "<", "=", "!=", "=="};
+
+    @Test
+    public void selectionMatchesAScanOfTheRoster() {
+        Random random = new Random(3);
+        RosterAccessor roster = roster(random, 300);
+        EligibilityIndex index = new EligibilityIndex(roster, TYPES, ATTRIBUTES);
+        for (int round = 0; round < 500; ++round) {
+            List<ThresholdRule> rules = new ArrayList<>();
+            for (int r = random.nextInt(4); r > 0; --r) {
+                String type = random.nextInt(3) == 0 ? "" : TYPES[random.nextInt(TYPES.length)] + ": ";
+                rules.add(ThresholdRule.parse(type + ATTRIBUTES.get(random.nextInt(ATTRIBUTES.size())) + " "
+                        + OPERATORS[random.nextInt(OPERATORS.length)] + " " + (random.nextInt(14) - 5)));
+            }
+            assertEquals(rules.toString(), scan(roster, rules), index.select(rules));
+        }
+    }
+
+    @Test
+    public void employeesOfOtherTypesAreNotSelected() {
+        RosterAccessor roster = roster(new Random(5), 50);
+        BitSet eligible = new EligibilityIndex(roster, new String[]{"QA"}, ATTRIBUTES)
+                .select(Collections.emptyList());
+        for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+            assertEquals("QA".equals(roster.getType(ordinal)), eligible.get(ordinal));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownAttribute() {
+        new EligibilityIndex(roster(new Random(1), 10), TYPES, ATTRIBUTES)
+                .select(Collections.singletonList(ThresholdRule.parse("SALARY > 1")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownType() {
+        new EligibilityIndex(roster(new Random(1), 10), TYPES, ATTRIBUTES)
+                .select(Collections.singletonList(ThresholdRule.parse("BA: EXPERIENCE > 1")));
+    }
+
+    /**
+     * Creates a roster of small attribute values, including negative ones, so rules hit many equal values.
+     */
+    private static RosterAccessor roster(Random random, int employees) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        for (int id = 0; id < employees; ++id) {
+            builder.add(id, TYPES[random.nextInt(TYPES.length)], "Employee " + id,
+                    new int[]{random.nextInt(10) - 3, random.nextInt(10) - 3});
+        }
+        return builder.build();
+    }
+
+    private static BitSet scan(RosterAccessor roster, List<ThresholdRule> rules) {
+        BitSet eligible = new BitSet();
+        for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+            String type = roster.getType(ordinal);
+            boolean matches = type != null;
+            for (ThresholdRule rule : rules) {
+                if (matches && (rule.getType() == null || rule.getType().equals(type))) {
+                    matches = matches(roster.getAttribute(ordinal, rule.getAttribute()), rule);
+                }
+            }
+            eligible.set(ordinal, matches);
+        }
+        return eligible;
+    }
+
+    private static boolean matches(int value, ThresholdRule rule) {
+        int threshold = rule.getThreshold();
+        switch (rule.getOperator()) {
+            case ">=":
+                return value >= threshold;
+            case ">":
+                return value > threshold;
+            case "<=":
+                return value <= threshold;
+            case "<":
+                return value < threshold;
+            case "=":
+                return value == threshold;
+            default:
+                return value != threshold;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventLogTest {
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void nonFiniteNumbersAreWrittenAsNull() {
+        assertEquals("null", EventLog.appendNumber(new StringBuilder(), Double.NaN).toString());
+        assertEquals("null", EventLog.appendNumber(new StringBuilder(), Double.POSITIVE_INFINITY).toString());
+        assertEquals("null", EventLog.appendNumber(new StringBuilder(), Double.NEGATIVE_INFINITY).toString());
+        assertEquals("0.25", EventLog.appendNumber(new StringBuilder(), 0.25).toString());
+    }
+
+    @Test
+    public void linesAreValidJson() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("events.ndjson");
+        EventLog eventLog = new EventLog(path.toString());
+        eventLog.emit(() -> EventLog.appendNumber(new StringBuilder("{\"name\":")
+                .append(EventLog.quote("a \"quoted\"\\ name\n")).append(",\"value\":"), Double.NaN)
+                .append('}').toString());
+        eventLog.emit(() -> EventLog.appendNumber(new StringBuilder("{\"value\":"), 1e-300).append('}').toString());
+        eventLog.close();
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        for (String line : lines) {
+            assertValidJson(line);
+        }
+    }
+
+    @Test
+    public void runWritesValidJsonLines() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("run.ndjson");
+        Configuration configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        configuration.setRandomSeed(1L);
+        configuration.setSolver("GA");
+        configuration.setGenerations(5);
+        configuration.setResume(false);
+        configuration.setCheckpointPath(null);
+        configuration.setEventLogPath(path.toString());
+        Population population = new Population(configuration);
+        population.setRoster(roster(new Random(1)));
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 2);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 1);
+        population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (String attribute : ATTRIBUTES) {
+            weights.put(attribute, 1.0);
+        }
+        population.setAttributeWeights(weights);
+        Solver solver = SolverFactory.createSolver(population);
+        solver.initialize();
+        solver.solve();
+
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        assertTrue(lines.get(0).startsWith("{\"event\":\"start\""));
+        assertTrue(lines.get(lines.size() - 1).startsWith("{\"event\":\"end\""));
+        for (String line : lines) {
+            assertValidJson(line);
+        }
+    }
+
+    private static RosterAccessor roster(Random random) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        String[] types = {"ENGINEER", "QA", "BA"};
+        for (int id = 0; id < 60; ++id) {
+            builder.add(id + 1, types[id % 3], "Employee " + id,
+                    new int[]{random.nextInt(10), random.nextInt(10), random.nextInt(10)});
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parses a line with a strict JSON grammar, which has no NaN, infinities or unquoted strings.
+     */
+    private static void assertValidJson(String line) {
+        int end = new JsonParser(line).value(0);
+        assertEquals(line, line.length(), end);
+    }
+
+    /**
+     * Recursive descent parser of RFC 8259 JSON without whitespace between tokens, as the event log writes it.
+     */
+    private static final class JsonParser {
+        private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+        private final String text;
+
+        private JsonParser(String text) {
+            this.text = text;
+        }
+
+        private int value(int at) {
+            char c = charAt(at);
+            if (c == '{') {
+                return members(at + 1, '}', true);
+            } else if (c == '[') {
+                return members(at + 1, ']', false);
+            } else if (c == '"') {
+                return string(at);
+            } else if (this.text.startsWith("true", at) || this.text.startsWith("null", at)) {
+                return at + 4;
+            } else if (this.text.startsWith("false", at)) {
+                return at + 5;
+            }
+            return number(at);
+        }
+
+        private int members(int at, char close, boolean named) {
+            if (charAt(at) == close) {
+                return at + 1;
+            }
+            while (true) {
+                if (named) {
+                    at = string(at);
+                    expect(at++, ':');
+                }
+                at = value(at);
+                if (charAt(at) == close) {
+                    return at + 1;
+                }
+                expect(at++, ',');
+            }
+        }
+
+        private int string(int at) {
+            expect(at++, '"');
+            while (charAt(at) != '"') {
+                char c = charAt(at++);
+                if (c < 0x20) {
+                    throw new AssertionError("Control character in a string of " + this.text);
+                }
+                if (c == '\\') {
+                    char escaped = charAt(at++);
+                    if (escaped == 'u') {
+                        at += 4;
+                    } else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+                        throw new AssertionError("Invalid escape in " + this.text);
+                    }
+                }
+            }
+            return at + 1;
+        }
+
+        private int number(int at) {
+            Matcher matcher = NUMBER.matcher(this.text);
+            if (!matcher.find(at) || matcher.start() != at || matcher.end() == at) {
+                throw new AssertionError("Invalid value at " + at + " of " + this.text);
+            }
+            return matcher.end();
+        }
+
+        private void expect(int at, char c) {
+            if (charAt(at) != c) {
+                throw new AssertionError("Expected " + c + " at " + at + " of " + this.text);
+            }
+        }
+
+        private char charAt(int at) {
+            if (at >= this.text.length()) {
+                throw new AssertionError("Unexpected end of " + this.text);
+            }
+            return this.text.charAt(at);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FeasibilityIndexTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+
+    @Test
+    public void candidatesAreTheEligibleEmployeesOfTheirType() {
+        Random random = new Random(1);
+        RosterAccessor roster = roster(random, 30);
+        BitSet eligible = new BitSet();
+        for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+            eligible.set(ordinal, roster.getId(ordinal) % 4 != 0);
+        }
+        FeasibilityIndex index = FeasibilityIndex.build(TYPES, definition(2, 2, 2), roster,
+                Collections.singletonList(5), eligible, Collections.singletonList(7), random);
+        for (int t = 0; t < TYPES.length; ++t) {
+            Set<Integer> expected = new HashSet<>();
+            Set<Integer> expectedLocked = new HashSet<>();
+            for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+                int id = roster.getId(ordinal);
+                if (TYPES[t].equals(roster.getType(ordinal)) && eligible.get(ordinal) && id != 5) {
+                    (id == 7 ? expectedLocked : expected).add(ordinal);
+                }
+            }
+            Set<Integer> candidates = new HashSet<>();
+            Arrays.stream(index.getCandidates(t)).forEach(candidates::add);
+            assertEquals(expected, candidates);
+            Set<Integer> locked = new HashSet<>();
+            Arrays.stream(index.getLockedCandidates(t)).forEach(locked::add);
+            assertEquals(expectedLocked, locked);
+        }
+        for (int ordinal = 0; ordinal < roster.getCapacity(); ++ordinal) {
+            assertEquals(roster.getId(ordinal) == 7, index.isLocked(ordinal));
+            assertEquals(eligible.get(ordinal) && roster.getId(ordinal) != 5, index.isEligible(ordinal));
+        }
+    }
+
+    @Test
+    public void buildRejectsInfeasibleDefinitions() {
+        RosterAccessor roster = roster(new Random(2), 6);
+        assertInfeasible(roster, definition(3, 2, 3), null, null, "3 BA requested but only 2 available");
+        assertInfeasible(roster, definition(0, 0, 0), null, null, "does not request any employees");
+        assertInfeasible(roster, definition(1, 1, 1), Collections.singletonList(1), Collections.singletonList(1),
+                "Employee 1 is locked but excluded or not eligible");
+        assertInfeasible(roster, definition(1, 1, 1), null, Collections.singletonList(99),
+                "Locked employees not found in the input: [99]");
+        assertInfeasible(roster, definition(1, 1, 1), null, Arrays.asList(1, 4), "2 ENGINEER locked but only 1");
+        Map<String, Integer> missing = definition(1, 1, 1);
+        missing.remove("QA");
+        assertInfeasible(roster, missing, null, null, "No valid employee count is defined for QA");
+    }
+
+    @Test
+    public void repairMakesAnyTeamValid() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; ++round) {
+            RosterAccessor roster = roster(random, 3 * (3 + random.nextInt(8)));
+            List<Integer> locked = random.nextBoolean() ? Collections.singletonList(1 + random.nextInt(3)) : null;
+            FeasibilityIndex index = FeasibilityIndex.build(TYPES,
+                    definition(1 + random.nextInt(3), 1 + random.nextInt(3), 1 + random.nextInt(3)), roster,
+                    null, null, locked, random);
+            int[] team = new int[index.getTeamSize()];
+            for (int i = 0; i < team.length; ++i) {
+                // Out of range, duplicate and wrongly typed members
+                team[i] = random.nextInt(roster.getCapacity() + 2) - 1;
+            }
+            index.repair(team, random);
+            assertValid(index, team);
+            assertFalse(index.repair(team.clone(), random));
+        }
+    }
+
+    private static void assertValid(FeasibilityIndex index, int[] team) {
+        Set<Integer> members = new HashSet<>();
+        for (int t = 0; t < TYPES.length; ++t) {
+            for (int i = index.getOffset(t); i < index.getOffset(t) + index.getCount(t); ++i) {
+                assertEquals(t, index.getTypeOf(team[i]));
+                assertTrue(index.isEligible(team[i]));
+                assertTrue(members.add(team[i]));
+            }
+            for (int locked : index.getLockedCandidates(t)) {
+                assertTrue(members.contains(locked));
+            }
+        }
+    }
+
+    private static void assertInfeasible(RosterAccessor roster, Map<String, Integer> teamDefinition,
+                                         List<Integer> excluded, List<Integer> locked, String problem) {
+        try {
+            FeasibilityIndex.build(TYPES, teamDefinition, roster, excluded, null, locked, new Random(1));
+            fail("Infeasible definition " + teamDefinition + " accepted");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(problem));
+        }
+    }
+
+    private static Map<String, Integer> definition(int engineers, int qas, int bas) {
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", engineers);
+        teamDefinition.put("QA", qas);
+        teamDefinition.put("BA", bas);
+        return teamDefinition;
+    }
+
+    /**
+     * Creates a roster with the given number of employees in total, with types in turn, so that the ids 1 and 4 are
+     * engineers.
+     */
+    private static RosterAccessor roster(Random random, int employees) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(Collections.singletonList("EXPERIENCE"));
+        for (int id = 1; id <= employees; ++id) {
+            builder.add(id, TYPES[(id - 1) % 3], "Employee " + id, new int[]{random.nextInt(10)});
+        }
+        return builder.build();
+    }
+}
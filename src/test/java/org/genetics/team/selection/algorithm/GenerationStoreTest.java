@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GenerationStoreTest {
+    private final ZobristHash zobristHash = new ZobristHash(16);
+
+    @Test
+    public void teamsOfTheSameMembersAreTheSame() {
+        GenerationStore store = new GenerationStore(3, 2, this.zobristHash);
+        store.add(new int[]{1, 2, 3}, 1);
+        store.add(new int[]{3, 1, 2}, 1);
+        store.add(new int[]{1, 2, 4}, 1);
+        assertTrue(store.sameTeam(0, 1));
+        assertFalse(store.sameTeam(0, 2));
+        assertTrue(store.contains(new int[]{2, 3, 1}));
+        assertFalse(store.contains(new int[]{2, 3, 5}));
+    }
+
+    @Test
+    public void equalHashesOfDifferentMembersAreNotTheSameTeam() {
+        GenerationStore store = new GenerationStore(2, 2, this.zobristHash);
+        store.add(new int[]{1, 2}, 1);
+        store.add(new int[]{3, 4}, 1);
+        // Simulates a hash collision
+        store.set(1, new int[]{3, 4}, 1, store.getHash(0));
+        assertFalse(store.sameTeam(0, 1));
+
+        GenerationStore other = new GenerationStore(2, 1, this.zobristHash);
+        other.add(new int[]{5, 6}, 1);
+        other.set(0, new int[]{5, 6}, 1, store.getHash(0));
+        assertFalse(store.contains(other, 0));
+        other.set(0, new int[]{2, 1}, 1);
+        assertTrue(store.contains(other, 0));
+    }
+
+    @Test
+    public void sortDescendingOrdersIndexesByFitness() {
+        int[] indexes = new int[40];
+        double[] fitness = new double[40];
+        for (int i = 0; i < indexes.length; ++i) {
+            indexes[i] = i;
+            fitness[i] = (i * 17) % 40;
+        }
+        GenerationStore.sortDescending(indexes, fitness, 0, indexes.length);
+        for (int i = 1; i < indexes.length; ++i) {
+            assertTrue(fitness[indexes[i - 1]] >= fitness[indexes[i]]);
+        }
+    }
+
+    @Test
+    public void storeGrowsAndKeepsTheTeams() {
+        GenerationStore store = new GenerationStore(2, 1, this.zobristHash);
+        for (int i = 0; i < 7; ++i) {
+            store.add(new int[]{i, i + 1}, i);
+        }
+        assertEquals(7, store.size());
+        assertArrayEquals(new int[]{5, 6}, store.getTeam(5));
+        assertEquals(this.zobristHash.hash(new int[]{6, 5}), store.getHash(5));
+    }
+
+    @Test
+    public void teamsAreLaidOutOneAfterAnother() {
+        GenerationStore store = new GenerationStore(3, 4, this.zobristHash);
+        store.add(new int[]{1, 2, 3}, 0.5);
+        store.add(new int[]{4, 5, 6}, 1.5);
+        int[] genes = store.getGenes();
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, Arrays.copyOf(genes, 6));
+        assertArrayEquals(new double[]{0.5, 1.5}, store.getFitness(), 0);
+        assertEquals(1.5, store.getFitness(1), 0);
+        int[] team = new int[3];
+        store.copyTeam(1, team);
+        assertArrayEquals(new int[]{4, 5, 6}, team);
+        assertTrue(store.equalsTeam(1, team));
+        assertFalse(store.equalsTeam(1, new int[]{6, 5, 4}));
+    }
+
+    @Test
+    public void teamsOfAnotherStoreKeepTheirFitnessAndHash() {
+        GenerationStore source = new GenerationStore(2, 2, this.zobristHash);
+        source.add(new int[]{1, 2}, 3);
+        source.add(new int[]{3, 4}, 5);
+        GenerationStore target = new GenerationStore(2, 1, this.zobristHash);
+        target.add(new int[]{7, 8}, 1);
+        target.clear();
+        assertEquals(0, target.size());
+
+        assertEquals(0, target.add(source, 1));
+        assertEquals(1, target.add(source, 0));
+        assertArrayEquals(new int[]{3, 4}, target.getTeam(0));
+        assertEquals(5, target.getFitness(0), 0);
+        assertEquals(source.getHash(0), target.getHash(1));
+        assertTrue(target.contains(source, 0));
+        assertFalse(target.contains(new int[]{7, 8}));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LocalSearchTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL", "SALARY");
+    private static final int TEAMS = 20;
+
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setRandomSeed(1L);
+        this.configuration.getHeaderMapping().put("cost", "SALARY");
+    }
+
+    @Test
+    public void refinedTeamsStayWithinTheBudget() {
+        Random random = new Random(3);
+        for (LocalSearch.Strategy strategy : new LocalSearch.Strategy[]{LocalSearch.Strategy.FIRST_IMPROVEMENT,
+                LocalSearch.Strategy.BEST_IMPROVEMENT}) {
+            for (int round = 0; round < 20; ++round) {
+                Population population = population(roster(random, 12), 30L + random.nextInt(60));
+                GenerationStore teams = new GenerationStore(population.getFeasibilityIndex().getTeamSize(), TEAMS,
+                        population.getZobristHash());
+                population.sampleTeams(teams, TEAMS);
+                double[] before = Arrays.copyOf(teams.getFitnessValues(), TEAMS);
+
+                new LocalSearch(population, strategy, 1000).refine(teams, TEAMS);
+                for (int i = 0; i < TEAMS; ++i) {
+                    int[] team = teams.getTeam(i);
+                    assertTrue(population.isWithinBudget(population.getTeamCost(team)));
+                    assertTrue(teams.getFitness(i) >= before[i] - 1e-9);
+                    assertFalse(strategy + " left an improving swap", hasImprovingSwap(population, team));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void teamsWithoutABudgetClimbToTheFittestTeam() {
+        Random random = new Random(5);
+        this.configuration.setLockedEmployees(Collections.singletonList(1));
+        for (LocalSearch.Strategy strategy : new LocalSearch.Strategy[]{LocalSearch.Strategy.FIRST_IMPROVEMENT,
+                LocalSearch.Strategy.BEST_IMPROVEMENT}) {
+            Population population = population(roster(random, 12), null);
+            double optimum = population.calculateOptimalFitness();
+            GenerationStore teams = new GenerationStore(population.getFeasibilityIndex().getTeamSize(), TEAMS,
+                    population.getZobristHash());
+            population.sampleTeams(teams, TEAMS);
+
+            new LocalSearch(population, strategy, 1000).refine(teams, TEAMS);
+            for (int i = 0; i < TEAMS; ++i) {
+                assertEquals(strategy.toString(), optimum, teams.getFitness(i), 1e-9);
+                assertTrue(Arrays.stream(teams.getTeam(i)).anyMatch(ordinal -> ordinal == 0));
+            }
+        }
+    }
+
+    @Test
+    public void movesAreLimitedToTheFirstTeams() {
+        Population population = population(roster(new Random(7), 12), null);
+        GenerationStore teams = new GenerationStore(population.getFeasibilityIndex().getTeamSize(), TEAMS,
+                population.getZobristHash());
+        population.sampleTeams(teams, TEAMS);
+        int[][] before = new int[TEAMS][];
+        for (int i = 0; i < TEAMS; ++i) {
+            before[i] = teams.getTeam(i);
+        }
+
+        new LocalSearch(population, LocalSearch.Strategy.BEST_IMPROVEMENT, 1).refine(teams, TEAMS / 2);
+        for (int i = 0; i < TEAMS; ++i) {
+            int changed = 0;
+            int[] team = teams.getTeam(i);
+            for (int j = 0; j < team.length; ++j) {
+                changed += team[j] == before[i][j] ? 0 : 1;
+            }
+            assertTrue(changed <= (i < TEAMS / 2 ? 1 : 0));
+        }
+    }
+
+    /**
+     * Checks every swap of an unlocked member for a non member of its type against the budget and the scores.
+     */
+    private static boolean hasImprovingSwap(Population population, int[] team) {
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        long cost = population.getTeamCost(team);
+        for (int t = 0; t < index.getTypes().length; ++t) {
+            int from = index.getOffset(t);
+            int to = from + index.getCount(t);
+            for (int i = from; i < to; ++i) {
+                if (index.isLocked(team[i])) {
+                    continue;
+                }
+                for (int candidate : index.getCandidates(t)) {
+                    boolean member = false;
+                    for (int j = from; j < to; ++j) {
+                        member |= team[j] == candidate;
+                    }
+                    if (!member && population.getWeightedScore(candidate) > population.getWeightedScore(team[i])
+                            && population.isWithinBudget(cost + population.getCostChange(team[i], candidate))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a prepared population which takes two engineers, two QAs and one BA within the given budget.
+     *
+     * @param budget budget of the team, or null if it is not limited
+     */
+    private Population population(RosterAccessor roster, Long budget) {
+        Population population = new Population(this.configuration);
+        population.setRoster(roster);
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 2);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 1);
+        population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (String attribute : ATTRIBUTES.subList(0, 3)) {
+            weights.put(attribute, 1.0);
+        }
+        population.setAttributeWeights(weights);
+        population.setBudget(budget);
+        population.prepare();
+        return population;
+    }
+
+    /**
+     * Creates a roster with the given number of employees of every type and costs from 1 to 20, so budgets from 30
+     * admit the cheapest teams and rule out most of the fittest.
+     */
+    private static RosterAccessor roster(Random random, int perType) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        int id = 0;
+        for (String type : TYPES) {
+            for (int i = 0; i < perType; ++i) {
+                builder.add(++id, type, "Employee " + id, new int[]{random.nextInt(6), random.nextInt(6),
+                        random.nextInt(6), 1 + random.nextInt(20)});
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.beans.Team;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LocalSolverTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final String[] SOLVERS = {"SA", "TABU"};
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL", "SALARY");
+    private static final double EPSILON = 1e-9;
+
+    private Configuration configuration;
+    private RosterAccessor roster;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setRandomSeed(1L);
+        this.configuration.getHeaderMapping().put("cost", "SALARY");
+        this.configuration.setMaxIterations(20000);
+        this.configuration.setStagnationLimit(5000);
+        Random random = new Random(7);
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        int id = 0;
+        for (String type : TYPES) {
+            for (int i = 0; i < 15; ++i) {
+                builder.add(++id, type, "Employee " + id, new int[]{random.nextInt(10), random.nextInt(10),
+                        random.nextInt(10), 10 + random.nextInt(11)});
+            }
+        }
+        this.roster = builder.build();
+    }
+
+    @Test
+    public void solversFindTheFittestTeamOfASmallRoster() {
+        for (String name : SOLVERS) {
+            Population population = population();
+            double optimum = population.calculateOptimalFitness();
+            Solver solver = SolverFactory.createSolver(population, name);
+            solver.initialize();
+            Team team = solver.solve();
+            assertValid(population, team.getOrdinals());
+            assertEquals(name, optimum, team.getFitness(), EPSILON);
+            assertEquals(name, solver.getMetrics().getSolver());
+            assertTrue(solver.getMetrics().getIterations() > 0);
+            assertTrue(solver.getMetrics().getEvaluations() > 0);
+        }
+    }
+
+    @Test
+    public void solversStayWithinTheBudget() {
+        for (String name : SOLVERS) {
+            Population population = population();
+            population.setBudget(70L);
+            Solver solver = SolverFactory.createSolver(population, name);
+            solver.initialize();
+            int[] team = solver.solve().getOrdinals();
+            assertValid(population, team);
+            assertTrue(name, population.isWithinBudget(population.getTeamCost(team)));
+        }
+    }
+
+    @Test
+    public void seededRunsAreReproducible() {
+        this.configuration.setMaxIterations(500);
+        for (String name : SOLVERS) {
+            Solver first = SolverFactory.createSolver(population(), name);
+            first.initialize();
+            Solver second = SolverFactory.createSolver(population(), name);
+            second.initialize();
+            assertArrayEquals(name, first.solve().getOrdinals(), second.solve().getOrdinals());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSolverIsRejected() {
+        SolverFactory.createSolver(population(), "ANT");
+    }
+
+    /**
+     * Creates a population which takes two engineers, two QAs and one BA, and locks the first engineer.
+     */
+    private Population population() {
+        this.configuration.setLockedEmployees(Collections.singletonList(1));
+        Population population = new Population(this.configuration);
+        population.setRoster(this.roster);
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 2);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 1);
+        population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (String attribute : ATTRIBUTES.subList(0, 3)) {
+            weights.put(attribute, 1.0);
+        }
+        population.setAttributeWeights(weights);
+        return population;
+    }
+
+    /**
+     * Checks that the team has the defined number of distinct members of every type and all locked employees.
+     */
+    private static void assertValid(Population population, int[] team) {
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        Set<Integer> members = new HashSet<>();
+        for (int t = 0; t < index.getTypes().length; ++t) {
+            for (int i = index.getOffset(t); i < index.getOffset(t) + index.getCount(t); ++i) {
+                assertEquals(t, index.getTypeOf(team[i]));
+                assertTrue(members.add(team[i]));
+            }
+            for (int locked : index.getLockedCandidates(t)) {
+                assertTrue(members.contains(locked));
+            }
+        }
+        assertEquals(index.getTeamSize(), team.length);
+    }
+}
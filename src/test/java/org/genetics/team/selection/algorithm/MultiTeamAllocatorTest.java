@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.beans.ProjectDefinition;
+import org.genetics.team.selection.beans.Team;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultiTeamAllocatorTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL");
+    private static final int EXCLUDED = 1;
+    private static final double EPSILON = 1e-9;
+
+    private Configuration configuration;
+    private Population population;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setRandomSeed(1L);
+        this.configuration.setGenerations(30);
+        this.configuration.setInitialPopulationSize(20);
+        this.configuration.setExcludedEmployees(Collections.singletonList(EXCLUDED));
+        Random random = new Random(7);
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        int id = 0;
+        for (String type : TYPES) {
+            for (int i = 0; i < 8; ++i) {
+                builder.add(++id, type, "Employee " + id, new int[]{random.nextInt(10), random.nextInt(10),
+                        random.nextInt(10)});
+            }
+        }
+        this.population = new Population(this.configuration);
+        this.population.setRoster(builder.build());
+    }
+
+    @Test
+    public void projectsGetDisjointTeamsOfTheirDefinitions() {
+        List<ProjectDefinition> projects = Arrays.asList(project("Apollo", 2, 2, 1), project("Gemini", 2, 3, 1),
+                project("Mercury", 3, 2, 2));
+        this.configuration.setProjects(projects);
+        MultiTeamAllocator allocator = new MultiTeamAllocator(this.population);
+        allocator.initialize();
+        List<Team> teams = allocator.allocate();
+
+        assertEquals(projects.size(), teams.size());
+        Set<Integer> assigned = new HashSet<>();
+        for (int p = 0; p < projects.size(); ++p) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Employee employee : teams.get(p).getEmployees()) {
+                assertTrue(assigned.add(employee.getId()));
+                counts.merge(employee.getEmployeeType(), 1, Integer::sum);
+            }
+            assertEquals(projects.get(p).getTeamDefinition(), counts);
+        }
+        assertFalse(assigned.contains(EXCLUDED));
+        assertEquals(teams.stream().mapToDouble(Team::getFitness).sum(),
+                allocator.getMetrics().getBestFitness(), EPSILON);
+    }
+
+    @Test
+    public void greedySeedOfASingleProjectIsTheFittestTeam() {
+        ProjectDefinition project = project("Apollo", 2, 2, 1);
+        this.configuration.setProjects(Collections.singletonList(project));
+        this.configuration.setSeeding(Collections.singletonList("GREEDY"));
+        MultiTeamAllocator allocator = new MultiTeamAllocator(this.population);
+        allocator.initialize();
+        Team team = allocator.allocate().get(0);
+
+        this.population.setTeamDefinition(project.getTeamDefinition());
+        this.population.setAttributeWeights(project.getAttributeWeights());
+        assertEquals(this.population.calculateOptimalFitness(), team.getFitness(), EPSILON);
+    }
+
+    @Test
+    public void repairReplacesEmployeesAssignedTwice() {
+        this.configuration.setProjects(Arrays.asList(project("Apollo", 2, 2, 1), project("Gemini", 3, 2, 1)));
+        MultiTeamAllocator allocator = new MultiTeamAllocator(this.population);
+        allocator.initialize();
+        RosterAccessor roster = this.population.getRoster();
+        int[] chromosome = new int[11];
+        Arrays.fill(chromosome, 3);
+        allocator.repair(chromosome);
+
+        Set<Integer> assigned = new HashSet<>();
+        List<String> types = new ArrayList<>();
+        for (int ordinal : chromosome) {
+            assertTrue(assigned.add(ordinal));
+            assertTrue(roster.getId(ordinal) != EXCLUDED);
+            types.add(roster.getType(ordinal));
+        }
+        assertTrue(assigned.contains(3));
+        assertEquals(5, Collections.frequency(types, "ENGINEER"));
+        assertEquals(4, Collections.frequency(types, "QA"));
+        assertEquals(2, Collections.frequency(types, "BA"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void projectsNeedingMoreEmployeesThanAvailableAreRejected() {
+        // Seven engineers are eligible once the first one is excluded
+        this.configuration.setProjects(Arrays.asList(project("Apollo", 4, 1, 1), project("Gemini", 4, 1, 1)));
+        new MultiTeamAllocator(this.population).initialize();
+    }
+
+    private static ProjectDefinition project(String name, int engineers, int qas, int bas) {
+        ProjectDefinition project = new ProjectDefinition();
+        project.setName(name);
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", engineers);
+        teamDefinition.put("QA", qas);
+        teamDefinition.put("BA", bas);
+        project.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (int i = 0; i < ATTRIBUTES.size(); ++i) {
+            weights.put(ATTRIBUTES.get(i), 1.0 + i * engineers);
+        }
+        project.setAttributeWeights(weights);
+        return project;
+    }
+}
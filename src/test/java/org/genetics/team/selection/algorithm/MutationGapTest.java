@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MutationGapTest {
+
+    @Test
+    public void mutatedGenesFollowTheMutationRate() {
+        Random random = new Random(42);
+        long genes = 1_000_000;
+        for (double rate : new double[]{0.001, 0.05, 0.5}) {
+            double logComplement = Math.log1p(-rate);
+            long mutations = 0;
+            long position = Algorithm.nextMutationGap(random, logComplement, genes);
+            while (position < genes) {
+                ++mutations;
+                position += 1 + Algorithm.nextMutationGap(random, logComplement, genes);
+            }
+            double expected = rate * genes;
+            assertEquals("Rate " + rate, expected, mutations, 4 * Math.sqrt(expected));
+        }
+    }
+
+    @Test
+    public void fullRateMutatesEveryGene() {
+        Random random = new Random(42);
+        double logComplement = Math.log1p(-1.0);
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(0, Algorithm.nextMutationGap(random, logComplement, 100));
+        }
+    }
+
+    @Test
+    public void gapIsCappedAtTheLimit() {
+        Random random = new Random(42);
+        double logComplement = Math.log1p(-1e-12);
+        for (int i = 0; i < 100; ++i) {
+            long gap = Algorithm.nextMutationGap(random, logComplement, 1000);
+            assertTrue(gap >= 0 && gap <= 1000);
+        }
+    }
+}
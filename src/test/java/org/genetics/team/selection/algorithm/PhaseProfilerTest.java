@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.jfr.FlightRecorderSupport;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PhaseProfilerTest {
+    private static final String GENERATION_EVENT = "org.genetics.team.selection.GAGeneration";
+    private static final String PHASE_EVENT = "org.genetics.team.selection.GAPhase";
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void eventsAreSkippedWithoutARecording() {
+        assertTrue(FlightRecorderSupport.AVAILABLE);
+        // Nothing touches the population while no recording enables the events
+        PhaseProfiler profiler = new PhaseProfiler(null);
+        profiler.beginGeneration();
+        profiler.beginPhase();
+        profiler.endPhase(1, PhaseProfiler.SELECTION, 10);
+        profiler.endGeneration(1, 10, 2.0, 0.05, 0.6);
+        profiler.endPhase(1, PhaseProfiler.MUTATION, 10);
+    }
+
+    @Test
+    public void enabledEventsAreRecorded() throws IOException {
+        PhaseProfiler profiler = new PhaseProfiler(new Population(ConfigurationManager.loadConfiguration(
+                "config.yaml")));
+        Path file = this.folder.getRoot().toPath().resolve("run.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(GENERATION_EVENT).withThreshold(Duration.ZERO);
+            recording.disable(PHASE_EVENT);
+            recording.start();
+            profiler.beginGeneration();
+            profiler.beginPhase();
+            profiler.endPhase(3, PhaseProfiler.CROSSOVER, 10);
+            profiler.endGeneration(3, 10, 2.5, 0.05, 0.6);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> generations = events.stream()
+                .filter(event -> GENERATION_EVENT.equals(event.getEventType().getName())).collect(Collectors.toList());
+        assertEquals(1, generations.size());
+        RecordedEvent generation = generations.get(0);
+        assertEquals(3, generation.getInt("generation"));
+        assertEquals(10, generation.getInt("populationSize"));
+        assertEquals(2.5, generation.getDouble("bestFitness"), 0);
+        assertEquals(0.6, generation.getDouble("crossoverRate"), 0);
+        assertEquals(0, generation.getLong("evaluations"));
+        // The phase event was disabled by the recording
+        assertTrue(events.stream().noneMatch(event -> PHASE_EVENT.equals(event.getEventType().getName())));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PopulationSeederTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setRandomSeed(2L);
+        this.configuration.setSolver("GA");
+        this.configuration.setGenerations(10);
+        this.configuration.setResume(false);
+        this.configuration.setCheckpointPath(null);
+        this.configuration.setEventLogPath(null);
+        this.configuration.setInitialPopulationSize(20);
+        this.configuration.setSeedRatio(0.5);
+    }
+
+    @Test
+    public void greedyTeamHoldsTheTopScoredEmployeesOfEachType() {
+        Population population = population(roster(0), 1.0);
+        population.prepare();
+        int[] team = new PopulationSeeder(population).greedy();
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        for (int t = 0; t < TYPES.length; ++t) {
+            int[] sorted = population.getSortedCandidates(TYPES[t]);
+            double[] expected = new double[index.getCount(t)];
+            double[] actual = new double[index.getCount(t)];
+            for (int i = 0; i < expected.length; ++i) {
+                expected[i] = population.getWeightedScore(sorted[i]);
+                actual[i] = population.getWeightedScore(team[index.getOffset(t) + i]);
+            }
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual, 0);
+        }
+    }
+
+    @Test
+    public void graspTeamsHoldDistinctEmployeesOfTheirType() {
+        Population population = population(roster(0), 1.0);
+        population.prepare();
+        PopulationSeeder seeder = new PopulationSeeder(population);
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        for (double alpha : new double[]{0.3, 1.0}) {
+            for (int round = 0; round < 50; ++round) {
+                int[] team = seeder.grasp(alpha);
+                Set<Integer> members = new HashSet<>();
+                for (int t = 0; t < TYPES.length; ++t) {
+                    for (int i = index.getOffset(t); i < index.getOffset(t) + index.getCount(t); ++i) {
+                        assertEquals(t, index.getTypeOf(team[i]));
+                        assertTrue(members.add(team[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void heuristicSeedsFillTheQuotaWithTheGreedyTeamFirst() {
+        this.configuration.setSeeding(Arrays.asList("GREEDY", "GRASP"));
+        Population population = population(roster(0), 1.0);
+        double optimum = population.calculateOptimalFitness();
+        GenerationStore seeds = new GenerationStore(population.getFeasibilityIndex().getTeamSize(), 20,
+                population.getZobristHash());
+        new PopulationSeeder(population).generateSeeds(seeds, 20);
+        assertEquals(10, seeds.size());
+        assertEquals(optimum, seeds.getFitness(0), 1e-9);
+    }
+
+    @Test
+    public void eliteTeamsOfAFinishedRunSeedARunWithOtherWeights() throws IOException {
+        String path = this.folder.getRoot().toPath().resolve("run.ckpt").toString();
+        this.configuration.setCheckpointPath(path);
+        Algorithm algorithm = new Algorithm(population(roster(0), 1.0));
+        algorithm.initialize();
+        algorithm.solve();
+        Checkpoint checkpoint = CheckpointManager.read(path);
+        assertTrue(checkpoint.isFinished());
+
+        this.configuration.setCheckpointPath(null);
+        this.configuration.setSeedPath(path);
+        this.configuration.setSeeding(Collections.singletonList("CHECKPOINT"));
+        Population population = population(roster(0), 2.0);
+        population.prepare();
+        GenerationStore seeds = new GenerationStore(population.getFeasibilityIndex().getTeamSize(), 20,
+                population.getZobristHash());
+        new PopulationSeeder(population).generateSeeds(seeds, 20);
+        assertTrue(seeds.size() > 0 && seeds.size() <= 10);
+        assertTrue(seeds.contains(checkpoint.getCurrentFittest()));
+
+        // The teams of another input do not fit
+        population = population(roster(1), 2.0);
+        population.prepare();
+        seeds = new GenerationStore(population.getFeasibilityIndex().getTeamSize(), 20, population.getZobristHash());
+        new PopulationSeeder(population).generateSeeds(seeds, 20);
+        assertEquals(0, seeds.size());
+    }
+
+    private Population population(RosterAccessor roster, double weight) {
+        Population population = new Population(this.configuration);
+        population.setRoster(roster);
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 3);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 1);
+        population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (int i = 0; i < ATTRIBUTES.size(); ++i) {
+            weights.put(ATTRIBUTES.get(i), i == 0 ? weight : 1.0);
+        }
+        population.setAttributeWeights(weights);
+        return population;
+    }
+
+    /**
+     * Creates a roster of 20 employees of every type. The offset changes one attribute of the last employee.
+     */
+    private static RosterAccessor roster(int offset) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        for (int id = 0; id < 60; ++id) {
+            builder.add(id + 1, TYPES[id % 3], "Employee " + id, new int[]{id % 7, id % 5, id == 59 ? offset : id % 4});
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.Roster;
+import org.genetics.team.selection.roster.RosterSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class PopulationTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL");
+    private static final List<Integer> LOCKED = Arrays.asList(1, 2);
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setRandomSeed(3L);
+        this.configuration.getHeaderMapping().put("cost", "SALARY");
+        this.configuration.setLockedEmployees(LOCKED);
+        this.configuration.setExcludedEmployees(Collections.singletonList(3));
+    }
+
+    @Test
+    public void indexesUpdatedWithTheChangesMatchRebuiltIndexes() {
+        Random random = new Random(7);
+        Map<String, List<Employee>> employees = new HashMap<>();
+        for (int id = 1; id <= 90; ++id) {
+            Employee employee = employee(random, id, id <= 2 ? "ENGINEER" : TYPES[id % 3]);
+            employee.setOrdinal(id - 1);
+            employees.computeIfAbsent(employee.getEmployeeType(), type -> new ArrayList<>()).add(employee);
+        }
+        Roster roster = new Roster(employees);
+        Population updated = population(roster.getSnapshot());
+        updated.prepare();
+        FeasibilityIndex index = updated.getFeasibilityIndex();
+        BudgetIndex budgetIndex = updated.getBudgetIndex();
+        int nextId = 91;
+        for (int round = 0; round < 40; ++round) {
+            List<Employee> upserts = new ArrayList<>();
+            List<Integer> removed = new ArrayList<>();
+            RosterSnapshot snapshot = roster.getSnapshot();
+            for (int change = 1 + random.nextInt(4); change > 0; --change) {
+                int ordinal = random.nextInt(snapshot.getCapacity());
+                Employee current = snapshot.getEmployee(ordinal);
+                if (current == null || LOCKED.contains(current.getId()) || contains(upserts, removed, current)) {
+                    continue;
+                }
+                if (random.nextInt(4) == 0) {
+                    removed.add(current.getId());
+                } else {
+                    upserts.add(employee(random, current.getId(), TYPES[random.nextInt(TYPES.length)]));
+                }
+            }
+            if (random.nextBoolean()) {
+                upserts.add(employee(random, nextId++, TYPES[random.nextInt(TYPES.length)]));
+            }
+            RosterSnapshot next = roster.apply(upserts, removed);
+            updated.setRoster(next);
+            updated.prepare();
+            Population rebuilt = population(next);
+            rebuilt.prepare();
+
+            assertSame(index, updated.getFeasibilityIndex());
+            assertSame(budgetIndex, updated.getBudgetIndex());
+            assertEquals(rebuilt.getEligibleEmployees(), updated.getEligibleEmployees());
+            FeasibilityIndex expected = rebuilt.getFeasibilityIndex();
+            for (int ordinal = 0; ordinal < next.getCapacity(); ++ordinal) {
+                assertEquals(expected.getTypeOf(ordinal), index.getTypeOf(ordinal));
+                assertEquals(expected.isEligible(ordinal), index.isEligible(ordinal));
+                assertEquals(expected.isLocked(ordinal), index.isLocked(ordinal));
+            }
+            for (int t = 0; t < TYPES.length; ++t) {
+                assertArrayEquals(sorted(expected.getCandidates(t)), sorted(index.getCandidates(t)));
+                assertArrayEquals(expected.getLockedCandidates(t), index.getLockedCandidates(t));
+                int[] expectedOrder = rebuilt.getSortedCandidates(TYPES[t]);
+                int[] order = updated.getSortedCandidates(TYPES[t]);
+                assertArrayEquals(sorted(expectedOrder), sorted(order));
+                for (int i = 0; i < order.length; ++i) {
+                    assertEquals(rebuilt.getWeightedScore(expectedOrder[i]), updated.getWeightedScore(order[i]), 0);
+                }
+                assertArrayEquals(rebuilt.getBudgetIndex().getCandidates(t), budgetIndex.getCandidates(t));
+            }
+            assertEquals(rebuilt.getBudgetIndex().getLockedCost(), budgetIndex.getLockedCost());
+        }
+    }
+
+    @Test
+    public void unchangedInputKeepsTheIndexesOfASeededRun() {
+        Random random = new Random(5);
+        Map<String, List<Employee>> employees = new HashMap<>();
+        for (int id = 1; id <= 30; ++id) {
+            Employee employee = employee(random, id, id <= 2 ? "ENGINEER" : TYPES[id % 3]);
+            employee.setOrdinal(id - 1);
+            employees.computeIfAbsent(employee.getEmployeeType(), type -> new ArrayList<>()).add(employee);
+        }
+        RosterSnapshot snapshot = new Roster(employees).getSnapshot();
+        Population population = population(snapshot);
+        population.prepare();
+        FeasibilityIndex index = population.getFeasibilityIndex();
+        population.prepare();
+        assertSame(index, population.getFeasibilityIndex());
+        Population fresh = population(snapshot);
+        fresh.prepare();
+        for (int t = 0; t < TYPES.length; ++t) {
+            assertArrayEquals(fresh.getFeasibilityIndex().getCandidates(t), index.getCandidates(t));
+        }
+
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 2);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 2);
+        population.setTeamDefinition(teamDefinition);
+        population.prepare();
+        assertNotSame(index, population.getFeasibilityIndex());
+    }
+
+    private Population population(RosterSnapshot snapshot) {
+        Population population = new Population(this.configuration);
+        population.setRoster(snapshot);
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 3);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 1);
+        population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (int i = 0; i < ATTRIBUTES.size(); ++i) {
+            weights.put(ATTRIBUTES.get(i), 1.0 + i);
+        }
+        population.setAttributeWeights(weights);
+        population.setEligibility(Collections.singletonList("EXPERIENCE >= 2"));
+        population.setBudget(100000L);
+        return population;
+    }
+
+    /**
+     * Creates an employee of small attribute values, so that scores and costs are often equal. The first ids are
+     * always eligible, as they are locked.
+     */
+    private static Employee employee(Random random, int id, String type) {
+        Employee employee = new Employee(id, type, "Employee " + id);
+        Map<String, Integer> values = new HashMap<>();
+        values.put("EXPERIENCE", id <= 2 ? 5 : random.nextInt(6));
+        values.put("PERFORMANCE", random.nextInt(6));
+        values.put("PROFESSIONAL", random.nextInt(6));
+        values.put("SALARY", 10 + random.nextInt(5));
+        employee.setAttributeValues(values);
+        return employee;
+    }
+
+    private static boolean contains(List<Employee> upserts, List<Integer> removed, Employee employee) {
+        return removed.contains(employee.getId()) || upserts.stream().anyMatch(e -> e.getId() == employee.getId());
+    }
+
+    private static int[] sorted(int[] ordinals) {
+        int[] sorted = ordinals.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.beans.Team;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.OffHeapRoster;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ResultCacheTest {
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL");
+    private static final int[] TEAM = {0, 4, 8};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.setRandomSeed(1L);
+        this.configuration.setResultCacheSize(4);
+        this.configuration.setResultCachePath(this.folder.getRoot().toString());
+    }
+
+    @Test
+    public void keyIsStableAndCoversTheRunInputs() {
+        ResultCache cache = new ResultCache(this.configuration);
+        RosterAccessor roster = roster(0);
+        String key = cache.key(population(roster));
+        assertEquals(key, cache.key(population(roster)));
+        assertEquals(key, cache.key(population(roster(0))));
+
+        assertNotEquals(key, cache.key(population(roster(1))));
+        Population weighted = population(roster);
+        weighted.getAttributeWeights().put("EXPERIENCE", 2.0);
+        assertNotEquals(key, cache.key(weighted));
+        Population budgeted = population(roster);
+        budgeted.setBudget(10L);
+        assertNotEquals(key, cache.key(budgeted));
+        Population restricted = population(roster);
+        restricted.setEligibility(Arrays.asList("EXPERIENCE > 1"));
+        assertNotEquals(key, cache.key(restricted));
+        this.configuration.setMutationRate(0.5);
+        assertNotEquals(key, cache.key(population(roster)));
+    }
+
+    @Test
+    public void keyCoversConfigurationsAbove64Kilobytes() {
+        ResultCache cache = new ResultCache(this.configuration);
+        RosterAccessor roster = roster(0);
+        String key = cache.key(population(roster));
+        List<Integer> excluded = Stream.iterate(1000000, id -> id + 1).limit(20000).collect(Collectors.toList());
+        this.configuration.setExcludedEmployees(new ArrayList<>(excluded));
+        String large = cache.key(population(roster));
+        excluded.set(excluded.size() - 1, 0);
+        this.configuration.setExcludedEmployees(excluded);
+        assertNotEquals(key, large);
+        assertNotEquals(large, cache.key(population(roster)));
+    }
+
+    @Test
+    public void diskTierSurvivesARestart() {
+        RosterAccessor roster = roster(0);
+        Population population = population(roster);
+        new ResultCache(this.configuration).put(population, population.toTeam(TEAM.clone(), 3.5));
+
+        Team team = new ResultCache(this.configuration).get(population(roster));
+        assertNotNull(team);
+        assertArrayEquals(TEAM, team.getOrdinals());
+        assertEquals(3.5, team.getFitness(), 0);
+    }
+
+    @Test
+    public void diskResultBeyondTheRosterIsIgnored() throws IOException {
+        RosterAccessor roster = roster(0);
+        Population population = population(roster);
+        ResultCache cache = new ResultCache(this.configuration);
+        cache.put(population, population.toTeam(TEAM.clone(), 3.5));
+        Path file = this.folder.getRoot().toPath().resolve(cache.key(population) + ".result");
+        try (RandomAccessFile result = new RandomAccessFile(file.toFile(), "rw")) {
+            // Magic, version, fitness and team size precede the ordinals
+            result.seek(4 + 4 + 8 + 4);
+            result.writeInt(roster.getCapacity());
+        }
+        assertNull(new ResultCache(this.configuration).get(population(roster)));
+    }
+
+    @Test
+    public void truncatedDiskResultIsIgnored() throws IOException {
+        RosterAccessor roster = roster(0);
+        Population population = population(roster);
+        ResultCache cache = new ResultCache(this.configuration);
+        cache.put(population, population.toTeam(TEAM.clone(), 3.5));
+        Path file = this.folder.getRoot().toPath().resolve(cache.key(population) + ".result");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+        assertNull(new ResultCache(this.configuration).get(population(roster)));
+    }
+
+    @Test
+    public void unseededRunsAreNotCached() {
+        this.configuration.setRandomSeed(null);
+        ResultCache cache = new ResultCache(this.configuration);
+        Population population = population(roster(0));
+        cache.put(population, population.toTeam(TEAM.clone(), 3.5));
+        assertNull(cache.get(population));
+    }
+
+    @Test
+    public void cacheIsDisabledByDefault() {
+        this.configuration.setResultCacheSize(null);
+        ResultCache cache = new ResultCache(this.configuration);
+        Population population = population(roster(0));
+        cache.put(population, population.toTeam(TEAM.clone(), 3.5));
+        assertNull(cache.get(population));
+    }
+
+    private Population population(RosterAccessor roster) {
+        Population population = new Population(this.configuration);
+        population.setRoster(roster);
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 1);
+        teamDefinition.put("QA", 1);
+        teamDefinition.put("BA", 1);
+        population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        for (String attribute : ATTRIBUTES) {
+            weights.put(attribute, 1.0);
+        }
+        population.setAttributeWeights(weights);
+        return population;
+    }
+
+    /**
+     * Creates a roster of four employees of every type. The offset changes the attributes of the last employee.
+     */
+    private static RosterAccessor roster(int offset) {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        String[] types = {"ENGINEER", "QA", "BA"};
+        for (int id = 0; id < 12; ++id) {
+            builder.add(id + 1, types[id / 4], "Employee " + id,
+                    new int[]{id % 5, id % 3, id == 11 ? offset : id % 4});
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SurrogateModelTest {
+    private static final int EMPLOYEES = 200;
+    private static final int TEAM_SIZE = 5;
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void trainingMovesThePredictionHalfWayToTheExactFitness() {
+        SurrogateModel model = new SurrogateModel(EMPLOYEES);
+        int[] first = {0, 1, 2, 3, 4};
+        int[] second = {5, 6, 7, 8, 9};
+        assertEquals(0, model.predict(first, 0, TEAM_SIZE), 0);
+
+        model.train(first, 0, TEAM_SIZE, 4.0);
+        assertEquals(4.0, model.getMeanFitness(), EPSILON);
+        assertEquals(4.0, model.predict(first, 0, TEAM_SIZE), EPSILON);
+        model.train(second, 0, TEAM_SIZE, 8.0);
+        // The mean moves to 6 and the members of the second team close half of the remaining gap of 2
+        assertEquals(6.0, model.getMeanFitness(), EPSILON);
+        assertEquals(7.0, model.predict(second, 0, TEAM_SIZE), EPSILON);
+        assertEquals(6.0, model.predict(first, 0, TEAM_SIZE), EPSILON);
+    }
+
+    @Test
+    public void teamsAreReadFromTheirPositionInTheGenes() {
+        SurrogateModel model = new SurrogateModel(EMPLOYEES);
+        int[] genes = {10, 11, 0, 1, 2, 3, 4, 12};
+        model.train(genes, 2, TEAM_SIZE, 3.0);
+        model.train(new int[]{20, 21, 22, 23, 24}, 0, TEAM_SIZE, 1.0);
+        assertEquals(model.predict(new int[]{0, 1, 2, 3, 4}, 0, TEAM_SIZE), model.predict(genes, 2, TEAM_SIZE), 0);
+        assertEquals(model.getMeanFitness(), model.predict(genes, 0, 2), EPSILON);
+    }
+
+    @Test
+    public void additiveFitnessIsLearnt() {
+        Random random = new Random(9);
+        double[] scores = new double[EMPLOYEES];
+        for (int i = 0; i < EMPLOYEES; ++i) {
+            scores[i] = random.nextDouble() * 10;
+        }
+        SurrogateModel model = new SurrogateModel(EMPLOYEES);
+        double earlyError = 0;
+        double lateError = 0;
+        int[] team = new int[TEAM_SIZE];
+        for (int round = 0; round < 20000; ++round) {
+            double fitness = 0;
+            for (int i = 0; i < TEAM_SIZE; ++i) {
+                team[i] = random.nextInt(EMPLOYEES);
+                fitness += scores[team[i]] / TEAM_SIZE;
+            }
+            double predicted = model.predict(team, 0, TEAM_SIZE);
+            if (round < 500) {
+                earlyError += Math.abs(predicted - fitness);
+            } else if (round >= 19500) {
+                lateError += Math.abs(predicted - fitness);
+            }
+            model.recordError(predicted, fitness);
+            model.train(team, 0, TEAM_SIZE, fitness);
+        }
+        assertTrue(earlyError + " " + lateError, lateError < 0.1 * earlyError);
+        assertTrue(lateError / 500 < 0.1);
+        assertTrue(model.getMeanAbsoluteError() > lateError / 500);
+    }
+
+    @Test
+    public void meanAbsoluteErrorAveragesTheRecordedPredictions() {
+        SurrogateModel model = new SurrogateModel(EMPLOYEES);
+        assertEquals(0, model.getMeanAbsoluteError(), 0);
+        model.recordError(1.0, 2.0);
+        model.recordError(5.0, 2.0);
+        assertEquals(2.0, model.getMeanAbsoluteError(), EPSILON);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.algorithm;
+
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.Roster;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TeamSamplerTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final int TEAMS = 20000;
+    private Population population;
+
+    @Before
+    public void setUp() throws IOException {
+        Configuration configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        configuration.setRandomSeed(3L);
+        configuration.setLockedEmployees(Collections.singletonList(1));
+        configuration.setExcludedEmployees(Collections.singletonList(2));
+        Map<String, List<Employee>> employees = new HashMap<>();
+        for (int id = 1; id <= 60; ++id) {
+            Employee employee = new Employee(id, TYPES[id % 3], "Employee " + id);
+            Map<String, Integer> values = new HashMap<>();
+            values.put("EXPERIENCE", id);
+            values.put("PERFORMANCE", id);
+            values.put("PROFESSIONAL", id);
+            employee.setAttributeValues(values);
+            employee.setOrdinal(id - 1);
+            employees.computeIfAbsent(employee.getEmployeeType(), type -> new ArrayList<>()).add(employee);
+        }
+        this.population = new Population(configuration);
+        this.population.setRoster(new Roster(employees).getSnapshot());
+        Map<String, Integer> teamDefinition = new HashMap<>();
+        teamDefinition.put("ENGINEER", 3);
+        teamDefinition.put("QA", 2);
+        teamDefinition.put("BA", 1);
+        this.population.setTeamDefinition(teamDefinition);
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("EXPERIENCE", 1.0);
+        weights.put("PERFORMANCE", 1.0);
+        weights.put("PROFESSIONAL", 1.0);
+        this.population.setAttributeWeights(weights);
+        this.population.prepare();
+    }
+
+    @Test
+    public void uniformTeamsAreValidAndUnbiased() {
+        int[] counts = sample(TeamSampler.Mode.UNIFORM);
+        FeasibilityIndex index = this.population.getFeasibilityIndex();
+        for (int t = 0; t < TYPES.length; ++t) {
+            int free = index.getCount(t) - index.getLockedCandidates(t).length;
+            int[] candidates = index.getCandidates(t);
+            double expected = (double) TEAMS * free / candidates.length;
+            for (int ordinal : candidates) {
+                assertEquals("Ordinal " + ordinal, expected, counts[ordinal], 5 * Math.sqrt(expected));
+            }
+        }
+    }
+
+    @Test
+    public void fitnessBiasedTeamsFavourBetterEmployeesAndKeepEveryCandidate() {
+        int[] counts = sample(TeamSampler.Mode.FITNESS);
+        FeasibilityIndex index = this.population.getFeasibilityIndex();
+        for (int t = 0; t < TYPES.length; ++t) {
+            int[] candidates = index.getCandidates(t);
+            int best = candidates[0];
+            int worst = candidates[0];
+            for (int ordinal : candidates) {
+                assertTrue("Ordinal " + ordinal + " was never sampled", counts[ordinal] > 0);
+                if (this.population.getWeightedScore(ordinal) > this.population.getWeightedScore(best)) {
+                    best = ordinal;
+                }
+                if (this.population.getWeightedScore(ordinal) < this.population.getWeightedScore(worst)) {
+                    worst = ordinal;
+                }
+            }
+            assertTrue(counts[best] > 2 * counts[worst]);
+        }
+    }
+
+    /**
+     * Samples teams in the given mode, checks that each is a valid team and counts how often each free candidate was
+     * sampled.
+     */
+    private int[] sample(TeamSampler.Mode mode) {
+        FeasibilityIndex index = this.population.getFeasibilityIndex();
+        TeamSampler sampler = new TeamSampler(index, this.population, mode);
+        Random random = new Random(11);
+        int[] counts = new int[this.population.getRosterSize()];
+        int[] team = new int[index.getTeamSize()];
+        for (int i = 0; i < TEAMS; ++i) {
+            sampler.sample(team, random);
+            Set<Integer> members = new HashSet<>();
+            for (int t = 0; t < TYPES.length; ++t) {
+                int[] locked = index.getLockedCandidates(t);
+                for (int j = 0; j < index.getCount(t); ++j) {
+                    int ordinal = team[index.getOffset(t) + j];
+                    assertTrue(members.add(ordinal));
+                    assertEquals(t, index.getTypeOf(ordinal));
+                    assertTrue(index.isEligible(ordinal));
+                    if (j < locked.length) {
+                        assertEquals(locked[j], ordinal);
+                    } else {
+                        assertTrue(!index.isLocked(ordinal));
+                        ++counts[ordinal];
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ThresholdRuleTest {
+
+    @Test
+    public void parsesARuleForAllTypes() {
+        ThresholdRule rule = ThresholdRule.parse("EXPERIENCE >= 5");
+        assertNull(rule.getType());
+        assertEquals("EXPERIENCE", rule.getAttribute());
+        assertEquals(">=", rule.getOperator());
+        assertEquals(5, rule.getThreshold());
+        assertEquals("EXPERIENCE >= 5", rule.toString());
+    }
+
+    @Test
+    public void parsesARuleForOneType() {
+        ThresholdRule rule = ThresholdRule.parse("  QA : PERFORMANCE<-2 ");
+        assertEquals("QA", rule.getType());
+        assertEquals("PERFORMANCE", rule.getAttribute());
+        assertEquals("<", rule.getOperator());
+        assertEquals(-2, rule.getThreshold());
+        assertEquals("QA: PERFORMANCE < -2", rule.toString());
+    }
+
+    @Test
+    public void parsesEveryOperator() {
+        String[][] operators = {{">=", ">="}, {">", ">"}, {"<=", "<="}, {"<", "<"}, {"=", "="}, {"==", "="},
+                {"!=", "!="}};
+        for (String[] operator : operators) {
+            assertEquals(operator[1], ThresholdRule.parse("A " + operator[0] + " 1").getOperator());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMissingThreshold() {
+        ThresholdRule.parse("EXPERIENCE >=");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownOperator() {
+        ThresholdRule.parse("EXPERIENCE => 5");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAThresholdOutOfRange() {
+        ThresholdRule.parse("EXPERIENCE > 99999999999");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNull() {
+        ThresholdRule.parse(null);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.algorithm;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class ZobristHashTest {
+    private final ZobristHash zobristHash = new ZobristHash(64);
+
+    @Test
+    public void hashDoesNotDependOnTheOrderOfTheMembers() {
+        assertEquals(this.zobristHash.hash(new int[]{3, 17, 42, 5}), this.zobristHash.hash(new int[]{42, 5, 3, 17}));
+    }
+
+    @Test
+    public void hashOfASegmentIgnoresTheRestOfTheArray() {
+        int[] genes = {1, 2, 3, 4, 5, 6};
+        assertEquals(this.zobristHash.hash(new int[]{3, 4, 5}), this.zobristHash.hash(genes, 2, 3));
+    }
+
+    @Test
+    public void replaceMatchesRehashing() {
+        int[] team = {7, 8, 9, 10};
+        long hash = this.zobristHash.replace(this.zobristHash.hash(team), 9, 33);
+        team[2] = 33;
+        assertEquals(this.zobristHash.hash(team), hash);
+    }
+
+    @Test
+    public void keysAreStableBetweenInstances() {
+        int[] team = {0, 31, 63};
+        assertEquals(this.zobristHash.hash(team), new ZobristHash(64).hash(team));
+        assertEquals(this.zobristHash.hash(team), new ZobristHash(128).hash(team));
+    }
+
+    @Test
+    public void differentTeamsGetDifferentHashes() {
+        Set<Long> hashes = new HashSet<>();
+        int teams = 0;
+        for (int a = 0; a < 64; ++a) {
+            for (int b = a + 1; b < 64; ++b) {
+                for (int c = b + 1; c < 64; ++c) {
+                    hashes.add(this.zobristHash.hash(new int[]{a, b, c}));
+                    ++teams;
+                }
+            }
+        }
+        assertEquals(teams, hashes.size());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.benchmark;
+
+import org.genetics.team.selection.algorithm.BatchEvaluator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class benchmarks the fitness kernels of {@link BatchEvaluator} across attribute counts, on a random roster and
+ * generation: the gather of precomputed weighted scores, the scalar application of the weights to every member, and
+ * the batch of per-attribute sums followed by one weighted average per team. Usage:
+ * <pre>
+ *     FitnessBenchmark [teams] [team size] [employees]
+ * </pre>
+ */
+public class FitnessBenchmark {
+    private static final int[] ATTRIBUTE_COUNTS = {1, 2, 3, 4, 8, 16, 32, 64};
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int MEASURED_ROUNDS = 31;
+    private static double sink;
+
+    public static void main(String[] args) {
+        int teams = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int teamSize = args.length > 1 ? Integer.parseInt(args[1]) : 18;
+        int employees = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+        Random random = new Random(42);
+        int[] genes = new int[teams * teamSize];
+        for (int i = 0; i < genes.length; ++i) {
+            genes[i] = random.nextInt(employees);
+        }
+        System.out.println(teams + " teams of " + teamSize + " drawn from " + employees + " employees, ns per team, "
+                + (BatchEvaluator.isVectorized() ? "Vector API" : "scalar") + " kernels");
+        System.out.printf("%10s %14s %14s %14s%n", "attributes", "scores", "weights scalar", "weights batch");
+        for (int attributeCount : ATTRIBUTE_COUNTS) {
+            int[] rows = new int[employees * attributeCount];
+            for (int i = 0; i < rows.length; ++i) {
+                rows[i] = random.nextInt(100);
+            }
+            double[] weights = new double[attributeCount];
+            for (int a = 0; a < attributeCount; ++a) {
+                weights[a] = random.nextDouble();
+            }
+            double[] scores = new double[employees];
+            for (int e = 0; e < employees; ++e) {
+                for (int a = 0; a < attributeCount; ++a) {
+                    scores[e] += rows[e * attributeCount + a] * weights[a];
+                }
+                scores[e] /= attributeCount;
+            }
+            double[] expected = new double[teams];
+            double[] fitness = new double[teams];
+            long[] sums = new long[teams * attributeCount];
+            BatchEvaluator.weightedAveragesScalar(genes, teamSize, 0, teams, rows, attributeCount, weights,
+                    expected);
+
+            double scoresTime = measure(teams, () ->
+                    BatchEvaluator.evaluate(genes, teamSize, 0, teams, scores, fitness), fitness);
+            check(expected, fitness, "scores");
+            double weightsScalar = measure(teams, () -> BatchEvaluator.weightedAveragesScalar(genes, teamSize, 0,
+                    teams, rows, attributeCount, weights, fitness), fitness);
+            double weightsBatch = measure(teams, () -> {
+                BatchEvaluator.attributeSums(genes, teamSize, 0, teams, rows, attributeCount, sums);
+                BatchEvaluator.weightedAverages(sums, teamSize, 0, teams, weights, attributeCount, fitness);
+            }, fitness);
+            check(expected, fitness, "weights batch");
+            System.out.printf("%10d %14.1f %14.1f %14.1f%n", attributeCount, scoresTime, weightsScalar,
+                    weightsBatch);
+        }
+        System.out.println("checksum " + sink);
+    }
+
+    /**
+     * Runs a kernel repeatedly and returns the median time per team in nanoseconds.
+     */
+    private static double measure(int teams, Runnable kernel, double[] fitness) {
+        long[] times = new long[MEASURED_ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < MEASURED_ROUNDS; ++round) {
+            long start = System.nanoTime();
+            kernel.run();
+            long time = System.nanoTime() - start;
+            sink += fitness[round & 1];
+            if (round >= 0) {
+                times[round] = time;
+            }
+        }
+        Arrays.sort(times);
+        return (double) times[MEASURED_ROUNDS / 2] / teams;
+    }
+
+    private static void check(double[] expected, double[] actual, String kernel) {
+        for (int i = 0; i < expected.length; ++i) {
+            if (Math.abs(expected[i] - actual[i]) > 1e-9 * Math.max(1, Math.abs(expected[i]))) {
+                throw new IllegalStateException(kernel + " differs from the scalar result for team " + i);
+            }
+        }
+    }
+}
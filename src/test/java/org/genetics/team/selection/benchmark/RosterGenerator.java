@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.benchmark;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.util.CommonConstants;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class generates synthetic input files with the layout of a configuration: its types, attribute count and
+ * header mapping. Attribute values are uniform between 1 and a maximum value. Types follow a Zipf-like distribution,
+ * where the i-th configured type is drawn with a weight of 1 / i^skew, so a skew of 0 gives every type the same share
+ * and larger skews make the first types more common. When the header mapping has a cost column, the cost of an employee
+ * is 1000 times the sum of its attribute values plus uniform noise of up to 1000 times the maximum value, so better
+ * employees tend to cost more. Usage:
+ * <pre>
+ *     RosterGenerator &lt;config path&gt; &lt;rows&gt; &lt;output path&gt; [skew] [max value] [seed]
+ * </pre>
+ */
+public class RosterGenerator {
+    private static final int DEFAULT_MAX_VALUE = 10;
+    private static final int COST_PER_POINT = 1000;
+    private final Configuration configuration;
+    private final double skew;
+    private final int maxValue;
+    private final long seed;
+
+    /**
+     * Constructs a {@link RosterGenerator}.
+     *
+     * @param configuration {@link Configuration} defining the input layout
+     * @param skew          type skew, 0 for equally common types
+     * @param maxValue      maximum attribute value
+     * @param seed          seed of the random generator
+     */
+    public RosterGenerator(Configuration configuration, double skew, int maxValue, long seed) {
+        this.configuration = configuration;
+        this.skew = skew;
+        this.maxValue = maxValue;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: RosterGenerator <config path> <rows> <output path> [skew] [max value] [seed]");
+            System.exit(1);
+        }
+        Configuration configuration = ConfigurationManager.loadConfiguration(args[0]);
+        RosterGenerator generator = new RosterGenerator(configuration,
+                args.length > 3 ? Double.parseDouble(args[3]) : 0,
+                args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_MAX_VALUE,
+                args.length > 5 ? Long.parseLong(args[5]) : 1);
+        generator.generate(Integer.parseInt(args[1]), Paths.get(args[2]));
+    }
+
+    /**
+     * Writes the given number of employees into a CSV file. Employees are streamed to the file, so the number of rows
+     * is not limited by the heap.
+     *
+     * @param rows number of employees
+     * @param path path of the CSV file
+     * @throws IOException if the file cannot be written
+     */
+    public void generate(int rows, Path path) throws IOException {
+        Map<String, String> headerMapping = this.configuration.getHeaderMapping();
+        int attributeCount = this.configuration.getAttributeCount();
+        List<String> header = new ArrayList<>();
+        header.add(headerMapping.get(CommonConstants.HEADER_ID));
+        header.add(headerMapping.get(CommonConstants.HEADER_NAME));
+        header.add(headerMapping.get(CommonConstants.HEADER_TYPE));
+        for (int i = 1; i < attributeCount + 1; ++i) {
+            header.add(headerMapping.get(CommonConstants.ATTRIBUTE_PREFIX + i));
+        }
+        boolean cost = headerMapping.get(CommonConstants.HEADER_COST) != null;
+        if (cost) {
+            header.add(headerMapping.get(CommonConstants.HEADER_COST));
+        }
+        String[] types = this.configuration.getTypes();
+        double[] cumulative = new double[types.length];
+        double total = 0;
+        for (int t = 0; t < types.length; ++t) {
+            total += 1 / Math.pow(t + 1, this.skew);
+            cumulative[t] = total;
+        }
+
+        Random random = new Random(this.seed);
+        Object[] record = new Object[header.size()];
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+             CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(header.toArray(new String[0])))) {
+            for (int id = 1; id <= rows; ++id) {
+                double draw = random.nextDouble() * total;
+                int type = 0;
+                while (type < types.length - 1 && cumulative[type] <= draw) {
+                    ++type;
+                }
+                record[0] = id;
+                record[1] = "Employee " + id;
+                record[2] = types[type];
+                int sum = 0;
+                for (int i = 0; i < attributeCount; ++i) {
+                    int value = 1 + random.nextInt(this.maxValue);
+                    record[3 + i] = value;
+                    sum += value;
+                }
+                if (cost) {
+                    record[3 + attributeCount] = COST_PER_POINT * (sum + random.nextInt(this.maxValue + 1));
+                }
+                printer.printRecord(record);
+            }
+        }
+    }
+}
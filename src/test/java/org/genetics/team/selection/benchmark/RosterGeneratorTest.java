@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.benchmark;
+
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.util.InputProcessor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RosterGeneratorTest {
+    private static final int ROWS = 6000;
+    private static final int MAX_VALUE = 10;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        this.configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        this.configuration.getHeaderMapping().put("cost", "SALARY");
+    }
+
+    @Test
+    public void generatedInputFollowsTheConfiguredLayout() throws IOException {
+        Map<String, List<Employee>> population = generate(0, 1);
+        assertEquals(ROWS, population.values().stream().mapToInt(List::size).sum());
+        for (String type : this.configuration.getTypes()) {
+            // Every type takes a third of the rows without skew
+            assertEquals(ROWS / 3.0, population.get(type).size(), 5 * Math.sqrt(ROWS / 3.0));
+            for (Employee employee : population.get(type)) {
+                int sum = 0;
+                for (String attribute : new String[]{"EXPERIENCE", "PERFORMANCE", "PROFESSIONAL"}) {
+                    int value = employee.getAttributeValues().get(attribute);
+                    assertTrue(value >= 1 && value <= MAX_VALUE);
+                    sum += value;
+                }
+                int cost = employee.getAttributeValues().get("SALARY");
+                assertTrue(cost >= 1000 * sum && cost <= 1000 * (sum + MAX_VALUE));
+            }
+        }
+    }
+
+    @Test
+    public void skewMakesTheFirstTypesMoreCommon() throws IOException {
+        Map<String, List<Employee>> population = generate(2, 1);
+        String[] types = this.configuration.getTypes();
+        // Weights of 1, 1/4 and 1/9
+        double total = 1 + 1 / 4.0 + 1 / 9.0;
+        for (int t = 0; t < types.length; ++t) {
+            double expected = ROWS / ((t + 1) * (t + 1) * total);
+            assertEquals(types[t], expected, population.get(types[t]).size(), 5 * Math.sqrt(expected));
+        }
+    }
+
+    @Test
+    public void sameSeedGeneratesTheSameInput() throws IOException {
+        Path first = this.folder.newFile().toPath();
+        Path second = this.folder.newFile().toPath();
+        new RosterGenerator(this.configuration, 1, MAX_VALUE, 5).generate(100, first);
+        new RosterGenerator(this.configuration, 1, MAX_VALUE, 5).generate(100, second);
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    }
+
+    private Map<String, List<Employee>> generate(double skew, long seed) throws IOException {
+        Path path = this.folder.newFile().toPath();
+        new RosterGenerator(this.configuration, skew, MAX_VALUE, seed).generate(ROWS, path);
+        return InputProcessor.getInputProcessor(this.configuration).readPopulation(path.toString());
+    }
+}
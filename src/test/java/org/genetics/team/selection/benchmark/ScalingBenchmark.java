@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.benchmark;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.genetics.team.selection.algorithm.Population;
+import org.genetics.team.selection.algorithm.Solver;
+import org.genetics.team.selection.algorithm.SolverFactory;
+import org.genetics.team.selection.beans.SolverMetrics;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.roster.RosterAccessor;
+import org.genetics.team.selection.util.CommonConstants;
+import org.genetics.team.selection.util.InputProcessor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * This class measures how a genetic algorithm run scales end to end. For every roster size a synthetic input is
+ * generated with {@link RosterGenerator} and loaded, and for every combination of population size, generations and
+ * thread count the given number of independent runs is executed concurrently on the loaded roster, from building the
+ * initial population to the fittest team. The results are written to a JSON report. Usage:
+ * <pre>
+ *     ScalingBenchmark &lt;config path&gt; &lt;report path&gt;
+ * </pre>
+ * The sweep is controlled with system properties, each taking a comma separated list: rosters (default
+ * 1000,10000,100000), populations (100,1000), generations (50) and threads (1). The team takes teamSize (5) employees
+ * of every type, skew sets the type skew of the generated rosters (0), and all attributes are weighted equally. The
+ * roster storage, solver parameters and rates are taken from the configuration.
+ * <p>
+ * Quality is the best fitness divided by the fitness of the optimal team, which is made of the locked employees and
+ * the top scored selectable employees of every type, see {@link Population#calculateOptimalFitness()}. Peak RSS is the resident set high-water mark of
+ * the process, which is reset before every case where the kernel allows it.
+ */
+public class ScalingBenchmark {
+    private static Logger log = Logger.getLogger(ScalingBenchmark.class);
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 2) {
+            System.err.println("Usage: ScalingBenchmark <config path> <report path>");
+            System.exit(1);
+        }
+        Logger.getRootLogger().setLevel(Level.WARN);
+        log.setLevel(Level.INFO);
+        int[] rosters = parseList(System.getProperty("rosters", "1000,10000,100000"));
+        int[] populations = parseList(System.getProperty("populations", "100,1000"));
+        int[] generations = parseList(System.getProperty("generations", "50"));
+        int[] threads = parseList(System.getProperty("threads", "1"));
+        int teamSize = Integer.parseInt(System.getProperty("teamSize", "5"));
+        double skew = Double.parseDouble(System.getProperty("skew", "0"));
+
+        StringBuilder report = new StringBuilder();
+        report.append("{\"timestamp\":").append(System.currentTimeMillis())
+                .append(",\"java\":").append(quote(System.getProperty("java.version")))
+                .append(",\"processors\":").append(Runtime.getRuntime().availableProcessors())
+                .append(",\"maxHeap\":").append(Runtime.getRuntime().maxMemory())
+                .append(",\"config\":").append(quote(args[0]))
+                .append(",\"teamSize\":").append(teamSize)
+                .append(",\"skew\":").append(skew)
+                .append(",\"results\":[");
+        Path directory = Files.createTempDirectory("scaling-benchmark");
+        boolean first = true;
+        try {
+            for (int rows : rosters) {
+                Configuration configuration = ConfigurationManager.loadConfiguration(args[0]);
+                Path input = directory.resolve("roster-" + rows + ".csv");
+                new RosterGenerator(configuration, skew, 10, rows).generate(rows, input);
+                configuration.setPopulationData(input.toString());
+                resetPeakRss();
+                long start = System.nanoTime();
+                RosterAccessor roster = InputProcessor.getInputProcessor(configuration).readRosterAccessor(
+                        input.toString());
+                double loadMillis = (System.nanoTime() - start) / 1e6;
+                long loadRss = readPeakRss();
+                Map<String, Integer> teamDefinition = new HashMap<>();
+                for (String type : configuration.getTypes()) {
+                    teamDefinition.put(type, teamSize);
+                }
+                Map<String, Double> weights = new HashMap<>();
+                for (int i = 1; i < configuration.getAttributeCount() + 1; ++i) {
+                    weights.put(configuration.getHeaderMapping().get(CommonConstants.ATTRIBUTE_PREFIX + i), 1.0);
+                }
+                Population optimal = new Population(configuration);
+                optimal.setRoster(roster);
+                optimal.setTeamDefinition(teamDefinition);
+                optimal.setAttributeWeights(weights);
+                double optimum = optimal.calculateOptimalFitness();
+                Files.delete(input);
+
+                for (int populationSize : populations) {
+                    for (int generationCount : generations) {
+                        for (int threadCount : threads) {
+                            Configuration caseConfiguration = ConfigurationManager.loadConfiguration(args[0]);
+                            caseConfiguration.setPopulationData(input.toString());
+                            caseConfiguration.setInitialPopulationSize(populationSize);
+                            caseConfiguration.setGenerations(generationCount);
+                            caseConfiguration.setSolver("GA");
+                            caseConfiguration.setResume(false);
+                            caseConfiguration.setCheckpointPath(null);
+                            caseConfiguration.setEventLogPath(null);
+                            resetPeakRss();
+                            String result = runCase(caseConfiguration, roster, teamDefinition, weights, threadCount,
+                                    optimum);
+                            report.append(first ? "" : ",").append("{\"rosterSize\":").append(rows)
+                                    .append(",\"populationSize\":").append(populationSize)
+                                    .append(",\"generations\":").append(generationCount)
+                                    .append(",\"threads\":").append(threadCount)
+                                    .append(",\"loadMillis\":").append(loadMillis)
+                                    .append(",\"loadPeakRssKb\":").append(loadRss)
+                                    .append(",\"optimum\":").append(optimum)
+                                    .append(result)
+                                    .append(",\"peakRssKb\":").append(readPeakRss()).append('}');
+                            first = false;
+                            log.info("Finished roster " + rows + ", population " + populationSize + ", generations "
+                                    + generationCount + ", threads " + threadCount);
+                        }
+                    }
+                }
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+        report.append("]}\n");
+        Files.write(Paths.get(args[1]), report.toString().getBytes(StandardCharsets.UTF_8));
+        log.info("Report written to " + args[1]);
+    }
+
+    /**
+     * Runs independent solvers concurrently on the roster and returns their aggregated results as JSON fields.
+     */
+    private static String runCase(Configuration configuration, RosterAccessor roster,
+                                  Map<String, Integer> teamDefinition, Map<String, Double> weights, int threadCount,
+                                  double optimum) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<double[]>> runs = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threadCount; ++t) {
+            runs.add(executor.submit(() -> {
+                Population population = new Population(configuration);
+                population.setRoster(roster);
+                population.setTeamDefinition(teamDefinition);
+                population.setAttributeWeights(weights);
+                Solver solver = SolverFactory.createSolver(population);
+                long initStart = System.nanoTime();
+                solver.initialize();
+                double initMillis = (System.nanoTime() - initStart) / 1e6;
+                solver.solve();
+                SolverMetrics metrics = solver.getMetrics();
+                return new double[]{initMillis, metrics.getWallTimeNanos() / 1e6, metrics.getIterations(),
+                        metrics.getEvaluations(), metrics.getBestFitness()};
+            }));
+        }
+        double[] sums = new double[5];
+        double bestFitness = Double.NEGATIVE_INFINITY;
+        double worstFitness = Double.POSITIVE_INFINITY;
+        for (Future<double[]> run : runs) {
+            double[] result = run.get();
+            for (int i = 0; i < sums.length; ++i) {
+                sums[i] += result[i];
+            }
+            bestFitness = Math.max(bestFitness, result[4]);
+            worstFitness = Math.min(worstFitness, result[4]);
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        return ",\"initMillis\":" + sums[0] / threadCount
+                + ",\"solveMillis\":" + sums[1] / threadCount
+                + ",\"generationMillis\":" + (sums[2] == 0 ? 0 : sums[1] / sums[2])
+                + ",\"iterations\":" + sums[2] / threadCount
+                + ",\"evaluations\":" + (long) sums[3]
+                + ",\"evaluationsPerSecond\":" + sums[3] / wallSeconds
+                + ",\"generationsPerSecond\":" + sums[2] / wallSeconds
+                + ",\"bestFitness\":" + bestFitness
+                + ",\"meanFitness\":" + sums[4] / threadCount
+                + ",\"worstFitness\":" + worstFitness
+                + ",\"quality\":" + (optimum == 0 ? 0 : sums[4] / threadCount / optimum);
+    }
+
+    /**
+     * Deletes the generated inputs and their directory. Failures are only logged, so they do not hide the outcome of
+     * the benchmark.
+     */
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Unable to delete " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resets the resident set high-water mark of the process. Only supported on Linux.
+     */
+    private static void resetPeakRss() {
+        try {
+            Files.write(Paths.get("/proc/self/clear_refs"), "5".getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            log.debug("Unable to reset the peak RSS: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the resident set high-water mark of the process.
+     *
+     * @return peak RSS in kB, or -1 if it is not available
+     */
+    private static long readPeakRss() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Unable to read the peak RSS: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    private static int[] parseList(String list) {
+        return Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
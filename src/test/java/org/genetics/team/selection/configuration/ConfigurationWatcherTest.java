@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.configuration;
+
+import org.genetics.team.selection.roster.RosterSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationWatcherTest {
+    private static final long WATCH_TIMEOUT_MILLIS = 10000;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private Path input;
+    private Path configPath;
+    private ConfigurationWatcher watcher;
+
+    @Before
+    public void setUp() throws IOException {
+        this.input = this.folder.getRoot().toPath().resolve("input.csv");
+        Files.copy(Paths.get("src/main/resources/sample_input.csv"), this.input);
+        this.configPath = this.folder.getRoot().toPath().resolve("config.yaml");
+        writeConfig("0.05");
+        this.watcher = new ConfigurationWatcher(this.configPath.toString());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.watcher.close();
+    }
+
+    @Test
+    public void changedEmployeesAreAppliedToTheRoster() throws IOException {
+        EngineState first = this.watcher.load();
+        RosterSnapshot older = (RosterSnapshot) first.getRoster();
+        List<String> lines = Files.readAllLines(this.input, StandardCharsets.UTF_8);
+        lines.set(2, "2,Shamika,QA,3,5,1");
+        writeInput(lines);
+
+        assertTrue(this.watcher.reload());
+        EngineState second = this.watcher.getState();
+        RosterSnapshot latest = (RosterSnapshot) second.getRoster();
+        assertEquals(first.getVersion() + 1, second.getVersion());
+        assertEquals(older.getVersion() + 1, latest.getVersion());
+        int[] changes = latest.changesSince(older);
+        assertEquals(1, changes.length);
+        assertEquals(2, latest.getId(changes[0]));
+        assertEquals(1, latest.getAttribute(changes[0], "PROFESSIONAL"));
+        assertEquals(4, older.getAttribute(changes[0], "PROFESSIONAL"));
+    }
+
+    @Test
+    public void unchangedInputKeepsTheRoster() throws IOException {
+        EngineState first = this.watcher.load();
+        writeConfig("0.1");
+        assertTrue(this.watcher.reload());
+        EngineState second = this.watcher.getState();
+        assertSame(first.getRoster(), second.getRoster());
+        assertEquals(0.1, second.getConfiguration().getMutationRate(), 0);
+    }
+
+    @Test
+    public void invalidConfigurationKeepsThePreviousState() throws IOException {
+        EngineState first = this.watcher.load();
+        writeConfig("2");
+        assertFalse(this.watcher.reload());
+        assertSame(first, this.watcher.getState());
+    }
+
+    @Test
+    public void watchedInputChangesAreReloaded() throws IOException, InterruptedException {
+        EngineState first = this.watcher.load();
+        this.watcher.start();
+        List<String> lines = Files.readAllLines(this.input, StandardCharsets.UTF_8);
+        lines.remove(lines.size() - 1);
+        writeInput(lines);
+
+        long deadline = System.currentTimeMillis() + WATCH_TIMEOUT_MILLIS;
+        while (this.watcher.getState() == first && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        RosterSnapshot older = (RosterSnapshot) first.getRoster();
+        RosterSnapshot latest = (RosterSnapshot) this.watcher.getState().getRoster();
+        assertEquals(older.size() - 1, latest.size());
+        assertArrayEquals(new int[]{older.getCapacity() - 1}, latest.changesSince(older));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void startingBeforeLoadingIsRejected() throws IOException {
+        this.watcher.start();
+    }
+
+    /**
+     * Writes the default configuration with the given mutation rate, reading the input of the test.
+     */
+    private void writeConfig(String mutationRate) throws IOException {
+        List<String> config = Files.readAllLines(Paths.get("config.yaml"), StandardCharsets.UTF_8).stream()
+                .map(line -> line.startsWith("populationData:") ? "populationData: " + this.input : line)
+                .map(line -> line.startsWith("mutationRate:") ? "mutationRate: " + mutationRate : line)
+                .collect(Collectors.toList());
+        Files.write(this.configPath, config, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the input and moves its modification time forward, so the change is seen on coarse file clocks.
+     */
+    private void writeInput(List<String> lines) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(this.input);
+        Files.write(this.input, lines, StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(this.input, FileTime.fromMillis(modified.toMillis() + 2000));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.genetics.team.selection.configuration;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class RosterRegistryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    // Every load exceeds the budget, so every load evicts the rosters which are not in use
+    private final RosterRegistry registry = new RosterRegistry(0, null);
+
+    @Before
+    public void setUp() throws IOException {
+        for (String unit : new String[]{"A", "B", "C"}) {
+            this.registry.register(unit, writeUnit(unit).toString());
+        }
+    }
+
+    @Test
+    public void rostersInUseAreNotEvicted() throws IOException {
+        EngineState a = this.registry.acquire("A");
+        long footprint = this.registry.getMemoryUsage();
+        this.registry.get("B");
+        assertTrue(this.registry.isLoaded("A"));
+        assertTrue(this.registry.isLoaded("B"));
+        assertEquals(2 * footprint, this.registry.getMemoryUsage());
+
+        this.registry.release(a);
+        this.registry.get("C");
+        assertFalse(this.registry.isLoaded("A"));
+        assertFalse(this.registry.isLoaded("B"));
+        assertEquals(footprint, this.registry.getMemoryUsage());
+    }
+
+    @Test
+    public void replacedRosterCountsUntilReleased() throws IOException {
+        EngineState first = this.registry.acquire("A");
+        EngineState second = this.registry.acquire("A");
+        long footprint = this.registry.getMemoryUsage();
+        Path input = this.folder.getRoot().toPath().resolve("A.csv");
+        Files.setLastModifiedTime(input, FileTime.fromMillis(Files.getLastModifiedTime(input).toMillis() + 2000));
+
+        EngineState reloaded = this.registry.get("A");
+        assertNotSame(first.getRoster(), reloaded.getRoster());
+        assertEquals(2 * footprint, this.registry.getMemoryUsage());
+        this.registry.release(first);
+        assertEquals(2 * footprint, this.registry.getMemoryUsage());
+        this.registry.release(second);
+        assertEquals(footprint, this.registry.getMemoryUsage());
+    }
+
+    @Test
+    public void unregisterFreesTheRoster() throws IOException {
+        this.registry.get("A");
+        this.registry.unregister("A");
+        assertEquals(0, this.registry.getMemoryUsage());
+    }
+
+    /**
+     * Writes the config file and the input of a unit, based on the default configuration and sample input.
+     */
+    private Path writeUnit(String unit) throws IOException {
+        Path input = this.folder.getRoot().toPath().resolve(unit + ".csv");
+        Files.copy(Paths.get("src/main/resources/sample_input.csv"), input);
+        List<String> config = Files.readAllLines(Paths.get("config.yaml"), StandardCharsets.UTF_8).stream()
+                .map(line -> line.startsWith("populationData:") ? "populationData: " + input : line)
+                .collect(Collectors.toList());
+        Path configPath = this.folder.getRoot().toPath().resolve(unit + ".yaml");
+        Files.write(configPath, config, StandardCharsets.UTF_8);
+        return configPath;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.roster;
+
+import org.genetics.team.selection.beans.Employee;
+import org.genetics.team.selection.configuration.Configuration;
+import org.genetics.team.selection.configuration.ConfigurationManager;
+import org.genetics.team.selection.util.InputProcessor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapRosterTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+    private static final List<String> ATTRIBUTES = Arrays.asList("EXPERIENCE", "PERFORMANCE", "PROFESSIONAL");
+
+    @Test
+    public void employeesMatchTheHeapRoster() {
+        Random random = new Random(3);
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        Map<String, List<Employee>> employees = new HashMap<>();
+        // More employees than the initial buffers hold, with names of multi-byte characters
+        for (int id = 1; id <= 5000; ++id) {
+            String type = TYPES[random.nextInt(TYPES.length)];
+            String name = "Employee " + id + (id % 7 == 0 ? " \u00e9\u4e2d" : "");
+            int[] values = {random.nextInt(100), random.nextInt(100), -random.nextInt(100)};
+            builder.add(id, type, name, values);
+            Employee employee = new Employee(id, type, name);
+            Map<String, Integer> attributeValues = new HashMap<>();
+            for (int a = 0; a < ATTRIBUTES.size(); ++a) {
+                attributeValues.put(ATTRIBUTES.get(a), values[a]);
+            }
+            employee.setAttributeValues(attributeValues);
+            employee.setOrdinal(id - 1);
+            employees.computeIfAbsent(type, t -> new ArrayList<>()).add(employee);
+        }
+        assertSameEmployees(new Roster(employees).getSnapshot(), builder.build());
+    }
+
+    @Test
+    public void ordinalsFollowTheTypePartitions() {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        builder.add(1, "QA", "A", new int[]{1, 1, 1});
+        builder.add(2, "ENGINEER", "B", new int[]{2, 2, 2});
+        builder.add(3, "QA", "C", new int[]{3, 3, 3});
+        builder.add(4, "BA", "D", new int[]{4, 4, 4});
+        builder.add(5, "ENGINEER", "E", new int[]{5, 5, 5});
+        OffHeapRoster roster = builder.build();
+
+        int[] ids = new int[roster.getCapacity()];
+        for (int ordinal = 0; ordinal < ids.length; ++ordinal) {
+            ids[ordinal] = roster.getId(ordinal);
+            assertEquals(ordinal, roster.getEmployee(ordinal).getOrdinal());
+        }
+        assertArrayEquals(new int[]{1, 3, 2, 5, 4}, ids);
+        assertEquals("ENGINEER", roster.getType(3));
+        assertEquals(5, roster.size());
+        assertNull(roster.getType(5));
+        assertNull(roster.getEmployee(-1));
+        assertTrue(roster.getOffHeapSize() > 0);
+    }
+
+    @Test
+    public void inputReadOffHeapMatchesTheHeapInput() throws IOException {
+        Configuration configuration = ConfigurationManager.loadConfiguration("config.yaml");
+        InputProcessor processor = InputProcessor.getInputProcessor(configuration);
+        String path = "src/main/resources/sample_input.csv";
+        Map<String, List<Employee>> population = processor.readPopulation(path);
+        assertSameEmployees(new Roster(population).getSnapshot(), processor.readOffHeapRoster(path));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownAttributesAreRejected() {
+        OffHeapRoster.Builder builder = new OffHeapRoster.Builder(ATTRIBUTES);
+        builder.add(1, "QA", "A", new int[]{1, 1, 1});
+        builder.build().getAttribute(0, "SALARY");
+    }
+
+    /**
+     * Checks that both rosters hold the same employees, matched by id.
+     */
+    private static void assertSameEmployees(RosterAccessor expected, RosterAccessor actual) {
+        assertEquals(expected.size(), actual.size());
+        Map<Integer, Integer> ordinals = new HashMap<>();
+        for (int ordinal = 0; ordinal < actual.getCapacity(); ++ordinal) {
+            ordinals.put(actual.getId(ordinal), ordinal);
+        }
+        for (int ordinal = 0; ordinal < expected.getCapacity(); ++ordinal) {
+            Employee employee = expected.getEmployee(ordinal);
+            int other = ordinals.get(employee.getId());
+            Employee copy = actual.getEmployee(other);
+            assertEquals(employee.getEmployeeType(), actual.getType(other));
+            assertEquals(employee.getEmployeeType(), copy.getEmployeeType());
+            assertEquals(employee.getName(), copy.getName());
+            assertEquals(employee.getAttributeValues(), copy.getAttributeValues());
+            for (String attribute : ATTRIBUTES) {
+                assertEquals(expected.getAttribute(ordinal, attribute), actual.getAttribute(other, attribute));
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Madawa Soysa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.genetics.team.selection.roster;
+
+import org.genetics.team.selection.beans.Employee;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RosterTest {
+    private static final String[] TYPES = {"ENGINEER", "QA", "BA"};
+
+    @Test
+    public void olderSnapshotsAreNotAffectedByUpdates() {
+        Roster roster = roster(30);
+        RosterSnapshot older = roster.getSnapshot();
+        Employee original = older.getEmployee(4);
+
+        roster.apply(Arrays.asList(employee(5, "QA", 9), employee(31, "BA", 1)), Collections.singletonList(7));
+
+        assertSame(original, older.getEmployee(4));
+        assertEquals(1, older.getAttribute(4, "EXPERIENCE"));
+        assertEquals(30, older.size());
+        assertEquals(30, older.getCapacity());
+        assertEquals(10, older.getCount("QA"));
+        assertEquals(7, older.getId(6));
+        RosterSnapshot latest = roster.getSnapshot();
+        assertEquals(9, latest.getAttribute(4, "EXPERIENCE"));
+        assertEquals("QA", latest.getType(4));
+        assertNull(latest.getEmployee(6));
+        assertEquals(30, latest.size());
+        assertEquals(31, latest.getCapacity());
+        assertEquals(older.getVersion() + 1, latest.getVersion());
+    }
+
+    @Test
+    public void updatesCopyTheChangedChunksOnly() {
+        Roster roster = roster(3 * RosterSnapshot.CHUNK_SIZE);
+        RosterSnapshot older = roster.getSnapshot();
+        RosterSnapshot latest = roster.update(employee(RosterSnapshot.CHUNK_SIZE + 1, "ENGINEER", 3));
+
+        assertSame(older.getChunks()[0], latest.getChunks()[0]);
+        assertNotSame(older.getChunks()[1], latest.getChunks()[1]);
+        assertSame(older.getChunks()[2], latest.getChunks()[2]);
+    }
+
+    @Test
+    public void changesSinceCoversTheVersionsInBetween() {
+        Roster roster = roster(30);
+        RosterSnapshot first = roster.getSnapshot();
+        roster.update(employee(3, "ENGINEER", 2));
+        RosterSnapshot second = roster.remove(10);
+        RosterSnapshot third = roster.add(employee(40, "BA", 2));
+
+        assertArrayEquals(new int[0], third.changesSince(third));
+        assertArrayEquals(new int[]{30}, third.changesSince(second));
+        assertArrayEquals(new int[]{2, 9, 30}, third.changesSince(first));
+        // Ordinals of removed employees are not reused
+        assertEquals(30, third.getEmployee(30).getOrdinal());
+        assertNull(second.changesSince(third));
+        assertNull(third.changesSince(roster(30).getSnapshot()));
+    }
+
+    @Test
+    public void changesSinceAVersionNoLongerLoggedAreUnknown() {
+        Roster roster = roster(30);
+        RosterSnapshot first = roster.getSnapshot();
+        RosterSnapshot recent = first;
+        for (int i = 0; i < 300; ++i) {
+            RosterSnapshot latest = roster.update(employee(1 + i % 30, TYPES[i % 3], i));
+            if (i == 250) {
+                recent = latest;
+            }
+        }
+        assertNull(roster.getSnapshot().changesSince(first));
+        assertEquals(49, roster.getSnapshot().changesSince(recent).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void employeesChangedTwiceInABatchAreRejected() {
+        roster(30).apply(Collections.singletonList(employee(5, "QA", 1)), Collections.singletonList(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void removingAnUnknownEmployeeIsRejected() {
+        roster(30).remove(31);
+    }
+
+    /**
+     * Creates a roster of the given number of employees of rotating types, with an experience of 1 each.
+     */
+    private static Roster roster(int size) {
+        Map<String, List<Employee>> employees = new HashMap<>();
+        for (int id = 1; id <= size; ++id) {
+            Employee employee = employee(id, TYPES[id % 3], 1);
+            employee.setOrdinal(id - 1);
+            employees.computeIfAbsent(employee.getEmployeeType(), type -> new ArrayList<>()).add(employee);
+        }
+        return new Roster(employees);
+    }
+
+    private static Employee employee(int id, String type, int experience) {
+        Employee employee = new Employee(id, type, "Employee " + id);
+        Map<String, Integer> values = new HashMap<>();
+        values.put("EXPERIENCE", experience);
+        employee.setAttributeValues(values);
+        return employee;
+    }
+}